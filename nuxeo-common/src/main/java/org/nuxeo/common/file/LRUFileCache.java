@@ -28,8 +28,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Pattern;
@@ -44,6 +48,10 @@ import org.apache.commons.logging.LogFactory;
  * Cache entries that are old enough and whose size makes the cache bigger than its maximum size are deleted.
  * <p>
  * The cache keys are restricted to a subset of ASCII: letters, digits and dashes. Usually a MD5 or SHA1 hash is used.
+ * <p>
+ * The size and access time of each entry are kept in an in-memory index, built once from the directory when the cache
+ * is constructed, so that sizing and eviction never need to list the directory. Access to a given key is protected by
+ * one of a fixed set of locks, so that operations on unrelated keys don't contend.
  */
 public class LRUFileCache implements FileCache {
 
@@ -59,23 +67,50 @@ public class LRUFileCache implements FileCache {
     // not final for tests
     public static long CLEAR_OLD_ENTRIES_INTERVAL_MILLIS = 5000; // 5 s
 
+    /**
+     * Number of locks among which the keys are distributed.
+     *
+     * @since 8.3
+     */
+    protected static final int LOCK_STRIPES = 64;
+
+    /**
+     * Index entry for a cached file.
+     *
+     * @since 8.3
+     */
+    protected static class Entry {
+
+        protected final long size;
+
+        protected volatile long time;
+
+        public Entry(long size, long time) {
+            this.size = size;
+            this.time = time;
+        }
+    }
+
+    /**
+     * Snapshot of an index entry used during eviction, ordered by access time (least recent first).
+     */
     protected static class PathInfo implements Comparable<PathInfo> {
 
-        protected final Path path;
+        protected final String key;
 
-        protected final long time;
+        protected final Entry entry;
 
-        protected final long size;
+        protected final long time;
 
-        public PathInfo(Path path) throws IOException {
-            this.path = path;
-            this.time = Files.getLastModifiedTime(path).toMillis();
-            this.size = Files.size(path);
+        public PathInfo(String key, Entry entry) {
+            this.key = key;
+            this.entry = entry;
+            this.time = entry.time;
         }
 
         @Override
         public int compareTo(PathInfo other) {
-            return Long.compare(other.time, time); // compare in reverse order (most recent first)
+            return Long.compare(time, other.time);
         }
     }
 
@@ -87,12 +122,32 @@ public class LRUFileCache implements FileCache {
 
     protected final long minAgeMillis;
 
+    /** @since 8.3 */
+    protected final ConcurrentMap<String, Entry> index = new ConcurrentHashMap<>();
+
+    /** @since 8.3 */
+    protected final AtomicLong size = new AtomicLong();
+
+    /** @since 8.3 */
+    protected final Lock[] locks = new Lock[LOCK_STRIPES];
+
+    /** @since 8.3 */
+    protected final AtomicLong hitCount = new AtomicLong();
+
+    /** @since 8.3 */
+    protected final AtomicLong missCount = new AtomicLong();
+
+    /** @since 8.3 */
+    protected final AtomicLong evictionCount = new AtomicLong();
+
     protected Lock clearOldEntriesLock = new ReentrantLock();
 
     protected long clearOldEntriesLast;
 
     /**
      * Constructs a cache in the given directory with the given maximum size (in bytes).
+     * <p>
+     * Files already present in the directory are added to the cache.
      *
      * @param dir the directory to use to store cached files
      * @param maxSize the maximum size of the cache (in bytes)
@@ -104,6 +159,10 @@ public class LRUFileCache implements FileCache {
         this.maxSize = maxSize;
         this.maxCount = maxCount;
         this.minAgeMillis = minAge * 1000;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        buildIndex();
     }
 
     /**
@@ -126,40 +185,95 @@ public class LRUFileCache implements FileCache {
         }
     }
 
-    @Override
-    public long getSize() {
-        long size = 0;
+    /**
+     * Builds the index from the files present in the directory.
+     *
+     * @since 8.3
+     */
+    protected void buildIndex() {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
         try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, RegularFileFilter.INSTANCE)) {
             for (Path path : ds) {
-                size += Files.size(path);
+                String key = path.getFileName().toString();
+                if (!SIMPLE_ASCII.matcher(key).matches()) {
+                    continue;
+                }
+                try {
+                    long length = Files.size(path);
+                    index.put(key, new Entry(length, Files.getLastModifiedTime(path).toMillis()));
+                    size.addAndGet(length);
+                } catch (IOException e) {
+                    log.error(e, e);
+                }
             }
         } catch (IOException e) {
             log.error(e, e);
         }
-        return size;
+        if (log.isDebugEnabled()) {
+            log.debug("Indexed " + index.size() + " files (" + size.get() + " bytes) in cache directory: " + dir);
+        }
+    }
+
+    protected Lock getLock(String key) {
+        return locks[(key.hashCode() & Integer.MAX_VALUE) % LOCK_STRIPES];
+    }
+
+    @Override
+    public long getSize() {
+        return size.get();
     }
 
     @Override
     public int getNumberOfItems() {
-        int count = 0;
-        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, RegularFileFilter.INSTANCE)) {
-            for (Path path : ds) {
-                count++;
-            }
-        } catch (IOException e) {
-            log.error(e, e);
-        }
-        return count;
+        return index.size();
+    }
+
+    /**
+     * Gets the number of {@link #getFile} calls that found the file in the cache.
+     *
+     * @since 8.3
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Gets the number of {@link #getFile} calls that didn't find the file in the cache.
+     *
+     * @since 8.3
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Gets the number of files removed from the cache to keep it within its maximum size and count.
+     *
+     * @since 8.3
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
     }
 
     @Override
     public void clear() {
         try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, RegularFileFilter.INSTANCE)) {
             for (Path path : ds) {
+                String key = path.getFileName().toString();
+                Lock lock = getLock(key);
+                lock.lock();
                 try {
                     Files.delete(path);
+                    Entry entry = index.remove(key);
+                    if (entry != null) {
+                        size.addAndGet(-entry.size);
+                    }
                 } catch (IOException e) {
                     log.error(e, e);
+                } finally {
+                    lock.unlock();
                 }
             }
         } catch (IOException e) {
@@ -167,10 +281,24 @@ public class LRUFileCache implements FileCache {
         }
     }
 
+    /**
+     * Checks if the cache is bigger than its maximum size or count.
+     *
+     * @since 8.3
+     */
+    protected boolean isOverLimits() {
+        return size.get() > maxSize || index.size() > maxCount;
+    }
+
     /**
      * Clears cache entries if they are old enough and their size makes the cache bigger than its maximum size.
+     * <p>
+     * Only one thread does the clearing, the others return immediately.
      */
     protected void clearOldEntries() {
+        if (!isOverLimits()) {
+            return;
+        }
         if (clearOldEntriesLock.tryLock()) {
             try {
                 if (System.currentTimeMillis() > clearOldEntriesLast + CLEAR_OLD_ENTRIES_INTERVAL_MILLIS) {
@@ -185,39 +313,38 @@ public class LRUFileCache implements FileCache {
         // else don't do anything, another thread is already clearing old entries
     }
 
+    /**
+     * Removes the least recently used entries that are old enough, until the cache is within its maximum size and
+     * count.
+     */
     protected void doClearOldEntries() {
-        List<PathInfo> files = new ArrayList<>();
-        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, RegularFileFilter.INSTANCE)) {
-            for (Path path : ds) {
-                try {
-                    files.add(new PathInfo(path));
-                } catch (IOException e) {
-                    log.error(e, e);
-                }
-            }
-        } catch (IOException e) {
-            log.error(e, e);
+        List<PathInfo> infos = new ArrayList<>(index.size());
+        for (Map.Entry<String, Entry> es : index.entrySet()) {
+            infos.add(new PathInfo(es.getKey(), es.getValue()));
         }
-        Collections.sort(files); // sort by most recent first
-
-        long size = 0;
-        long count = 0;
+        // heap construction is linear, we only pay for the entries actually removed
+        PriorityQueue<PathInfo> queue = new PriorityQueue<>(infos);
         long threshold = System.currentTimeMillis() - minAgeMillis;
-        for (PathInfo pi : files) {
-            size += pi.size;
-            count++;
-            if (pi.time < threshold) {
-                // old enough to be candidate
-                if (size > maxSize || count > maxCount) {
-                    // delete file
-                    try {
-                        Files.delete(pi.path);
-                        size -= pi.size;
-                        count--;
-                    } catch (IOException e) {
-                        log.error(e, e);
-                    }
+        while (isOverLimits() && !queue.isEmpty()) {
+            PathInfo pi = queue.poll();
+            if (pi.time >= threshold) {
+                // this one and all the following ones are too recent
+                break;
+            }
+            Lock lock = getLock(pi.key);
+            lock.lock();
+            try {
+                if (pi.entry.time != pi.time || !index.remove(pi.key, pi.entry)) {
+                    // accessed or replaced since the snapshot
+                    continue;
                 }
+                size.addAndGet(-pi.entry.size);
+                evictionCount.incrementAndGet();
+                Files.deleteIfExists(dir.resolve(pi.key));
+            } catch (IOException e) {
+                log.error(e, e);
+            } finally {
+                lock.unlock();
             }
         }
     }
@@ -245,8 +372,9 @@ public class LRUFileCache implements FileCache {
             // check the cache
             checkKey(key);
             Path path = dir.resolve(key);
-            if (Files.exists(path)) {
-                recordAccess(path);
+            Entry entry = index.get(key);
+            if (entry != null) {
+                recordAccess(path, entry);
                 return path.toFile();
             }
 
@@ -273,38 +401,82 @@ public class LRUFileCache implements FileCache {
         // put file in cache
         checkKey(key);
         Path path = dir.resolve(key);
+        boolean added = false;
+        Lock lock = getLock(key);
+        lock.lock();
         try {
-            Files.move(source, path);
-            recordAccess(path);
-            clearOldEntries();
-        } catch (FileAlreadyExistsException faee) {
-            // already something there
-            recordAccess(path);
-            // remove unused tmp file
-            try {
-                Files.delete(source);
-            } catch (IOException e) {
-                log.error(e, e);
+            Entry entry = index.get(key);
+            if (entry == null) {
+                try {
+                    Files.move(source, path);
+                } catch (FileAlreadyExistsException faee) {
+                    // already something there, not indexed
+                    deleteQuietly(source);
+                }
+                long length = Files.size(path);
+                entry = new Entry(length, System.currentTimeMillis());
+                index.put(key, entry);
+                size.addAndGet(length);
+                added = true;
+            } else {
+                // remove unused tmp file
+                deleteQuietly(source);
             }
+            recordAccess(path, entry);
+        } finally {
+            lock.unlock();
+        }
+        if (added) {
+            clearOldEntries();
         }
         return path.toFile();
     }
 
+    protected void deleteQuietly(Path path) {
+        try {
+            Files.delete(path);
+        } catch (IOException e) {
+            log.error(e, e);
+        }
+    }
+
     @Override
     public File getFile(String key) {
         checkKey(key);
         Path path = dir.resolve(key);
+        Entry entry = index.get(key);
+        if (entry == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
         if (!Files.exists(path)) {
+            // deleted behind our back, forget it
+            Lock lock = getLock(key);
+            lock.lock();
+            try {
+                if (index.remove(key, entry)) {
+                    size.addAndGet(-entry.size);
+                }
+            } finally {
+                lock.unlock();
+            }
+            missCount.incrementAndGet();
             return null;
         }
-        recordAccess(path);
+        hitCount.incrementAndGet();
+        recordAccess(path, entry);
         return path.toFile();
     }
 
-    /** Records access to a file by changing its modification time. */
-    protected void recordAccess(Path path) {
+    /**
+     * Records access to a file in the index, and by changing its modification time so that the index built after a
+     * restart keeps the same order.
+     */
+    protected void recordAccess(Path path, Entry entry) {
+        long now = System.currentTimeMillis();
+        entry.time = now;
         try {
-            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            Files.setLastModifiedTime(path, FileTime.fromMillis(now));
         } catch (IOException e) {
             log.error(e, e);
         }
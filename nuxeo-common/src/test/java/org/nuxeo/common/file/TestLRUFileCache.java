@@ -154,4 +154,63 @@ public class TestLRUFileCache {
         assertEquals(0, cache.getNumberOfItems());
     }
 
+    @Test
+    public void testLRUFileCacheIndex() throws Exception {
+        LRUFileCache cache = new LRUFileCache(dir, 100, 9999, 0);
+        byte[] buf = new byte[30];
+        cache.putFile("1", new ByteArrayInputStream(buf));
+        Thread.sleep(1000);
+        cache.putFile("2", new ByteArrayInputStream(buf));
+        Thread.sleep(1000);
+        cache.putFile("3", new ByteArrayInputStream(buf));
+        assertNotNull(cache.getFile("1")); // 1 is now the most recently used
+        assertNull(cache.getFile("4"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, cache.getEvictionCount());
+
+        // new cache on the same directory rebuilds its index from the files
+        cache = new LRUFileCache(dir, 100, 9999, 0);
+        assertEquals(3, cache.getNumberOfItems());
+        assertEquals(90, cache.getSize());
+
+        Thread.sleep(1000);
+        cache.putFile("4", new ByteArrayInputStream(buf));
+        assertEquals(3, cache.getNumberOfItems());
+        assertEquals(90, cache.getSize());
+        assertEquals(90, getDirSize());
+        assertEquals(1, cache.getEvictionCount());
+        // least recently used was evicted
+        assertTrue(new File(dir, "1").exists());
+        assertFalse(new File(dir, "2").exists());
+        assertTrue(new File(dir, "3").exists());
+        assertTrue(new File(dir, "4").exists());
+        assertNull(cache.getFile("2"));
+    }
+
+    @Test
+    public void testLRUFileCacheMissingFile() throws Exception {
+        LRUFileCache cache = new LRUFileCache(dir, 100, 9999, 0);
+        byte[] buf = new byte[30];
+        cache.putFile("1", new ByteArrayInputStream(buf));
+        cache.putFile("2", new ByteArrayInputStream(buf));
+        assertEquals(60, cache.getSize());
+
+        // file deleted outside of the cache
+        assertTrue(new File(dir, "1").delete());
+        assertNull(cache.getFile("1"));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        // its entry is forgotten
+        assertEquals(1, cache.getNumberOfItems());
+        assertEquals(30, cache.getSize());
+        assertNull(cache.getFile("1"));
+        assertEquals(2, cache.getMissCount());
+
+        // and can be put again
+        cache.putFile("1", new ByteArrayInputStream(buf));
+        assertNotNull(cache.getFile("1"));
+        assertEquals(60, cache.getSize());
+    }
+
 }
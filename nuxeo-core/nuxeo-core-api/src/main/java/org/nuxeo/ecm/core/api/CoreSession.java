@@ -1074,6 +1074,43 @@ public interface CoreSession extends AutoCloseable {
      */
     IterableQueryResult queryAndFetch(String query, String queryType, boolean distinctDocuments, Object... params);
 
+    /**
+     * Opens a scroll on the documents matching the given NXQL query and returns the first batch of document ids.
+     * <p>
+     * Unlike paging with a limit and an offset, each batch is retrieved in constant time and the scroll does not hold
+     * any connection or cursor tied to this session between batches, so it can be used to walk very large result sets
+     * (reindexing, bulk exports, migrations). The order of the results is not specified, any {@code ORDER BY} of the
+     * query is ignored. No security check is done, so this is reserved to administrators.
+     *
+     * @param query the NXQL query to execute
+     * @param batchSize the maximum number of ids to return in each batch
+     * @param keepAliveSeconds the number of seconds after which the scroll is closed if no next batch is requested
+     * @return the first batch of ids, and the scroll id to use to retrieve the next ones
+     * @since 8.3
+     */
+    ScrollResult scroll(String query, int batchSize, int keepAliveSeconds);
+
+    /**
+     * Gets the next batch of document ids of a scroll opened by {@link #scroll(String, int, int)}.
+     * <p>
+     * The scroll is closed automatically once an empty batch is returned.
+     *
+     * @param scrollId the scroll id
+     * @return the next batch of ids, which is empty if there are no more results
+     * @since 8.3
+     */
+    ScrollResult scroll(String scrollId);
+
+    /**
+     * Closes a scroll before it is exhausted, releasing the associated server-side resources.
+     * <p>
+     * Closing an unknown or already closed scroll does nothing.
+     *
+     * @param scrollId the scroll id
+     * @since 8.3
+     */
+    void closeScroll(String scrollId);
+
     /** -------------------------- Security API --------------------------- * */
 
     /**
@@ -0,0 +1,63 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.api;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A batch of document ids returned by a scroll, with the scroll id needed to fetch the next batch.
+ * <p>
+ * An empty batch means that the scroll is exhausted, in which case it has already been closed server-side.
+ *
+ * @see CoreSession#scroll(String, int, int)
+ * @see CoreSession#scroll(String)
+ * @since 8.3
+ */
+public class ScrollResult implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected final String scrollId;
+
+    protected final List<String> resultIds;
+
+    public ScrollResult(String scrollId, List<String> resultIds) {
+        this.scrollId = scrollId;
+        this.resultIds = resultIds;
+    }
+
+    public static ScrollResult emptyResult(String scrollId) {
+        return new ScrollResult(scrollId, Collections.<String> emptyList());
+    }
+
+    public String getScrollId() {
+        return scrollId;
+    }
+
+    public List<String> getResultIds() {
+        return resultIds;
+    }
+
+    public boolean hasResults() {
+        return !resultIds.isEmpty();
+    }
+
+}
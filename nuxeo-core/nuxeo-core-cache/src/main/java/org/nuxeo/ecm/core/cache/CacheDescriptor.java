@@ -103,6 +103,13 @@ public class CacheDescriptor {
         if (cacheChecker == null) {
             return;
         }
+        if (cacheChecker.cache instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) cacheChecker.cache).close();
+            } catch (Exception e) {
+                throw new NuxeoException("Failed to close cache " + name, e);
+            }
+        }
         cacheChecker.cache = null;
         cacheChecker = null;
     }
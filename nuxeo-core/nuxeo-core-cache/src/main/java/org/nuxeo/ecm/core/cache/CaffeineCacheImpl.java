@@ -0,0 +1,233 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * In memory cache implementation based on Caffeine, whose eviction policy uses W-TinyLFU admission, giving better hit
+ * rates than the LRU of {@link InMemoryCacheImpl} for the usual skewed access patterns.
+ * <p>
+ * Options:
+ * <ul>
+ * <li>{@code maxSize}: the maximum number of entries,
+ * <li>{@code maxWeight}: the maximum size in bytes of the cached values. The values are then kept serialized, which
+ * replaces large object graphs by a single array and reduces the old generation churn. Takes precedence over
+ * {@code maxSize},
+ * <li>{@code offHeap}: if {@code true}, the serialized values are stored in direct buffers outside of the Java heap
+ * (see {@code -XX:MaxDirectMemorySize}). Only used with {@code maxWeight}.
+ * </ul>
+ * Hits, misses, evictions and size are published as gauges {@code nuxeo.cache.<name>.*} to the metrics registry.
+ *
+ * @since 8.3
+ */
+public class CaffeineCacheImpl extends AbstractCache {
+
+    private static final Log log = LogFactory.getLog(CaffeineCacheImpl.class);
+
+    public static final String MAX_SIZE_OPTION = "maxSize";
+
+    public static final String MAX_WEIGHT_OPTION = "maxWeight";
+
+    public static final String OFF_HEAP_OPTION = "offHeap";
+
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    protected final com.github.benmanes.caffeine.cache.Cache<String, Object> cache;
+
+    /** Whether the values are stored serialized, as {@code byte[]} or as a direct {@link ByteBuffer}. */
+    protected final boolean serialized;
+
+    protected final boolean offHeap;
+
+    public CaffeineCacheImpl(CacheDescriptor desc) {
+        super(desc);
+        Caffeine<Object, Object> builder = Caffeine.newBuilder();
+        builder.expireAfterWrite(desc.ttl, TimeUnit.MINUTES);
+        // run maintenance in the calling thread instead of the common fork/join pool
+        builder.executor(Runnable::run);
+        builder.recordStats();
+        String maxWeight = desc.options.get(MAX_WEIGHT_OPTION);
+        String maxSize = desc.options.get(MAX_SIZE_OPTION);
+        if (maxWeight != null) {
+            serialized = true;
+            offHeap = Boolean.parseBoolean(desc.options.get(OFF_HEAP_OPTION));
+            builder.maximumWeight(Long.parseLong(maxWeight)).weigher(CaffeineCacheImpl::weigh);
+        } else {
+            serialized = false;
+            offHeap = false;
+            if (maxSize != null) {
+                builder.maximumSize(Long.parseLong(maxSize));
+            }
+        }
+        cache = builder.build();
+        createMetricsGauges();
+    }
+
+    protected static int weigh(String key, Object value) {
+        int size = value instanceof ByteBuffer ? ((ByteBuffer) value).capacity() : ((byte[]) value).length;
+        return 2 * key.length() + size;
+    }
+
+    protected String metricName(String metric) {
+        return MetricRegistry.name("nuxeo", "cache", name, metric);
+    }
+
+    protected void createMetricsGauges() {
+        String gaugeName = metricName("hits");
+        registry.remove(gaugeName);
+        registry.register(gaugeName, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return Long.valueOf(cache.stats().hitCount());
+            }
+        });
+        gaugeName = metricName("misses");
+        registry.remove(gaugeName);
+        registry.register(gaugeName, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return Long.valueOf(cache.stats().missCount());
+            }
+        });
+        gaugeName = metricName("evictions");
+        registry.remove(gaugeName);
+        registry.register(gaugeName, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return Long.valueOf(cache.stats().evictionCount());
+            }
+        });
+        gaugeName = metricName("size");
+        registry.remove(gaugeName);
+        registry.register(gaugeName, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return Long.valueOf(cache.estimatedSize());
+            }
+        });
+    }
+
+    /**
+     * Gets the underlying Caffeine cache, whose values are serialized if the {@code maxWeight} option is used.
+     */
+    public com.github.benmanes.caffeine.cache.Cache<String, Object> getCaffeineCache() {
+        return cache;
+    }
+
+    protected Object toStored(Serializable value) {
+        if (!serialized) {
+            return value;
+        }
+        ByteArrayOutputStream baout = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(baout)) {
+            out.writeObject(value);
+        } catch (IOException e) {
+            throw new NuxeoException("Cannot serialize value for cache: " + name, e);
+        }
+        byte[] bytes = baout.toByteArray();
+        if (!offHeap) {
+            return bytes;
+        }
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes.length);
+        buffer.put(bytes);
+        return buffer;
+    }
+
+    protected Serializable fromStored(Object stored) {
+        if (stored == null || !serialized) {
+            return (Serializable) stored;
+        }
+        byte[] bytes;
+        if (stored instanceof ByteBuffer) {
+            // duplicate to have an independent position, the buffer may be read concurrently
+            ByteBuffer buffer = ((ByteBuffer) stored).duplicate();
+            buffer.rewind();
+            bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+        } else {
+            bytes = (byte[]) stored;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes))) {
+            return (Serializable) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new NuxeoException("Cannot deserialize value for cache: " + name, e);
+        }
+    }
+
+    @Override
+    public Serializable get(String key) {
+        if (key == null) {
+            return null;
+        }
+        return fromStored(cache.getIfPresent(key));
+    }
+
+    @Override
+    public Set<String> keySet() {
+        return cache.asMap().keySet();
+    }
+
+    @Override
+    public void invalidate(String key) {
+        if (key != null) {
+            cache.invalidate(key);
+        } else {
+            log.warn(String.format("Can't invalidate a null key for the cache '%s'!", name));
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void put(String key, Serializable value) {
+        if (key != null && value != null) {
+            cache.put(key, toStored(value));
+        } else {
+            log.warn(String.format("Can't put a null key nor a null value in the cache '%s'!", name));
+        }
+    }
+
+    @Override
+    public boolean hasEntry(String key) {
+        return cache.asMap().containsKey(key);
+    }
+
+}
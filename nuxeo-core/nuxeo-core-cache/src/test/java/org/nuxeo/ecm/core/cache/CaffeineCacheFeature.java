@@ -0,0 +1,37 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ *
+ */
+
+package org.nuxeo.ecm.core.cache;
+
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.test.runner.LocalDeploy;
+import org.nuxeo.runtime.test.runner.SimpleFeature;
+
+@Features(CacheFeature.class)
+@LocalDeploy("org.nuxeo.ecm.core.cache:caffeine-cache-config.xml")
+public class CaffeineCacheFeature extends SimpleFeature {
+
+    @Override
+    public void initialize(FeaturesRunner runner) throws Exception {
+        runner.getFeature(CacheFeature.class).enable();
+    }
+
+}
@@ -27,7 +27,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
@@ -38,15 +38,18 @@ import org.nuxeo.ecm.core.work.api.WorkQueueMetrics;
 /**
  * Memory-based {@link BlockingQueue}.
  * <p>
+ * Work instances are taken by decreasing {@link Work#getPriority priority}, then in scheduling order.
+ * <p>
  * In addition, this implementation also keeps a set of {@link Work} ids in the queue when the queue elements are
  * {@link WorkHolder}s.
  */
 public class MemoryBlockingQueue extends NuxeoBlockingQueue {
 
     /**
-     * A {@link LinkedBlockingQueue} that blocks on {@link #offer} and prevents starvation deadlocks on reentrant calls.
+     * A {@link PriorityBlockingQueue} of {@link WorkHolder}s that blocks on {@link #offer} when its capacity is
+     * reached, and prevents starvation deadlocks on reentrant calls.
      */
-    private static class ReentrantLinkedBlockingQueue<T> extends LinkedBlockingQueue<T> {
+    private static class ReentrantPriorityBlockingQueue extends PriorityBlockingQueue<Runnable> {
 
         private static final long serialVersionUID = 1L;
 
@@ -55,37 +58,42 @@ public class MemoryBlockingQueue extends NuxeoBlockingQueue {
         private final int limitedCapacity;
 
         /**
-         * Creates a {@link LinkedBlockingQueue} with a maximum capacity.
+         * Creates a {@link PriorityBlockingQueue} with a maximum capacity.
          * <p>
-         * If the capacity is -1 then this is treated as a regular unbounded {@link LinkedBlockingQueue}.
+         * If the capacity is -1 then this is treated as a regular unbounded {@link PriorityBlockingQueue}.
          *
          * @param capacity the capacity, or -1 for unbounded
          */
-        public ReentrantLinkedBlockingQueue(int capacity) {
-            // Allocate more space to prevent starvation dead lock
-            // because a worker can add a new job to the queue.
-            super(capacity < 0 ? Integer.MAX_VALUE : (2 * capacity));
+        public ReentrantPriorityBlockingQueue(int capacity) {
+            super(11, WorkHolder.PRIORITY_ORDER);
             limitedCapacity = capacity;
         }
 
         /**
          * Block until there are enough remaining capacity to put the entry.
          */
-        public void limitedPut(T e) throws InterruptedException {
+        public void limitedPut(Runnable e) throws InterruptedException {
             limitedPutLock.lockInterruptibly();
             try {
-                while (remainingCapacity() < limitedCapacity) {
+                while (size() >= limitedCapacity) {
                     // TODO replace by wakeup when an element is removed
                     Thread.sleep(100);
                 }
-                put(e);
+                super.offer(e);
             } finally {
                 limitedPutLock.unlock();
             }
         }
 
+        /**
+         * Puts back an element replacing one just removed, without waiting for capacity.
+         */
+        public void reoffer(Runnable e) {
+            super.offer(e);
+        }
+
         @Override
-        public boolean offer(T e) {
+        public boolean offer(Runnable e) {
             if (limitedCapacity < 0) {
                 return super.offer(e);
             }
@@ -94,8 +102,8 @@ public class MemoryBlockingQueue extends NuxeoBlockingQueue {
                 if (Thread.currentThread()
                         .getName()
                         .startsWith(WorkManagerImpl.THREAD_PREFIX)) {
-                    // use the full queue capacity for reentrant call
-                    put(e);
+                    // don't block reentrant calls, a worker can add a new job to the queue
+                    return super.offer(e);
                 } else {
                     // put only if there are enough remaining capacity
                     limitedPut(e);
@@ -121,22 +129,24 @@ public class MemoryBlockingQueue extends NuxeoBlockingQueue {
     long runningCount;
     long completedCount;
     long cancelledCount;
+    long coalescedCount;
 
     /**
      * Creates a {@link BlockingQueue} with a maximum capacity.
      * <p>
-     * If the capacity is -1 then this is treated as a regular unbounded {@link LinkedBlockingQueue}.
+     * If the capacity is -1 then this is treated as a regular unbounded queue.
      *
      * @param capacity the capacity, or -1 for unbounded
      */
     public MemoryBlockingQueue(String id, MemoryWorkQueuing queuing, int capacity) {
         super(id, queuing);
-        queue = new ReentrantLinkedBlockingQueue<>(capacity);
+        queue = new ReentrantPriorityBlockingQueue(capacity);
     }
 
     @Override
     synchronized protected WorkQueueMetrics metrics() {
-        return new WorkQueueMetrics(queueId, scheduledCount, runningCount, completedCount, cancelledCount);
+        return new WorkQueueMetrics(queueId, scheduledCount, runningCount, completedCount, cancelledCount,
+                coalescedCount);
     }
 
     @Override
@@ -174,6 +184,7 @@ public class MemoryBlockingQueue extends NuxeoBlockingQueue {
     synchronized WorkQueueMetrics workSchedule(Work work) {
         String id = work.getId();
         if (scheduledWorks.contains(id)) {
+            coalesce(work);
             return metrics();
         }
         if (!offer(new WorkHolder(work))) {
@@ -185,6 +196,27 @@ public class MemoryBlockingQueue extends NuxeoBlockingQueue {
         return metrics();
     }
 
+    /**
+     * Merges a work into the scheduled one with the same id: the new instance replaces the pending one in a holder
+     * keeping its priority and sequence, and therefore its position in the queue. If the pending one has already been
+     * taken by a worker that has not started it yet, the new instance is dropped and not counted as coalesced.
+     */
+    protected void coalesce(Work work) {
+        String id = work.getId();
+        for (Runnable r : queue) {
+            if (id.equals(WorkHolder.getWork(r)
+                    .getId())) {
+                // the iterator is a snapshot, the holder may have been taken concurrently
+                if (queue.remove(r)) {
+                    ((ReentrantPriorityBlockingQueue) queue).reoffer(new WorkHolder(work, r));
+                    works.put(id, work);
+                    coalescedCount += 1;
+                }
+                break;
+            }
+        }
+    }
+
     synchronized WorkQueueMetrics workRunning(Work work) {
         String id = work.getId();
         scheduledWorks.remove(id);
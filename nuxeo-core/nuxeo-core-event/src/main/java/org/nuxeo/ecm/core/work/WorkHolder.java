@@ -18,7 +18,9 @@
  */
 package org.nuxeo.ecm.core.work;
 
+import java.util.Comparator;
 import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.nuxeo.ecm.core.work.api.Work;
 import org.nuxeo.runtime.trackers.concurrent.ThreadEvent;
@@ -37,10 +39,41 @@ import org.nuxeo.runtime.trackers.concurrent.ThreadEvent;
  */
 public class WorkHolder implements Runnable {
 
+    private static final AtomicLong SEQUENCE = new AtomicLong();
+
+    /**
+     * Orders holders by decreasing work priority, then by creation order.
+     *
+     * @since 8.3
+     */
+    public static final Comparator<Runnable> PRIORITY_ORDER = (r1, r2) -> {
+        WorkHolder h1 = (WorkHolder) r1;
+        WorkHolder h2 = (WorkHolder) r2;
+        int cmp = Integer.compare(h2.priority, h1.priority);
+        return cmp != 0 ? cmp : Long.compare(h1.sequence, h2.sequence);
+    };
+
     private final Work work;
 
+    private final int priority;
+
+    private final long sequence;
+
     public WorkHolder(Work work) {
         this.work = work;
+        priority = work.getPriority();
+        sequence = SEQUENCE.incrementAndGet();
+    }
+
+    /**
+     * Creates a holder for a work replacing the one of a previous holder, keeping its position in the queue.
+     *
+     * @since 8.3
+     */
+    public WorkHolder(Work work, Runnable previous) {
+        this.work = work;
+        priority = Math.max(work.getPriority(), ((WorkHolder) previous).priority);
+        sequence = ((WorkHolder) previous).sequence;
     }
 
     public static Work getWork(Runnable r) {
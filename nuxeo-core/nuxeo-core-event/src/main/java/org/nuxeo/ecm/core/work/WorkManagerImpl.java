@@ -63,6 +63,7 @@ import org.nuxeo.runtime.model.DefaultComponent;
 import org.nuxeo.runtime.transaction.TransactionHelper;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
 import com.codahale.metrics.Timer;
@@ -89,6 +90,9 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
 
     protected static final String THREAD_PREFIX = "Nuxeo-Work-";
 
+    /** Idle time after which a thread above the minimum pool size stops. */
+    protected static final long DYNAMIC_POOL_KEEP_ALIVE_SECONDS = 60;
+
     protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
 
     // @GuardedBy("itself")
@@ -208,8 +212,11 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
         if (executor == null) {
             ThreadFactory threadFactory = new NamedThreadFactory(THREAD_PREFIX + config.id + "-");
             int maxPoolSize = config.getMaxThreads();
-            executor = new WorkThreadPoolExecutor(maxPoolSize, maxPoolSize,
-                    0, TimeUnit.SECONDS,
+            int minPoolSize = config.getMinThreads();
+            // threads above the minimum are released after being idle for a while
+            long keepAliveTime = minPoolSize == maxPoolSize ? 0 : DYNAMIC_POOL_KEEP_ALIVE_SECONDS;
+            executor = new WorkThreadPoolExecutor(minPoolSize, maxPoolSize,
+                    keepAliveTime, TimeUnit.SECONDS,
                     queue, threadFactory);
             // prestart all core threads so that direct additions to the queue
             // (from another Nuxeo instance) can be seen
@@ -539,6 +546,7 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
 
         protected final Timer workTimer;
 
+        protected final int minPoolSize;
 
         protected WorkThreadPoolExecutor(int corePoolSize, int maximumPoolSize, long keepAliveTime,
                 TimeUnit unit, NuxeoBlockingQueue queue, ThreadFactory threadFactory) {
@@ -550,6 +558,64 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
             runningCount = registry.counter(MetricRegistry.name("nuxeo", "works", queueId, "running"));
             completedCount = registry.counter(MetricRegistry.name("nuxeo", "works", queueId, "completed"));
             workTimer = registry.timer(MetricRegistry.name("nuxeo", "works", queueId, "total"));
+            minPoolSize = corePoolSize;
+            createMetricsGauges();
+        }
+
+        protected void createMetricsGauges() {
+            String gaugeName = MetricRegistry.name("nuxeo", "works", queueId, "threads", "pool");
+            registry.remove(gaugeName);
+            registry.register(gaugeName, new Gauge<Integer>() {
+                @Override
+                public Integer getValue() {
+                    return Integer.valueOf(getPoolSize());
+                }
+            });
+            gaugeName = MetricRegistry.name("nuxeo", "works", queueId, "threads", "active");
+            registry.remove(gaugeName);
+            registry.register(gaugeName, new Gauge<Integer>() {
+                @Override
+                public Integer getValue() {
+                    return Integer.valueOf(getActiveCount());
+                }
+            });
+            gaugeName = MetricRegistry.name("nuxeo", "works", queueId, "threads", "target");
+            registry.remove(gaugeName);
+            registry.register(gaugeName, new Gauge<Integer>() {
+                @Override
+                public Integer getValue() {
+                    return Integer.valueOf(getCorePoolSize());
+                }
+            });
+            gaugeName = MetricRegistry.name("nuxeo", "works", queueId, "coalesced");
+            registry.remove(gaugeName);
+            registry.register(gaugeName, new Gauge<Long>() {
+                @Override
+                public Long getValue() {
+                    return Long.valueOf(queuing.metrics(queueId).coalesced.longValue());
+                }
+            });
+        }
+
+        /**
+         * Resizes the pool between its minimum and maximum size according to the number of scheduled and running work
+         * instances. Idle threads above the new size stop after the keep alive time.
+         *
+         * @since 8.3
+         */
+        protected void adjustPoolSize() {
+            int maxPoolSize = getMaximumPoolSize();
+            if (minPoolSize == maxPoolSize || isShutdown()) {
+                return;
+            }
+            int backlog = ((NuxeoBlockingQueue) getQueue()).getQueueSize() + getActiveCount();
+            int size = Math.max(minPoolSize, Math.min(maxPoolSize, backlog));
+            if (size == getCorePoolSize()) {
+                return;
+            }
+            setCorePoolSize(size);
+            // new threads must poll the queue even if the work was scheduled by another node
+            prestartAllCoreThreads();
         }
 
         public int getScheduledOrRunningSize() {
@@ -616,6 +682,7 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
                 completedCount.inc();
                 workTimer.update(work.getCompletionTime() - work.getStartTime(), TimeUnit.MILLISECONDS);
                 completionSynchronizer.signalCompletedWork();
+                adjustPoolSize();
             }
         }
 
@@ -703,6 +770,10 @@ public class WorkManagerImpl extends DefaultComponent implements WorkManager {
 
         }
         queuing.workSchedule(queueId, work);
+        WorkThreadPoolExecutor executor = executors.get(queueId);
+        if (executor != null) {
+            executor.adjustPoolSize();
+        }
     }
 
     /**
@@ -277,6 +277,40 @@ public interface Work extends Serializable {
      */
     String getCategory();
 
+    /**
+     * Priority of work instances that must run before the normal ones, like interactive conversions.
+     *
+     * @since 8.3
+     */
+    int PRIORITY_HIGH = 10;
+
+    /**
+     * Default priority.
+     *
+     * @since 8.3
+     */
+    int PRIORITY_NORMAL = 0;
+
+    /**
+     * Priority of background work instances that may be delayed by the normal ones, like bulk reindexing.
+     *
+     * @since 8.3
+     */
+    int PRIORITY_LOW = -10;
+
+    /**
+     * Gets the priority of this work instance.
+     * <p>
+     * Within a queue, the scheduled work instances with a higher priority run first, work instances with the same
+     * priority run in scheduling order. Persistent queuings may only distinguish positive, zero and negative priorities.
+     *
+     * @return the priority, {@link #PRIORITY_NORMAL} by default
+     * @since 8.3
+     */
+    default int getPriority() {
+        return PRIORITY_NORMAL;
+    }
+
     /**
      * Gets a human-readable name for this work instance.
      *
@@ -75,12 +75,25 @@ public class WorkQueueDescriptor {
         return maxThreads == null ? DEFAULT_MAX_THREADS : maxThreads.intValue();
     }
 
+    /**
+     * When lower than {@link #maxThreads}, the thread pool grows and shrinks between the two bounds according to the
+     * number of scheduled and running work instances.
+     *
+     * @since 8.3
+     */
+    @XNode("minThreads")
+    public Integer minThreads;
+
+    public int getMinThreads() {
+        int max = getMaxThreads();
+        return minThreads == null ? max : Math.max(1, Math.min(max, minThreads.intValue()));
+    }
+
     @XNodeList(value = "category", type = HashSet.class, componentType = String.class)
     public Set<String> categories = Collections.emptySet();
 
     /**
-     * When specified, make the blocking queue bounded, so submission will block until space become available. This
-     * option can not be used with a priority queue.
+     * When specified, make the blocking queue bounded, so submission will block until space become available.
      *
      * @since 5.7
      */
@@ -99,6 +112,7 @@ public class WorkQueueDescriptor {
         o.processing = processing;
         o.name = name;
         o.maxThreads = maxThreads;
+        o.minThreads = minThreads;
         o.capacity = capacity;
         o.categories = new HashSet<String>(categories);
         return o;
@@ -117,6 +131,9 @@ public class WorkQueueDescriptor {
         if (other.maxThreads != null) {
             maxThreads = other.maxThreads;
         }
+        if (other.minThreads != null) {
+            minThreads = other.minThreads;
+        }
         if (other.capacity != null) {
             capacity = other.capacity;
         }
@@ -142,6 +159,10 @@ public class WorkQueueDescriptor {
             buf.append(" maxThreads=");
             buf.append(maxThreads);
         }
+        if (minThreads != null) {
+            buf.append(" minThreads=");
+            buf.append(minThreads);
+        }
         if (capacity != null) {
             buf.append(" capacity=");
             buf.append(capacity);
@@ -162,6 +183,8 @@ public class WorkQueueDescriptor {
         buf.append(isProcessingEnabled());
         buf.append(" maxThreads=");
         buf.append(getMaxThreads());
+        buf.append(" minThreads=");
+        buf.append(getMinThreads());
         buf.append(" capacity=");
         buf.append(getCapacity());
         buf.append(" clearCompletedAfterSeconds=");
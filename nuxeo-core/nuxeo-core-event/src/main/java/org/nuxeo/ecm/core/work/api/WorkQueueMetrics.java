@@ -35,12 +35,29 @@ public class WorkQueueMetrics implements Serializable {
 
     public final Number canceled;
 
+    /**
+     * Number of work instances merged into an already scheduled one with the same id. Informational only, not taken
+     * into account by {@link #equals}.
+     *
+     * @since 8.3
+     */
+    public final Number coalesced;
+
     public WorkQueueMetrics(String queueId, Number scheduled, Number running, Number completed, Number canceled) {
+        this(queueId, scheduled, running, completed, canceled, Long.valueOf(0));
+    }
+
+    /**
+     * @since 8.3
+     */
+    public WorkQueueMetrics(String queueId, Number scheduled, Number running, Number completed, Number canceled,
+            Number coalesced) {
         this.queueId = queueId;
         this.scheduled = scheduled;
         this.running = running;
         this.completed = completed;
         this.canceled = canceled;
+        this.coalesced = coalesced;
     }
 
     @Override
@@ -98,6 +115,8 @@ public class WorkQueueMetrics implements Serializable {
                 .append(completed)
                 .append(", ")
                 .append(canceled)
+                .append(", ")
+                .append(coalesced)
                 .append("]");
         return builder.toString();
     }
@@ -121,4 +140,11 @@ public class WorkQueueMetrics implements Serializable {
     public Number getCanceled() {
         return canceled;
     }
+
+    /**
+     * @since 8.3
+     */
+    public Number getCoalesced() {
+        return coalesced;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,59 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.work;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.nuxeo.ecm.core.work.api.Work;
+
+public class TestMemoryBlockingQueue {
+
+    @Test
+    public void testCoalesceKeepsPosition() {
+        MemoryBlockingQueue queue = new MemoryBlockingQueue("test", null, -1);
+        Work first = new SleepWork(0, false, "first");
+        Work second = new SleepWork(0, false, "second");
+        Work firstAgain = new SleepWork(0, false, "first");
+        queue.workSchedule(first);
+        queue.workSchedule(second);
+        queue.workSchedule(firstAgain);
+        assertEquals(2, queue.getQueueSize());
+        assertEquals(1, queue.metrics().getCoalesced().longValue());
+        // the new instance replaced the pending one at its position
+        assertSame(firstAgain, WorkHolder.getWork(queue.pollElement()));
+        assertSame(second, WorkHolder.getWork(queue.pollElement()));
+        assertNull(queue.pollElement());
+    }
+
+    @Test
+    public void testCoalesceWhileTaken() {
+        MemoryBlockingQueue queue = new MemoryBlockingQueue("test", null, -1);
+        Work work = new SleepWork(0, false, "work");
+        queue.workSchedule(work);
+        // taken by a worker which hasn't yet marked it running
+        assertSame(work, WorkHolder.getWork(queue.pollElement()));
+        queue.workSchedule(new SleepWork(0, false, "work"));
+        // not queued a second time
+        assertEquals(0, queue.getQueueSize());
+    }
+
+}
@@ -29,6 +29,7 @@ import static org.nuxeo.ecm.core.work.api.Work.State.SCHEDULED;
 
 import java.io.File;
 import java.io.Serializable;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
@@ -41,6 +42,7 @@ import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.nuxeo.common.logging.SequenceTracer;
+import org.nuxeo.ecm.core.work.api.Work;
 import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.ecm.core.work.api.WorkManager.Scheduling;
 import org.nuxeo.ecm.core.work.api.WorkQueueDescriptor;
@@ -90,10 +92,35 @@ public class WorkManagerTest extends NXRuntimeTestCase {
         }
     }
 
+    protected static class PrioritizedWork extends SleepWork {
+        private static final long serialVersionUID = 1L;
+
+        protected static final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+
+        protected final int priority;
+
+        public PrioritizedWork(String id, int priority) {
+            super(0, PRIORITIZED_QUEUE, false, id);
+            this.priority = priority;
+        }
+
+        @Override
+        public int getPriority() {
+            return priority;
+        }
+
+        @Override
+        public void work() {
+            executed.add(getId());
+        }
+    }
+
     protected static final String CATEGORY = "SleepWork";
 
     protected static final String QUEUE = "SleepWork";
 
+    protected static final String PRIORITIZED_QUEUE = "PrioritizedSleepWork";
+
     protected WorkManagerImpl service;
 
     protected boolean dontClearCompletedWork;
@@ -249,6 +276,42 @@ public class WorkManagerTest extends NXRuntimeTestCase {
         assertMetrics(0,0,1,0);
     }
 
+    @Test
+    public void testWorkPriorities() throws Exception {
+        deployAndStart();
+        PrioritizedWork.executed.clear();
+
+        // single thread queue, so that the execution order is the queue order
+        service.enableProcessing(PRIORITIZED_QUEUE, false);
+        service.schedule(new PrioritizedWork("low", Work.PRIORITY_LOW));
+        service.schedule(new PrioritizedWork("normal1", Work.PRIORITY_NORMAL));
+        service.schedule(new PrioritizedWork("high", Work.PRIORITY_HIGH));
+        service.schedule(new PrioritizedWork("normal2", Work.PRIORITY_NORMAL));
+        service.enableProcessing(PRIORITIZED_QUEUE, true);
+
+        assertTrue(service.awaitCompletion(PRIORITIZED_QUEUE, 5, TimeUnit.SECONDS));
+        assertEquals(Arrays.asList("high", "normal1", "normal2", "low"), PrioritizedWork.executed);
+    }
+
+    @Test
+    public void testCoalescedWorks() throws Exception {
+        deployAndStart();
+        PrioritizedWork.executed.clear();
+
+        service.enableProcessing(PRIORITIZED_QUEUE, false);
+        service.schedule(new PrioritizedWork("first", Work.PRIORITY_NORMAL));
+        service.schedule(new PrioritizedWork("second", Work.PRIORITY_NORMAL));
+        service.schedule(new PrioritizedWork("first", Work.PRIORITY_NORMAL));
+        WorkQueueMetrics metrics = service.getMetrics(PRIORITIZED_QUEUE);
+        assertEquals(2L, metrics.getScheduled().longValue());
+        assertEquals(1L, metrics.getCoalesced().longValue());
+        service.enableProcessing(PRIORITIZED_QUEUE, true);
+
+        assertTrue(service.awaitCompletion(PRIORITIZED_QUEUE, 5, TimeUnit.SECONDS));
+        // coalesced work keeps its position and runs once
+        assertEquals(Arrays.asList("first", "second"), PrioritizedWork.executed);
+    }
+
     @Test
     @Ignore
     public void testWorkManagerShutdown() throws Exception {
@@ -27,6 +27,10 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
@@ -34,19 +38,32 @@ import org.apache.commons.logging.LogFactory;
 import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.cache.AbstractCache;
 import org.nuxeo.ecm.core.cache.CacheDescriptor;
+import org.nuxeo.ecm.core.cache.CaffeineCacheImpl;
 import org.nuxeo.ecm.core.redis.RedisAdmin;
 import org.nuxeo.ecm.core.redis.RedisCallable;
 import org.nuxeo.ecm.core.redis.RedisExecutor;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
 
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
 
 /**
  * Cache implementation on top of Redis
+ * <p>
+ * If the {@code nearCacheMaxSize} option is set, a bounded local in-memory tier is kept in front of Redis, avoiding
+ * the network round-trip for hot keys. The local tiers of all the nodes are kept coherent by
+ * invalidation messages sent through a Redis pubsub channel when a key is put or invalidated. The local tier keeps the
+ * values serialized, as sent to Redis, so that each caller gets its own copy. It is bypassed while the channel isn't
+ * subscribed, as invalidations may be missed, and cleared when the subscription is made again.
  *
  * @since 6.0
  */
-public class RedisCache extends AbstractCache {
+public class RedisCache extends AbstractCache implements AutoCloseable {
 
     protected static final String UTF_8 = "UTF-8";
 
@@ -56,10 +73,204 @@ public class RedisCache extends AbstractCache {
 
     protected final String namespace;
 
+    /**
+     * Option giving the maximum number of entries of the local tier, which is disabled if absent.
+     *
+     * @since 8.3
+     */
+    public static final String NEAR_CACHE_MAX_SIZE_OPTION = "nearCacheMaxSize";
+
+    // PubSub channel: nuxeo:cache:<name>:inval
+    protected static final String INVALIDATION_CHANNEL = "inval";
+
+    protected static final String INVALIDATE_KEY = "K";
+
+    protected static final String INVALIDATE_ALL = "A";
+
+    // Max delay to wait for a channel subscription
+    protected static final long TIMEOUT_SUBSCRIBE_SECOND = 10;
+
+    // Delays between two attempts to subscribe again after the subscription was lost
+    protected static final long RESUBSCRIBE_MIN_DELAY_MILLIS = 100;
+
+    protected static final long RESUBSCRIBE_MAX_DELAY_MILLIS = 10000;
+
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    /** The local tier holding serialized values, or {@code null} if disabled. */
+    protected volatile CaffeineCacheImpl nearCache;
+
+    /** Our id, to ignore the invalidations we sent ourselves. */
+    protected String nodeId;
+
+    /**
+     * Incremented on each local put or invalidation and on each received invalidation, to detect those happening while
+     * a value is fetched from Redis. Always incremented after Redis is written and before the local tier is updated.
+     */
+    protected final AtomicLong invalidationCount = new AtomicLong();
+
+    /** Whether the invalidation channel is subscribed, the local tier being bypassed if not. */
+    protected volatile boolean subscribed;
+
+    protected volatile boolean closed;
+
+    protected volatile JedisPubSub subscriber;
+
+    protected Thread subscriberThread;
+
+    protected final Counter redisHits;
+
+    protected final Counter redisMisses;
+
     public RedisCache(CacheDescriptor desc) {
         super(desc);
         executor = Framework.getService(RedisExecutor.class);
         namespace = Framework.getService(RedisAdmin.class).namespace("cache", name);
+        redisHits = registry.counter(MetricRegistry.name("nuxeo", "cache", name, "redis", "hits"));
+        redisMisses = registry.counter(MetricRegistry.name("nuxeo", "cache", name, "redis", "misses"));
+        String nearCacheMaxSize = desc.options.get(NEAR_CACHE_MAX_SIZE_OPTION);
+        if (nearCacheMaxSize != null) {
+            CacheDescriptor nearDesc = new CacheDescriptor(desc);
+            nearDesc.name = name + ".near";
+            nearDesc.options.clear();
+            nearDesc.options.put(CaffeineCacheImpl.MAX_SIZE_OPTION, nearCacheMaxSize);
+            nearCache = new CaffeineCacheImpl(nearDesc);
+            nodeId = UUID.randomUUID().toString();
+            createSubscriberThread();
+        }
+    }
+
+    protected String getChannelName() {
+        return namespace + INVALIDATION_CHANNEL;
+    }
+
+    protected void createSubscriberThread() {
+        CountDownLatch subscribeLatch = new CountDownLatch(1);
+        subscriberThread = new Thread(() -> subscribeLoop(subscribeLatch), "RedisCacheSubscriber:" + name);
+        subscriberThread.setUncaughtExceptionHandler((t, e) -> log.error("Uncaught error on thread " + t.getName(), e));
+        subscriberThread.setDaemon(true);
+        subscriberThread.start();
+        try {
+            if (!subscribeLatch.await(TIMEOUT_SUBSCRIBE_SECOND, TimeUnit.SECONDS)) {
+                log.error("Redis channel subscription timeout after " + TIMEOUT_SUBSCRIBE_SECOND
+                        + "s, the local tier of cache: " + name + " is bypassed until subscribed");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NuxeoException(e);
+        }
+    }
+
+    /**
+     * Subscribes to the invalidation channel until closed, subscribing again with an increasing delay when the
+     * subscription is lost.
+     */
+    protected void subscribeLoop(CountDownLatch subscribeLatch) {
+        long delay = RESUBSCRIBE_MIN_DELAY_MILLIS;
+        while (!closed) {
+            subscriber = new JedisPubSub() {
+                @Override
+                public void onSubscribe(String channel, int subscribedChannels) {
+                    if (closed) {
+                        unsubscribe();
+                        return;
+                    }
+                    // invalidations may have been missed while not subscribed
+                    nearCacheInvalidateAll();
+                    subscribed = true;
+                    subscribeLatch.countDown();
+                    log.debug("Subscribed to channel: " + channel);
+                }
+
+                @Override
+                public void onMessage(String channel, String message) {
+                    receiveInvalidation(message);
+                }
+            };
+            RuntimeException error = null;
+            try {
+                executor.execute(jedis -> {
+                    jedis.subscribe(subscriber, getChannelName());
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            if (subscribed) {
+                delay = RESUBSCRIBE_MIN_DELAY_MILLIS;
+            }
+            subscribed = false;
+            if (closed) {
+                break;
+            }
+            log.warn("Lost subscription to channel: " + getChannelName() + ", retrying in " + delay + "ms", error);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            delay = Math.min(delay * 2, RESUBSCRIBE_MAX_DELAY_MILLIS);
+        }
+    }
+
+    protected void receiveInvalidation(String message) {
+        // message is <nodeId>:K:<key> or <nodeId>:A
+        String[] parts = message.split(":", 3);
+        if (parts.length < 2 || nodeId.equals(parts[0])) {
+            return;
+        }
+        if (INVALIDATE_ALL.equals(parts[1])) {
+            nearCacheInvalidateAll();
+        } else if (parts.length == 3) {
+            nearCacheInvalidate(parts[2]);
+        }
+    }
+
+    /**
+     * Gets the local tier, or {@code null} if it is disabled or bypassed because invalidations may be missed.
+     */
+    protected CaffeineCacheImpl getNearCache() {
+        return subscribed ? nearCache : null;
+    }
+
+    protected void nearCacheInvalidate(String key) {
+        invalidationCount.incrementAndGet();
+        CaffeineCacheImpl near = nearCache;
+        if (near != null) {
+            near.invalidate(key);
+        }
+    }
+
+    protected void nearCacheInvalidateAll() {
+        invalidationCount.incrementAndGet();
+        CaffeineCacheImpl near = nearCache;
+        if (near != null) {
+            near.invalidateAll();
+        }
+    }
+
+    protected void publishInvalidation(Jedis jedis, String key) {
+        if (nearCache != null) {
+            String message = key == null ? nodeId + ":" + INVALIDATE_ALL : nodeId + ":" + INVALIDATE_KEY + ":" + key;
+            jedis.publish(getChannelName(), message);
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        JedisPubSub sub = subscriber;
+        if (sub != null && sub.isSubscribed()) {
+            sub.unsubscribe();
+        }
+        if (subscriberThread != null) {
+            subscriberThread.interrupt();
+        }
+        subscriber = null;
+        subscriberThread = null;
+        subscribed = false;
+        nearCache = null;
     }
 
     protected String formatKey(String key) {
@@ -91,18 +302,52 @@ public class RedisCache extends AbstractCache {
 
     @Override
     public Serializable get(final String key) {
-        return executor.execute(new RedisCallable<Serializable>() {
+        CaffeineCacheImpl near = getNearCache();
+        if (near == null) {
+            return toValue(getFromRedis(key));
+        }
+        byte[] bytes = (byte[]) near.get(key);
+        if (bytes != null) {
+            return toValue(bytes);
+        }
+        long count = invalidationCount.get();
+        bytes = getFromRedis(key);
+        // don't keep locally a value that may have been put or invalidated while it was fetched
+        if (bytes != null && invalidationCount.get() == count) {
+            near.put(key, bytes);
+            if (invalidationCount.get() != count) {
+                // changed while we were putting it
+                near.invalidate(key);
+            }
+        }
+        return toValue(bytes);
+    }
+
+    /**
+     * Gets the serialized value for a key from Redis.
+     */
+    protected byte[] getFromRedis(final String key) {
+        byte[] bytes = executor.execute(new RedisCallable<byte[]>() {
             @Override
-            public Serializable call(Jedis jedis) {
-                try {
-                    return deserializeValue(jedis.get(bytes(formatKey(key))));
-                } catch (IOException e) {
-                    log.error(e);
-                    return null;
-                }
+            public byte[] call(Jedis jedis) {
+                return jedis.get(bytes(formatKey(key)));
             }
         });
+        if (bytes == null) {
+            redisMisses.inc();
+        } else {
+            redisHits.inc();
+        }
+        return bytes;
+    }
 
+    protected Serializable toValue(byte[] bytes) {
+        try {
+            return deserializeValue(bytes);
+        } catch (IOException e) {
+            log.error(e);
+            return null;
+        }
     }
 
     @Override
@@ -134,33 +379,54 @@ public class RedisCache extends AbstractCache {
             @Override
             public Void call(Jedis jedis) {
                 jedis.del(new String[] { formatKey(key) });
+                publishInvalidation(jedis, key);
                 return null;
             }
         });
+        nearCacheInvalidate(key);
     }
 
     @Override
     public void invalidateAll() {
         Framework.getService(RedisAdmin.class).clear(formatKey("*"));
+        nearCacheInvalidateAll();
+        if (nearCache != null) {
+            executor.execute(new RedisCallable<Void>() {
+                @Override
+                public Void call(Jedis jedis) {
+                    publishInvalidation(jedis, null);
+                    return null;
+                }
+            });
+        }
     }
 
     @Override
     public void put(final String key, final Serializable value) {
+        final byte[] bvalue;
+        try {
+            bvalue = serializeValue(value);
+        } catch (IOException e) {
+            throw new NuxeoException(e);
+        }
         executor.execute(new RedisCallable<Void>() {
             @Override
             public Void call(Jedis jedis) {
-                try {
-                    byte[] bkey = bytes(formatKey(key));
-                    jedis.set(bkey, serializeValue(value));
-                    // Redis set in second ttl but descriptor set as mn
-                    int ttlKey = ttl * 60;
-                    jedis.expire(bkey, ttlKey);
-                    return null;
-                } catch (IOException e) {
-                    throw new NuxeoException(e);
-                }
+                byte[] bkey = bytes(formatKey(key));
+                jedis.set(bkey, bvalue);
+                // Redis set in second ttl but descriptor set as mn
+                int ttlKey = ttl * 60;
+                jedis.expire(bkey, ttlKey);
+                publishInvalidation(jedis, key);
+                return null;
             }
         });
+        // after Redis is written, so that a concurrent get can't put back the previous value
+        invalidationCount.incrementAndGet();
+        CaffeineCacheImpl near = getNearCache();
+        if (near != null) {
+            near.put(key, bvalue);
+        }
     }
 
     @Override
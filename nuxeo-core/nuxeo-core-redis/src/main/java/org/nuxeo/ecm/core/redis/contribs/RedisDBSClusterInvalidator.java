@@ -0,0 +1,258 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.redis.contribs;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.binary.Base64;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.redis.RedisAdmin;
+import org.nuxeo.ecm.core.redis.RedisExecutor;
+import org.nuxeo.ecm.core.storage.dbs.DBSClusterInvalidator;
+import org.nuxeo.ecm.core.storage.dbs.DBSInvalidations;
+import org.nuxeo.runtime.api.Framework;
+
+import redis.clients.jedis.JedisPubSub;
+
+/**
+ * Redis implementation of {@link DBSClusterInvalidator}.
+ * <p>
+ * Uses a single channel pubsub to send invalidations, like {@link RedisClusterInvalidator} does for VCS.
+ *
+ * @since 8.3
+ */
+public class RedisDBSClusterInvalidator implements DBSClusterInvalidator {
+
+    private static final Log log = LogFactory.getLog(RedisDBSClusterInvalidator.class);
+
+    protected static final String PREFIX = "dbsinval";
+
+    // PubSub channel: nuxeo:dbsinval:<repositoryName>:channel
+    protected static final String INVALIDATION_CHANNEL = "channel";
+
+    // Node HSET key: nuxeo:dbsinval:<repositoryName>:nodes:<nodeId>
+    protected static final String CLUSTER_NODES_KEY = "nodes";
+
+    // Keep info about a cluster node for one day
+    protected static final int TIMEOUT_REGISTER_SECOND = 24 * 3600;
+
+    // Max delay to wait for a channel subscription
+    protected static final long TIMEOUT_SUBSCRIBE_SECOND = 10;
+
+    protected static final String STARTED_FIELD = "started";
+
+    protected static final String LAST_INVAL_FIELD = "lastInvalSent";
+
+    protected String nodeId;
+
+    protected String repositoryName;
+
+    protected RedisExecutor redisExecutor;
+
+    protected DBSInvalidations receivedInvals;
+
+    protected Thread subscriberThread;
+
+    protected String namespace;
+
+    protected String startedDateTime;
+
+    private CountDownLatch subscribeLatch;
+
+    private String registerSha;
+
+    private String sendSha;
+
+    @Override
+    public void initialize(String nodeId, String repositoryName) {
+        this.nodeId = nodeId;
+        this.repositoryName = repositoryName;
+        redisExecutor = Framework.getLocalService(RedisExecutor.class);
+        RedisAdmin redisAdmin = Framework.getService(RedisAdmin.class);
+        namespace = redisAdmin.namespace(PREFIX, repositoryName);
+        try {
+            registerSha = redisAdmin.load("org.nuxeo.ecm.core.redis", "register-node-inval");
+            sendSha = redisAdmin.load("org.nuxeo.ecm.core.redis", "send-inval");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        receivedInvals = new DBSInvalidations();
+        startedDateTime = getCurrentDateTime();
+        createSubscriberThread();
+        registerNode();
+    }
+
+    protected void createSubscriberThread() {
+        subscribeLatch = new CountDownLatch(1);
+        String name = "RedisDBSClusterInvalidatorSubscriber:" + repositoryName + ":" + nodeId;
+        subscriberThread = new Thread(this::subscribeToInvalidationChannel, name);
+        subscriberThread.setUncaughtExceptionHandler((t, e) -> log.error("Uncaught error on thread " + t.getName(), e));
+        subscriberThread.setPriority(Thread.NORM_PRIORITY);
+        subscriberThread.start();
+        try {
+            if (!subscribeLatch.await(TIMEOUT_SUBSCRIBE_SECOND, TimeUnit.SECONDS)) {
+                log.error("Redis channel subscripion timeout after " + TIMEOUT_SUBSCRIBE_SECOND
+                        + "s, continuing but this node may not receive cluster invalidations");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    protected void subscribeToInvalidationChannel() {
+        log.info("Subscribing to channel: " + getChannelName());
+        redisExecutor.execute(jedis -> {
+            jedis.subscribe(new JedisPubSub() {
+                @Override
+                public void onSubscribe(String channel, int subscribedChannels) {
+                    super.onSubscribe(channel, subscribedChannels);
+                    if (subscribeLatch != null) {
+                        subscribeLatch.countDown();
+                    }
+                    log.debug("Subscribed to channel: " + getChannelName());
+                }
+
+                @Override
+                public void onMessage(String channel, String message) {
+                    try {
+                        DBSInvalidations invals = deserialize(message);
+                        if (invals == null) {
+                            return; // sent by us
+                        }
+                        if (log.isTraceEnabled()) {
+                            log.trace("Receive invalidations: " + invals);
+                        }
+                        synchronized (RedisDBSClusterInvalidator.this) {
+                            receivedInvals.add(invals);
+                        }
+                    } catch (IllegalArgumentException e) {
+                        log.error("Fail to read message: " + message, e);
+                    }
+                }
+            }, getChannelName());
+            return null;
+        });
+    }
+
+    protected String getChannelName() {
+        return namespace + INVALIDATION_CHANNEL;
+    }
+
+    protected String getNodeKey() {
+        return namespace + CLUSTER_NODES_KEY + ":" + nodeId;
+    }
+
+    protected void registerNode() {
+        List<String> keys = Arrays.asList(getNodeKey());
+        List<String> args = Arrays.asList(STARTED_FIELD, startedDateTime,
+                Integer.valueOf(TIMEOUT_REGISTER_SECOND).toString());
+        log.debug("Registering node: " + nodeId);
+        redisExecutor.execute(jedis -> {
+            jedis.evalsha(registerSha, keys, args);
+            log.info("Node registered: " + nodeId);
+            return null;
+        });
+    }
+
+    @Override
+    public void close() {
+        log.debug("Closing");
+        subscriberThread.interrupt();
+        // The Jedis pool is already closed when the repository is shutdowned
+        receivedInvals.clear();
+    }
+
+    @Override
+    public DBSInvalidations receiveInvalidations() {
+        DBSInvalidations newInvals = new DBSInvalidations();
+        DBSInvalidations ret;
+        synchronized (this) {
+            ret = receivedInvals;
+            receivedInvals = newInvals;
+        }
+        return ret;
+    }
+
+    @Override
+    public void sendInvalidations(DBSInvalidations invals) {
+        if (log.isTraceEnabled()) {
+            log.trace("Sending invalidations: " + invals);
+        }
+        List<String> keys = Arrays.asList(getChannelName(), getNodeKey());
+        List<String> args;
+        try {
+            args = Arrays.asList(serialize(invals), STARTED_FIELD, startedDateTime, LAST_INVAL_FIELD,
+                    getCurrentDateTime(), Integer.valueOf(TIMEOUT_REGISTER_SECOND).toString());
+        } catch (IOException e) {
+            throw new NuxeoException(e);
+        }
+        redisExecutor.execute(jedis -> {
+            jedis.evalsha(sendSha, keys, args);
+            return null;
+        });
+    }
+
+    /**
+     * Serializes the invalidations, prefixed by our node id.
+     */
+    protected String serialize(DBSInvalidations invals) throws IOException {
+        ByteArrayOutputStream baout = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(baout)) {
+            out.writeObject(invals);
+        }
+        // use base64 because Jedis don't have onMessage with bytes
+        return nodeId + ":" + Base64.encodeBase64String(baout.toByteArray());
+    }
+
+    /**
+     * Deserializes the invalidations, or returns {@code null} if they were sent by our node.
+     */
+    protected DBSInvalidations deserialize(String message) {
+        if (message == null || !message.contains(":")) {
+            throw new IllegalArgumentException("Invalid message: " + message);
+        }
+        String[] parts = message.split(":", 2);
+        if (nodeId.equals(parts[0])) {
+            return null;
+        }
+        ByteArrayInputStream bain = new ByteArrayInputStream(Base64.decodeBase64(parts[1]));
+        try (ObjectInputStream in = new ObjectInputStream(bain)) {
+            return (DBSInvalidations) in.readObject();
+        } catch (IOException | ClassNotFoundException cause) {
+            throw new IllegalArgumentException("Cannot deserialize invalidations", cause);
+        }
+    }
+
+    protected String getCurrentDateTime() {
+        return LocalDateTime.now().toString();
+    }
+
+}
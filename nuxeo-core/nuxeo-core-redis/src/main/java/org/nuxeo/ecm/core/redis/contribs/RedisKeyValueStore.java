@@ -0,0 +1,197 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.redis.contribs;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.redis.RedisAdmin;
+import org.nuxeo.ecm.core.redis.RedisCallable;
+import org.nuxeo.ecm.core.redis.RedisExecutor;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.kv.AbstractKeyValueStoreProvider;
+import org.nuxeo.runtime.kv.KeyValueStoreDescriptor;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisException;
+
+/**
+ * Redis-based implementation of a Key/Value store, shared by all the nodes of the cluster.
+ * <p>
+ * Keys are stored in the {@code kv:<store name>:} namespace.
+ *
+ * @since 8.3
+ */
+public class RedisKeyValueStore extends AbstractKeyValueStoreProvider {
+
+    protected static final byte[] ONE = "1".getBytes(StandardCharsets.US_ASCII);
+
+    protected static final byte[] ZERO = "0".getBytes(StandardCharsets.US_ASCII);
+
+    protected static final byte[] EMPTY = new byte[0];
+
+    protected String namespace;
+
+    protected byte[] compareAndSetSha;
+
+    @Override
+    public void initialize(KeyValueStoreDescriptor descriptor) {
+        super.initialize(descriptor);
+        RedisAdmin redisAdmin = Framework.getService(RedisAdmin.class);
+        namespace = redisAdmin.namespace("kv", name);
+        try {
+            compareAndSetSha = redisAdmin.load("org.nuxeo.ecm.core.redis", "compare-and-set")
+                                         .getBytes(StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            throw new NuxeoException("Cannot load Redis script", e);
+        }
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public void clear() {
+        Framework.getService(RedisAdmin.class).clear(namespace + "*");
+    }
+
+    protected byte[] redisKey(String key) {
+        return toBytes(namespace + key);
+    }
+
+    protected <T> T execute(RedisCallable<T> call) {
+        try {
+            return Framework.getService(RedisExecutor.class).execute(call);
+        } catch (JedisException e) {
+            throw new NuxeoException(e);
+        }
+    }
+
+    @Override
+    public void put(String key, byte[] value, long ttl) {
+        byte[] redisKey = redisKey(key);
+        execute(new RedisCallable<Void>() {
+            @Override
+            public Void call(Jedis jedis) {
+                if (value == null) {
+                    jedis.del(redisKey);
+                } else if (ttl == 0) {
+                    jedis.set(redisKey, value);
+                } else {
+                    jedis.setex(redisKey, (int) ttl, value);
+                }
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public byte[] get(String key) {
+        byte[] redisKey = redisKey(key);
+        return execute(new RedisCallable<byte[]>() {
+            @Override
+            public byte[] call(Jedis jedis) {
+                return jedis.get(redisKey);
+            }
+        });
+    }
+
+    @Override
+    public Map<String, byte[]> get(Collection<String> keys) {
+        if (keys.isEmpty()) {
+            return new HashMap<>();
+        }
+        List<String> keyList = new ArrayList<>(keys);
+        byte[][] redisKeys = new byte[keyList.size()][];
+        for (int i = 0; i < redisKeys.length; i++) {
+            redisKeys[i] = redisKey(keyList.get(i));
+        }
+        List<byte[]> values = execute(new RedisCallable<List<byte[]>>() {
+            @Override
+            public List<byte[]> call(Jedis jedis) {
+                return jedis.mget(redisKeys);
+            }
+        });
+        Map<String, byte[]> map = new HashMap<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            byte[] value = values.get(i);
+            if (value != null) {
+                map.put(keyList.get(i), value);
+            }
+        }
+        return map;
+    }
+
+    @Override
+    public boolean setTTL(String key, long ttl) {
+        byte[] redisKey = redisKey(key);
+        return execute(new RedisCallable<Boolean>() {
+            @Override
+            public Boolean call(Jedis jedis) {
+                if (ttl == 0) {
+                    // PERSIST returns 0 both for a missing key and for a key without expiration
+                    if (!jedis.exists(redisKey).booleanValue()) {
+                        return Boolean.FALSE;
+                    }
+                    jedis.persist(redisKey);
+                    return Boolean.TRUE;
+                }
+                return Boolean.valueOf(jedis.expire(redisKey, (int) ttl).longValue() == 1);
+            }
+        }).booleanValue();
+    }
+
+    @Override
+    public boolean compareAndSet(String key, byte[] expected, byte[] value, long ttl) {
+        List<byte[]> keys = Arrays.asList(redisKey(key));
+        List<byte[]> args = Arrays.asList( //
+                expected == null ? ZERO : ONE, //
+                expected == null ? EMPTY : expected, //
+                value == null ? ZERO : ONE, //
+                value == null ? EMPTY : value, //
+                toBytes(Long.toString(ttl)));
+        Object res = execute(new RedisCallable<Object>() {
+            @Override
+            public Object call(Jedis jedis) {
+                return jedis.evalsha(compareAndSetSha, keys, args);
+            }
+        });
+        return Long.valueOf(1).equals(res);
+    }
+
+    @Override
+    public long addAndGet(String key, long delta) {
+        byte[] redisKey = redisKey(key);
+        return execute(new RedisCallable<Long>() {
+            @Override
+            public Long call(Jedis jedis) {
+                return jedis.incrBy(redisKey, delta);
+            }
+        }).longValue();
+    }
+
+}
@@ -59,6 +59,9 @@ import redis.clients.util.SafeEncoder;
 
 /**
  * Implementation of a {@link WorkQueuing} storing {@link Work} instances in Redis.
+ * <p>
+ * Each queue has three lists of scheduled work ids, for positive, zero and negative {@link Work#getPriority
+ * priorities}, consumed in that order.
  *
  * @since 5.8
  */
@@ -93,6 +96,20 @@ public class RedisWorkQueuing implements WorkQueuing {
 
     protected static final byte[] KEY_QUEUE = KEY_QUEUE_PREFIX.getBytes();
 
+    /**
+     * Per-queue list of scheduled Work instance ids with a positive priority.
+     *
+     * @since 8.3
+     */
+    protected static final String KEY_QUEUE_HIGH_PREFIX = "queuehi";
+
+    /**
+     * Per-queue list of scheduled Work instance ids with a negative priority.
+     *
+     * @since 8.3
+     */
+    protected static final String KEY_QUEUE_LOW_PREFIX = "queuelo";
+
     /**
      * Per-queue set of scheduled Work instance ids.
      */
@@ -118,6 +135,13 @@ public class RedisWorkQueuing implements WorkQueuing {
 
     protected static final byte[] KEY_CANCELED = KEY_CANCELED_PREFIX.getBytes();
 
+    /**
+     * Counter of works coalesced into an already scheduled one with the same id.
+     *
+     * @since 8.3
+     */
+    protected static final String KEY_COALESCED_PREFIX = "coalesced";
+
     protected static final String KEY_COUNT_PREFIX = "count";
 
     protected static final byte STATE_SCHEDULED_B = 'Q';
@@ -132,6 +156,12 @@ public class RedisWorkQueuing implements WorkQueuing {
 
     protected static final byte[] STATE_UNKNOWN = new byte[0];
 
+    protected static final byte[] PRIORITY_HIGH = new byte[] { 'H' };
+
+    protected static final byte[] PRIORITY_NORMAL = new byte[] { 'N' };
+
+    protected static final byte[] PRIORITY_LOW = new byte[] { 'L' };
+
     protected Listener listener;
 
     protected final Map<String, NuxeoBlockingQueue> allQueued = new HashMap<>();
@@ -265,7 +295,11 @@ public class RedisWorkQueuing implements WorkQueuing {
 
     protected List<Work> listScheduled(String queueId) {
         try {
-            return listWorkList(queuedKey(queueId));
+            List<Work> list = new ArrayList<>();
+            for (byte[] key : queuedKeys(queueId)) {
+                list.addAll(listWorkList(key));
+            }
+            return list;
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -281,7 +315,11 @@ public class RedisWorkQueuing implements WorkQueuing {
 
     protected List<String> listScheduledIds(String queueId) {
         try {
-            return listWorkIdsList(queuedKey(queueId));
+            List<String> list = new ArrayList<>();
+            for (byte[] key : queuedKeys(queueId)) {
+                list.addAll(listWorkIdsList(key));
+            }
+            return list;
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -425,6 +463,23 @@ public class RedisWorkQueuing implements WorkQueuing {
         return keyBytes(key(KEY_QUEUE_PREFIX, queueId));
     }
 
+    protected byte[] queuedHighKey(String queueId) {
+        return keyBytes(key(KEY_QUEUE_HIGH_PREFIX, queueId));
+    }
+
+    protected byte[] queuedLowKey(String queueId) {
+        return keyBytes(key(KEY_QUEUE_LOW_PREFIX, queueId));
+    }
+
+    /**
+     * Gets the scheduled lists of a queue, in the order in which they are consumed.
+     *
+     * @since 8.3
+     */
+    protected List<byte[]> queuedKeys(String queueId) {
+        return Arrays.asList(queuedHighKey(queueId), queuedKey(queueId), queuedLowKey(queueId));
+    }
+
     protected byte[] countKey(String queueId) {
         return keyBytes(key(KEY_COUNT_PREFIX, queueId));
     }
@@ -445,6 +500,10 @@ public class RedisWorkQueuing implements WorkQueuing {
         return keyBytes(key(KEY_CANCELED_PREFIX, queueId));
     }
 
+    protected byte[] coalescedKey(String queueId) {
+        return keyBytes(key(KEY_COALESCED_PREFIX, queueId));
+    }
+
     protected byte[] stateKey() {
         return keyBytes(KEY_STATE);
     }
@@ -522,7 +581,8 @@ public class RedisWorkQueuing implements WorkQueuing {
     }
 
     /**
-     * Resumes all suspended work instances by moving them to the scheduled queue.
+     * Resumes all suspended work instances by moving them to the scheduled queue. Resumed work instances are scheduled
+     * with a normal priority.
      *
      * @param queueId the queue id
      * @return the number of work instances scheduled
@@ -555,12 +615,13 @@ public class RedisWorkQueuing implements WorkQueuing {
 
             @Override
             public Integer call(Jedis jedis) {
-                for (int n = 0;; n++) {
-                    byte[] workIdBytes = jedis.rpoplpush(queuedKey(queueId), suspendedKey(queueId));
-                    if (workIdBytes == null) {
-                        return n;
+                int n = 0;
+                for (byte[] queuedKey : queuedKeys(queueId)) {
+                    while (jedis.rpoplpush(queuedKey, suspendedKey(queueId)) != null) {
+                        n++;
                     }
                 }
+                return n;
             }
         }).intValue();
     }
@@ -571,7 +632,7 @@ public class RedisWorkQueuing implements WorkQueuing {
     }
 
     WorkQueueMetrics metrics(String queueId, Number[] counters) {
-        return new WorkQueueMetrics(queueId, counters[0], counters[1], counters[2], counters[3]);
+        return new WorkQueueMetrics(queueId, counters[0], counters[1], counters[2], counters[3], counters[4]);
     }
 
     /**
@@ -626,7 +687,10 @@ public class RedisWorkQueuing implements WorkQueuing {
                 queuedKey(queueid),
                 runningKey(queueid),
                 completedKey(queueid),
-                canceledKey(queueid));
+                canceledKey(queueid),
+                queuedHighKey(queueid),
+                queuedLowKey(queueid),
+                coalescedKey(queueid));
     }
 
     protected List<byte[]> args(String workId) throws IOException {
@@ -638,10 +702,21 @@ public class RedisWorkQueuing implements WorkQueuing {
         if (serialize) {
             args = new ArrayList<>(args);
             args.add(serializeWork(work));
+            args.add(priority(work));
         }
         return args;
     }
 
+    /**
+     * Gets the priority band of a work, used to choose its scheduled list.
+     *
+     * @since 8.3
+     */
+    protected byte[] priority(Work work) {
+        int priority = work.getPriority();
+        return priority > 0 ? PRIORITY_HIGH : priority < 0 ? PRIORITY_LOW : PRIORITY_NORMAL;
+    }
+
     /**
      * Gets the work state.
      *
@@ -776,8 +851,14 @@ public class RedisWorkQueuing implements WorkQueuing {
 
             @Override
             public Work call(Jedis jedis) {
-                // pop from queue
-                byte[] workIdBytes = jedis.rpop(queuedKey(queueId));
+                // pop from the highest priority non-empty queue
+                byte[] workIdBytes = null;
+                for (byte[] queuedKey : queuedKeys(queueId)) {
+                    workIdBytes = jedis.rpop(queuedKey);
+                    if (workIdBytes != null) {
+                        break;
+                    }
+                }
                 if (workIdBytes == null) {
                     return null;
                 }
@@ -6,29 +6,43 @@ local queuedKey = KEYS[5]
 local runningKey = KEYS[6]
 local completedKey = KEYS[7]
 local canceledKey = KEYS[8]
+local queuedHighKey = KEYS[9]
+local queuedLowKey = KEYS[10]
+local coalescedKey = KEYS[11]
 
 
 local id = ARGV[1]
 local state = ARGV[2]
 local data = ARGV[3]
+local priority = ARGV[4]
+
+-- choose the scheduled list from the priority band
+local targetKey = queuedKey
+if priority == 'H' then
+  targetKey = queuedHighKey
+elseif priority == 'L' then
+  targetKey = queuedLowKey
+end
 
 if redis.call('SREM', runningKey, id) == 0 then
   return { 
     redis.call('HINCRBY', countKey, scheduledKey, 0), 
     redis.call('HINCRBY', countKey, runningKey, 0), 
     redis.call('HINCRBY', countKey, completedKey, 0), 
-    redis.call('HINCRBY', countKey, canceledKey, 0)
+    redis.call('HINCRBY', countKey, canceledKey, 0),
+    redis.call('HINCRBY', countKey, coalescedKey, 0)
   }
 end
 
 redis.call('SADD', scheduledKey, id)
 redis.call('HSET', stateKey, id, state)
 redis.call('HSET', dataKey, id, data)
-redis.call('LPUSH', queuedKey, id)
+redis.call('LPUSH', targetKey, id)
 
 return { 
     redis.call('HINCRBY', countKey, scheduledKey, 1), 
     redis.call('HINCRBY', countKey, runningKey, -1), 
     redis.call('HINCRBY', countKey, completedKey, 0), 
-    redis.call('HINCRBY', countKey, canceledKey, 1) 
+    redis.call('HINCRBY', countKey, canceledKey, 1),
+    redis.call('HINCRBY', countKey, coalescedKey, 0)
 }
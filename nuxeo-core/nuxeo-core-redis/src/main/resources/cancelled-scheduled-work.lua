@@ -6,16 +6,24 @@ local queuedKey = KEYS[5]
 local runningKey = KEYS[6]
 local completedKey = KEYS[7]
 local canceledKey = KEYS[8]
+local queuedHighKey = KEYS[9]
+local queuedLowKey = KEYS[10]
+local coalescedKey = KEYS[11]
 
 
 local workId = ARGV[1]
 
-if redis.call('LREM', queuedKey, 0, workId) == 0 then
+local removed = redis.call('LREM', queuedKey, 0, workId)
+  + redis.call('LREM', queuedHighKey, 0, workId)
+  + redis.call('LREM', queuedLowKey, 0, workId)
+
+if removed == 0 then
   return { 
     redis.call('HINCRBY', countKey, scheduledKey, 0), 
     redis.call('HINCRBY', countKey, runningKey, 0), 
     redis.call('HINCRBY', countKey, completedKey, 0), 
-    redis.call('HINCRBY', countKey, canceledKey, 0)
+    redis.call('HINCRBY', countKey, canceledKey, 0),
+    redis.call('HINCRBY', countKey, coalescedKey, 0)
   }
 end
 
@@ -27,5 +35,6 @@ return {
     redis.call('HINCRBY', countKey, scheduledKey, -1), 
     redis.call('HINCRBY', countKey, runningKey, 0), 
     redis.call('HINCRBY', countKey, completedKey, 0), 
-    redis.call('HINCRBY', countKey, canceledKey, 1) 
+    redis.call('HINCRBY', countKey, canceledKey, 1),
+    redis.call('HINCRBY', countKey, coalescedKey, 0)
 }
@@ -0,0 +1,24 @@
+-- KEYS[1]: key
+-- ARGV[1]: '1' if an expected value is passed, '0' if the key is expected to be absent
+-- ARGV[2]: expected value
+-- ARGV[3]: '1' if a new value is passed, '0' if the key must be removed
+-- ARGV[4]: new value
+-- ARGV[5]: TTL in seconds, '0' for no expiration
+local v = redis.call('GET', KEYS[1])
+if ARGV[1] == '1' then
+  if v ~= ARGV[2] then
+    return 0
+  end
+elseif v ~= false then
+  return 0
+end
+if ARGV[3] == '1' then
+  if ARGV[5] ~= '0' then
+    redis.call('SETEX', KEYS[1], ARGV[5], ARGV[4])
+  else
+    redis.call('SET', KEYS[1], ARGV[4])
+  end
+else
+  redis.call('DEL', KEYS[1])
+end
+return 1
@@ -9,6 +9,9 @@ local queuedKey = KEYS[5]
 local runningKey = KEYS[6]
 local completedKey = KEYS[7]
 local canceledKey = KEYS[8]
+local queuedHighKey = KEYS[9]
+local queuedLowKey = KEYS[10]
+local coalescedKey = KEYS[11]
 
 
 local scheduledCount = redis.call('SCARD', scheduledKey)
@@ -18,5 +21,6 @@ return {
   redis.call('HSET', countKey, scheduledKey, scheduledCount), 
   redis.call('HSET', countKey, runningKey, runningCount), 
   redis.call('HINCRBY', countKey, completedKey, 0),
-  redis.call('HINCRBY', countKey, canceledKey, 0) 
+  redis.call('HINCRBY', countKey, canceledKey, 0),
+  redis.call('HINCRBY', countKey, coalescedKey, 0)
 }
@@ -9,11 +9,15 @@ local queuedKey = KEYS[5]
 local runningKey = KEYS[6]
 local completedKey = KEYS[7]
 local canceledKey = KEYS[8]
+local queuedHighKey = KEYS[9]
+local queuedLowKey = KEYS[10]
+local coalescedKey = KEYS[11]
 
 
 return { 
     redis.call('HINCRBY', countKey, scheduledKey, 0), 
     redis.call('HINCRBY', countKey, runningKey, 0), 
     redis.call('HINCRBY', countKey, completedKey, 0),
-    redis.call('HINCRBY', countKey, canceledKey, 0) 
+    redis.call('HINCRBY', countKey, canceledKey, 0),
+    redis.call('HINCRBY', countKey, coalescedKey, 0)
 }
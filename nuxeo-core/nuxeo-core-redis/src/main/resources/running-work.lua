@@ -9,6 +9,9 @@ local queuedKey = KEYS[5]
 local runningKey = KEYS[6]
 local completedKey = KEYS[7]
 local canceledKey = KEYS[8]
+local queuedHighKey = KEYS[9]
+local queuedLowKey = KEYS[10]
+local coalescedKey = KEYS[11]
 
 local id = ARGV[1]
 local state = ARGV[2]
@@ -25,4 +28,5 @@ return {
     redis.call('HINCRBY', countKey, runningKey, 1), 
     redis.call('HINCRBY', countKey, completedKey, 0),
     redis.call('HINCRBY', countKey, canceledKey, 0),
+    redis.call('HINCRBY', countKey, coalescedKey, 0)
 }
@@ -9,28 +9,49 @@ local queuedKey = KEYS[5]
 local runningKey = KEYS[6]
 local completedKey = KEYS[7]
 local canceledKey = KEYS[8]
+local queuedHighKey = KEYS[9]
+local queuedLowKey = KEYS[10]
+local coalescedKey = KEYS[11]
 
 
 local id = ARGV[1]
 local state = ARGV[2]
 local data = ARGV[3]
+local priority = ARGV[4]
+
+-- choose the scheduled list from the priority band
+local targetKey = queuedKey
+if priority == 'H' then
+  targetKey = queuedHighKey
+elseif priority == 'L' then
+  targetKey = queuedLowKey
+end
 
 if redis.call('SADD', scheduledKey, id) == 0 then
+  -- already scheduled: coalesce, the new instance replaces the pending one
+  -- which keeps its position in the scheduled lists, counted only if replaced
+  local coalesced = 0
+  if redis.call('HGET', stateKey, id) == state then
+    redis.call('HSET', dataKey, id, data)
+    coalesced = 1
+  end
   return { 
     redis.call('HINCRBY', countKey, scheduledKey, 0), 
     redis.call('HINCRBY', countKey, runningKey, 0), 
     redis.call('HINCRBY', countKey, completedKey, 0), 
-    redis.call('HINCRBY', countKey, canceledKey, 0)
+    redis.call('HINCRBY', countKey, canceledKey, 0),
+    redis.call('HINCRBY', countKey, coalescedKey, coalesced)
   }
 end
 
 redis.call('HSET', dataKey, id, data)
 redis.call('HSET', stateKey, id, state)
-redis.call('LPUSH', queuedKey, id)
+redis.call('LPUSH', targetKey, id)
 
 return { 
     redis.call('HINCRBY', countKey, scheduledKey, 1), 
     redis.call('HINCRBY', countKey, runningKey, 0), 
     redis.call('HINCRBY', countKey, completedKey, 0),
-    redis.call('HINCRBY', countKey, canceledKey, 0)
+    redis.call('HINCRBY', countKey, canceledKey, 0),
+    redis.call('HINCRBY', countKey, coalescedKey, 0)
 }
\ No newline at end of file
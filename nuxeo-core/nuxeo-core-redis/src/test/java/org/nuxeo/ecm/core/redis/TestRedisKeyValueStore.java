@@ -0,0 +1,107 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.redis;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.redis.contribs.RedisKeyValueStore;
+import org.nuxeo.runtime.kv.KeyValueService;
+import org.nuxeo.runtime.kv.KeyValueStore;
+import org.nuxeo.runtime.kv.KeyValueStoreProvider;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.test.runner.LocalDeploy;
+
+@RunWith(FeaturesRunner.class)
+@Features(RedisFeature.class)
+@LocalDeploy("org.nuxeo.ecm.core.redis.tests:test-redis-kv-contrib.xml")
+public class TestRedisKeyValueStore {
+
+    @Inject
+    protected KeyValueService keyValueService;
+
+    protected KeyValueStore store;
+
+    @Before
+    public void setUp() {
+        store = keyValueService.getKeyValueStore("redis");
+        assertTrue(store instanceof RedisKeyValueStore);
+        ((KeyValueStoreProvider) store).clear();
+    }
+
+    @Test
+    public void testPutGet() {
+        assertNull(store.get("foo"));
+        store.put("foo", new byte[] { 1, 2, 3 });
+        assertArrayEquals(new byte[] { 1, 2, 3 }, store.get("foo"));
+        store.put("foo", "bar");
+        assertEquals("bar", store.getString("foo"));
+        store.put("foo", Long.valueOf(123));
+        assertEquals(Long.valueOf(123), store.getLong("foo"));
+        store.put("foo", (String) null);
+        assertNull(store.get("foo"));
+    }
+
+    @Test
+    public void testBulkGet() {
+        store.put("a", "A");
+        store.put("b", "B");
+        Map<String, String> values = store.getStrings(Arrays.asList("a", "b", "c"));
+        assertEquals(2, values.size());
+        assertEquals("A", values.get("a"));
+        assertEquals("B", values.get("b"));
+    }
+
+    @Test
+    public void testCompareAndSet() {
+        assertFalse(store.compareAndSet("foo", "bar", "gee"));
+        assertTrue(store.compareAndSet("foo", null, "bar"));
+        assertFalse(store.compareAndSet("foo", null, "gee"));
+        assertFalse(store.compareAndSet("foo", "notbar", "gee"));
+        assertTrue(store.compareAndSet("foo", "bar", "gee"));
+        assertEquals("gee", store.getString("foo"));
+        assertTrue(store.compareAndSet("foo", "gee", null));
+        assertNull(store.get("foo"));
+    }
+
+    @Test
+    public void testAddAndGet() {
+        assertEquals(5, store.addAndGet("counter", 5));
+        assertEquals(3, store.addAndGet("counter", -2));
+        assertEquals(Long.valueOf(3), store.getLong("counter"));
+    }
+
+    @Test
+    public void testUnknownStoreFallsBackToDefault() {
+        assertFalse(keyValueService.getKeyValueStore("nosuchstore") instanceof RedisKeyValueStore);
+    }
+
+}
@@ -0,0 +1,172 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.redis;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.cache.CacheDescriptor;
+import org.nuxeo.ecm.core.redis.contribs.RedisCache;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+
+/**
+ * Checks that the local tiers of two {@link RedisCache} instances, simulating two nodes, are kept coherent.
+ *
+ * @since 8.3
+ */
+@RunWith(FeaturesRunner.class)
+@Features(RedisFeature.class)
+public class TestRedisNearCache {
+
+    protected static final long TIMEOUT_MILLIS = 10000;
+
+    @Before
+    public void assumeTrueRedisServer() {
+        Assume.assumeTrue("Require a true Redis server with pubsub support",
+                "server".equals(Framework.getProperty("nuxeo.test.redis.mode")));
+    }
+
+    /** Cache whose subscription to the invalidation channel can be dropped. */
+    protected static class DroppableRedisCache extends RedisCache {
+
+        public DroppableRedisCache(CacheDescriptor desc) {
+            super(desc);
+        }
+
+        public void dropSubscription() {
+            subscriber.unsubscribe();
+        }
+
+        public boolean isSubscribed() {
+            return subscribed;
+        }
+    }
+
+    protected DroppableRedisCache newCache() {
+        CacheDescriptor desc = new CacheDescriptor();
+        desc.name = "near-test-cache";
+        desc.options.put(RedisCache.NEAR_CACHE_MAX_SIZE_OPTION, "100");
+        return new DroppableRedisCache(desc);
+    }
+
+    protected void waitForValue(RedisCache cache, String key, Serializable expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (System.currentTimeMillis() < deadline) {
+            Serializable value = cache.get(key);
+            if (expected == null ? value == null : expected.equals(value)) {
+                return;
+            }
+            Thread.sleep(50);
+        }
+        assertEquals(expected, cache.get(key));
+    }
+
+    @Test
+    public void testInvalidationBetweenNodes() throws Exception {
+        RedisCache cache1 = newCache();
+        RedisCache cache2 = newCache();
+        try {
+            cache1.invalidateAll();
+            cache1.put("foo", "bar");
+            // fetched from redis then kept locally
+            assertEquals("bar", cache2.get("foo"));
+            assertEquals("bar", cache2.get("foo"));
+
+            cache1.put("foo", "gee");
+            waitForValue(cache2, "foo", "gee");
+
+            cache1.invalidate("foo");
+            waitForValue(cache2, "foo", null);
+
+            cache2.put("foo", "moo");
+            waitForValue(cache1, "foo", "moo");
+            cache2.invalidateAll();
+            waitForValue(cache1, "foo", null);
+            assertNull(cache2.get("foo"));
+        } finally {
+            cache1.close();
+            cache2.close();
+        }
+    }
+
+    @Test
+    public void testResubscribe() throws Exception {
+        RedisCache cache1 = newCache();
+        DroppableRedisCache cache2 = newCache();
+        try {
+            cache1.invalidateAll();
+            cache1.put("foo", "bar");
+            assertEquals("bar", cache2.get("foo"));
+
+            cache2.dropSubscription();
+            long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (cache2.isSubscribed() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            // invalidation missed by cache2, whose local tier is bypassed then cleared
+            cache1.put("foo", "gee");
+            assertEquals("gee", cache2.get("foo"));
+            deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+            while (!cache2.isSubscribed() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertTrue(cache2.isSubscribed());
+            assertEquals("gee", cache2.get("foo"));
+
+            // invalidations received again
+            cache1.put("foo", "moo");
+            waitForValue(cache2, "foo", "moo");
+        } finally {
+            cache1.close();
+            cache2.close();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testLocalValuesAreCopies() throws Exception {
+        RedisCache cache = newCache();
+        try {
+            cache.invalidateAll();
+            ArrayList<String> value = new ArrayList<>(Arrays.asList("a", "b"));
+            cache.put("foo", value);
+            // modifying the value put or a value returned doesn't change the cached value
+            value.add("c");
+            List<String> got = (List<String>) cache.get("foo");
+            assertEquals(Arrays.asList("a", "b"), got);
+            got.add("d");
+            assertEquals(Arrays.asList("a", "b"), cache.get("foo"));
+        } finally {
+            cache.close();
+        }
+    }
+
+}
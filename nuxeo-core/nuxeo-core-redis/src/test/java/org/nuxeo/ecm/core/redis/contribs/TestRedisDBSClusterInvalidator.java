@@ -0,0 +1,73 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.redis.contribs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+import org.nuxeo.ecm.core.storage.dbs.DBSInvalidations;
+
+/**
+ * @since 8.3
+ */
+public class TestRedisDBSClusterInvalidator {
+
+    protected static RedisDBSClusterInvalidator newInvalidator(String nodeId) {
+        RedisDBSClusterInvalidator invalidator = new RedisDBSClusterInvalidator();
+        invalidator.nodeId = nodeId;
+        return invalidator;
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        DBSInvalidations invals = new DBSInvalidations();
+        invals.addAll(Arrays.asList("docid1", "docid2"));
+        String message = newInvalidator("node1").serialize(invals);
+        assertTrue(message, message.startsWith("node1:"));
+
+        // discarded by the sending node
+        assertNull(newInvalidator("node1").deserialize(message));
+
+        DBSInvalidations received = newInvalidator("node2").deserialize(message);
+        assertNotNull(received);
+        assertEquals(invals.ids, received.ids);
+
+        message = newInvalidator("node1").serialize(new DBSInvalidations(true));
+        received = newInvalidator("node2").deserialize(message);
+        assertTrue(received.all);
+        assertNull(received.ids);
+    }
+
+    @Test
+    public void testInvalidMessage() {
+        try {
+            newInvalidator("node2").deserialize("foo");
+            fail("should fail on invalid message");
+        } catch (IllegalArgumentException e) {
+            assertEquals("Invalid message: foo", e.getMessage());
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.schema;
+
+/**
+ * Prefetch requested for the documents loaded by the current thread, in addition to the prefetch configured on their
+ * document types.
+ * <p>
+ * Code about to load many documents and knowing which schemas or fields will be read (for instance a page provider
+ * whose results are rendered with some schemas) can open a request, so that the storage fetches this data for all the
+ * documents at once instead of lazily document by document:
+ *
+ * <pre>
+ * try (PrefetchRequest prefetch = PrefetchRequest.open("dublincore, file")) {
+ *     docs = session.query(query);
+ *     log.debug("Prefetched tables: " + prefetch.getTableCount());
+ * }
+ * </pre>
+ *
+ * Requests may be nested, the innermost one applies.
+ *
+ * @since 8.3
+ */
+public class PrefetchRequest implements AutoCloseable {
+
+    private static final ThreadLocal<PrefetchRequest> CURRENT = new ThreadLocal<>();
+
+    protected final PrefetchInfo prefetchInfo;
+
+    protected final PrefetchRequest previous;
+
+    protected int documentCount;
+
+    protected int tableCount;
+
+    protected PrefetchRequest(PrefetchInfo prefetchInfo, PrefetchRequest previous) {
+        this.prefetchInfo = prefetchInfo;
+        this.previous = previous;
+    }
+
+    /**
+     * Opens a prefetch request for the current thread.
+     *
+     * @param expr the schemas and fields to prefetch, with the same syntax as the prefetch of a document type
+     * @return the request, to be closed when done
+     */
+    public static PrefetchRequest open(String expr) {
+        PrefetchRequest request = new PrefetchRequest(new PrefetchInfo(expr), CURRENT.get());
+        CURRENT.set(request);
+        return request;
+    }
+
+    /**
+     * Gets the prefetch request of the current thread.
+     *
+     * @return the request, or {@code null} if none is open
+     */
+    public static PrefetchRequest current() {
+        return CURRENT.get();
+    }
+
+    public PrefetchInfo getPrefetchInfo() {
+        return prefetchInfo;
+    }
+
+    /**
+     * Records that documents were prefetched.
+     *
+     * @param documents the number of documents
+     * @param tables the number of tables having rows to fetch for them
+     */
+    public void addPrefetched(int documents, int tables) {
+        documentCount += documents;
+        tableCount += tables;
+    }
+
+    /**
+     * Gets the number of documents prefetched during this request.
+     */
+    public int getDocumentCount() {
+        return documentCount;
+    }
+
+    /**
+     * Gets the number of tables having rows to fetch to prefetch documents during this request, summed over each
+     * prefetch. This is not the number of statements executed, which may be lower if rows are cached or higher if
+     * queries are split.
+     */
+    public int getTableCount() {
+        return tableCount;
+    }
+
+    @Override
+    public void close() {
+        if (CURRENT.get() != this) {
+            throw new IllegalStateException("Prefetch request is not the current one");
+        }
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+}
@@ -0,0 +1,59 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.schema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class TestPrefetchRequest {
+
+    @Test
+    public void testNested() {
+        assertNull(PrefetchRequest.current());
+        try (PrefetchRequest outer = PrefetchRequest.open("dublincore")) {
+            assertSame(outer, PrefetchRequest.current());
+            try (PrefetchRequest inner = PrefetchRequest.open("file")) {
+                assertSame(inner, PrefetchRequest.current());
+                inner.addPrefetched(50, 3);
+                inner.addPrefetched(10, 2);
+                assertEquals(60, inner.getDocumentCount());
+                assertEquals(5, inner.getTableCount());
+            }
+            assertSame(outer, PrefetchRequest.current());
+            assertEquals(0, outer.getTableCount());
+        }
+        assertNull(PrefetchRequest.current());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCloseOutOfOrder() {
+        PrefetchRequest outer = PrefetchRequest.open("dublincore");
+        PrefetchRequest inner = PrefetchRequest.open("file");
+        try {
+            outer.close();
+        } finally {
+            inner.close();
+            outer.close();
+        }
+    }
+
+}
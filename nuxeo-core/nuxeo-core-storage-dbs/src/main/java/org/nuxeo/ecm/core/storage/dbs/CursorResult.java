@@ -0,0 +1,86 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.dbs;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * State of an open scroll kept by a DBS repository between two batches: an iterator on the ids (usually backed by a
+ * native database cursor), and the keep alive information.
+ *
+ * @since 8.3
+ */
+public class CursorResult {
+
+    protected final Iterator<String> ids;
+
+    protected final AutoCloseable cursor;
+
+    public final int batchSize;
+
+    public final long keepAliveMillis;
+
+    protected volatile long lastAccess;
+
+    /**
+     * Constructs a cursor result.
+     *
+     * @param ids the iterator on the ids
+     * @param cursor the underlying cursor to close when done, or {@code null}
+     * @param batchSize the batch size
+     * @param keepAliveSeconds the keep alive
+     */
+    public CursorResult(Iterator<String> ids, AutoCloseable cursor, int batchSize, int keepAliveSeconds) {
+        this.ids = ids;
+        this.cursor = cursor;
+        this.batchSize = batchSize;
+        keepAliveMillis = keepAliveSeconds * 1000L;
+        lastAccess = System.currentTimeMillis();
+    }
+
+    public boolean isExpired(long now) {
+        return now - lastAccess > keepAliveMillis;
+    }
+
+    /**
+     * Gets the next batch of ids, which is empty when the cursor is exhausted.
+     */
+    public synchronized List<String> next() {
+        lastAccess = System.currentTimeMillis();
+        List<String> batch = new ArrayList<>(batchSize);
+        while (batch.size() < batchSize && ids.hasNext()) {
+            batch.add(ids.next());
+        }
+        return batch;
+    }
+
+    public void close() {
+        if (cursor == null) {
+            return;
+        }
+        try {
+            cursor.close();
+        } catch (Exception e) {
+            // ignore, the cursor will be reclaimed by the database
+        }
+    }
+
+}
@@ -0,0 +1,81 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.dbs;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.repository.RepositoryService;
+import org.nuxeo.ecm.core.work.AbstractWork;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Work task that updates the ancestors of the descendants of a moved document, when they are updated asynchronously.
+ * <p>
+ * The ancestors are updated in batches of bounded size, each one committed separately. This is done single-threaded
+ * through the use of a {@link org.nuxeo.ecm.core.work.api.WorkManager WorkManager} queue with only one thread.
+ *
+ * @since 8.3
+ */
+public class DBSAncestorIdsUpdateWork extends AbstractWork {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Log log = LogFactory.getLog(DBSAncestorIdsUpdateWork.class);
+
+    protected static final String CATEGORY = "ancestorIdsUpdater";
+
+    protected static final String TITLE = "Ancestor Ids Updater";
+
+    public DBSAncestorIdsUpdateWork(String repositoryName, String docId) {
+        super(repositoryName + ':' + docId + ":ancestorIdsUpdater");
+        setDocument(repositoryName, docId, true);
+    }
+
+    @Override
+    public String getCategory() {
+        return CATEGORY;
+    }
+
+    @Override
+    public String getTitle() {
+        return TITLE;
+    }
+
+    @Override
+    public void work() {
+        DBSRepositoryService dbsRepositoryService = Framework.getService(DBSRepositoryService.class);
+        int batchSize = dbsRepositoryService.getRepositoryDescriptor(repositoryName).getAncestorIdsUpdateBatchSize();
+        RepositoryService repositoryService = Framework.getService(RepositoryService.class);
+        DBSRepositoryBase repository = (DBSRepositoryBase) repositoryService.getRepository(repositoryName);
+        setStatus("Updating");
+        // each batch is committed separately
+        commitOrRollbackTransaction();
+        try {
+            long n = repository.updateDescendantsAncestors(docId, batchSize);
+            if (log.isDebugEnabled()) {
+                log.debug("Ancestors updated for " + n + " documents under: " + docId + " in repository: "
+                        + repositoryName);
+            }
+        } finally {
+            startTransaction();
+        }
+        setStatus("Done");
+    }
+
+}
@@ -0,0 +1,462 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.dbs;
+
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ID;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.Lock;
+import org.nuxeo.ecm.core.api.PartialList;
+import org.nuxeo.ecm.core.api.ScrollResult;
+import org.nuxeo.ecm.core.blob.BlobManager;
+import org.nuxeo.ecm.core.model.LockManager;
+import org.nuxeo.ecm.core.model.Session;
+import org.nuxeo.ecm.core.query.sql.model.OrderByClause;
+import org.nuxeo.ecm.core.storage.FulltextConfiguration;
+import org.nuxeo.ecm.core.storage.State;
+import org.nuxeo.ecm.core.storage.State.StateDiff;
+import org.nuxeo.ecm.core.storage.StateHelper;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A {@link DBSRepository} wrapper keeping in a bounded memory cache the {@link State}s read from the underlying
+ * repository, shared by all the sessions.
+ * <p>
+ * Any write done through this wrapper invalidates the written states, and the invalidations are propagated to the other
+ * cluster nodes through a {@link DBSClusterInvalidator}. Invalidations received from other nodes are processed before
+ * each read.
+ * <p>
+ * Queries are not cached.
+ *
+ * @since 8.3
+ */
+public class DBSCachingRepository implements DBSRepository {
+
+    private static final Log log = LogFactory.getLog(DBSCachingRepository.class);
+
+    protected final DBSRepository repository;
+
+    protected final Cache<String, State> cache;
+
+    protected final DBSClusterInvalidator clusterInvalidator;
+
+    /**
+     * Incremented on each invalidation, to avoid caching a state read concurrently with a write.
+     */
+    protected final AtomicLong generation = new AtomicLong();
+
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    protected Counter cacheHitCount;
+
+    protected Counter cacheMissCount;
+
+    protected Counter invalidationsSentCount;
+
+    protected Counter invalidationsReceivedCount;
+
+    protected String cacheSizeGaugeName;
+
+    public DBSCachingRepository(DBSRepository repository, DBSRepositoryDescriptor descriptor) {
+        this.repository = repository;
+        cache = CacheBuilder.newBuilder() //
+                            .maximumSize(descriptor.getCacheMaxSize())
+                            .expireAfterWrite(descriptor.getCacheTTL(), TimeUnit.MINUTES)
+                            .concurrencyLevel(descriptor.getCacheConcurrencyLevel())
+                            .build();
+        if (descriptor.clusterInvalidatorClass == null) {
+            clusterInvalidator = null;
+        } else {
+            try {
+                clusterInvalidator = descriptor.clusterInvalidatorClass.newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException(e);
+            }
+            clusterInvalidator.initialize(descriptor.getClusterNodeId(), repository.getName());
+        }
+        setMetrics(repository.getName());
+    }
+
+    protected void setMetrics(String repositoryName) {
+        cacheHitCount = registry.counter(MetricRegistry.name("nuxeo", "repositories", repositoryName, "caches",
+                "states", "hits"));
+        cacheMissCount = registry.counter(MetricRegistry.name("nuxeo", "repositories", repositoryName, "caches",
+                "states", "misses"));
+        invalidationsSentCount = registry.counter(MetricRegistry.name("nuxeo", "repositories", repositoryName,
+                "caches", "states", "invalidations", "sent"));
+        invalidationsReceivedCount = registry.counter(MetricRegistry.name("nuxeo", "repositories", repositoryName,
+                "caches", "states", "invalidations", "received"));
+        cacheSizeGaugeName = MetricRegistry.name("nuxeo", "repositories", repositoryName, "caches", "states", "size");
+        registry.remove(cacheSizeGaugeName);
+        registry.register(cacheSizeGaugeName, new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return Long.valueOf(cache.size());
+            }
+        });
+    }
+
+    /**
+     * Gets the underlying (non-caching) repository.
+     */
+    public DBSRepository getRepository() {
+        return repository;
+    }
+
+    /**
+     * Clears the cache and releases the resources used by this caching layer. Does not shutdown the underlying
+     * repository.
+     */
+    public void close() {
+        if (clusterInvalidator != null) {
+            clusterInvalidator.close();
+        }
+        cache.invalidateAll();
+        registry.remove(cacheSizeGaugeName);
+    }
+
+    /*
+     * ----- cache management -----
+     */
+
+    protected void processReceivedInvalidations() {
+        if (clusterInvalidator == null) {
+            return;
+        }
+        DBSInvalidations invalidations = clusterInvalidator.receiveInvalidations();
+        if (invalidations == null || invalidations.isEmpty()) {
+            return;
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("Received invalidations: " + invalidations);
+        }
+        invalidationsReceivedCount.inc();
+        generation.incrementAndGet();
+        if (invalidations.all) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidateAll(invalidations.ids);
+        }
+    }
+
+    protected void invalidate(DBSInvalidations invalidations) {
+        generation.incrementAndGet();
+        if (invalidations.all) {
+            cache.invalidateAll();
+        } else {
+            cache.invalidateAll(invalidations.ids);
+        }
+        if (clusterInvalidator != null) {
+            invalidationsSentCount.inc();
+            clusterInvalidator.sendInvalidations(invalidations);
+        }
+    }
+
+    protected void invalidate(String id) {
+        DBSInvalidations invalidations = new DBSInvalidations();
+        invalidations.add(id);
+        invalidate(invalidations);
+    }
+
+    protected State getFromCache(String id) {
+        State state = cache.getIfPresent(id);
+        if (state == null) {
+            cacheMissCount.inc();
+            return null;
+        }
+        cacheHitCount.inc();
+        // callers may modify the returned state
+        return StateHelper.deepCopy(state);
+    }
+
+    protected void putInCache(State state, long gen) {
+        if (state == null) {
+            return;
+        }
+        // don't cache a state that may have been invalidated while we were reading it
+        if (generation.get() != gen) {
+            return;
+        }
+        String id = (String) state.get(KEY_ID);
+        cache.put(id, StateHelper.deepCopy(state));
+        // an invalidation may have happened between the check and the put
+        if (generation.get() != gen) {
+            cache.invalidate(id);
+        }
+    }
+
+    /*
+     * ----- cached reads -----
+     */
+
+    @Override
+    public State readState(String id) {
+        processReceivedInvalidations();
+        State state = getFromCache(id);
+        if (state != null) {
+            return state;
+        }
+        long gen = generation.get();
+        state = repository.readState(id);
+        putInCache(state, gen);
+        return state;
+    }
+
+    @Override
+    public List<State> readStates(List<String> ids) {
+        processReceivedInvalidations();
+        List<State> states = new ArrayList<>(ids.size());
+        List<String> idsToFetch = new ArrayList<>();
+        for (String id : ids) {
+            State state = getFromCache(id);
+            if (state == null) {
+                idsToFetch.add(id);
+            } else {
+                states.add(state);
+            }
+        }
+        if (!idsToFetch.isEmpty()) {
+            long gen = generation.get();
+            List<State> fetched = repository.readStates(idsToFetch);
+            for (State state : fetched) {
+                putInCache(state, gen);
+            }
+            states.addAll(fetched);
+        }
+        return states;
+    }
+
+    /*
+     * ----- writes, with invalidation -----
+     */
+
+    @Override
+    public void createState(State state) {
+        repository.createState(state);
+        invalidate((String) state.get(KEY_ID));
+    }
+
+    @Override
+    public void createStates(List<State> states) {
+        repository.createStates(states);
+        DBSInvalidations invalidations = new DBSInvalidations();
+        for (State state : states) {
+            invalidations.add((String) state.get(KEY_ID));
+        }
+        invalidate(invalidations);
+    }
+
+    @Override
+    public void updateState(String id, StateDiff diff) {
+        try {
+            repository.updateState(id, diff);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public void updateStates(Map<String, StateDiff> diffs) {
+        DBSInvalidations invalidations = new DBSInvalidations();
+        invalidations.addAll(diffs.keySet());
+        try {
+            repository.updateStates(diffs);
+        } finally {
+            invalidate(invalidations);
+        }
+    }
+
+    @Override
+    public void deleteStates(Set<String> ids) {
+        DBSInvalidations invalidations = new DBSInvalidations();
+        invalidations.addAll(ids);
+        try {
+            repository.deleteStates(ids);
+        } finally {
+            invalidate(invalidations);
+        }
+    }
+
+    /*
+     * ----- locks are stored in the document state -----
+     */
+
+    @Override
+    public LockManager getLockManager() {
+        LockManager lockManager = repository.getLockManager();
+        // if the repository is its own lock manager, go through us to invalidate the states
+        return lockManager == repository ? this : lockManager;
+    }
+
+    @Override
+    public Lock getLock(String id) {
+        return repository.getLock(id);
+    }
+
+    @Override
+    public Lock setLock(String id, Lock lock) {
+        try {
+            return repository.setLock(id, lock);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public Lock removeLock(String id, String owner) {
+        try {
+            return repository.removeLock(id, owner);
+        } finally {
+            invalidate(id);
+        }
+    }
+
+    @Override
+    public void closeLockManager() {
+        repository.closeLockManager();
+    }
+
+    @Override
+    public void clearLockManagerCaches() {
+        repository.clearLockManagerCaches();
+    }
+
+    /*
+     * ----- delegation -----
+     */
+
+    @Override
+    public String getName() {
+        return repository.getName();
+    }
+
+    @Override
+    public Session getSession() {
+        return repository.getSession();
+    }
+
+    @Override
+    public void shutdown() {
+        repository.shutdown();
+    }
+
+    @Override
+    public int getActiveSessionsCount() {
+        return repository.getActiveSessionsCount();
+    }
+
+    @Override
+    public void markReferencedBinaries() {
+        repository.markReferencedBinaries();
+    }
+
+    @Override
+    public BlobManager getBlobManager() {
+        return repository.getBlobManager();
+    }
+
+    @Override
+    public FulltextConfiguration getFulltextConfiguration() {
+        return repository.getFulltextConfiguration();
+    }
+
+    @Override
+    public boolean isFulltextDisabled() {
+        return repository.isFulltextDisabled();
+    }
+
+    @Override
+    public String getRootId() {
+        return repository.getRootId();
+    }
+
+    @Override
+    public String generateNewId() {
+        return repository.generateNewId();
+    }
+
+    @Override
+    public State readChildState(String parentId, String name, Set<String> ignored) {
+        return repository.readChildState(parentId, name, ignored);
+    }
+
+    @Override
+    public boolean hasChild(String parentId, String name, Set<String> ignored) {
+        return repository.hasChild(parentId, name, ignored);
+    }
+
+    @Override
+    public List<State> queryKeyValue(String key, Object value, Set<String> ignored) {
+        return repository.queryKeyValue(key, value, ignored);
+    }
+
+    @Override
+    public List<State> queryKeyValue(String key1, Object value1, String key2, Object value2, Set<String> ignored) {
+        return repository.queryKeyValue(key1, value1, key2, value2, ignored);
+    }
+
+    @Override
+    public void queryKeyValueArray(String key, Object value, Set<String> ids, Map<String, String> proxyTargets,
+            Map<String, Object[]> targetProxies) {
+        repository.queryKeyValueArray(key, value, ids, proxyTargets, targetProxies);
+    }
+
+    @Override
+    public boolean queryKeyValuePresence(String key, String value, Set<String> ignored) {
+        return repository.queryKeyValuePresence(key, value, ignored);
+    }
+
+    @Override
+    public PartialList<Map<String, Serializable>> queryAndFetch(DBSExpressionEvaluator evaluator,
+            OrderByClause orderByClause, boolean distinctDocuments, int limit, int offset, int countUpTo) {
+        return repository.queryAndFetch(evaluator, orderByClause, distinctDocuments, limit, offset, countUpTo);
+    }
+
+    @Override
+    public ScrollResult scroll(DBSExpressionEvaluator evaluator, int batchSize, int keepAliveSeconds) {
+        return repository.scroll(evaluator, batchSize, keepAliveSeconds);
+    }
+
+    @Override
+    public ScrollResult scroll(String scrollId) {
+        return repository.scroll(scrollId);
+    }
+
+    @Override
+    public void closeScroll(String scrollId) {
+        repository.closeScroll(scrollId);
+    }
+
+}
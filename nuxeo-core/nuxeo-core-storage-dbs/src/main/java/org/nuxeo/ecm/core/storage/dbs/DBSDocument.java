@@ -97,6 +97,21 @@ public class DBSDocument extends BaseDocument<State> {
 
     public static final String KEY_ANCESTOR_IDS = "ecm:ancestorIds";
 
+    /**
+     * Marks a moved document whose descendants still have to get their ancestors updated.
+     *
+     * @since 8.3
+     */
+    public static final String KEY_ANCESTOR_IDS_PENDING = "ecm:ancestorIdsPending";
+
+    /**
+     * The ancestors of a moved document before the move, kept while its descendants still have to get their ancestors
+     * updated.
+     *
+     * @since 8.3
+     */
+    public static final String KEY_OLD_ANCESTOR_IDS = "ecm:oldAncestorIds";
+
     public static final String KEY_PRIMARY_TYPE = "ecm:primaryType";
 
     public static final String KEY_MIXIN_TYPES = "ecm:mixinTypes";
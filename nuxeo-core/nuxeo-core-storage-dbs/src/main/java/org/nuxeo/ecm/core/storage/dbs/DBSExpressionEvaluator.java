@@ -41,7 +41,9 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
+import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.math.NumberUtils;
 import org.apache.commons.logging.Log;
@@ -96,6 +98,12 @@ public class DBSExpressionEvaluator extends ExpressionEvaluator {
 
     protected boolean parsing;
 
+    /** @since 8.3 */
+    protected Supplier<DBSPendingMoves> pendingMovesSupplier;
+
+    /** @since 8.3 */
+    protected DBSPendingMoves pendingMoves;
+
     /** Info about a value and how to compute it from the toplevel state or an iterator's state. */
     protected static final class ValueInfo {
 
@@ -296,6 +304,51 @@ public class DBSExpressionEvaluator extends ExpressionEvaluator {
         return orderByClause;
     }
 
+    /**
+     * Makes ancestors checks take into account the moves whose descendants don't have their ancestors updated yet. The
+     * supplier is only called if the query is about ancestors.
+     *
+     * @since 8.3
+     */
+    public void setPendingMoves(Supplier<DBSPendingMoves> pendingMovesSupplier) {
+        this.pendingMovesSupplier = pendingMovesSupplier;
+    }
+
+    /**
+     * Gets the moves whose descendants don't have their ancestors updated yet.
+     *
+     * @return the pending moves, or {@code null} if they don't have to be taken into account
+     * @since 8.3
+     */
+    public DBSPendingMoves getPendingMoves() {
+        if (pendingMoves == null && pendingMovesSupplier != null) {
+            pendingMoves = pendingMovesSupplier.get();
+        }
+        return pendingMoves;
+    }
+
+    @Override
+    protected boolean hasAncestor(Object[] ancestorIds, String ancestorId) {
+        DBSPendingMoves pendingMoves = getPendingMoves();
+        if (pendingMoves == null || pendingMoves.isEmpty()) {
+            return super.hasAncestor(ancestorIds, ancestorId);
+        }
+        for (String movedId : pendingMoves.getMovedOutOf(ancestorId)) {
+            if (ArrayUtils.contains(ancestorIds, movedId)) {
+                return false;
+            }
+        }
+        if (super.hasAncestor(ancestorIds, ancestorId)) {
+            return true;
+        }
+        for (String movedId : pendingMoves.getMovedUnder(ancestorId)) {
+            if (ArrayUtils.contains(ancestorIds, movedId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     protected List<String> getDocumentTypes() {
         // TODO precompute in SchemaManager
         if (documentTypes == null) {
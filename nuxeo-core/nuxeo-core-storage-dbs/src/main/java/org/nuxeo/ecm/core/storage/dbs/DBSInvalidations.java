@@ -0,0 +1,128 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.dbs;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A set of invalidated document ids, exchanged between the {@link DBSCachingRepository} of each cluster node.
+ *
+ * @since 8.3
+ */
+public class DBSInvalidations implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Maximum number of invalidated ids for which we send individual invalidations. Above this, all the cache is
+     * invalidated.
+     */
+    public static final int MAX_SIZE = 10000;
+
+    /** Whether all the cache must be invalidated. */
+    public boolean all;
+
+    /** Invalidated document ids. */
+    public Set<String> ids;
+
+    public DBSInvalidations() {
+        this(false);
+    }
+
+    public DBSInvalidations(boolean all) {
+        this.all = all;
+    }
+
+    public boolean isEmpty() {
+        return ids == null && !all;
+    }
+
+    public void clear() {
+        all = false;
+        ids = null;
+    }
+
+    protected void setAll() {
+        all = true;
+        ids = null;
+    }
+
+    protected void checkMaxSize() {
+        if (ids != null && ids.size() > MAX_SIZE) {
+            setAll();
+        }
+    }
+
+    public void add(DBSInvalidations other) {
+        if (other == null || all) {
+            return;
+        }
+        if (other.all) {
+            setAll();
+            return;
+        }
+        if (other.ids != null) {
+            if (ids == null) {
+                ids = new HashSet<>();
+            }
+            ids.addAll(other.ids);
+        }
+        checkMaxSize();
+    }
+
+    public void add(String id) {
+        if (all) {
+            return;
+        }
+        if (ids == null) {
+            ids = new HashSet<>();
+        }
+        ids.add(id);
+        checkMaxSize();
+    }
+
+    public void addAll(Collection<String> idsToAdd) {
+        if (all) {
+            return;
+        }
+        if (ids == null) {
+            ids = new HashSet<>();
+        }
+        ids.addAll(idsToAdd);
+        checkMaxSize();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(getClass().getSimpleName() + '(');
+        if (all) {
+            sb.append("all=true");
+        }
+        if (ids != null) {
+            sb.append("ids=");
+            sb.append(ids);
+        }
+        sb.append(')');
+        return sb.toString();
+    }
+
+}
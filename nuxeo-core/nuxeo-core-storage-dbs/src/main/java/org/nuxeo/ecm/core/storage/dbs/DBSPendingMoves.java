@@ -0,0 +1,113 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.dbs;
+
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ANCESTOR_IDS;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ID;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_OLD_ANCESTOR_IDS;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.lang.ArrayUtils;
+import org.nuxeo.ecm.core.storage.State;
+
+/**
+ * The moves whose descendants don't have their ancestors updated yet, when ancestors are updated asynchronously.
+ * <p>
+ * The moved document itself has its ancestors up to date, and keeps its previous ones in
+ * {@link DBSDocument#KEY_OLD_ANCESTOR_IDS}, while its descendants may still have the previous ones. This is used to
+ * correct the lookups of the documents under a given ancestor during the update.
+ *
+ * @since 8.3
+ */
+public class DBSPendingMoves {
+
+    protected final List<State> states;
+
+    /**
+     * @param states the states of the moved documents marked with {@link DBSDocument#KEY_ANCESTOR_IDS_PENDING}
+     */
+    public DBSPendingMoves(List<State> states) {
+        this.states = states;
+    }
+
+    public boolean isEmpty() {
+        return states.isEmpty();
+    }
+
+    /**
+     * Gets the moved documents that are now under the given ancestor but weren't before the move. Their descendants
+     * may not list the ancestor yet.
+     */
+    public List<String> getMovedUnder(String ancestorId) {
+        return getMoved(ancestorId, true);
+    }
+
+    /**
+     * Gets the moved documents that were under the given ancestor before the move but aren't anymore. Their
+     * descendants may still list the ancestor.
+     */
+    public List<String> getMovedOutOf(String ancestorId) {
+        return getMoved(ancestorId, false);
+    }
+
+    protected List<String> getMoved(String ancestorId, boolean under) {
+        List<String> ids = null;
+        for (State state : states) {
+            String id = (String) state.get(KEY_ID);
+            if (id.equals(ancestorId)) {
+                continue;
+            }
+            boolean isUnder = ArrayUtils.contains((Object[]) state.get(KEY_ANCESTOR_IDS), ancestorId);
+            boolean wasUnder = ArrayUtils.contains((Object[]) state.get(KEY_OLD_ANCESTOR_IDS), ancestorId);
+            if (isUnder != wasUnder && isUnder == under) {
+                if (ids == null) {
+                    ids = new ArrayList<>();
+                }
+                ids.add(id);
+            }
+        }
+        return ids == null ? Collections.<String> emptyList() : ids;
+    }
+
+    /**
+     * Computes the ancestors of a descendant of a moved document, given the current ancestors of the moved document.
+     *
+     * @param ancestors the ancestors of the descendant
+     * @param id the moved document
+     * @param ancestorIds the ancestors of the moved document
+     * @return the new ancestors of the descendant, or {@code null} if it's not under the moved document
+     */
+    public static Object[] replaceAncestors(Object[] ancestors, String id, Object[] ancestorIds) {
+        int i = ArrayUtils.indexOf(ancestors, id);
+        if (i == ArrayUtils.INDEX_NOT_FOUND) {
+            return null;
+        }
+        int nadd = ancestorIds == null ? 0 : ancestorIds.length;
+        Object[] newAncestors = new Object[nadd + ancestors.length - i];
+        if (nadd != 0) {
+            System.arraycopy(ancestorIds, 0, newAncestors, 0, nadd);
+        }
+        System.arraycopy(ancestors, i, newAncestors, nadd, ancestors.length - i);
+        return newAncestors;
+    }
+
+}
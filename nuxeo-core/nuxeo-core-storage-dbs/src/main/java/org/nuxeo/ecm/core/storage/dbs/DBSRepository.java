@@ -24,6 +24,7 @@ import java.util.Map;
 import java.util.Set;
 
 import org.nuxeo.ecm.core.api.PartialList;
+import org.nuxeo.ecm.core.api.ScrollResult;
 import org.nuxeo.ecm.core.blob.BlobManager;
 import org.nuxeo.ecm.core.model.LockManager;
 import org.nuxeo.ecm.core.model.Repository;
@@ -110,6 +111,28 @@ public interface DBSRepository extends Repository, LockManager {
      */
     void updateState(String id, StateDiff diff);
 
+    /**
+     * Creates several documents.
+     * <p>
+     * This is equivalent to calling {@link #createState} for each state in order, but implementations may send them
+     * to the storage in fewer round-trips.
+     *
+     * @param states the document states
+     * @since 8.3
+     */
+    void createStates(List<State> states);
+
+    /**
+     * Updates several documents.
+     * <p>
+     * This is equivalent to calling {@link #updateState} for each diff in iteration order, but implementations may
+     * send them to the storage in fewer round-trips.
+     *
+     * @param diffs the diffs to apply, keyed by document id
+     * @since 8.3
+     */
+    void updateStates(Map<String, StateDiff> diffs);
+
     /**
      * Deletes a set of document.
      *
@@ -199,6 +222,36 @@ public interface DBSRepository extends Repository, LockManager {
     PartialList<Map<String, Serializable>> queryAndFetch(DBSExpressionEvaluator evaluator, OrderByClause orderByClause,
             boolean distinctDocuments, int limit, int offset, int countUpTo);
 
+    /**
+     * Opens a scroll on the documents matching a NXQL query, and returns the first batch of ids.
+     * <p>
+     * The order of the ids is not specified.
+     *
+     * @param evaluator the map-based evaluator for the query
+     * @param batchSize the maximum number of ids in each batch
+     * @param keepAliveSeconds the delay after which the scroll is closed if no next batch is requested
+     * @return the first batch of ids, and the scroll id
+     * @since 8.3
+     */
+    ScrollResult scroll(DBSExpressionEvaluator evaluator, int batchSize, int keepAliveSeconds);
+
+    /**
+     * Gets the next batch of ids of a scroll. The scroll is closed when an empty batch is returned.
+     *
+     * @param scrollId the scroll id
+     * @return the next batch of ids
+     * @since 8.3
+     */
+    ScrollResult scroll(String scrollId);
+
+    /**
+     * Closes a scroll.
+     *
+     * @param scrollId the scroll id
+     * @since 8.3
+     */
+    void closeScroll(String scrollId);
+
     /**
      * Gets the lock manager for this repository.
      *
@@ -19,6 +19,9 @@
 package org.nuxeo.ecm.core.storage.dbs;
 
 import static java.lang.Boolean.FALSE;
+import static java.lang.Boolean.TRUE;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ANCESTOR_IDS_PENDING;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ID;
 
 import java.io.Serializable;
 import java.lang.reflect.InvocationHandler;
@@ -26,11 +29,16 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 
 import javax.naming.NamingException;
@@ -45,6 +53,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.nuxeo.common.utils.ExceptionUtils;
 import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.ScrollResult;
 import org.nuxeo.ecm.core.api.security.ACE;
 import org.nuxeo.ecm.core.api.security.SecurityConstants;
 import org.nuxeo.ecm.core.api.security.impl.ACLImpl;
@@ -64,8 +73,12 @@ import org.nuxeo.ecm.core.schema.types.Schema;
 import org.nuxeo.ecm.core.schema.types.Type;
 import org.nuxeo.ecm.core.storage.FulltextConfiguration;
 import org.nuxeo.ecm.core.storage.FulltextDescriptor;
+import org.nuxeo.ecm.core.storage.State;
+import org.nuxeo.ecm.core.storage.State.StateDiff;
 import org.nuxeo.ecm.core.storage.lock.LockManagerService;
 import org.nuxeo.ecm.core.storage.sql.ra.ConnectionFactoryImpl;
+import org.nuxeo.ecm.core.work.api.WorkManager;
+import org.nuxeo.ecm.core.work.api.WorkManager.Scheduling;
 import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.jtajca.NuxeoContainer;
 import org.nuxeo.runtime.transaction.TransactionHelper;
@@ -103,6 +116,30 @@ public abstract class DBSRepositoryBase implements DBSRepository {
      */
     protected boolean selfRegisteredLockManager = false;
 
+    /**
+     * The caching layer used by the sessions, or {@code null} if there is no cache.
+     *
+     * @since 8.3
+     */
+    protected DBSCachingRepository cachingRepository;
+
+    /**
+     * Open scrolls, by scroll id.
+     *
+     * @since 8.3
+     */
+    protected final Map<String, CursorResult> cursorResults = new ConcurrentHashMap<>();
+
+    /**
+     * @since 8.3
+     */
+    public DBSRepositoryBase(ConnectionManager cm, DBSRepositoryDescriptor descriptor) {
+        this(cm, descriptor.name, descriptor.getFulltextDescriptor());
+        if (descriptor.isCacheEnabled()) {
+            initCache(descriptor);
+        }
+    }
+
     public DBSRepositoryBase(ConnectionManager cm, String repositoryName, FulltextDescriptor fulltextDescriptor) {
         this.repositoryName = repositoryName;
         if (fulltextDescriptor.getFulltextDisabled()) {
@@ -116,8 +153,32 @@ public abstract class DBSRepositoryBase implements DBSRepository {
         initLockManager();
     }
 
+    /**
+     * Sets up the second-level cache of states shared by all the sessions.
+     *
+     * @since 8.3
+     */
+    protected void initCache(DBSRepositoryDescriptor descriptor) {
+        cachingRepository = new DBSCachingRepository(this, descriptor);
+        if (selfRegisteredLockManager) {
+            // locks are stored in the states, so lock changes must go through the cache
+            LockManagerService lockManagerService = Framework.getService(LockManagerService.class);
+            lockManagerService.unregisterLockManager(getLockManagerName());
+            lockManagerService.registerLockManager(getLockManagerName(), cachingRepository);
+            lockManager = cachingRepository;
+        }
+        log.info("Repository " + repositoryName + " using a shared states cache");
+    }
+
     @Override
     public void shutdown() {
+        if (cachingRepository != null) {
+            cachingRepository.close();
+        }
+        for (CursorResult cursorResult : cursorResults.values()) {
+            cursorResult.close();
+        }
+        cursorResults.clear();
         try {
             NuxeoContainer.disposeConnectionManager(cm);
         } catch (RuntimeException e) {
@@ -258,6 +319,69 @@ public abstract class DBSRepositoryBase implements DBSRepository {
         }
     }
 
+    @Override
+    public void createStates(List<State> states) {
+        for (State state : states) {
+            createState(state);
+        }
+    }
+
+    @Override
+    public void updateStates(Map<String, StateDiff> diffs) {
+        for (Entry<String, StateDiff> en : diffs.entrySet()) {
+            updateState(en.getKey(), en.getValue());
+        }
+    }
+
+    /**
+     * Registers a new scroll and returns its first batch.
+     *
+     * @since 8.3
+     */
+    protected ScrollResult registerCursorResult(CursorResult cursorResult) {
+        checkForExpiredScrolls();
+        String scrollId = UUID.randomUUID().toString();
+        cursorResults.put(scrollId, cursorResult);
+        return scroll(scrollId);
+    }
+
+    @Override
+    public ScrollResult scroll(String scrollId) {
+        CursorResult cursorResult = cursorResults.get(scrollId);
+        if (cursorResult == null) {
+            throw new NuxeoException("Unknown or expired scroll id: " + scrollId);
+        }
+        List<String> ids = cursorResult.next();
+        if (ids.isEmpty()) {
+            closeScroll(scrollId);
+        }
+        return new ScrollResult(scrollId, ids);
+    }
+
+    @Override
+    public void closeScroll(String scrollId) {
+        CursorResult cursorResult = cursorResults.remove(scrollId);
+        if (cursorResult != null) {
+            cursorResult.close();
+        }
+    }
+
+    /**
+     * Closes the scrolls whose keep alive has expired.
+     *
+     * @since 8.3
+     */
+    protected void checkForExpiredScrolls() {
+        long now = System.currentTimeMillis();
+        for (Iterator<Entry<String, CursorResult>> it = cursorResults.entrySet().iterator(); it.hasNext();) {
+            CursorResult cursorResult = it.next().getValue();
+            if (cursorResult.isExpired(now)) {
+                it.remove();
+                cursorResult.close();
+            }
+        }
+    }
+
     @Override
     public String getRootId() {
         return DEBUG_UUIDS ? UUID_ZERO_DEBUG : UUID_ZERO;
@@ -304,7 +428,48 @@ public abstract class DBSRepositoryBase implements DBSRepository {
     }
 
     protected DBSSession newSession() {
-        return new DBSSession(this);
+        return new DBSSession(cachingRepository == null ? this : cachingRepository);
+    }
+
+    /**
+     * Updates in batches the ancestors of the descendants of a document moved with an asynchronous ancestors update.
+     * <p>
+     * Must be called outside a transaction, each batch is saved separately.
+     *
+     * @param id the moved document
+     * @param batchSize the number of documents to update in each batch
+     * @return the number of documents updated
+     * @since 8.3
+     */
+    public long updateDescendantsAncestors(String id, int batchSize) {
+        DBSSession session = newSession();
+        try {
+            return session.updateDescendantsAncestors(id, batchSize);
+        } finally {
+            session.close();
+        }
+    }
+
+    /**
+     * Schedules the update of the ancestors of the descendants of the documents still marked as moved with an
+     * asynchronous ancestors update, in case the work doing it was lost (restart with a non-persistent queue, crash or
+     * failure). Called when the repository starts.
+     *
+     * @return the number of updates scheduled
+     * @since 8.3
+     */
+    public int scheduleAncestorIdsUpdates() {
+        List<State> states = queryKeyValue(KEY_ANCESTOR_IDS_PENDING, TRUE, Collections.<String> emptySet());
+        if (states.isEmpty()) {
+            return 0;
+        }
+        log.info("Scheduling " + states.size() + " pending ancestors updates for repository: " + repositoryName);
+        WorkManager workManager = Framework.getService(WorkManager.class);
+        for (State state : states) {
+            String id = (String) state.get(KEY_ID);
+            workManager.schedule(new DBSAncestorIdsUpdateWork(repositoryName, id), Scheduling.IF_NOT_SCHEDULED);
+        }
+        return states.size();
     }
 
     public Map<Transaction, TransactionContext> transactionContexts = new ConcurrentHashMap<>();
@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.UUID;
 
 import org.nuxeo.common.xmap.annotation.XNode;
 import org.nuxeo.common.xmap.annotation.XNodeList;
@@ -87,6 +88,106 @@ public class DBSRepositoryDescriptor implements Cloneable {
         fulltextDescriptor.setFulltextIncludedTypes(fulltextIncludedTypes);
     }
 
+    /** @since 8.3 */
+    public static final long DEFAULT_CACHE_MAX_SIZE = 10000;
+
+    /** @since 8.3 */
+    public static final long DEFAULT_CACHE_TTL = 10; // minutes
+
+    /** @since 8.3 */
+    public static final int DEFAULT_CACHE_CONCURRENCY_LEVEL = 10;
+
+    /** @since 8.3 */
+    @XNode("cache@enabled")
+    protected Boolean cacheEnabled;
+
+    /** @since 8.3 */
+    public boolean isCacheEnabled() {
+        return Boolean.TRUE.equals(cacheEnabled);
+    }
+
+    /** @since 8.3 */
+    @XNode("cache@maxSize")
+    protected Long cacheMaxSize;
+
+    /** @since 8.3 */
+    public long getCacheMaxSize() {
+        return cacheMaxSize == null ? DEFAULT_CACHE_MAX_SIZE : cacheMaxSize.longValue();
+    }
+
+    /** @since 8.3 */
+    @XNode("cache@ttl")
+    protected Long cacheTTL;
+
+    /** Cache TTL, in minutes. @since 8.3 */
+    public long getCacheTTL() {
+        return cacheTTL == null ? DEFAULT_CACHE_TTL : cacheTTL.longValue();
+    }
+
+    /** @since 8.3 */
+    @XNode("cache@concurrencyLevel")
+    protected Integer cacheConcurrencyLevel;
+
+    /** @since 8.3 */
+    public int getCacheConcurrencyLevel() {
+        return cacheConcurrencyLevel == null ? DEFAULT_CACHE_CONCURRENCY_LEVEL : cacheConcurrencyLevel.intValue();
+    }
+
+    /**
+     * The class propagating the cache invalidations to other cluster nodes, if any.
+     *
+     * @since 8.3
+     */
+    @XNode("clusterInvalidatorClass")
+    public Class<? extends DBSClusterInvalidator> clusterInvalidatorClass;
+
+    /** @since 8.3 */
+    @XNode("clustering@id")
+    protected String clusterNodeId;
+
+    /**
+     * Gets the cluster node id, or a random one if none is configured.
+     *
+     * @since 8.3
+     */
+    public String getClusterNodeId() {
+        if (clusterNodeId == null) {
+            clusterNodeId = UUID.randomUUID().toString();
+        }
+        return clusterNodeId;
+    }
+
+    /** @since 8.3 */
+    public static final int DEFAULT_ANCESTOR_IDS_UPDATE_BATCH_SIZE = 500;
+
+    /** @since 8.3 */
+    @XNode("ancestorIdsUpdate@async")
+    protected Boolean ancestorIdsUpdateAsync;
+
+    /**
+     * Whether the ancestors of the descendants of a moved document are updated asynchronously, after commit, instead
+     * of during the move.
+     *
+     * @since 8.3
+     */
+    public boolean isAncestorIdsUpdateAsync() {
+        return Boolean.TRUE.equals(ancestorIdsUpdateAsync);
+    }
+
+    /** @since 8.3 */
+    @XNode("ancestorIdsUpdate@batchSize")
+    protected Integer ancestorIdsUpdateBatchSize;
+
+    /**
+     * Number of documents whose ancestors are updated in each batch of an asynchronous update.
+     *
+     * @since 8.3
+     */
+    public int getAncestorIdsUpdateBatchSize() {
+        return ancestorIdsUpdateBatchSize == null ? DEFAULT_ANCESTOR_IDS_UPDATE_BATCH_SIZE
+                : ancestorIdsUpdateBatchSize.intValue();
+    }
+
     @Override
     public DBSRepositoryDescriptor clone() {
         try {
@@ -108,6 +209,30 @@ public class DBSRepositoryDescriptor implements Cloneable {
         if (other.isDefault != null) {
             isDefault = other.isDefault;
         }
+        if (other.cacheEnabled != null) {
+            cacheEnabled = other.cacheEnabled;
+        }
+        if (other.cacheMaxSize != null) {
+            cacheMaxSize = other.cacheMaxSize;
+        }
+        if (other.cacheTTL != null) {
+            cacheTTL = other.cacheTTL;
+        }
+        if (other.cacheConcurrencyLevel != null) {
+            cacheConcurrencyLevel = other.cacheConcurrencyLevel;
+        }
+        if (other.clusterInvalidatorClass != null) {
+            clusterInvalidatorClass = other.clusterInvalidatorClass;
+        }
+        if (other.clusterNodeId != null) {
+            clusterNodeId = other.clusterNodeId;
+        }
+        if (other.ancestorIdsUpdateAsync != null) {
+            ancestorIdsUpdateAsync = other.ancestorIdsUpdateAsync;
+        }
+        if (other.ancestorIdsUpdateBatchSize != null) {
+            ancestorIdsUpdateBatchSize = other.ancestorIdsUpdateBatchSize;
+        }
         fulltextDescriptor.merge(other.fulltextDescriptor);
     }
 
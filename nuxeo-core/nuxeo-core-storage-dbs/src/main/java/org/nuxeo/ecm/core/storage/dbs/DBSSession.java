@@ -30,6 +30,7 @@ import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ACL;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ACL_NAME;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ACP;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ANCESTOR_IDS;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ANCESTOR_IDS_PENDING;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_BASE_VERSION_ID;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_FULLTEXT_BINARY;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_FULLTEXT_JOBID;
@@ -49,6 +50,7 @@ import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_MAJOR_VERSION;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_MINOR_VERSION;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_MIXIN_TYPES;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_NAME;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_OLD_ANCESTOR_IDS;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_PARENT_ID;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_PATH_INTERNAL;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_POS;
@@ -67,6 +69,7 @@ import java.text.DateFormat;
 import java.text.Normalizer;
 import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
 import java.util.Comparator;
@@ -93,6 +96,7 @@ import org.nuxeo.ecm.core.api.DocumentNotFoundException;
 import org.nuxeo.ecm.core.api.IterableQueryResult;
 import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.api.PartialList;
+import org.nuxeo.ecm.core.api.ScrollResult;
 import org.nuxeo.ecm.core.api.VersionModel;
 import org.nuxeo.ecm.core.api.security.ACE;
 import org.nuxeo.ecm.core.api.security.ACL;
@@ -521,6 +525,8 @@ public class DBSSession implements Session {
         String verId = verState.getId();
         verState.put(KEY_PARENT_ID, null);
         verState.put(KEY_ANCESTOR_IDS, null);
+        verState.put(KEY_ANCESTOR_IDS_PENDING, null);
+        verState.put(KEY_OLD_ANCESTOR_IDS, null);
         verState.put(KEY_IS_VERSION, TRUE);
         verState.put(KEY_VERSION_SERIES_ID, id);
         verState.put(KEY_VERSION_CREATED, new GregorianCalendar()); // now
@@ -597,6 +603,8 @@ public class DBSSession implements Session {
         case KEY_ID:
         case KEY_PARENT_ID:
         case KEY_ANCESTOR_IDS:
+        case KEY_ANCESTOR_IDS_PENDING:
+        case KEY_OLD_ANCESTOR_IDS:
         case KEY_NAME:
         case KEY_POS:
         case KEY_PRIMARY_TYPE:
@@ -679,6 +687,8 @@ public class DBSSession implements Session {
         DBSDocumentState copy = transaction.copy(sourceId);
         copy.put(KEY_PARENT_ID, parentId);
         copy.put(KEY_ANCESTOR_IDS, ancestorIds.toArray(new Object[ancestorIds.size()]));
+        copy.put(KEY_ANCESTOR_IDS_PENDING, null);
+        copy.put(KEY_OLD_ANCESTOR_IDS, null);
         if (name != null) {
             copy.put(KEY_NAME, name);
         }
@@ -771,10 +781,25 @@ public class DBSSession implements Session {
             throw new DocumentExistsException("Cannot move a node under itself: " + parentId + " is under " + sourceId);
         }
 
+        // only one pending move at a time, so that the ancestors read for the move are always up to date
+        boolean async = isAncestorIdsUpdateAsync() && transaction.hasChildren(sourceId)
+                && transaction.getPendingMoves().isEmpty();
+        String[] oldReadAcl = async ? transaction.getReadACL(sourceState) : null;
+
         // do the move
         sourceState.put(KEY_NAME, name);
         sourceState.put(KEY_PARENT_ID, parentId);
 
+        if (async) {
+            // update ancestors on the moved document, sub-children are done after commit
+            transaction.updateAncestorsAsync(sourceId, ancestorIds);
+            // update read acls, only needed if the inherited ones changed
+            if (!Arrays.equals(oldReadAcl, transaction.getReadACL(sourceState))) {
+                transaction.updateTreeReadAcls(sourceId);
+            }
+            return source;
+        }
+
         // update ancestors on all sub-children
         Object[] oldAncestorIds = (Object[]) sourceState.get(KEY_ANCESTOR_IDS);
         int ndel = oldAncestorIds == null ? 0 : oldAncestorIds.length;
@@ -786,6 +811,57 @@ public class DBSSession implements Session {
         return source;
     }
 
+    /**
+     * Checks if the ancestors of the descendants of moved documents are updated asynchronously.
+     *
+     * @since 8.3
+     */
+    protected boolean isAncestorIdsUpdateAsync() {
+        DBSRepositoryService repositoryService = Framework.getService(DBSRepositoryService.class);
+        if (repositoryService == null) {
+            return false;
+        }
+        DBSRepositoryDescriptor descriptor = repositoryService.getRepositoryDescriptor(getRepositoryName());
+        return descriptor != null && descriptor.isAncestorIdsUpdateAsync();
+    }
+
+    /**
+     * Updates in batches the ancestors of the descendants of a document moved with an asynchronous ancestors update,
+     * then removes its marker.
+     * <p>
+     * Each batch is saved separately, so this must be called outside a transaction.
+     *
+     * @param id the moved document
+     * @param batchSize the number of documents to update in each batch
+     * @return the number of documents updated
+     * @since 8.3
+     */
+    public long updateDescendantsAncestors(String id, int batchSize) {
+        State state = transaction.getStateForRead(id);
+        if (state == null || !TRUE.equals(state.get(KEY_ANCESTOR_IDS_PENDING))) {
+            return 0;
+        }
+        Object[] ancestorIds = (Object[]) state.get(KEY_ANCESTOR_IDS);
+        Set<String> done = new HashSet<>();
+        long n = 0;
+        for (;;) {
+            // documents created or moved under the moved document meanwhile may have its previous ancestors too
+            List<String> ids = new ArrayList<>(transaction.getSubTree(id, null, null));
+            ids.removeAll(done);
+            if (ids.isEmpty()) {
+                break;
+            }
+            for (int i = 0; i < ids.size(); i += batchSize) {
+                n += transaction.updateDescendantsAncestors(id, ids.subList(i, Math.min(i + batchSize, ids.size())));
+                save();
+            }
+            done.addAll(ids);
+        }
+        transaction.clearAncestorsPending(id, ancestorIds);
+        save();
+        return n;
+    }
+
     /**
      * Removes a document.
      * <p>
@@ -1456,6 +1532,9 @@ public class DBSSession implements Session {
         MultiExpression expression = optimizer.getOptimizedQuery(sqlQuery, queryFilter.getFacetFilter());
         DBSExpressionEvaluator evaluator = new DBSExpressionEvaluator(this, selectClause, expression, orderByClause,
                 queryFilter.getPrincipals(), fulltextSearchDisabled);
+        if (isAncestorIdsUpdateAsync()) {
+            evaluator.setPendingMoves(transaction::getPendingMoves);
+        }
 
         int limit = (int) queryFilter.getLimit();
         int offset = (int) queryFilter.getOffset();
@@ -1626,6 +1705,32 @@ public class DBSSession implements Session {
         return new DBSQueryResult(pl);
     }
 
+    @Override
+    public ScrollResult scroll(String query, int batchSize, int keepAliveSeconds) {
+        SQLQuery sqlQuery = SQLQueryParser.parse(query);
+        SelectClause selectClause = new SelectClause();
+        selectClause.add(new Reference(NXQL.ECM_UUID));
+        QueryOptimizer optimizer = new QueryOptimizer();
+        MultiExpression expression = optimizer.getOptimizedQuery(sqlQuery, null);
+        // no principals: no security check
+        DBSExpressionEvaluator evaluator = new DBSExpressionEvaluator(this, selectClause, expression, null, null,
+                fulltextSearchDisabled);
+        if (isAncestorIdsUpdateAsync()) {
+            evaluator.setPendingMoves(transaction::getPendingMoves);
+        }
+        return repository.scroll(evaluator, batchSize, keepAliveSeconds);
+    }
+
+    @Override
+    public ScrollResult scroll(String scrollId) {
+        return repository.scroll(scrollId);
+    }
+
+    @Override
+    public void closeScroll(String scrollId) {
+        repository.closeScroll(scrollId);
+    }
+
     protected static class DBSQueryResult implements IterableQueryResult, Iterator<Map<String, Serializable>> {
 
         boolean closed;
@@ -1842,6 +1947,8 @@ public class DBSSession implements Session {
         case KEY_LIFECYCLE_POLICY:
         case KEY_ACP:
         case KEY_ANCESTOR_IDS:
+        case KEY_ANCESTOR_IDS_PENDING:
+        case KEY_OLD_ANCESTOR_IDS:
         case KEY_BASE_VERSION_ID:
         case KEY_READ_ACL:
         case KEY_FULLTEXT_SIMPLE:
@@ -1863,6 +1970,7 @@ public class DBSSession implements Session {
         case KEY_IS_LATEST_MAJOR_VERSION:
         case KEY_IS_PROXY:
         case KEY_ACE_GRANT:
+        case KEY_ANCESTOR_IDS_PENDING:
             return BooleanType.INSTANCE;
         case KEY_VERSION_CREATED:
         case KEY_LOCK_CREATED:
@@ -1871,6 +1979,7 @@ public class DBSSession implements Session {
             return DateType.INSTANCE;
         case KEY_MIXIN_TYPES:
         case KEY_ANCESTOR_IDS:
+        case KEY_OLD_ANCESTOR_IDS:
         case KEY_PROXY_IDS:
             return STRING_ARRAY_TYPE;
         }
@@ -29,12 +29,14 @@ import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ACE_USER;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ACL;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ACP;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ANCESTOR_IDS;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ANCESTOR_IDS_PENDING;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_FULLTEXT_JOBID;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ID;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_IS_PROXY;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_IS_VERSION;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_MIXIN_TYPES;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_NAME;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_OLD_ANCESTOR_IDS;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_PARENT_ID;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_POS;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_PREFIX;
@@ -51,6 +53,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -121,6 +124,14 @@ public class DBSTransactionState {
 
     protected final Set<String> browsePermissions;
 
+    /**
+     * Ids of documents moved with an asynchronous update of the ancestors of their descendants, to be scheduled at
+     * save time.
+     *
+     * @since 8.3
+     */
+    protected Set<String> ancestorIdsUpdates = new LinkedHashSet<>();
+
     public DBSTransactionState(DBSRepository repository, DBSSession session) {
         this.repository = repository;
         this.session = session;
@@ -370,15 +381,91 @@ public class DBSTransactionState {
             Object[] newAncestors;
             if (ancestors == null) {
                 newAncestors = ancestorIds.clone();
-            } else {
+            } else if (ancestors.length > ndel && id.equals(ancestors[ndel])) {
                 newAncestors = new Object[ancestors.length - ndel + nadd];
                 System.arraycopy(ancestorIds, 0, newAncestors, 0, nadd);
                 System.arraycopy(ancestors, ndel, newAncestors, nadd, ancestors.length - ndel);
+            } else if (cid.equals(id)) {
+                newAncestors = ancestorIds.clone();
+                // descendants are now all updated
+                docState.put(KEY_ANCESTOR_IDS_PENDING, null);
+                docState.put(KEY_OLD_ANCESTOR_IDS, null);
+            } else {
+                // under a document whose descendants are still being updated asynchronously
+                newAncestors = DBSPendingMoves.replaceAncestors(ancestors, id, ancestorIds);
+                if (newAncestors == null) {
+                    // not updated yet, will be done from the moved document's new ancestors
+                    continue;
+                }
             }
             docState.put(KEY_ANCESTOR_IDS, newAncestors);
         }
     }
 
+    /**
+     * Updates ancestors after a move, for the moved document only. The ancestors of its descendants are updated
+     * asynchronously after commit by a {@link DBSAncestorIdsUpdateWork}, meanwhile the moved document is marked with
+     * {@link DBSDocument#KEY_ANCESTOR_IDS_PENDING} and keeps its previous ancestors.
+     * <p>
+     * Doesn't check transient (assumes save is done).
+     *
+     * @since 8.3
+     */
+    public void updateAncestorsAsync(String id, Object[] ancestorIds) {
+        DBSDocumentState docState = getStateForUpdate(id);
+        if (!TRUE.equals(docState.get(KEY_ANCESTOR_IDS_PENDING))) {
+            docState.put(KEY_ANCESTOR_IDS_PENDING, TRUE);
+            docState.put(KEY_OLD_ANCESTOR_IDS, docState.get(KEY_ANCESTOR_IDS));
+        }
+        // else keep the ancestors that the descendants have
+        docState.put(KEY_ANCESTOR_IDS, ancestorIds.clone());
+        ancestorIdsUpdates.add(id);
+    }
+
+    /**
+     * Updates the ancestors of some descendants of a document moved with an asynchronous ancestors update, from the
+     * current ancestors of the document.
+     *
+     * @param id the moved document
+     * @param ids the descendants to update
+     * @return the number of documents updated
+     * @since 8.3
+     */
+    public int updateDescendantsAncestors(String id, List<String> ids) {
+        State state = getStateForRead(id);
+        if (state == null) {
+            return 0;
+        }
+        Object[] ancestorIds = (Object[]) state.get(KEY_ANCESTOR_IDS);
+        int n = 0;
+        for (DBSDocumentState docState : getStatesForUpdate(ids)) {
+            Object[] ancestors = (Object[]) docState.get(KEY_ANCESTOR_IDS);
+            Object[] newAncestors = DBSPendingMoves.replaceAncestors(ancestors, id, ancestorIds);
+            if (newAncestors != null && !Arrays.equals(ancestors, newAncestors)) {
+                docState.put(KEY_ANCESTOR_IDS, newAncestors);
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Removes the marker of a document moved with an asynchronous ancestors update, once its descendants are updated.
+     * <p>
+     * Nothing is done if the document was moved again meanwhile, as its descendants then need another update.
+     *
+     * @param id the moved document
+     * @param ancestorIds the ancestors of the document from which the descendants were updated
+     * @since 8.3
+     */
+    public void clearAncestorsPending(String id, Object[] ancestorIds) {
+        DBSDocumentState docState = getStateForUpdate(id);
+        if (docState != null && Arrays.equals(ancestorIds, (Object[]) docState.get(KEY_ANCESTOR_IDS))) {
+            docState.put(KEY_ANCESTOR_IDS_PENDING, null);
+            docState.put(KEY_OLD_ANCESTOR_IDS, null);
+        }
+    }
+
     /**
      * Updates the Read ACLs recursively on a document.
      */
@@ -450,6 +537,9 @@ public class DBSTransactionState {
      * Gets all the ids under a given one, recursively.
      * <p>
      * Doesn't check transient (assumes save is done).
+     * <p>
+     * The descendants of documents moved with an asynchronous ancestors update that is not finished yet are taken into
+     * account according to their new location.
      *
      * @param id the root of the tree (not included in results)
      * @param proxyTargets returns a map of proxy to target among the documents found
@@ -459,9 +549,39 @@ public class DBSTransactionState {
         Set<String> ids = new HashSet<>();
         // check repository
         repository.queryKeyValueArray(KEY_ANCESTOR_IDS, id, ids, proxyTargets, targetProxies);
+        DBSPendingMoves pendingMoves = getPendingMoves();
+        if (!pendingMoves.isEmpty()) {
+            for (String movedId : pendingMoves.getMovedUnder(id)) {
+                repository.queryKeyValueArray(KEY_ANCESTOR_IDS, movedId, ids, proxyTargets, targetProxies);
+            }
+            for (String movedId : pendingMoves.getMovedOutOf(id)) {
+                Set<String> movedIds = new HashSet<>();
+                repository.queryKeyValueArray(KEY_ANCESTOR_IDS, movedId, movedIds, null, null);
+                ids.removeAll(movedIds);
+                if (proxyTargets != null) {
+                    proxyTargets.keySet().removeAll(movedIds);
+                }
+                if (targetProxies != null) {
+                    targetProxies.keySet().removeAll(movedIds);
+                }
+            }
+        }
         return ids;
     }
 
+    /**
+     * Gets the moves whose descendants don't have their ancestors updated yet.
+     *
+     * @since 8.3
+     */
+    protected DBSPendingMoves getPendingMoves() {
+        if (!session.isAncestorIdsUpdateAsync()) {
+            return new DBSPendingMoves(Collections.<State> emptyList());
+        }
+        return new DBSPendingMoves(
+                repository.queryKeyValue(KEY_ANCESTOR_IDS_PENDING, TRUE, Collections.<String> emptySet()));
+    }
+
     public List<DBSDocumentState> getKeyValuedStates(String key, Object value) {
         List<DBSDocumentState> docStates = new LinkedList<>();
         Set<String> seen = new HashSet<>();
@@ -546,14 +666,19 @@ public class DBSTransactionState {
         } else {
             works = Collections.emptyList();
         }
+        List<State> statesToCreate = new ArrayList<>(transientCreated.size());
         for (String id : transientCreated) { // ordered
             DBSDocumentState docState = transientStates.get(id);
             docState.setNotDirty();
             if (undoLog != null) {
                 undoLog.put(id, null); // marker to denote create
             }
-            repository.createState(docState.getState());
+            statesToCreate.add(docState.getState());
+        }
+        if (!statesToCreate.isEmpty()) {
+            repository.createStates(statesToCreate);
         }
+        Map<String, StateDiff> diffs = new LinkedHashMap<>();
         for (DBSDocumentState docState : transientStates.values()) {
             String id = docState.getId();
             if (transientCreated.contains(id)) {
@@ -567,12 +692,34 @@ public class DBSTransactionState {
                     }
                     // else there's already a create or an update in the undo log so original info is enough
                 }
-                repository.updateState(id, diff);
+                diffs.put(id, diff);
             }
             docState.setNotDirty();
         }
+        if (!diffs.isEmpty()) {
+            repository.updateStates(diffs);
+        }
         transientCreated.clear();
         scheduleWork(works);
+        scheduleAncestorIdsUpdates();
+    }
+
+    /**
+     * Schedules the update of the ancestors of the descendants of the documents moved with an asynchronous ancestors
+     * update, now that the moves are written.
+     *
+     * @since 8.3
+     */
+    protected void scheduleAncestorIdsUpdates() {
+        if (ancestorIdsUpdates.isEmpty()) {
+            return;
+        }
+        List<Work> works = new ArrayList<>(ancestorIdsUpdates.size());
+        for (String id : ancestorIdsUpdates) {
+            works.add(new DBSAncestorIdsUpdateWork(repository.getName(), id));
+        }
+        ancestorIdsUpdates.clear();
+        scheduleWork(works);
     }
 
     protected void applyUndoLog() {
@@ -672,6 +819,8 @@ public class DBSTransactionState {
         case KEY_ID:
         case KEY_PARENT_ID:
         case KEY_ANCESTOR_IDS:
+        case KEY_ANCESTOR_IDS_PENDING:
+        case KEY_OLD_ANCESTOR_IDS:
         case KEY_NAME:
         case KEY_POS:
         case KEY_ACP:
@@ -742,6 +891,7 @@ public class DBSTransactionState {
     protected void clearTransient() {
         transientStates.clear();
         transientCreated.clear();
+        ancestorIdsUpdates.clear();
     }
 
     /**
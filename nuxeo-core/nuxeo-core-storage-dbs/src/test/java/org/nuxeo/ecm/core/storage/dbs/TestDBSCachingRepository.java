@@ -0,0 +1,236 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.dbs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ID;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_NAME;
+
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nuxeo.ecm.core.storage.State;
+import org.nuxeo.ecm.core.storage.State.StateDiff;
+import org.nuxeo.ecm.core.storage.StateHelper;
+
+/**
+ * Tests the {@link DBSCachingRepository} on top of a map-based repository, with two cluster nodes exchanging
+ * invalidations through memory.
+ */
+public class TestDBSCachingRepository {
+
+    /**
+     * Fake repository storing states in a map and counting the reads.
+     */
+    protected static class MapRepositoryHandler implements InvocationHandler {
+
+        protected final Map<String, State> states = new ConcurrentHashMap<>();
+
+        protected int reads;
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) {
+            switch (method.getName()) {
+            case "getName":
+                return "test";
+            case "getLockManager":
+                return proxy;
+            case "readState":
+                reads++;
+                return copy(states.get(args[0]));
+            case "readStates":
+                List<State> list = new ArrayList<>();
+                for (Object id : (List<?>) args[0]) {
+                    reads++;
+                    State state = states.get(id);
+                    if (state != null) {
+                        list.add(copy(state));
+                    }
+                }
+                return list;
+            case "createState":
+                State state = (State) args[0];
+                states.put((String) state.get(KEY_ID), copy(state));
+                return null;
+            case "updateState":
+                State current = states.get(args[0]);
+                for (Map.Entry<String, Serializable> en : ((StateDiff) args[1]).entrySet()) {
+                    current.put(en.getKey(), en.getValue());
+                }
+                return null;
+            default:
+                throw new UnsupportedOperationException(method.getName());
+            }
+        }
+
+        protected static State copy(State state) {
+            return state == null ? null : (State) StateHelper.deepCopy(state);
+        }
+    }
+
+    /**
+     * Cluster invalidator delivering the invalidations to the other nodes of the same JVM.
+     */
+    public static class MemoryClusterInvalidator implements DBSClusterInvalidator {
+
+        protected static final Map<String, MemoryClusterInvalidator> NODES = new ConcurrentHashMap<>();
+
+        protected String nodeId;
+
+        protected DBSInvalidations received = new DBSInvalidations();
+
+        @Override
+        public void initialize(String nodeId, String repositoryName) {
+            this.nodeId = nodeId;
+            NODES.put(nodeId, this);
+        }
+
+        @Override
+        public void close() {
+            NODES.remove(nodeId);
+        }
+
+        @Override
+        public synchronized DBSInvalidations receiveInvalidations() {
+            DBSInvalidations ret = received;
+            received = new DBSInvalidations();
+            return ret;
+        }
+
+        @Override
+        public void sendInvalidations(DBSInvalidations invalidations) {
+            for (MemoryClusterInvalidator node : NODES.values()) {
+                if (node != this) {
+                    synchronized (node) {
+                        node.received.add(invalidations);
+                    }
+                }
+            }
+        }
+    }
+
+    protected MapRepositoryHandler handler;
+
+    protected DBSRepository repository;
+
+    protected DBSCachingRepository node1;
+
+    protected DBSCachingRepository node2;
+
+    @Before
+    public void setUp() {
+        handler = new MapRepositoryHandler();
+        repository = (DBSRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[] { DBSRepository.class }, handler);
+        node1 = new DBSCachingRepository(repository, newDescriptor("node1"));
+        node2 = new DBSCachingRepository(repository, newDescriptor("node2"));
+    }
+
+    @After
+    public void tearDown() {
+        node1.close();
+        node2.close();
+    }
+
+    protected static DBSRepositoryDescriptor newDescriptor(String nodeId) {
+        DBSRepositoryDescriptor descriptor = new DBSRepositoryDescriptor();
+        descriptor.cacheEnabled = Boolean.TRUE;
+        descriptor.clusterInvalidatorClass = MemoryClusterInvalidator.class;
+        descriptor.clusterNodeId = nodeId;
+        return descriptor;
+    }
+
+    protected static State newState(String id, String name) {
+        State state = new State();
+        state.put(KEY_ID, id);
+        state.put(KEY_NAME, name);
+        return state;
+    }
+
+    protected static StateDiff rename(String name) {
+        StateDiff diff = new StateDiff();
+        diff.put(KEY_NAME, name);
+        return diff;
+    }
+
+    @Test
+    public void testCacheHitAndInvalidation() {
+        node1.createState(newState("id1", "foo"));
+        assertEquals("foo", node1.readState("id1").get(KEY_NAME));
+        assertEquals(1, handler.reads);
+        // cache hit
+        assertEquals("foo", node1.readState("id1").get(KEY_NAME));
+        assertEquals(1, handler.reads);
+        // the cached state is not modified through the returned copy
+        node1.readState("id1").put(KEY_NAME, "changed");
+        assertEquals("foo", node1.readState("id1").get(KEY_NAME));
+        assertEquals(1, handler.reads);
+
+        // a write invalidates the cached state
+        node1.updateState("id1", rename("bar"));
+        assertEquals("bar", node1.readState("id1").get(KEY_NAME));
+        assertEquals(2, handler.reads);
+
+        // batched reads only fetch the missing states
+        node1.createState(newState("id2", "gee"));
+        List<State> states = node1.readStates(Arrays.asList("id1", "id2"));
+        assertEquals(2, states.size());
+        assertEquals(3, handler.reads);
+        // missing states are not cached
+        assertNull(node1.readState("nosuchid"));
+        assertNull(node1.readState("nosuchid"));
+        assertEquals(5, handler.reads);
+    }
+
+    @Test
+    public void testTwoNodesVisibility() {
+        node1.createState(newState("id1", "foo"));
+        // both nodes cache the state
+        assertEquals("foo", node1.readState("id1").get(KEY_NAME));
+        assertEquals("foo", node2.readState("id1").get(KEY_NAME));
+        assertEquals(2, handler.reads);
+
+        // a write on node1 is seen by node2 through the cluster invalidations
+        node1.updateState("id1", rename("bar"));
+        assertEquals("bar", node2.readState("id1").get(KEY_NAME));
+        assertEquals("bar", node1.readState("id1").get(KEY_NAME));
+        assertEquals(4, handler.reads);
+
+        // and the other way around
+        node2.updateState("id1", rename("baz"));
+        Map<String, String> names = new HashMap<>();
+        for (State state : node1.readStates(Arrays.asList("id1"))) {
+            names.put((String) state.get(KEY_ID), (String) state.get(KEY_NAME));
+        }
+        assertEquals("baz", names.get("id1"));
+    }
+
+}
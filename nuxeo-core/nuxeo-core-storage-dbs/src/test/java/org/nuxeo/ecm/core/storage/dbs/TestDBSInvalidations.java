@@ -0,0 +1,95 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.dbs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+public class TestDBSInvalidations {
+
+    @Test
+    public void testAdd() {
+        DBSInvalidations invalidations = new DBSInvalidations();
+        assertTrue(invalidations.isEmpty());
+        invalidations.add("id1");
+        invalidations.addAll(Arrays.asList("id2", "id3"));
+        DBSInvalidations other = new DBSInvalidations();
+        other.add("id4");
+        invalidations.add(other);
+        assertFalse(invalidations.isEmpty());
+        assertFalse(invalidations.all);
+        assertEquals(new HashSet<>(Arrays.asList("id1", "id2", "id3", "id4")), invalidations.ids);
+
+        invalidations.add(new DBSInvalidations(true));
+        assertTrue(invalidations.all);
+        assertNull(invalidations.ids);
+        // nothing more to record once all is invalidated
+        invalidations.add("id5");
+        assertNull(invalidations.ids);
+
+        invalidations.clear();
+        assertTrue(invalidations.isEmpty());
+    }
+
+    @Test
+    public void testMaxSize() {
+        DBSInvalidations invalidations = new DBSInvalidations();
+        for (int i = 0; i <= DBSInvalidations.MAX_SIZE; i++) {
+            invalidations.add("id" + i);
+        }
+        assertTrue(invalidations.all);
+        assertNull(invalidations.ids);
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        DBSInvalidations invalidations = new DBSInvalidations();
+        invalidations.addAll(Arrays.asList("id1", "id2"));
+        DBSInvalidations copy = roundTrip(invalidations);
+        assertFalse(copy.all);
+        assertEquals(invalidations.ids, copy.ids);
+        assertEquals(invalidations.toString(), copy.toString());
+
+        copy = roundTrip(new DBSInvalidations(true));
+        assertTrue(copy.all);
+        assertNull(copy.ids);
+    }
+
+    protected static DBSInvalidations roundTrip(DBSInvalidations invalidations) throws Exception {
+        ByteArrayOutputStream baout = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(baout)) {
+            out.writeObject(invalidations);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(baout.toByteArray()))) {
+            return (DBSInvalidations) in.readObject();
+        }
+    }
+
+}
@@ -0,0 +1,76 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.dbs;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ANCESTOR_IDS;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ANCESTOR_IDS_PENDING;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ID;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_OLD_ANCESTOR_IDS;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.nuxeo.ecm.core.storage.State;
+
+public class TestDBSPendingMoves {
+
+    protected static State moved(String id, Object[] ancestorIds, Object[] oldAncestorIds) {
+        State state = new State();
+        state.put(KEY_ID, id);
+        state.put(KEY_ANCESTOR_IDS, ancestorIds);
+        state.put(KEY_OLD_ANCESTOR_IDS, oldAncestorIds);
+        state.put(KEY_ANCESTOR_IDS_PENDING, Boolean.TRUE);
+        return state;
+    }
+
+    @Test
+    public void testMoved() {
+        // c moved from /a/b/c to /a/d/c
+        State c = moved("c", new Object[] { "root", "a", "d" }, new Object[] { "root", "a", "b" });
+        DBSPendingMoves pendingMoves = new DBSPendingMoves(Collections.singletonList(c));
+        assertEquals(Arrays.asList("c"), pendingMoves.getMovedUnder("d"));
+        assertEquals(Collections.emptyList(), pendingMoves.getMovedOutOf("d"));
+        assertEquals(Collections.emptyList(), pendingMoves.getMovedUnder("b"));
+        assertEquals(Arrays.asList("c"), pendingMoves.getMovedOutOf("b"));
+        // still under a
+        assertEquals(Collections.emptyList(), pendingMoves.getMovedUnder("a"));
+        assertEquals(Collections.emptyList(), pendingMoves.getMovedOutOf("a"));
+        // the moved document itself
+        assertEquals(Collections.emptyList(), pendingMoves.getMovedUnder("c"));
+        assertEquals(Collections.emptyList(), pendingMoves.getMovedOutOf("c"));
+        assertTrue(new DBSPendingMoves(Collections.<State> emptyList()).isEmpty());
+    }
+
+    @Test
+    public void testReplaceAncestors() {
+        Object[] ancestors = new Object[] { "root", "a", "b", "c", "e" };
+        assertArrayEquals(new Object[] { "root", "a", "d", "c", "e" },
+                DBSPendingMoves.replaceAncestors(ancestors, "c", new Object[] { "root", "a", "d" }));
+        assertArrayEquals(new Object[] { "root", "c", "e" },
+                DBSPendingMoves.replaceAncestors(ancestors, "c", new Object[] { "root" }));
+        assertNull(DBSPendingMoves.replaceAncestors(ancestors, "x", new Object[] { "root" }));
+        assertNull(DBSPendingMoves.replaceAncestors(null, "c", new Object[] { "root" }));
+    }
+
+}
@@ -36,6 +36,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -54,6 +55,7 @@ import org.nuxeo.ecm.core.api.DocumentNotFoundException;
 import org.nuxeo.ecm.core.api.Lock;
 import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.api.PartialList;
+import org.nuxeo.ecm.core.api.ScrollResult;
 import org.nuxeo.ecm.core.api.model.Delta;
 import org.nuxeo.ecm.core.blob.BlobManager;
 import org.nuxeo.ecm.core.model.LockManager;
@@ -63,6 +65,7 @@ import org.nuxeo.ecm.core.storage.State;
 import org.nuxeo.ecm.core.storage.State.ListDiff;
 import org.nuxeo.ecm.core.storage.State.StateDiff;
 import org.nuxeo.ecm.core.storage.StateHelper;
+import org.nuxeo.ecm.core.storage.dbs.CursorResult;
 import org.nuxeo.ecm.core.storage.dbs.DBSDocument;
 import org.nuxeo.ecm.core.storage.dbs.DBSExpressionEvaluator;
 import org.nuxeo.ecm.core.storage.dbs.DBSRepositoryBase;
@@ -92,7 +95,7 @@ public class MemRepository extends DBSRepositoryBase {
     protected Map<String, State> states;
 
     public MemRepository(ConnectionManager cm, MemRepositoryDescriptor descriptor) {
-        super(cm, descriptor.name, descriptor.getFulltextDescriptor());
+        super(cm, descriptor);
         initRepository();
     }
 
@@ -162,6 +165,34 @@ public class MemRepository extends DBSRepositoryBase {
         applyDiff(state, diff);
     }
 
+    @Override
+    public void createStates(List<State> newStates) {
+        // check first so that nothing is created if one of the states already exists or is duplicated in the batch
+        Set<String> ids = new HashSet<>();
+        for (State state : newStates) {
+            String id = (String) state.get(KEY_ID);
+            if (states.containsKey(id) || !ids.add(id)) {
+                throw new NuxeoException("Already exists: " + id);
+            }
+        }
+        for (State state : newStates) {
+            createState(state);
+        }
+    }
+
+    @Override
+    public void updateStates(Map<String, StateDiff> diffs) {
+        // check first so that nothing is updated if one of the states is missing
+        for (String id : diffs.keySet()) {
+            if (!states.containsKey(id)) {
+                throw new ConcurrentUpdateException("Missing: " + id);
+            }
+        }
+        for (Entry<String, StateDiff> en : diffs.entrySet()) {
+            updateState(en.getKey(), en.getValue());
+        }
+    }
+
     @Override
     public void deleteStates(Set<String> ids) {
         if (log.isTraceEnabled()) {
@@ -349,6 +380,22 @@ public class MemRepository extends DBSRepositoryBase {
         return new PartialList<>(projections, totalSize);
     }
 
+    @Override
+    public ScrollResult scroll(DBSExpressionEvaluator evaluator, int batchSize, int keepAliveSeconds) {
+        if (log.isTraceEnabled()) {
+            log.trace("Mem: QUERY " + evaluator);
+        }
+        evaluator.parse();
+        // no native cursor, keep the matching ids in memory
+        List<String> ids = new ArrayList<>();
+        for (State state : states.values()) {
+            if (!evaluator.matches(state).isEmpty()) {
+                ids.add((String) state.get(KEY_ID));
+            }
+        }
+        return registerCursorResult(new CursorResult(ids.iterator(), null, batchSize, keepAliveSeconds));
+    }
+
     /**
      * Applies a {@link StateDiff} in-place onto a base {@link State}.
      * <p>
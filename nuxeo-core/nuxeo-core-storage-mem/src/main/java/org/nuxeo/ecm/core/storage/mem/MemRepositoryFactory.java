@@ -34,7 +34,9 @@ public class MemRepositoryFactory extends DBSRepositoryFactory {
 
     @Override
     public Object call() {
-        return new MemRepository(installPool(), (MemRepositoryDescriptor) getRepositoryDescriptor());
+        MemRepository repository = new MemRepository(installPool(), (MemRepositoryDescriptor) getRepositoryDescriptor());
+        repository.scheduleAncestorIdsUpdates();
+        return repository;
     }
 
 }
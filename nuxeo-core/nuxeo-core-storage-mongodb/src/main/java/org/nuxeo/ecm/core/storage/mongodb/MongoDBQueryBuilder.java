@@ -46,6 +46,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -82,6 +83,7 @@ import org.nuxeo.ecm.core.schema.types.primitives.DateType;
 import org.nuxeo.ecm.core.storage.ExpressionEvaluator;
 import org.nuxeo.ecm.core.storage.ExpressionEvaluator.PathResolver;
 import org.nuxeo.ecm.core.storage.dbs.DBSDocument;
+import org.nuxeo.ecm.core.storage.dbs.DBSPendingMoves;
 import org.nuxeo.ecm.core.storage.dbs.DBSSession;
 import org.nuxeo.ecm.core.storage.FulltextQueryAnalyzer;
 import org.nuxeo.ecm.core.storage.FulltextQueryAnalyzer.FulltextQuery;
@@ -135,6 +137,9 @@ public class MongoDBQueryBuilder {
 
     private boolean fulltextSearchDisabled;
 
+    /** @since 8.3 */
+    protected Supplier<DBSPendingMoves> pendingMovesSupplier;
+
     public MongoDBQueryBuilder(Expression expression, SelectClause selectClause, OrderByClause orderByClause,
             PathResolver pathResolver, boolean fulltextSearchDisabled) {
         schemaManager = Framework.getLocalService(SchemaManager.class);
@@ -145,6 +150,17 @@ public class MongoDBQueryBuilder {
         this.fulltextSearchDisabled = fulltextSearchDisabled;
     }
 
+    /**
+     * Makes queries on ancestors take into account the moves whose descendants don't have their ancestors updated yet.
+     * The supplier is only called if the query is about ancestors, and may return {@code null} if there's nothing to
+     * take into account.
+     *
+     * @since 8.3
+     */
+    public void setPendingMoves(Supplier<DBSPendingMoves> pendingMovesSupplier) {
+        this.pendingMovesSupplier = pendingMovesSupplier;
+    }
+
     public void walk() {
         query = walkExpression(expression); // computes hasFulltext
         walkOrderBy(); // computes sortOnFulltextScore
@@ -347,10 +363,40 @@ public class MongoDBQueryBuilder {
         }
         String ancestorId = ((StringLiteral) rvalue).value;
         if (op == Operator.EQ) {
+            return walkAncestorId(ancestorId);
+        } else {
+            return (DBObject) pushDownNot(walkAncestorId(ancestorId));
+        }
+    }
+
+    /**
+     * Matches the documents under the given ancestor, including the descendants of documents moved with an asynchronous
+     * ancestors update whose ancestors are not updated yet.
+     *
+     * @since 8.3
+     */
+    protected DBObject walkAncestorId(String ancestorId) {
+        DBSPendingMoves pendingMoves = pendingMovesSupplier == null ? null : pendingMovesSupplier.get();
+        if (pendingMoves == null || pendingMoves.isEmpty()) {
             return new BasicDBObject(DBSDocument.KEY_ANCESTOR_IDS, ancestorId);
+        }
+        List<String> movedUnder = pendingMoves.getMovedUnder(ancestorId);
+        List<String> movedOutOf = pendingMoves.getMovedOutOf(ancestorId);
+        DBObject query;
+        if (movedUnder.isEmpty()) {
+            query = new BasicDBObject(DBSDocument.KEY_ANCESTOR_IDS, ancestorId);
         } else {
-            return new BasicDBObject(DBSDocument.KEY_ANCESTOR_IDS, new BasicDBObject(QueryOperators.NE, ancestorId));
+            List<Object> ids = new ArrayList<>(movedUnder.size() + 1);
+            ids.add(ancestorId);
+            ids.addAll(movedUnder);
+            query = new BasicDBObject(DBSDocument.KEY_ANCESTOR_IDS, new BasicDBObject(QueryOperators.IN, ids));
         }
+        if (!movedOutOf.isEmpty()) {
+            DBObject notMovedOut = new BasicDBObject(DBSDocument.KEY_ANCESTOR_IDS,
+                    new BasicDBObject(QueryOperators.NIN, new ArrayList<Object>(movedOutOf)));
+            query = new BasicDBObject(QueryOperators.AND, new ArrayList<>(Arrays.asList(query, notMovedOut)));
+        }
+        return query;
     }
 
     protected DBObject walkEcmFulltext(String name, Operator op, Operand rvalue) {
@@ -830,7 +876,7 @@ public class MongoDBQueryBuilder {
             // TODO XXX do better
             return new BasicDBObject(MONGODB_ID, "__nosuchid__");
         }
-        return new BasicDBObject(DBSDocument.KEY_ANCESTOR_IDS, ancestorId);
+        return walkAncestorId(ancestorId);
     }
 
     protected DBObject walkStartsWithNonPath(Operand lvalue, String path) {
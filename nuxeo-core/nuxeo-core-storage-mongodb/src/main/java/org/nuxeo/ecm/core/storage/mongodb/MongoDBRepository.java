@@ -25,6 +25,7 @@ import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ACE_USER;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ACL;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ACP;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ANCESTOR_IDS;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ANCESTOR_IDS_PENDING;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_BLOB_DATA;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_FULLTEXT_BINARY;
 import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_FULLTEXT_JOBID;
@@ -53,6 +54,7 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -69,6 +71,7 @@ import org.nuxeo.ecm.core.api.DocumentNotFoundException;
 import org.nuxeo.ecm.core.api.Lock;
 import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.api.PartialList;
+import org.nuxeo.ecm.core.api.ScrollResult;
 import org.nuxeo.ecm.core.api.model.Delta;
 import org.nuxeo.ecm.core.blob.BlobManager;
 import org.nuxeo.ecm.core.model.LockManager;
@@ -78,6 +81,7 @@ import org.nuxeo.ecm.core.query.sql.model.OrderByClause;
 import org.nuxeo.ecm.core.storage.State;
 import org.nuxeo.ecm.core.storage.State.ListDiff;
 import org.nuxeo.ecm.core.storage.State.StateDiff;
+import org.nuxeo.ecm.core.storage.dbs.CursorResult;
 import org.nuxeo.ecm.core.storage.dbs.DBSDocument;
 import org.nuxeo.ecm.core.storage.dbs.DBSExpressionEvaluator;
 import org.nuxeo.ecm.core.storage.dbs.DBSRepositoryBase;
@@ -85,6 +89,7 @@ import org.nuxeo.ecm.core.storage.dbs.DBSSession;
 import org.nuxeo.runtime.api.Framework;
 
 import com.mongodb.BasicDBObject;
+import com.mongodb.BulkWriteOperation;
 import com.mongodb.DB;
 import com.mongodb.DBCollection;
 import com.mongodb.DBCursor;
@@ -149,7 +154,7 @@ public class MongoDBRepository extends DBSRepositoryBase {
     protected DBCollection countersColl;
 
     public MongoDBRepository(ConnectionManager cm, MongoDBRepositoryDescriptor descriptor) {
-        super(cm, descriptor.name, descriptor.getFulltextDescriptor());
+        super(cm, descriptor);
         try {
             mongoClient = newMongoClient(descriptor);
             coll = getCollection(descriptor, mongoClient);
@@ -459,6 +464,7 @@ public class MongoDBRepository extends DBSRepositoryBase {
         coll.createIndex(new BasicDBObject(KEY_ID, ONE));
         coll.createIndex(new BasicDBObject(KEY_PARENT_ID, ONE));
         coll.createIndex(new BasicDBObject(KEY_ANCESTOR_IDS, ONE));
+        coll.createIndex(new BasicDBObject(KEY_ANCESTOR_IDS_PENDING, ONE));
         coll.createIndex(new BasicDBObject(KEY_VERSION_SERIES_ID, ONE));
         coll.createIndex(new BasicDBObject(KEY_PROXY_TARGET_ID, ONE));
         coll.createIndex(new BasicDBObject(KEY_PROXY_VERSION_SERIES_ID, ONE));
@@ -535,6 +541,20 @@ public class MongoDBRepository extends DBSRepositoryBase {
         // throw new DocumentException("Already exists: " + id);
     }
 
+    @Override
+    public void createStates(List<State> states) {
+        List<DBObject> obs = new ArrayList<>(states.size());
+        for (State state : states) {
+            DBObject ob = stateToBson(state);
+            if (log.isTraceEnabled()) {
+                log.trace("MongoDB: CREATE " + ob.get(KEY_ID) + ": " + ob);
+            }
+            obs.add(ob);
+        }
+        // the driver splits the insert into batches according to the server limits
+        coll.insert(obs);
+    }
+
     @Override
     public State readState(String id) {
         DBObject query = new BasicDBObject(KEY_ID, id);
@@ -560,6 +580,31 @@ public class MongoDBRepository extends DBSRepositoryBase {
         }
     }
 
+    @Override
+    public void updateStates(Map<String, StateDiff> diffs) {
+        // ordered, as several updates for the same document must be applied in sequence
+        BulkWriteOperation bulk = coll.initializeOrderedBulkOperation();
+        int n = 0;
+        for (Entry<String, StateDiff> en : diffs.entrySet()) {
+            String id = en.getKey();
+            DBObject query = new BasicDBObject(KEY_ID, id);
+            for (DBObject update : diffToBson(en.getValue())) {
+                if (log.isTraceEnabled()) {
+                    log.trace("MongoDB: UPDATE " + id + ": " + update);
+                }
+                bulk.find(query).updateOne(update);
+                n++;
+            }
+        }
+        if (n == 0) {
+            return;
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("MongoDB: BULK UPDATE " + n + " operations for " + diffs.size() + " docs");
+        }
+        bulk.execute();
+    }
+
     @Override
     public void deleteStates(Set<String> ids) {
         DBObject query = new BasicDBObject(KEY_ID, new BasicDBObject(QueryOperators.IN, ids));
@@ -717,6 +762,7 @@ public class MongoDBRepository extends DBSRepositoryBase {
         // orderByClause may be null and different from evaluator.getOrderByClause() in case we want to post-filter
         MongoDBQueryBuilder builder = new MongoDBQueryBuilder(evaluator.getExpression(), evaluator.getSelectClause(),
                 orderByClause, evaluator.pathResolver, evaluator.fulltextSearchDisabled);
+        builder.setPendingMoves(evaluator::getPendingMoves);
         builder.walk();
         if (builder.hasFulltext && isFulltextDisabled()) {
             throw new QueryParseException("Fulltext search disabled by configuration");
@@ -785,6 +831,39 @@ public class MongoDBRepository extends DBSRepositoryBase {
         return new PartialList<>(projections, totalSize);
     }
 
+    @Override
+    public ScrollResult scroll(DBSExpressionEvaluator evaluator, int batchSize, int keepAliveSeconds) {
+        MongoDBQueryBuilder builder = new MongoDBQueryBuilder(evaluator.getExpression(), evaluator.getSelectClause(),
+                null, evaluator.pathResolver, evaluator.fulltextSearchDisabled);
+        builder.setPendingMoves(evaluator::getPendingMoves);
+        builder.walk();
+        if (builder.hasFulltext && isFulltextDisabled()) {
+            throw new QueryParseException("Fulltext search disabled by configuration");
+        }
+        DBObject query = builder.getQuery();
+        addPrincipals(query, evaluator.principals);
+        DBObject keys = new BasicDBObject();
+        keys.put(MONGODB_ID, ZERO);
+        keys.put(KEY_ID, ONE);
+        if (log.isTraceEnabled()) {
+            logQuery(query, keys);
+        }
+        // native cursor, fetching from the server by batches
+        final DBCursor cursor = coll.find(query, keys).batchSize(batchSize);
+        Iterator<String> ids = new Iterator<String>() {
+            @Override
+            public boolean hasNext() {
+                return cursor.hasNext();
+            }
+
+            @Override
+            public String next() {
+                return (String) cursor.next().get(KEY_ID);
+            }
+        };
+        return registerCursorResult(new CursorResult(ids, cursor, batchSize, keepAliveSeconds));
+    }
+
     protected void addPrincipals(DBObject query, Set<String> principals) {
         if (principals != null) {
             DBObject inPrincipals = new BasicDBObject(QueryOperators.IN, new ArrayList<String>(principals));
@@ -34,7 +34,9 @@ public class MongoDBRepositoryFactory extends DBSRepositoryFactory {
 
     @Override
     public Object call() {
-        return new MongoDBRepository(installPool(), (MongoDBRepositoryDescriptor) getRepositoryDescriptor());
+        MongoDBRepository repository = new MongoDBRepository(installPool(), (MongoDBRepositoryDescriptor) getRepositoryDescriptor());
+        repository.scheduleAncestorIdsUpdates();
+        return repository;
     }
 
 }
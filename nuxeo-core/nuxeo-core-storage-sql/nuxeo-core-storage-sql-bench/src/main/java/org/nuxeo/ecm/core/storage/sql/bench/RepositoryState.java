@@ -0,0 +1,187 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.sql.bench;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.nuxeo.ecm.core.blob.BlobManager;
+import org.nuxeo.ecm.core.blob.BlobManagerComponent;
+import org.nuxeo.ecm.core.blob.BlobProviderDescriptor;
+import org.nuxeo.ecm.core.blob.binary.DefaultBinaryManager;
+import org.nuxeo.ecm.core.event.EventService;
+import org.nuxeo.ecm.core.query.QueryFilter;
+import org.nuxeo.ecm.core.query.sql.model.SQLQuery;
+import org.nuxeo.ecm.core.storage.sql.ACLRow;
+import org.nuxeo.ecm.core.storage.sql.DatabaseH2;
+import org.nuxeo.ecm.core.storage.sql.DatabaseHelper;
+import org.nuxeo.ecm.core.storage.sql.Model;
+import org.nuxeo.ecm.core.storage.sql.Node;
+import org.nuxeo.ecm.core.storage.sql.RepositoryDescriptor;
+import org.nuxeo.ecm.core.storage.sql.RepositoryImpl;
+import org.nuxeo.ecm.core.storage.sql.Session;
+import org.nuxeo.ecm.core.storage.sql.coremodel.SQLRepositoryService;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.test.NXRuntimeTestCase;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * JMH state holding an embedded H2 repository populated with a folder of {@link #docCount} documents, each having
+ * {@link #aclCount} ACEs (granted to distinct users, the last one being granted to {@link #READER}).
+ * <p>
+ * The Nuxeo runtime is started the same way as for the VCS unit tests, see {@code SQLBackendTestCase}.
+ *
+ * @since 8.3
+ */
+@State(Scope.Benchmark)
+public class RepositoryState {
+
+    public static final String REPOSITORY_NAME = "bench";
+
+    public static final String BUNDLE = "org.nuxeo.ecm.core.storage.sql.bench";
+
+    public static final String FOLDER_NAME = "folder";
+
+    public static final String DOC_TYPE = "BenchDoc";
+
+    /** User granted Read on all documents. */
+    public static final String READER = "reader";
+
+    @Param({ "1000", "10000" })
+    public int docCount;
+
+    @Param({ "1", "20" })
+    public int aclCount;
+
+    protected NXRuntimeTestCase runtime;
+
+    protected BlobProviderDescriptor blobProviderDescriptor;
+
+    public RepositoryImpl repository;
+
+    public Serializable folderId;
+
+    public final List<Serializable> docIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        runtime = new NXRuntimeTestCase();
+        runtime.setUp();
+        runtime.deployBundle("org.nuxeo.runtime.jtajca");
+        runtime.deployBundle("org.nuxeo.runtime.datasource");
+        runtime.deployBundle("org.nuxeo.ecm.core.api");
+        runtime.deployBundle("org.nuxeo.ecm.core");
+        runtime.deployBundle("org.nuxeo.ecm.core.schema");
+        runtime.deployBundle("org.nuxeo.ecm.core.event");
+        runtime.deployBundle("org.nuxeo.ecm.core.storage");
+        runtime.deployBundle("org.nuxeo.ecm.core.storage.sql");
+        // benchmarks always run against embedded H2
+        DatabaseHelper.setDatabaseForTests(DatabaseH2.class.getName());
+        DatabaseHelper.DATABASE.setUp();
+        runtime.deployBundle(BUNDLE);
+        runtime.fireFrameworkStarted();
+        repository = newRepository();
+        populate();
+    }
+
+    protected RepositoryImpl newRepository() {
+        RepositoryDescriptor descriptor = DatabaseHelper.DATABASE.getRepositoryDescriptor();
+        descriptor.name = REPOSITORY_NAME;
+        descriptor.setClusteringEnabled(false);
+        // no high-level repository to run the fulltext works
+        descriptor.setFulltextDisabled(true);
+        RepositoryImpl repo = new RepositoryImpl(descriptor);
+        Framework.getService(SQLRepositoryService.class).registerTestRepository(repo);
+        blobProviderDescriptor = new BlobProviderDescriptor();
+        blobProviderDescriptor.name = REPOSITORY_NAME;
+        blobProviderDescriptor.klass = DefaultBinaryManager.class;
+        getBlobManager().registerBlobProvider(blobProviderDescriptor);
+        return repo;
+    }
+
+    protected void populate() {
+        Session session = repository.getConnection();
+        try {
+            Node root = session.getRootNode();
+            Node folder = session.addChildNode(root, FOLDER_NAME, null, "BenchFolder", false);
+            folderId = folder.getId();
+            for (int i = 0; i < docCount; i++) {
+                Node node = session.addChildNode(folder, "doc" + i, null, DOC_TYPE, false);
+                setProperties(node, i);
+                node.getCollectionProperty(Model.ACL_PROP).setValue(newACL(aclCount));
+                docIds.add(node.getId());
+                if (i % 1000 == 999) {
+                    session.save();
+                }
+            }
+            session.save();
+            session.updateReadAcls();
+        } finally {
+            session.close();
+        }
+    }
+
+    public static void setProperties(Node node, int i) {
+        node.setSimpleProperty("bench:title", "title " + i);
+        node.setSimpleProperty("bench:description", "description of document " + i);
+        node.setSimpleProperty("bench:created", new GregorianCalendar());
+        node.setSimpleProperty("bench:count", Long.valueOf(i));
+        node.setSimpleProperty("bench:rate", Double.valueOf(i / 100d));
+        node.setCollectionProperty("bench:subjects", new String[] { "a" + (i % 10), "b" + (i % 100) });
+    }
+
+    public static ACLRow[] newACL(int n) {
+        ACLRow[] acl = new ACLRow[n];
+        for (int i = 0; i < n - 1; i++) {
+            acl[i] = new ACLRow(i, "local", true, "Read", "user" + i, null);
+        }
+        acl[n - 1] = new ACLRow(n - 1, "local", true, "Read", READER, null);
+        return acl;
+    }
+
+    public static QueryFilter newQueryFilter(String... principals) {
+        return new QueryFilter(null, principals, new String[] { "Read", "Browse", "Everything" }, null,
+                Collections.<SQLQuery.Transformer> emptyList(), 0, 0);
+    }
+
+    protected static BlobManagerComponent getBlobManager() {
+        return (BlobManagerComponent) Framework.getService(BlobManager.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        try {
+            Framework.getLocalService(EventService.class).waitForAsyncCompletion();
+            getBlobManager().unregisterBlobProvider(blobProviderDescriptor);
+            repository.close();
+        } finally {
+            // also releases the database
+            runtime.tearDown();
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.sql.bench;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.nuxeo.ecm.core.api.PartialList;
+import org.nuxeo.ecm.core.query.QueryFilter;
+import org.nuxeo.ecm.core.storage.sql.Node;
+import org.nuxeo.ecm.core.storage.sql.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks of the VCS session hot paths: document creation and update ({@code SessionImpl},
+ * {@code PersistenceContext}, {@code JDBCRowMapper.write}), reads in a fresh session ({@code JDBCRowMapper.read}) and
+ * queries with and without ACL filtering ({@code NXQLQueryMaker}).
+ * <p>
+ * Each benchmark opens and closes its own session, so that the session-level caches don't hide the mapper costs.
+ * <p>
+ * Run with {@code mvn -Pbench verify}, results are written to {@code target/jmh-result.json}. Allocation per operation
+ * is reported as {@code gc.alloc.rate.norm} by the {@code gc} profiler.
+ *
+ * @since 8.3
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class SessionBenchmark {
+
+    protected static final int BATCH_SIZE = 50;
+
+    protected static final AtomicLong COUNTER = new AtomicLong();
+
+    protected static Serializable randomId(RepositoryState state) {
+        return state.docIds.get(ThreadLocalRandom.current().nextInt(state.docIds.size()));
+    }
+
+    protected static String folderQuery(RepositoryState state) {
+        return String.format("SELECT * FROM %s WHERE ecm:parentId = '%s' AND bench:count < %d ORDER BY bench:title",
+                RepositoryState.DOC_TYPE, state.folderId, Integer.valueOf(BATCH_SIZE));
+    }
+
+    @Benchmark
+    public Serializable create(RepositoryState state) {
+        Session session = state.repository.getConnection();
+        try {
+            Node folder = session.getNodeById(state.folderId);
+            long n = COUNTER.incrementAndGet();
+            Node node = session.addChildNode(folder, "new" + n, null, RepositoryState.DOC_TYPE, false);
+            RepositoryState.setProperties(node, (int) n);
+            session.save();
+            return node.getId();
+        } finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public void update(RepositoryState state) {
+        Session session = state.repository.getConnection();
+        try {
+            Node node = session.getNodeById(randomId(state));
+            node.setSimpleProperty("bench:title", "updated " + COUNTER.incrementAndGet());
+            node.setCollectionProperty("bench:subjects", new String[] { "u" });
+            session.save();
+        } finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public void read(RepositoryState state, Blackhole bh) {
+        Session session = state.repository.getConnection();
+        try {
+            Node node = session.getNodeById(randomId(state));
+            bh.consume(node.getSimpleProperty("bench:title").getValue());
+            bh.consume(node.getSimpleProperty("bench:count").getValue());
+            bh.consume(node.getCollectionProperty("bench:subjects").getValue());
+        } finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public void readBatch(RepositoryState state, Blackhole bh) {
+        Session session = state.repository.getConnection();
+        try {
+            List<Serializable> ids = new ArrayList<>(BATCH_SIZE);
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                ids.add(randomId(state));
+            }
+            for (Node node : session.getNodesByIds(ids)) {
+                bh.consume(node.getSimpleProperty("bench:title").getValue());
+            }
+        } finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public PartialList<Serializable> query(RepositoryState state) {
+        Session session = state.repository.getConnection();
+        try {
+            return session.query(folderQuery(state), QueryFilter.EMPTY, true);
+        } finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public PartialList<Serializable> queryAclFiltered(RepositoryState state) {
+        Session session = state.repository.getConnection();
+        try {
+            QueryFilter queryFilter = RepositoryState.newQueryFilter(RepositoryState.READER, "members");
+            return session.query(folderQuery(state), queryFilter, true);
+        } finally {
+            session.close();
+        }
+    }
+
+}
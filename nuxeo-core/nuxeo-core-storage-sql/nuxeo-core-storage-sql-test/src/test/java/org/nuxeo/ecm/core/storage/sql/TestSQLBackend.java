@@ -88,6 +88,7 @@ import org.nuxeo.ecm.core.model.LockManager;
 import org.nuxeo.ecm.core.query.QueryFilter;
 import org.nuxeo.ecm.core.query.QueryParseException;
 import org.nuxeo.ecm.core.query.sql.model.SQLQuery;
+import org.nuxeo.ecm.core.schema.PrefetchRequest;
 import org.nuxeo.ecm.core.storage.sql.coremodel.SQLRepositoryService;
 import org.nuxeo.ecm.core.storage.sql.jdbc.JDBCConnection;
 import org.nuxeo.ecm.core.storage.sql.jdbc.JDBCMapperConnector;
@@ -2765,6 +2766,71 @@ public class TestSQLBackend extends SQLBackendTestCase {
         }
     }
 
+    @Test
+    public void testBulkFetchPrefetchRequest() throws Exception {
+        Session session = repository.getConnection();
+        Node root = session.getRootNode();
+        int n = 5;
+        List<Serializable> ids = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Node node = session.addChildNode(root, "n" + i, null, "TestDoc2", false);
+            node.setSimpleProperty("tst2:title", "title" + i);
+            // instance facet, whose fragment isn't prefetched by the type
+            assertTrue(session.addMixinType(node, "Aged"));
+            node.setSimpleProperty("age:age", "age" + i);
+            ids.add(node.getId());
+        }
+        session.save();
+        session.close();
+
+        // without prefetch request, the age fragments are read document by document
+        session = repository.getConnection();
+        JDBCConnection jdbc = getUncachedJDBCConnection(session);
+        List<Node> nodes = session.getNodesByIds(ids);
+        int fetchCount = jdbc.executeCount;
+        jdbc.executeCount = 0;
+        List<String> ages = new ArrayList<>();
+        for (Node node : nodes) {
+            ages.add(node.getSimpleProperty("age:age").getString());
+        }
+        assertEquals(n, jdbc.executeCount);
+        session.close();
+
+        // with a prefetch request, they're read with the other prefetched fragments
+        session = repository.getConnection();
+        jdbc = getUncachedJDBCConnection(session);
+        try (PrefetchRequest prefetch = PrefetchRequest.open("age")) {
+            nodes = session.getNodesByIds(ids);
+            assertEquals(n, prefetch.getDocumentCount());
+            // one more query for the age table
+            assertEquals(fetchCount + 1, jdbc.executeCount);
+        }
+        jdbc.executeCount = 0;
+        List<String> prefetchedAges = new ArrayList<>();
+        for (Node node : nodes) {
+            prefetchedAges.add(node.getSimpleProperty("age:age").getString());
+        }
+        assertEquals(0, jdbc.executeCount);
+        assertEquals(ages, prefetchedAges);
+        for (int i = 0; i < n; i++) {
+            assertEquals("age" + i, prefetchedAges.get(i));
+            assertEquals("title" + i, nodes.get(i).getSimpleProperty("tst2:title").getString());
+        }
+        session.close();
+    }
+
+    /**
+     * Clears the caches of the session's mapper and starts counting the statements executed by its connection.
+     */
+    protected JDBCConnection getUncachedJDBCConnection(Session session) {
+        SoftRefCachingMapper cachingMapper = (SoftRefCachingMapper) ((SessionImpl) session).getMapper();
+        cachingMapper.clearCache();
+        JDBCConnection jdbc = (JDBCConnection) JDBCMapperConnector.unwrap(cachingMapper.mapper);
+        jdbc.countExecutes = true;
+        jdbc.executeCount = 0;
+        return jdbc;
+    }
+
     private Serializable generateMissingId(Node root, int i) {
         if (root.getId() instanceof String) {
             if (Dialect.DEBUG_UUIDS) {
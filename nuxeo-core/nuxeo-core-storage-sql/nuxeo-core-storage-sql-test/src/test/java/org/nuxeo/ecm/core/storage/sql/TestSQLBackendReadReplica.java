@@ -0,0 +1,98 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.sql;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.Serializable;
+import java.util.Collections;
+
+import org.junit.Test;
+import org.nuxeo.ecm.core.api.IterableQueryResult;
+import org.nuxeo.ecm.core.api.PartialList;
+import org.nuxeo.ecm.core.query.QueryFilter;
+import org.nuxeo.ecm.core.query.sql.model.SQLQuery;
+import org.nuxeo.ecm.core.storage.sql.jdbc.JDBCConnection;
+import org.nuxeo.ecm.core.storage.sql.jdbc.JDBCMapperConnector;
+import org.nuxeo.runtime.datasource.ConnectionHelper;
+
+/**
+ * Tests the queries sent to a read replica, using the repository datasource itself as the replica.
+ */
+public class TestSQLBackendReadReplica extends SQLBackendTestCase {
+
+    @Override
+    protected RepositoryDescriptor newDescriptor(String name, long clusteringDelay) {
+        RepositoryDescriptor descriptor = super.newDescriptor(name, clusteringDelay);
+        descriptor.setReadReplicaDataSource(ConnectionHelper.getPseudoDataSourceNameForRepository(descriptor.name));
+        return descriptor;
+    }
+
+    protected JDBCConnection getJDBCConnection(Session session) {
+        SoftRefCachingMapper cachingMapper = (SoftRefCachingMapper) ((SessionImpl) session).getMapper();
+        JDBCConnection jdbc = (JDBCConnection) JDBCMapperConnector.unwrap(cachingMapper.mapper);
+        jdbc.countExecutes = true;
+        jdbc.readReplicaExecuteCount = 0;
+        return jdbc;
+    }
+
+    protected Node addDocReadableByBob(Session session, String name) {
+        Node node = session.addChildNode(session.getRootNode(), name, null, "TestDoc", false);
+        node.setSimpleProperty("tst:title", "hello");
+        CollectionProperty aclProp = node.getCollectionProperty(Model.ACL_PROP);
+        aclProp.setValue(new ACLRow[] { new ACLRow(0, "test", true, "Read", "bob", null) });
+        return node;
+    }
+
+    @Test
+    public void testQueryOnReadReplica() throws Exception {
+        Session session = repository.getConnection();
+        addDocReadableByBob(session, "foo");
+        session.save();
+        session.close();
+
+        // a session that didn't write sends its queries to the replica
+        session = repository.getConnection();
+        JDBCConnection jdbc = getJDBCConnection(session);
+        // restricted queries pass the principals as an array parameter
+        QueryFilter qf = new QueryFilter(null, new String[] { "bob" }, new String[] { "Read" }, null,
+                Collections.<SQLQuery.Transformer> emptyList(), 0, 0);
+        String query = "SELECT * FROM TestDoc WHERE tst:title = 'hello'";
+        PartialList<Serializable> res = session.query(query, qf, false);
+        assertEquals(1, res.list.size());
+        assertEquals(1, jdbc.readReplicaExecuteCount);
+
+        IterableQueryResult it = session.queryAndFetch("SELECT ecm:uuid, tst:title FROM TestDoc", "NXQL", qf);
+        try {
+            assertEquals(1, it.size());
+        } finally {
+            it.close();
+        }
+        assertEquals(2, jdbc.readReplicaExecuteCount);
+
+        // after a write, queries are sent to the primary, and see the write
+        addDocReadableByBob(session, "bar");
+        session.save();
+        res = session.query(query, qf, false);
+        assertEquals(2, res.list.size());
+        assertEquals(2, jdbc.readReplicaExecuteCount);
+        session.close();
+    }
+
+}
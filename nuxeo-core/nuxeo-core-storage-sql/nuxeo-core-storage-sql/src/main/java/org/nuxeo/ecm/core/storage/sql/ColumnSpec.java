@@ -37,6 +37,7 @@ public enum ColumnSpec {
     ARRAY_TIMESTAMP(), //
     ARRAY_BLOBID(), // attached files array
     ARRAY_INTEGER(),
+    JSON(), // complex properties stored as a JSON document, since 8.3
     // ----- system columns -----
     NODEID, // node id primary generated key
     NODEIDFK, // fk to main node id, not nullable (frag id)
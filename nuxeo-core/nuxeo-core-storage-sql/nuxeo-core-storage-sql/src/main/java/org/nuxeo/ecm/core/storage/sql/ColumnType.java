@@ -71,6 +71,9 @@ public class ColumnType implements Serializable {
 
     public static final ColumnType ARRAY_INTEGER = new ColumnType(ColumnSpec.ARRAY_INTEGER, -1, true);
 
+    /** @since 8.3 */
+    public static final ColumnType JSON = new ColumnType(ColumnSpec.JSON);
+
     public static final ColumnType NODEID = new ColumnType(ColumnSpec.NODEID);
 
     public static final ColumnType NODEIDFK = new ColumnType(ColumnSpec.NODEIDFK);
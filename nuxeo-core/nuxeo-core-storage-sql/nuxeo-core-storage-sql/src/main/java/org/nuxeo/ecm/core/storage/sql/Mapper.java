@@ -153,6 +153,15 @@ public interface Mapper extends RowMapper, XAResource {
     IterableQueryResult queryAndFetch(String query, String queryType, QueryFilter queryFilter,
             boolean distinctDocuments, Object... params);
 
+    /**
+     * Allows queries to be sent again to the read-only replica, if one is configured. This is called when the
+     * transaction ends, as the mapper stops using the replica as soon as it writes something.
+     *
+     * @param allowed {@code true} if queries may be sent to the replica
+     * @since 8.3
+     */
+    void setReadReplicaAllowed(boolean allowed);
+
     /**
      * Gets the ids for all the ancestors of the given row ids.
      *
@@ -167,6 +176,16 @@ public interface Mapper extends RowMapper, XAResource {
 
     void updateReadAcls();
 
+    /**
+     * Computes a batch of the read acls marked for update by {@link #updateReadAcls}, when they are updated
+     * asynchronously.
+     *
+     * @param max the maximum number of read acls to compute
+     * @return {@code true} if some read acls remain to compute
+     * @since 8.3
+     */
+    boolean updateReadAcls(int max);
+
     void rebuildReadAcls();
 
     /*
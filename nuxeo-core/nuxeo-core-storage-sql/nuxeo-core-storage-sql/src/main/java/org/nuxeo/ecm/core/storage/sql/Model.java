@@ -370,12 +370,21 @@ public class Model {
     /** Map of fragment to keys for binary columns. */
     private final Map<String, List<String>> binaryFragmentKeys;
 
+    /** Values of binary type stored inside JSON columns, for the GC. */
+    private final List<ModelProperty> jsonBinaryPropertyInfos;
+
+    /** Map of complex property stored as JSON to its type. */
+    private final Map<String, Type> jsonPropertyTypes;
+
     /** Maps collection table names to their type. */
     private final Map<String, PropertyType> collectionTables;
 
     /** Column ordering for collections. */
     private final Map<String, String> collectionOrderBy;
 
+    /** Maps simple fragment table names to their row layout. */
+    private final Map<String, RowLayout> rowLayouts;
+
     // -------------------------------------------------------
 
     /**
@@ -427,10 +436,19 @@ public class Model {
 
     private final boolean supportsArrayColumns;
 
+    /** The schemas whose complex properties are stored as JSON. */
+    private final Set<String> jsonSchemas;
+
     public Model(ModelSetup modelSetup) {
         repositoryDescriptor = modelSetup.repositoryDescriptor;
         materializeFulltextSyntheticColumn = modelSetup.materializeFulltextSyntheticColumn;
         supportsArrayColumns = modelSetup.supportsArrayColumns;
+        jsonSchemas = new HashSet<String>(repositoryDescriptor.jsonSchemas);
+        if (!jsonSchemas.isEmpty() && !modelSetup.supportsJsonColumns) {
+            log.warn("Schemas " + jsonSchemas + " JSON storage specification is ignored since"
+                    + " this database does not support JSON columns");
+            jsonSchemas.clear();
+        }
         idType = modelSetup.idType;
         switch (idType) {
         case STRING:
@@ -467,9 +485,12 @@ public class Model {
         fulltextInfoByFragment = new HashMap<String, PropertyType>();
         fragmentKeyTypes = new HashMap<String, Map<String, ColumnType>>();
         binaryFragmentKeys = new HashMap<String, List<String>>();
+        jsonBinaryPropertyInfos = new ArrayList<ModelProperty>();
+        jsonPropertyTypes = new HashMap<String, Type>();
 
         collectionTables = new HashMap<String, PropertyType>();
         collectionOrderBy = new HashMap<String, String>();
+        rowLayouts = new HashMap<String, RowLayout>();
 
         schemaFragments = new HashMap<String, Set<String>>();
         typeFragments = new HashMap<String, Set<String>>();
@@ -510,6 +531,22 @@ public class Model {
             inferFulltextInfoByFragment(); // needs mixin schemas
             initFullTextModel();
         }
+        initRowLayouts();
+    }
+
+    /**
+     * Computes the layout of the rows of each simple fragment, once all the fragment keys are known.
+     */
+    private void initRowLayouts() {
+        for (Entry<String, Map<String, ColumnType>> en : fragmentKeyTypes.entrySet()) {
+            String fragmentName = en.getKey();
+            if (isCollectionFragment(fragmentName)) {
+                continue;
+            }
+            List<String> keys = new ArrayList<String>(en.getValue().keySet());
+            keys.remove(MAIN_KEY);
+            rowLayouts.put(fragmentName, new RowLayout(fragmentName, keys));
+        }
     }
 
     /**
@@ -733,6 +770,13 @@ public class Model {
             String propertyName = field.getName().getPrefixedName();
             String path = prefix + propertyName;
             Type fieldType = field.getType();
+            if (complexType instanceof Schema && jsonPropertyTypes.containsKey(propertyName)) {
+                // complex type stored as JSON
+                ModelProperty pi = schemaPropertyInfos.get(typeName).get(propertyName);
+                inferJsonPropertyPaths(fieldType, propertyName, path, pi, new ArrayList<String>(0), propertyInfoByPath,
+                        done);
+                continue;
+            }
             if (fieldType.isComplexType()) {
                 // complex type
                 propertyInfoByPath.put(path, new ModelProperty(propertyName));
@@ -762,6 +806,51 @@ public class Model {
         done.remove(typeName);
     }
 
+    // recurses in the type of a complex property stored as JSON
+    private void inferJsonPropertyPaths(Type type, String propertyName, String path, ModelProperty jsonInfo,
+            List<String> jsonPath, Map<String, ModelProperty> propertyInfoByPath, Set<String> done) {
+        if (type.isComplexType()) {
+            String typeName = type.getName();
+            if (done.contains(typeName)) {
+                log.warn("Complex type " + typeName + " refers to itself recursively: " + done);
+                return;
+            }
+            done.add(typeName);
+            propertyInfoByPath.put(path, new ModelProperty(propertyName));
+            for (Field field : ((ComplexType) type).getFields()) {
+                String name = field.getName().getPrefixedName();
+                List<String> subPath = new ArrayList<String>(jsonPath);
+                subPath.add(name);
+                inferJsonPropertyPaths(field.getType(), name, path + '/' + name, jsonInfo, subPath,
+                        propertyInfoByPath, done);
+            }
+            done.remove(typeName);
+        } else if (type.isListType() && !((ListType) type).getFieldType().isSimpleType()) {
+            List<String> subPath = new ArrayList<String>(jsonPath);
+            subPath.add("*");
+            inferJsonPropertyPaths(((ListType) type).getFieldType(), propertyName, path + "/*", jsonInfo, subPath,
+                    propertyInfoByPath, done);
+        } else {
+            boolean isArray = type.isListType();
+            Type scalarType = isArray ? ((ListType) type).getFieldType() : type;
+            PropertyType propertyType = PropertyType.fromFieldType(scalarType, isArray);
+            ModelProperty pi = new ModelProperty(propertyType, jsonInfo.fragmentName, jsonInfo.fragmentKey, jsonPath);
+            propertyInfoByPath.put(path, pi);
+            if (isArray) {
+                propertyInfoByPath.put(path + "/*", pi);
+            }
+            // record binaries for the GC
+            if (propertyType == PropertyType.BINARY) {
+                jsonBinaryPropertyInfos.add(pi);
+            } else if (propertyType == PropertyType.ARRAY_BINARY) {
+                List<String> elementPath = new ArrayList<String>(jsonPath);
+                elementPath.add("*");
+                jsonBinaryPropertyInfos.add(new ModelProperty(PropertyType.BINARY, jsonInfo.fragmentName,
+                        jsonInfo.fragmentKey, elementPath));
+            }
+        }
+    }
+
     private void inferFulltextInfoByFragment() {
         // simple fragments
         for (Entry<String, Map<String, ModelProperty>> es : fragmentPropertyInfos.entrySet()) {
@@ -973,10 +1062,40 @@ public class Model {
         return fragmentKeyTypes.get(fragmentName);
     }
 
+    /**
+     * Gets the row layout of a simple fragment.
+     *
+     * @return the layout, or {@code null} if unknown
+     * @since 8.3
+     */
+    public RowLayout getRowLayout(String fragmentName) {
+        return rowLayouts.get(fragmentName);
+    }
+
     public Map<String, List<String>> getBinaryPropertyInfos() {
         return binaryFragmentKeys;
     }
 
+    /**
+     * Gets the values of binary type stored inside JSON columns.
+     *
+     * @since 8.3
+     */
+    public List<ModelProperty> getJsonBinaryPropertyInfos() {
+        return jsonBinaryPropertyInfos;
+    }
+
+    /**
+     * Gets the type of a complex property stored as JSON.
+     *
+     * @param propertyName the property name
+     * @return the property type, or {@code null} if the property is not stored as JSON
+     * @since 8.3
+     */
+    public Type getJsonPropertyType(String propertyName) {
+        return jsonPropertyTypes.get(propertyName);
+    }
+
     private void addTypeFragments(String typeName, Set<String> fragmentNames) {
         typeFragments.put(typeName, fragmentNames);
     }
@@ -1012,6 +1131,37 @@ public class Model {
         return docTypePrefetchedFragments.get(typeName);
     }
 
+    /**
+     * Gets the fragments holding the fields and schemas of a prefetch info.
+     *
+     * @param prefetch the prefetch info
+     * @param fragmentNames if not {@code null}, the fragments to which the fragments of fields are restricted
+     * @return the fragments
+     * @since 8.3
+     */
+    public Set<String> getPrefetchedFragments(PrefetchInfo prefetch, Set<String> fragmentNames) {
+        Set<String> prefetched = new HashSet<String>();
+        for (String fieldName : prefetch.getFields()) {
+            // prefetch all the relevant fragments
+            // TODO deal with full xpath
+            String fragment = fieldFragment.get(fieldName);
+            if (fragment != null) {
+                // checks that the field actually belongs
+                // to the type
+                if (fragmentNames == null || fragmentNames.contains(fragment)) {
+                    prefetched.add(fragment);
+                }
+            }
+        }
+        for (String schemaName : prefetch.getSchemas()) {
+            Set<String> fragments = schemaFragments.get(schemaName);
+            if (fragments != null) {
+                prefetched.addAll(fragments);
+            }
+        }
+        return prefetched;
+    }
+
     /**
      * Checks if we have a type (doctype or complex type).
      */
@@ -1196,25 +1346,7 @@ public class Model {
         String docTypeName = docType.getName();
         PrefetchInfo prefetch = docType.getPrefetchInfo();
         if (prefetch != null) {
-            Set<String> documentTypeFragments = getTypeFragments(docTypeName);
-            for (String fieldName : prefetch.getFields()) {
-                // prefetch all the relevant fragments
-                // TODO deal with full xpath
-                String fragment = fieldFragment.get(fieldName);
-                if (fragment != null) {
-                    // checks that the field actually belongs
-                    // to the type
-                    if (documentTypeFragments.contains(fragment)) {
-                        addDocTypePrefetchedFragments(docTypeName, Collections.singleton(fragment));
-                    }
-                }
-            }
-            for (String schemaName : prefetch.getSchemas()) {
-                Set<String> fragments = schemaFragments.get(schemaName);
-                if (fragments != null) {
-                    addDocTypePrefetchedFragments(docTypeName, fragments);
-                }
-            }
+            addDocTypePrefetchedFragments(docTypeName, getPrefetchedFragments(prefetch, getTypeFragments(docTypeName)));
         }
         // always prefetch ACLs, versions, misc (for lifecycle)
         addDocTypePrefetchedFragments(docTypeName, getCommonFragmentsPrefetched());
@@ -1428,13 +1560,21 @@ public class Model {
         Set<String> fragmentNames = new HashSet<String>(1);
         /** The children complex properties for this type. */
         Map<String, String> complexChildren = new HashMap<String, String>(1);
+        /** Whether complex properties and lists are stored as JSON and arrays. */
+        boolean json = isSchema && jsonSchemas.contains(typeName);
 
         log.debug("Making model for type " + typeName);
 
         /** Initialized if this type has a table associated. */
         for (Field field : complexType.getFields()) {
             Type fieldType = field.getType();
-            if (fieldType.isComplexType()) {
+            if (json && (fieldType.isComplexType()
+                    || (fieldType.isListType() && !((ListType) fieldType).getFieldType().isSimpleType()))) {
+                /*
+                 * Complex type or complex list stored as JSON.
+                 */
+                initJsonPropertyModel(complexType, field, fragmentNames);
+            } else if (fieldType.isComplexType()) {
                 /*
                  * Complex type.
                  */
@@ -1459,7 +1599,7 @@ public class Model {
                         PropertyType propertyType = PropertyType.fromFieldType(listFieldType, true);
                         boolean useArray = false;
                         ColumnType columnType = null;
-                        if (repositoryDescriptor.getArrayColumns() && fieldDescriptor == null) {
+                        if ((repositoryDescriptor.getArrayColumns() || json) && fieldDescriptor == null) {
                             fieldDescriptor = new FieldDescriptor();
                             fieldDescriptor.type = FIELD_TYPE_ARRAY;
                         }
@@ -1593,6 +1733,26 @@ public class Model {
         }
     }
 
+    /**
+     * Creates the model for a complex property or complex list stored as a JSON column of its schema table.
+     */
+    private void initJsonPropertyModel(ComplexType complexType, Field field, Set<String> fragmentNames) {
+        String propertyName = field.getName().getPrefixedName();
+        String fragmentName = typeFragmentName(complexType);
+        String fragmentKey = field.getName().getLocalName();
+        if (MAIN_KEY.equalsIgnoreCase(fragmentKey)) {
+            String msg = "A property cannot be named '" + fragmentKey + "' because this is a reserved name, in type: "
+                    + complexType.getName();
+            throw new NuxeoException(msg);
+        }
+        log.debug("  Complex field '" + propertyName + "' stored as JSON");
+        addPropertyInfo(complexType, propertyName, PropertyType.STRING, fragmentName, fragmentKey, false, null,
+                ColumnType.JSON);
+        jsonPropertyTypes.put(propertyName, field.getType());
+        fragmentNames.add(fragmentName);
+        addFieldFragment(field, fragmentName);
+    }
+
     private static String typeFragmentName(ComplexType type) {
         return type.getName();
     }
@@ -19,6 +19,8 @@
 
 package org.nuxeo.ecm.core.storage.sql;
 
+import java.util.List;
+
 /**
  * Model of a property (simple or array) of a {@link Node}.
  */
@@ -36,6 +38,14 @@ public class ModelProperty {
 
     protected final boolean isIntermediateSegment;
 
+    /**
+     * The path of the value inside the JSON column for a property stored as JSON, with {@code *} for list elements, or
+     * {@code null}.
+     *
+     * @since 8.3
+     */
+    public final List<String> jsonPath;
+
     /**
      * Creates a model for a scalar property, or the last segment of a complex property.
      */
@@ -45,6 +55,7 @@ public class ModelProperty {
         this.fragmentKey = fragmentKey;
         this.readonly = readonly;
         isIntermediateSegment = false;
+        jsonPath = null;
         // TODO use some config to decide this
         fulltext = (propertyType.equals(PropertyType.STRING) || propertyType.equals(PropertyType.BINARY) || propertyType.equals(PropertyType.ARRAY_STRING))
                 && (fragmentKey == null || !fragmentKey.equals(Model.MAIN_KEY))
@@ -70,6 +81,26 @@ public class ModelProperty {
         readonly = false;
         fulltext = false;
         isIntermediateSegment = true;
+        jsonPath = null;
+    }
+
+    /**
+     * Creates a model for a scalar or array value stored inside the JSON column of a complex property.
+     *
+     * @param propertyType the type of the value
+     * @param fragmentName the fragment holding the JSON column
+     * @param fragmentKey the JSON column key
+     * @param jsonPath the path of the value inside the JSON column, with {@code *} for list elements
+     * @since 8.3
+     */
+    public ModelProperty(PropertyType propertyType, String fragmentName, String fragmentKey, List<String> jsonPath) {
+        this.propertyType = propertyType;
+        this.fragmentName = fragmentName;
+        this.fragmentKey = fragmentKey;
+        this.jsonPath = jsonPath;
+        readonly = false;
+        fulltext = false;
+        isIntermediateSegment = false;
     }
 
     /**
@@ -91,10 +122,20 @@ public class ModelProperty {
         return isIntermediateSegment;
     }
 
+    /**
+     * Checks if this is the model of a value stored inside the JSON column of a complex property.
+     *
+     * @since 8.3
+     */
+    public boolean isJson() {
+        return jsonPath != null;
+    }
+
     @Override
     public String toString() {
         return getClass().getSimpleName() + '(' + fragmentName + ", " + fragmentKey + ", " + propertyType
-                + (readonly ? ", RO" : "") + (fulltext ? ", FT" : "") + ')';
+                + (readonly ? ", RO" : "") + (fulltext ? ", FT" : "") + (jsonPath == null ? "" : ", JSON " + jsonPath)
+                + ')';
     }
 
 }
@@ -32,6 +32,9 @@ public class ModelSetup {
 
     public boolean supportsArrayColumns;
 
+    /** @since 8.3 */
+    public boolean supportsJsonColumns;
+
     public IdType idType;
 
 }
@@ -737,7 +737,7 @@ public class PersistenceContext {
                     Row row = new Row(rowId.tableName, rowId.id, empty);
                     return new CollectionFragment(row, State.ABSENT, this);
                 } else {
-                    Row row = new Row(rowId.tableName, rowId.id);
+                    Row row = new Row(rowId.tableName, rowId.id, model.getRowLayout(rowId.tableName));
                     return new SimpleFragment(row, State.ABSENT, this);
                 }
             } else {
@@ -1407,7 +1407,7 @@ public class PersistenceContext {
         boolean isMajor = Long.valueOf(0).equals(verHier.get(Model.MAIN_MINOR_VERSION_KEY));
 
         // create a "version" row for our new version
-        Row row = new Row(Model.VERSION_TABLE_NAME, newId);
+        Row row = new Row(Model.VERSION_TABLE_NAME, newId, model.getRowLayout(Model.VERSION_TABLE_NAME));
         row.putNew(Model.VERSION_VERSIONABLE_KEY, id);
         row.putNew(Model.VERSION_CREATED_KEY, new GregorianCalendar()); // now
         row.putNew(Model.VERSION_LABEL_KEY, label);
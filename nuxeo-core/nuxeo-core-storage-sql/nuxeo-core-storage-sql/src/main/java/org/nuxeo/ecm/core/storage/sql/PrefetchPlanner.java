@@ -0,0 +1,170 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.sql;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.nuxeo.ecm.core.schema.PrefetchRequest;
+import org.nuxeo.ecm.core.storage.sql.RowMapper.IdWithTypes;
+
+/**
+ * Plans the prefetch of the fragments of several documents, so that they are fetched together with {@code IN} queries
+ * by table by {@link RowMapper#read}.
+ * <p>
+ * The fragments prefetched for a document are those configured by the prefetch info of its type (see
+ * {@link Model#getTypePrefetchedFragments}), and those requested by the {@link PrefetchRequest} of the current thread
+ * if any, restricted to the fragments the document actually has.
+ *
+ * @since 8.3
+ */
+public class PrefetchPlanner {
+
+    protected final Model model;
+
+    protected final PrefetchRequest request;
+
+    /** The fragments of the request, or {@code null} if there is no request. */
+    protected final Set<String> requestedFragments;
+
+    protected final Set<RowId> rowIds = new LinkedHashSet<RowId>();
+
+    protected final Set<Serializable> proxyIds = new HashSet<Serializable>();
+
+    protected int documentCount;
+
+    protected int tableCount;
+
+    public PrefetchPlanner(Model model) {
+        this.model = model;
+        request = PrefetchRequest.current();
+        requestedFragments = request == null ? null : model.getPrefetchedFragments(request.getPrefetchInfo(), null);
+    }
+
+    /**
+     * Adds the fragments to prefetch for a document.
+     * <p>
+     * Nothing is prefetched for a proxy, it is only noted if requested so that the fragments of its target can be
+     * added once it's known.
+     *
+     * @param hierFragment the hierarchy fragment of the document
+     * @param noteProxy whether to note the document in {@link #getProxyIds} if it's a proxy
+     */
+    public void add(SimpleFragment hierFragment, boolean noteProxy) {
+        Serializable id = hierFragment.row.id;
+
+        // find type
+        String typeName = (String) hierFragment.get(Model.MAIN_PRIMARY_TYPE_KEY);
+        if (Model.PROXY_TYPE.equals(typeName)) {
+            if (noteProxy) {
+                proxyIds.add(id);
+            }
+            return;
+        }
+
+        // find table names
+        Set<String> tableNames = model.getTypePrefetchedFragments(typeName);
+        if (tableNames == null) {
+            return; // unknown (obsolete) type
+        }
+        documentCount++;
+
+        // add row id for each table name
+        Serializable parentId = hierFragment.get(Model.HIER_PARENT_KEY);
+        addRowIds(id, parentId, tableNames);
+        addRowIds(id, parentId, getRequestedFragments(hierFragment));
+    }
+
+    protected void addRowIds(Serializable id, Serializable parentId, Set<String> tableNames) {
+        for (String tableName : tableNames) {
+            if (Model.HIER_TABLE_NAME.equals(tableName)) {
+                continue; // already fetched
+            }
+            if (parentId != null && Model.VERSION_TABLE_NAME.equals(tableName)) {
+                continue; // not a version, don't fetch this table
+                // TODO incorrect if we have filed versions
+            }
+            rowIds.add(new RowId(tableName, id));
+        }
+    }
+
+    /**
+     * Gets the requested fragments that a document has, taking into account its instance facets.
+     */
+    protected Set<String> getRequestedFragments(SimpleFragment hierFragment) {
+        if (requestedFragments == null || requestedFragments.isEmpty()) {
+            return Collections.emptySet();
+        }
+        Set<String> fragments = model.getTypeFragments(new IdWithTypes(hierFragment));
+        fragments.retainAll(requestedFragments);
+        return fragments;
+    }
+
+    /**
+     * Gets the ids of the proxies noted by {@link #add}.
+     */
+    public Set<Serializable> getProxyIds() {
+        return proxyIds;
+    }
+
+    /**
+     * Gets the rows planned for prefetch.
+     */
+    public Set<RowId> getRowIds() {
+        return rowIds;
+    }
+
+    /**
+     * Fetches the planned rows in the context.
+     * <p>
+     * The number of tables having rows to fetch, which is not the number of statements executed as the mapper may chunk
+     * its {@code IN} queries or serve rows from its cache, is available from {@link #getTableCount} and is also
+     * recorded in the current {@link PrefetchRequest}.
+     *
+     * @param context the persistence context
+     * @return the fetched fragments
+     */
+    public List<Fragment> fetch(PersistenceContext context) {
+        // rows not already in the context are read by table
+        Set<String> tableNames = new HashSet<String>();
+        for (RowId rowId : rowIds) {
+            if (context.getIfPresent(rowId) == null) {
+                tableNames.add(rowId.tableName);
+            }
+        }
+        List<Fragment> fragments = context.getMulti(rowIds, true);
+        tableCount = tableNames.size();
+        if (request != null) {
+            request.addPrefetched(documentCount, tableCount);
+        }
+        return fragments;
+    }
+
+    /**
+     * Gets the number of tables having rows to fetch during {@link #fetch}.
+     */
+    public int getTableCount() {
+        return tableCount;
+    }
+
+}
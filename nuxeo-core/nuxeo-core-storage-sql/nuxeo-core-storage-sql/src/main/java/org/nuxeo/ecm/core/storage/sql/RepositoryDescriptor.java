@@ -48,6 +48,18 @@ public class RepositoryDescriptor {
 
     public static final int DEFAULT_PATH_OPTIM_VERSION = 2;
 
+    /** @since 8.3 */
+    public static final int DEFAULT_WRITE_BATCH_SIZE = 100;
+
+    /** @since 8.3 */
+    public static final int DEFAULT_READ_ACL_UPDATE_BATCH_SIZE = 1000;
+
+    /** @since 8.3 */
+    public static final int DEFAULT_QUERY_PLAN_CACHE_SIZE = 1000;
+
+    /** @since 8.3 */
+    public static final int DEFAULT_READ_REPLICA_MAX_LAG = 10;
+
     /** At startup, DDL changes are not detected. */
     public static final String DDL_MODE_IGNORE = "ignore";
 
@@ -277,6 +289,15 @@ public class RepositoryDescriptor {
         arrayColumns = Boolean.valueOf(enabled);
     }
 
+    /**
+     * The schemas whose complex properties are stored as JSON in the schema table, and whose scalar lists are stored
+     * as arrays, if the database supports it.
+     *
+     * @since 8.3
+     */
+    @XNodeList(value = "schema/jsonSchema", type = HashSet.class, componentType = String.class)
+    public Set<String> jsonSchemas = new HashSet<>(0);
+
     @XNode("indexing/queryMaker@class")
     public void setQueryMakerDeprecated(String klass) {
         log.warn("Setting queryMaker from repository configuration is now deprecated");
@@ -383,6 +404,117 @@ public class RepositoryDescriptor {
         return readAclMaxSize == null ? DEFAULT_READ_ACL_MAX_SIZE : readAclMaxSize.intValue();
     }
 
+    /** @since 8.3 */
+    @XNode("aclOptimizations@async")
+    private Boolean aclOptimizationsAsync;
+
+    /**
+     * Whether the read acls of the documents under an ACL change are computed asynchronously in batches, instead of
+     * during the save. Until this is done, queries check security without using the read acls.
+     *
+     * @since 8.3
+     */
+    public boolean getAclOptimizationsAsync() {
+        return defaultFalse(aclOptimizationsAsync);
+    }
+
+    /** @since 8.3 */
+    @XNode("aclOptimizations@updateBatchSize")
+    private Integer readAclUpdateBatchSize;
+
+    /**
+     * Gets the maximum number of read acls computed in one batch when they are computed asynchronously.
+     *
+     * @since 8.3
+     */
+    public int getReadAclUpdateBatchSize() {
+        return readAclUpdateBatchSize == null ? DEFAULT_READ_ACL_UPDATE_BATCH_SIZE : readAclUpdateBatchSize.intValue();
+    }
+
+    /** @since 8.3 */
+    @XNode("writeBatch@size")
+    private Integer writeBatchSize;
+
+    /**
+     * Gets the maximum number of rows written to a table in one batch or multi-row statement.
+     *
+     * @since 8.3
+     */
+    public int getWriteBatchSize() {
+        return writeBatchSize == null ? DEFAULT_WRITE_BATCH_SIZE : writeBatchSize.intValue();
+    }
+
+    /** @since 8.3 */
+    @XNode("writeBatch@multiRow")
+    private Boolean writeBatchMultiRowEnabled;
+
+    /**
+     * Whether rows are written using multi-row statements when the database supports it.
+     *
+     * @since 8.3
+     */
+    public boolean getWriteBatchMultiRowEnabled() {
+        return defaultTrue(writeBatchMultiRowEnabled);
+    }
+
+    /** @since 8.3 */
+    @XNode("queryPlanCache@enabled")
+    private Boolean queryPlanCacheEnabled;
+
+    /**
+     * Whether the SQL generated for NXQL queries is cached.
+     *
+     * @since 8.3
+     */
+    public boolean getQueryPlanCacheEnabled() {
+        return defaultFalse(queryPlanCacheEnabled);
+    }
+
+    /** @since 8.3 */
+    @XNode("queryPlanCache@size")
+    private Integer queryPlanCacheSize;
+
+    /**
+     * Gets the maximum number of queries whose generated SQL is cached.
+     *
+     * @since 8.3
+     */
+    public int getQueryPlanCacheSize() {
+        return queryPlanCacheSize == null ? DEFAULT_QUERY_PLAN_CACHE_SIZE : queryPlanCacheSize.intValue();
+    }
+
+    /** @since 8.3 */
+    @XNode("readReplica@dataSource")
+    private String readReplicaDataSource;
+
+    /**
+     * Gets the name of the read-only replica datasource to which queries are sent, or {@code null} if there is none.
+     *
+     * @since 8.3
+     */
+    public String getReadReplicaDataSource() {
+        return StringUtils.isBlank(readReplicaDataSource) ? null : readReplicaDataSource;
+    }
+
+    /** @since 8.3 */
+    public void setReadReplicaDataSource(String readReplicaDataSource) {
+        this.readReplicaDataSource = readReplicaDataSource;
+    }
+
+    /** @since 8.3 */
+    @XNode("readReplica@maxLag")
+    private Integer readReplicaMaxLag;
+
+    /**
+     * Gets the maximum replication lag, in seconds, above which queries are sent to the primary datasource instead of
+     * the read-only replica.
+     *
+     * @since 8.3
+     */
+    public int getReadReplicaMaxLag() {
+        return readReplicaMaxLag == null ? DEFAULT_READ_REPLICA_MAX_LAG : readReplicaMaxLag.intValue();
+    }
+
     @XNode("usersSeparator@key")
     public String usersSeparatorKey;
 
@@ -413,6 +545,7 @@ public class RepositoryDescriptor {
         proxiesEnabled = other.proxiesEnabled;
         schemaFields = FieldDescriptor.copyList(other.schemaFields);
         arrayColumns = other.arrayColumns;
+        jsonSchemas = new HashSet<>(other.jsonSchemas);
         idType = other.idType;
         clusterNodeId = other.clusterNodeId;
         clusteringEnabled = other.clusteringEnabled;
@@ -425,6 +558,14 @@ public class RepositoryDescriptor {
         pathOptimizationsVersion = other.pathOptimizationsVersion;
         aclOptimizationsEnabled = other.aclOptimizationsEnabled;
         readAclMaxSize = other.readAclMaxSize;
+        aclOptimizationsAsync = other.aclOptimizationsAsync;
+        readAclUpdateBatchSize = other.readAclUpdateBatchSize;
+        writeBatchSize = other.writeBatchSize;
+        writeBatchMultiRowEnabled = other.writeBatchMultiRowEnabled;
+        queryPlanCacheEnabled = other.queryPlanCacheEnabled;
+        queryPlanCacheSize = other.queryPlanCacheSize;
+        readReplicaDataSource = other.readReplicaDataSource;
+        readReplicaMaxLag = other.readReplicaMaxLag;
         usersSeparatorKey = other.usersSeparatorKey;
         xaDataSourceName = other.xaDataSourceName;
         properties = new HashMap<>(other.properties);
@@ -497,6 +638,7 @@ public class RepositoryDescriptor {
         if (other.arrayColumns != null) {
             arrayColumns = other.arrayColumns;
         }
+        jsonSchemas.addAll(other.jsonSchemas);
         if (other.fulltextAnalyzer != null) {
             fulltextAnalyzer = other.fulltextAnalyzer;
         }
@@ -517,6 +659,30 @@ public class RepositoryDescriptor {
         if (other.readAclMaxSize != null) {
             readAclMaxSize = other.readAclMaxSize;
         }
+        if (other.aclOptimizationsAsync != null) {
+            aclOptimizationsAsync = other.aclOptimizationsAsync;
+        }
+        if (other.readAclUpdateBatchSize != null) {
+            readAclUpdateBatchSize = other.readAclUpdateBatchSize;
+        }
+        if (other.writeBatchSize != null) {
+            writeBatchSize = other.writeBatchSize;
+        }
+        if (other.writeBatchMultiRowEnabled != null) {
+            writeBatchMultiRowEnabled = other.writeBatchMultiRowEnabled;
+        }
+        if (other.queryPlanCacheEnabled != null) {
+            queryPlanCacheEnabled = other.queryPlanCacheEnabled;
+        }
+        if (other.queryPlanCacheSize != null) {
+            queryPlanCacheSize = other.queryPlanCacheSize;
+        }
+        if (other.readReplicaDataSource != null) {
+            readReplicaDataSource = other.readReplicaDataSource;
+        }
+        if (other.readReplicaMaxLag != null) {
+            readReplicaMaxLag = other.readReplicaMaxLag;
+        }
         if (other.usersSeparatorKey != null) {
             usersSeparatorKey = other.usersSeparatorKey;
         }
@@ -22,7 +22,10 @@ package org.nuxeo.ecm.core.storage.sql;
 import java.io.Serializable;
 import java.util.Calendar;
 import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.naming.Reference;
@@ -87,6 +90,34 @@ public class RepositoryImpl implements Repository {
     /** Propagator of invalidations to all mappers' caches. */
     protected final InvalidationsPropagator invalidationsPropagator;
 
+    /**
+     * Open scrolls, by scroll id. Kept at the repository level as a scroll usually spans several sessions.
+     *
+     * @since 8.3
+     */
+    protected final Map<String, ScrollContext> scrolls = new ConcurrentHashMap<>();
+
+    /**
+     * Delay after which a pending asynchronous read acls update is checked again in the database (in milliseconds).
+     *
+     * @since 8.3
+     */
+    protected static final long READ_ACLS_PENDING_RECHECK_DELAY = 1000;
+
+    /**
+     * Whether some read acls are marked for an asynchronous update, or {@code null} if to be checked in the database.
+     * Kept at the repository level to avoid checking it for each query.
+     *
+     * @since 8.3
+     */
+    protected Boolean readAclsPending;
+
+    /** Expiration time of {@link #readAclsPending}, or 0 if it doesn't expire. */
+    protected long readAclsPendingExpiration;
+
+    /** Number of times read acls were marked for update by the sessions of this repository. */
+    protected long readAclsMarks;
+
     private Model model;
 
     /**
@@ -397,6 +428,7 @@ public class RepositoryImpl implements Repository {
     @Override
     public synchronized void close() {
         closeAllSessions();
+        scrolls.clear();
         model = null;
         backend.shutdown();
 
@@ -523,6 +555,98 @@ public class RepositoryImpl implements Repository {
         }
     }
 
+    /**
+     * Gets the known state of the asynchronous read acls update.
+     *
+     * @return whether some read acls are marked for update, or {@code null} if unknown and to be checked in the
+     *         database
+     * @since 8.3
+     */
+    public synchronized Boolean getReadAclsPending() {
+        if (readAclsPending != null && readAclsPendingExpiration != 0
+                && System.currentTimeMillis() > readAclsPendingExpiration) {
+            readAclsPending = null;
+        }
+        return readAclsPending;
+    }
+
+    /**
+     * Gets the number of times read acls were marked for update, to pass to {@link #setReadAclsPendingChecked}.
+     *
+     * @since 8.3
+     */
+    public synchronized long getReadAclsMarks() {
+        return readAclsMarks;
+    }
+
+    /**
+     * Records that a session marked read acls for update.
+     *
+     * @since 8.3
+     */
+    public synchronized void readAclsMarked() {
+        readAclsMarks++;
+        readAclsPending = Boolean.TRUE;
+        readAclsPendingExpiration = System.currentTimeMillis() + READ_ACLS_PENDING_RECHECK_DELAY;
+    }
+
+    /**
+     * Records the state of the asynchronous read acls update checked in the database, unless a session marked read
+     * acls for update since the check started.
+     * <p>
+     * A pending update is checked again after a short delay. Otherwise the state is kept until a session marks read
+     * acls, or when clustering is enabled until the clustering delay expires, as other nodes may mark them.
+     *
+     * @param pending whether some read acls are marked for update
+     * @param marks the value of {@link #getReadAclsMarks} when the check started
+     * @since 8.3
+     */
+    public synchronized void setReadAclsPendingChecked(boolean pending, long marks) {
+        if (marks != readAclsMarks) {
+            return;
+        }
+        readAclsPending = Boolean.valueOf(pending);
+        if (pending) {
+            readAclsPendingExpiration = System.currentTimeMillis() + READ_ACLS_PENDING_RECHECK_DELAY;
+        } else if (repositoryDescriptor.getClusteringEnabled()) {
+            long delay = Math.max(1, repositoryDescriptor.getClusteringDelay());
+            readAclsPendingExpiration = System.currentTimeMillis() + delay;
+        } else {
+            readAclsPendingExpiration = 0;
+        }
+    }
+
+    @Override
+    public boolean updateReadAcls(int max) {
+        if (!repositoryDescriptor.getAclOptimizationsAsync()) {
+            return false;
+        }
+        try {
+            SessionImpl conn = getConnection();
+            try {
+                return conn.updateReadAcls(max);
+            } finally {
+                conn.close();
+            }
+        } catch (ResourceException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Removes the scrolls whose keep alive has expired.
+     *
+     * @since 8.3
+     */
+    protected void cleanupExpiredScrolls() {
+        long now = System.currentTimeMillis();
+        for (Iterator<ScrollContext> it = scrolls.values().iterator(); it.hasNext();) {
+            if (it.next().isExpired(now)) {
+                it.remove();
+            }
+        }
+    }
+
     /*
      * ----- -----
      */
@@ -83,4 +83,13 @@ public interface RepositoryManagement {
      */
     int cleanupDeletedDocuments(int max, Calendar beforeTime);
 
+    /**
+     * Computes a batch of the read acls marked for update after ACL changes, when they are updated asynchronously.
+     *
+     * @param max the maximum number of read acls to compute
+     * @return {@code true} if some read acls remain to compute
+     * @since 8.3
+     */
+    boolean updateReadAcls(int max);
+
 }
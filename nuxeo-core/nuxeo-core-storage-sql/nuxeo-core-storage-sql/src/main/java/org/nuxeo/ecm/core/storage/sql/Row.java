@@ -20,6 +20,7 @@ package org.nuxeo.ecm.core.storage.sql;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.List;
 import java.util.Map;
@@ -34,6 +35,9 @@ import org.nuxeo.ecm.core.api.model.Delta;
  * <p>
  * The id of the row is distinguished internally from other columns. For fragments corresponding to created data, the
  * initial id is a temporary one, and it will be changed after database insert.
+ * <p>
+ * When a single row has a {@link RowLayout}, the values of the keys of the layout are stored at fixed slots, and only
+ * other keys are looked up by scanning.
  */
 public final class Row extends RowId implements Serializable, Cloneable {
 
@@ -52,7 +56,14 @@ public final class Row extends RowId implements Serializable, Cloneable {
     public static final Serializable OPAQUE = OpaqueValue.OPAQUE_VALUE;
 
     /**
-     * The row keys, for single row.
+     * The layout of the keys, or {@code null}.
+     *
+     * @since 8.3
+     */
+    protected final RowLayout layout;
+
+    /**
+     * The row keys, for single row. Starts with the layout keys if there is a layout.
      */
     protected String[] keys;
 
@@ -69,7 +80,9 @@ public final class Row extends RowId implements Serializable, Cloneable {
     /** Copy constructor. */
     private Row(Row row) {
         super(row);
-        keys = row.keys == null ? null : row.keys.clone();
+        layout = row.layout;
+        // layout keys are shared
+        keys = row.keys == null || (layout != null && row.keys == layout.keys) ? row.keys : row.keys.clone();
         values = row.values == null ? null : row.values.clone();
         size = row.size;
     }
@@ -83,10 +96,27 @@ public final class Row extends RowId implements Serializable, Cloneable {
      * Constructs an empty {@link Row} for the given table with the given id (may be {@code null}).
      */
     public Row(String tableName, Serializable id) {
+        this(tableName, id, (RowLayout) null);
+    }
+
+    /**
+     * Constructs an empty {@link Row} for the given table with the given id (may be {@code null}) and layout.
+     *
+     * @param layout the layout, or {@code null}
+     * @since 8.3
+     */
+    public Row(String tableName, Serializable id, RowLayout layout) {
         super(tableName, id);
-        keys = new String[DEFAULT];
-        values = new Serializable[DEFAULT];
-        // size = 0;
+        this.layout = layout;
+        if (layout == null) {
+            keys = new String[DEFAULT];
+            values = new Serializable[DEFAULT];
+            // size = 0;
+        } else {
+            keys = layout.keys;
+            values = new Serializable[keys.length];
+            size = keys.length;
+        }
     }
 
     /**
@@ -95,12 +125,33 @@ public final class Row extends RowId implements Serializable, Cloneable {
      * @param map the initial data to use
      */
     public Row(String tableName, Map<String, Serializable> map) {
+        this(tableName, map, null);
+    }
+
+    /**
+     * Constructs a new {@link Row} from a map, with a layout.
+     *
+     * @param map the initial data to use
+     * @param layout the layout, or {@code null}
+     * @since 8.3
+     */
+    public Row(String tableName, Map<String, Serializable> map, RowLayout layout) {
         super(tableName, null); // id set through map
-        keys = new String[map.size()];
-        values = new Serializable[map.size()];
-        // size = 0;
-        for (Entry<String, Serializable> entry : map.entrySet()) {
-            putNew(entry.getKey(), entry.getValue());
+        this.layout = layout;
+        if (layout == null) {
+            keys = new String[map.size()];
+            values = new Serializable[map.size()];
+            // size = 0;
+            for (Entry<String, Serializable> entry : map.entrySet()) {
+                putNew(entry.getKey(), entry.getValue());
+            }
+        } else {
+            keys = layout.keys;
+            values = new Serializable[keys.length];
+            size = keys.length;
+            for (Entry<String, Serializable> entry : map.entrySet()) {
+                put(entry.getKey(), entry.getValue());
+            }
         }
     }
 
@@ -111,6 +162,7 @@ public final class Row extends RowId implements Serializable, Cloneable {
      */
     public Row(String tableName, Serializable id, Serializable[] array) {
         super(tableName, id);
+        layout = null;
         values = array.clone();
         keys = null;
         size = -1;
@@ -120,8 +172,35 @@ public final class Row extends RowId implements Serializable, Cloneable {
         return size == -1;
     }
 
+    /**
+     * Gets the layout of this row.
+     *
+     * @return the layout, or {@code null}
+     * @since 8.3
+     */
+    public RowLayout getLayout() {
+        return layout;
+    }
+
+    /**
+     * Removes all values, for a single row.
+     *
+     * @since 8.3
+     */
+    public void clear() {
+        if (layout == null) {
+            size = 0;
+            Arrays.fill(values, null);
+        } else {
+            // back to the shared layout keys, values must not be longer
+            keys = layout.keys;
+            size = keys.length;
+            values = new Serializable[size];
+        }
+    }
+
     private void ensureCapacity(int minCapacity) {
-        if (minCapacity > values.length) {
+        if (minCapacity > values.length || minCapacity > keys.length) {
             Serializable[] k = keys;
             Serializable[] d = values;
             int newCapacity = (values.length * 3) / 2 + 1;
@@ -135,6 +214,35 @@ public final class Row extends RowId implements Serializable, Cloneable {
         }
     }
 
+    /**
+     * Finds the index of a key in the values.
+     *
+     * @return the index, or {@code -1} if not found
+     */
+    private int indexOf(String key) {
+        int start = 0;
+        if (layout != null) {
+            int slot = layout.getSlot(key);
+            if (slot >= 0) {
+                return slot;
+            }
+            start = layout.keys.length;
+        }
+        // linear search but the array is small
+        for (int i = start; i < size; i++) {
+            if (key.equals(keys[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void append(String key, Serializable value) {
+        ensureCapacity(size + 1);
+        keys[size] = key == null ? null : key.intern();
+        values[size++] = value;
+    }
+
     /**
      * Puts a key/value. Does not deal with deltas.
      *
@@ -146,16 +254,12 @@ public final class Row extends RowId implements Serializable, Cloneable {
             id = value;
             return;
         }
-        // linear search but the array is small
-        for (int i = 0; i < size; i++) {
-            if (key.equals(keys[i])) {
-                values[i] = value;
-                return;
-            }
+        int i = indexOf(key);
+        if (i >= 0) {
+            values[i] = value;
+        } else {
+            append(key, value);
         }
-        ensureCapacity(size + 1);
-        keys[size] = key == null ? null: key.intern();
-        values[size++] = value;
     }
 
     /**
@@ -171,30 +275,26 @@ public final class Row extends RowId implements Serializable, Cloneable {
             id = value;
             return;
         }
-        // linear search but the array is small
-        for (int i = 0; i < size; i++) {
-            if (key.equals(keys[i])) {
-                if (value instanceof Delta) {
-                    // the new value is a delta
-                    Delta delta = (Delta) value;
-                    Serializable deltaBase = delta.getBase();
-                    Serializable oldValue = oldvalues[i];
-                    if (!Objects.equals(oldValue, deltaBase)) {
-                        // delta's base is not the in-database value
-                        // -> set a new value, don't use a delta update
-                        value = delta.getFullValue();
-                    }
-                    // else delta's base is the in-database value
-                    // because base is consistent with old value, assume the delta is already properly computed
+        int i = indexOf(key);
+        if (i >= 0) {
+            if (value instanceof Delta) {
+                // the new value is a delta
+                Delta delta = (Delta) value;
+                Serializable deltaBase = delta.getBase();
+                Serializable oldValue = oldvalues[i];
+                if (!Objects.equals(oldValue, deltaBase)) {
+                    // delta's base is not the in-database value
+                    // -> set a new value, don't use a delta update
+                    value = delta.getFullValue();
                 }
-                // else use the new non-delta value
-                values[i] = value;
-                return;
+                // else delta's base is the in-database value
+                // because base is consistent with old value, assume the delta is already properly computed
             }
+            // else use the new non-delta value
+            values[i] = value;
+        } else {
+            append(key, value);
         }
-        ensureCapacity(size + 1);
-        keys[size] = key == null ? null: key.intern();
-        values[size++] = value;
     }
 
     /**
@@ -208,9 +308,28 @@ public final class Row extends RowId implements Serializable, Cloneable {
             id = value;
             return;
         }
-        ensureCapacity(size + 1);
-        keys[size] = key == null ? null : key.intern();
-        values[size++] = value;
+        int slot = layout == null ? -1 : layout.getSlot(key);
+        if (slot >= 0) {
+            values[slot] = value;
+        } else {
+            append(key, value);
+        }
+    }
+
+    /**
+     * Puts a value given its slot in the layout, or its key if the slot is {@code -1}.
+     *
+     * @param slot the slot in the layout of this row, or {@code -1}
+     * @param key the key
+     * @param value the value
+     * @since 8.3
+     */
+    public void put(int slot, String key, Serializable value) {
+        if (slot >= 0) {
+            values[slot] = value;
+        } else {
+            put(key, value);
+        }
     }
 
     /**
@@ -223,13 +342,20 @@ public final class Row extends RowId implements Serializable, Cloneable {
         if (key.equals(Model.MAIN_KEY)) {
             return id;
         }
-        // linear search but the array is small
-        for (int i = 0; i < size; i++) {
-            if (key.equals(keys[i])) {
-                return values[i];
-            }
-        }
-        return null;
+        int i = indexOf(key);
+        return i >= 0 ? values[i] : null;
+    }
+
+    /**
+     * Gets a value given its slot in the layout, or its key if the slot is {@code -1}.
+     *
+     * @param slot the slot in the layout of this row, or {@code -1}
+     * @param key the key
+     * @return the value
+     * @since 8.3
+     */
+    public Serializable get(int slot, String key) {
+        return slot >= 0 ? values[slot] : get(key);
     }
 
     /**
@@ -265,10 +391,16 @@ public final class Row extends RowId implements Serializable, Cloneable {
         if (size != -1) {
             // single row
             buf.append(", {");
+            boolean first = true;
             for (int i = 0; i < size; i++) {
-                if (i > 0) {
+                if (layout != null && i < layout.keys.length && values[i] == null) {
+                    // don't print unset layout slots
+                    continue;
+                }
+                if (!first) {
                     buf.append(", ");
                 }
+                first = false;
                 buf.append(keys[i]);
                 buf.append('=');
                 printValue(values[i], buf);
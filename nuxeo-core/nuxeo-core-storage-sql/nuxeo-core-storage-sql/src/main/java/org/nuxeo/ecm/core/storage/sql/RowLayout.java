@@ -0,0 +1,79 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.sql;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The fixed layout of the keys of a simple fragment table, computed once by the {@link Model}.
+ * <p>
+ * A {@link Row} with a layout stores the value of each key of the layout at a fixed index (slot) of its values, so
+ * that values can be addressed by index instead of by scanning the keys.
+ *
+ * @since 8.3
+ */
+public final class RowLayout implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public final String tableName;
+
+    /** The keys, in slot order. The id is not included. Must not be modified. */
+    protected final String[] keys;
+
+    protected final Map<String, Integer> slots;
+
+    public RowLayout(String tableName, Collection<String> keys) {
+        this.tableName = tableName.intern();
+        this.keys = new String[keys.size()];
+        slots = new HashMap<>(keys.size() * 2);
+        int i = 0;
+        for (String key : keys) {
+            this.keys[i] = key.intern();
+            slots.put(this.keys[i], Integer.valueOf(i));
+            i++;
+        }
+    }
+
+    /**
+     * Gets the slot of a key.
+     *
+     * @return the slot, or {@code -1} if the key is not part of the layout
+     */
+    public int getSlot(String key) {
+        Integer slot = slots.get(key);
+        return slot == null ? -1 : slot.intValue();
+    }
+
+    /**
+     * Gets the number of slots.
+     */
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + '(' + tableName + ", " + slots.keySet() + ')';
+    }
+
+}
@@ -0,0 +1,115 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.sql;
+
+import java.io.Serializable;
+import java.security.Principal;
+
+import org.nuxeo.ecm.core.query.sql.NXQL;
+import org.nuxeo.ecm.core.query.sql.model.IntegerLiteral;
+import org.nuxeo.ecm.core.query.sql.model.Literal;
+import org.nuxeo.ecm.core.query.sql.model.Operator;
+import org.nuxeo.ecm.core.query.sql.model.OrderByClause;
+import org.nuxeo.ecm.core.query.sql.model.OrderByExpr;
+import org.nuxeo.ecm.core.query.sql.model.OrderByList;
+import org.nuxeo.ecm.core.query.sql.model.Predicate;
+import org.nuxeo.ecm.core.query.sql.model.Reference;
+import org.nuxeo.ecm.core.query.sql.model.SQLQuery;
+import org.nuxeo.ecm.core.query.sql.model.SelectClause;
+import org.nuxeo.ecm.core.query.sql.model.StringLiteral;
+import org.nuxeo.ecm.core.query.sql.model.WhereClause;
+
+/**
+ * State of an open scroll, kept by the repository between two batches.
+ * <p>
+ * The scroll walks the results using keyset pagination on the document id ({@code hierarchy.id}): each batch is the
+ * original query restricted to ids greater than the last one returned, ordered by id and limited to the batch size. No
+ * database cursor is kept open between batches, and each batch is an index range scan whatever the scroll position.
+ *
+ * @since 8.3
+ */
+public class ScrollContext {
+
+    public final String query;
+
+    public final int batchSize;
+
+    public final long keepAliveMillis;
+
+    /** The last id returned, or {@code null} before the first batch. */
+    protected Serializable lastId;
+
+    protected volatile long lastAccess;
+
+    public ScrollContext(String query, int batchSize, int keepAliveSeconds) {
+        this.query = query;
+        this.batchSize = batchSize;
+        keepAliveMillis = keepAliveSeconds * 1000L;
+        touch();
+    }
+
+    public void touch() {
+        lastAccess = System.currentTimeMillis();
+    }
+
+    public boolean isExpired(long now) {
+        return now - lastAccess > keepAliveMillis;
+    }
+
+    /**
+     * Gets the query transformer restricting the query to the next batch.
+     */
+    public SQLQuery.Transformer getTransformer() {
+        return new KeysetTransformer(lastId);
+    }
+
+    /**
+     * Transforms a query into {@code SELECT ecm:uuid ... WHERE (...) AND ecm:uuid > lastId ORDER BY ecm:uuid}.
+     */
+    public static class KeysetTransformer implements SQLQuery.Transformer {
+
+        private static final long serialVersionUID = 1L;
+
+        protected final Serializable lastId;
+
+        public KeysetTransformer(Serializable lastId) {
+            this.lastId = lastId;
+        }
+
+        @Override
+        public SQLQuery transform(Principal principal, SQLQuery query) {
+            WhereClause where = query.where;
+            if (lastId != null) {
+                Literal literal = lastId instanceof Long ? new IntegerLiteral((Long) lastId)
+                        : new StringLiteral((String) lastId);
+                Predicate keyset = new Predicate(new Reference(NXQL.ECM_UUID), Operator.GT, literal);
+                if (where == null || where.predicate == null) {
+                    where = new WhereClause(keyset);
+                } else {
+                    where = new WhereClause(new Predicate(where.predicate, Operator.AND, keyset));
+                }
+            }
+            OrderByClause orderBy = new OrderByClause(new OrderByList(new OrderByExpr(new Reference(NXQL.ECM_UUID),
+                    false)));
+            // ids only
+            return new SQLQuery(new SelectClause(), query.from, where, orderBy);
+        }
+    }
+
+}
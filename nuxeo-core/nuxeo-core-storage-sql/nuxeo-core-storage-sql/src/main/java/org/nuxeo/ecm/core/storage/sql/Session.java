@@ -27,6 +27,7 @@ import javax.resource.cci.Connection;
 
 import org.nuxeo.ecm.core.api.IterableQueryResult;
 import org.nuxeo.ecm.core.api.PartialList;
+import org.nuxeo.ecm.core.api.ScrollResult;
 import org.nuxeo.ecm.core.model.LockManager;
 import org.nuxeo.ecm.core.query.QueryFilter;
 
@@ -432,6 +433,36 @@ public interface Session extends Connection {
     IterableQueryResult queryAndFetch(String query, String queryType, QueryFilter queryFilter,
             boolean distinctDocuments, Object... params);
 
+    /**
+     * Opens a scroll on an NXQL query and returns the first batch of ids.
+     * <p>
+     * The query is not filtered by security.
+     *
+     * @param query the NXQL query
+     * @param batchSize the maximum number of ids in each batch
+     * @param keepAliveSeconds the delay after which the scroll is closed if no next batch is requested
+     * @return the first batch of ids, and the scroll id
+     * @since 8.3
+     */
+    ScrollResult scroll(String query, int batchSize, int keepAliveSeconds);
+
+    /**
+     * Gets the next batch of ids of a scroll. The scroll is closed when an empty batch is returned.
+     *
+     * @param scrollId the scroll id
+     * @return the next batch of ids
+     * @since 8.3
+     */
+    ScrollResult scroll(String scrollId);
+
+    /**
+     * Closes a scroll.
+     *
+     * @param scrollId the scroll id
+     * @since 8.3
+     */
+    void closeScroll(String scrollId);
+
     /**
      * Gets the lock manager for this session.
      *
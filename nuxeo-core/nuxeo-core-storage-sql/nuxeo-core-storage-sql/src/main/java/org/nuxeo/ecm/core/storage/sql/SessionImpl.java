@@ -33,6 +33,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.UUID;
 
 import javax.resource.ResourceException;
 import javax.resource.cci.ConnectionMetaData;
@@ -50,6 +51,7 @@ import org.nuxeo.ecm.core.api.ConcurrentUpdateException;
 import org.nuxeo.ecm.core.api.IterableQueryResult;
 import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.api.PartialList;
+import org.nuxeo.ecm.core.api.ScrollResult;
 import org.nuxeo.ecm.core.api.repository.RepositoryManager;
 import org.nuxeo.ecm.core.api.security.ACL;
 import org.nuxeo.ecm.core.api.security.SecurityConstants;
@@ -65,6 +67,7 @@ import org.nuxeo.ecm.core.storage.FulltextUpdaterWork.IndexAndText;
 import org.nuxeo.ecm.core.storage.sql.PersistenceContext.PathAndId;
 import org.nuxeo.ecm.core.storage.sql.RowMapper.RowBatch;
 import org.nuxeo.ecm.core.storage.sql.coremodel.SQLFulltextExtractorWork;
+import org.nuxeo.ecm.core.storage.sql.coremodel.SQLReadAclsUpdateWork;
 import org.nuxeo.ecm.core.work.api.Work;
 import org.nuxeo.ecm.core.work.api.WorkManager;
 import org.nuxeo.ecm.core.work.api.WorkManager.Scheduling;
@@ -72,6 +75,7 @@ import org.nuxeo.runtime.api.Framework;
 import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.transaction.TransactionHelper;
 
+import com.codahale.metrics.Histogram;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
 import com.codahale.metrics.Timer;
@@ -130,6 +134,8 @@ public class SessionImpl implements Session, XAResource {
 
     private final Timer aclrUpdateTimer;
 
+    private final Histogram prefetchTablesHistogram;
+
     private static final java.lang.String LOG_MIN_DURATION_KEY = "org.nuxeo.vcs.query.log_min_duration_ms";
 
     private static final long LOG_MIN_DURATION_NS = Long.parseLong(Framework.getProperty(LOG_MIN_DURATION_KEY, "-1")) * 1000000;
@@ -151,6 +157,8 @@ public class SessionImpl implements Session, XAResource {
         queryTimer = registry.timer(MetricRegistry.name("nuxeo", "repositories", repository.getName(), "queries"));
         aclrUpdateTimer = registry.timer(MetricRegistry.name("nuxeo", "repositories", repository.getName(),
                 "aclr-updates"));
+        prefetchTablesHistogram = registry.histogram(
+                MetricRegistry.name("nuxeo", "repositories", repository.getName(), "prefetch", "tables"));
 
         computeRootNode();
     }
@@ -339,6 +347,12 @@ public class SessionImpl implements Session, XAResource {
         doFlush();
         if (readAclsChanged) {
             updateReadAcls();
+            if (repository.getRepositoryDescriptor().getAclOptimizationsAsync()) {
+                // the read acls are only marked, compute them post-commit
+                repository.readAclsMarked();
+                works = new ArrayList<>(works);
+                works.add(new SQLReadAclsUpdateWork(repository.getName()));
+            }
         }
         scheduleWork(works);
         checkInvalidationsConflict();
@@ -662,17 +676,17 @@ public class SessionImpl implements Session, XAResource {
         }
 
         if (prefetch) {
-            List<RowId> bulkRowIds = new ArrayList<RowId>();
-            Set<Serializable> proxyIds = new HashSet<Serializable>();
+            PrefetchPlanner planner = new PrefetchPlanner(model);
 
             // get rows to prefetch for hier fragments
             for (Fragment fragment : hierFragments) {
-                findPrefetchedFragments((SimpleFragment) fragment, bulkRowIds, proxyIds);
+                planner.add((SimpleFragment) fragment, true);
             }
 
             // proxies
 
             // get proxies fragments
+            Set<Serializable> proxyIds = planner.getProxyIds();
             List<RowId> proxiesRowIds = new ArrayList<RowId>(proxyIds.size());
             for (Serializable id : proxyIds) {
                 proxiesRowIds.add(new RowId(Model.PROXY_TABLE_NAME, id));
@@ -692,13 +706,14 @@ public class SessionImpl implements Session, XAResource {
             }
             hierFragments = context.getMulti(hierRowIds, true);
             for (Fragment fragment : hierFragments) {
-                findPrefetchedFragments((SimpleFragment) fragment, bulkRowIds, null);
+                planner.add((SimpleFragment) fragment, false);
             }
 
             // we have everything to be prefetched
 
             // fetch all the prefetches in bulk
-            List<Fragment> fragments = context.getMulti(bulkRowIds, true);
+            List<Fragment> fragments = planner.fetch(context);
+            prefetchTablesHistogram.update(planner.getTableCount());
 
             // put each fragment in the map of the proper group
             for (Fragment fragment : fragments) {
@@ -721,42 +736,6 @@ public class SessionImpl implements Session, XAResource {
         return nodes;
     }
 
-    /**
-     * Finds prefetched fragments for a hierarchy fragment, takes note of the ones that are proxies.
-     */
-    protected void findPrefetchedFragments(SimpleFragment hierFragment, List<RowId> bulkRowIds,
-            Set<Serializable> proxyIds) {
-        Serializable id = hierFragment.row.id;
-
-        // find type
-        String typeName = (String) hierFragment.get(Model.MAIN_PRIMARY_TYPE_KEY);
-        if (Model.PROXY_TYPE.equals(typeName)) {
-            if (proxyIds != null) {
-                proxyIds.add(id);
-            }
-            return;
-        }
-
-        // find table names
-        Set<String> tableNames = model.getTypePrefetchedFragments(typeName);
-        if (tableNames == null) {
-            return; // unknown (obsolete) type
-        }
-
-        // add row id for each table name
-        Serializable parentId = hierFragment.get(Model.HIER_PARENT_KEY);
-        for (String tableName : tableNames) {
-            if (Model.HIER_TABLE_NAME.equals(tableName)) {
-                continue; // already fetched
-            }
-            if (parentId != null && Model.VERSION_TABLE_NAME.equals(tableName)) {
-                continue; // not a version, don't fetch this table
-                // TODO incorrect if we have filed versions
-            }
-            bulkRowIds.add(new RowId(tableName, id));
-        }
-    }
-
     @Override
     public List<Node> getNodesByIds(List<Serializable> ids) {
         checkLive();
@@ -944,7 +923,7 @@ public class SessionImpl implements Session, XAResource {
             boolean complexProp) {
         requireReadAclsUpdate();
         // main info
-        Row hierRow = new Row(Model.HIER_TABLE_NAME, id);
+        Row hierRow = new Row(Model.HIER_TABLE_NAME, id, model.getRowLayout(Model.HIER_TABLE_NAME));
         hierRow.putNew(Model.HIER_PARENT_KEY, parentId);
         hierRow.putNew(Model.HIER_CHILD_NAME_KEY, name);
         hierRow.putNew(Model.HIER_CHILD_POS_KEY, pos);
@@ -1280,6 +1259,46 @@ public class SessionImpl implements Session, XAResource {
         }
     }
 
+    @Override
+    public ScrollResult scroll(String query, int batchSize, int keepAliveSeconds) {
+        checkLive();
+        repository.cleanupExpiredScrolls();
+        String scrollId = UUID.randomUUID().toString();
+        repository.scrolls.put(scrollId, new ScrollContext(query, batchSize, keepAliveSeconds));
+        return scroll(scrollId);
+    }
+
+    @Override
+    public ScrollResult scroll(String scrollId) {
+        checkLive();
+        ScrollContext scroll = repository.scrolls.get(scrollId);
+        if (scroll == null) {
+            throw new NuxeoException("Unknown or expired scroll id: " + scrollId);
+        }
+        // batches of a given scroll must be requested sequentially
+        synchronized (scroll) {
+            QueryFilter queryFilter = new QueryFilter(null, null, new String[0], null,
+                    Collections.singletonList(scroll.getTransformer()), scroll.batchSize, 0);
+            List<Serializable> ids = query(scroll.query, NXQL.NXQL, queryFilter, 0).list;
+            if (ids.isEmpty()) {
+                repository.scrolls.remove(scrollId);
+                return ScrollResult.emptyResult(scrollId);
+            }
+            scroll.lastId = ids.get(ids.size() - 1);
+            scroll.touch();
+            List<String> resultIds = new ArrayList<>(ids.size());
+            for (Serializable id : ids) {
+                resultIds.add(model.idToString(id));
+            }
+            return new ScrollResult(scrollId, resultIds);
+        }
+    }
+
+    @Override
+    public void closeScroll(String scrollId) {
+        repository.scrolls.remove(scrollId);
+    }
+
     @Override
     public LockManager getLockManager() {
         return repository.getLockManager();
@@ -1301,6 +1320,23 @@ public class SessionImpl implements Session, XAResource {
         }
     }
 
+    /**
+     * Computes a batch of the read acls marked for update, when they are updated asynchronously.
+     *
+     * @param max the maximum number of read acls to compute
+     * @return {@code true} if some read acls remain to compute
+     * @since 8.3
+     */
+    public boolean updateReadAcls(int max) {
+        checkLive();
+        final Timer.Context timerContext = aclrUpdateTimer.time();
+        try {
+            return mapper.updateReadAcls(max);
+        } finally {
+            timerContext.stop();
+        }
+    }
+
     @Override
     public void rebuildReadAcls() {
         mapper.rebuildReadAcls();
@@ -1450,6 +1486,8 @@ public class SessionImpl implements Session, XAResource {
 
     protected void commitDone() throws XAException {
         inTransaction = false;
+        // writes are now visible to the read replica after replication
+        mapper.setReadReplicaAllowed(true);
         try {
             try {
                 sendInvalidationsToOthers();
@@ -1472,6 +1510,7 @@ public class SessionImpl implements Session, XAResource {
             }
         } finally {
             inTransaction = false;
+            mapper.setReadReplicaAllowed(true);
             // no invalidations to send
             checkThreadEnd();
         }
@@ -55,7 +55,8 @@ public final class SimpleFragment extends Fragment {
     protected State refetch() {
         Row newrow = context.mapper.readSimpleRow(row);
         if (newrow == null) {
-            row.size = 0;
+            row.clear();
+            clearDirty();
             return State.ABSENT;
         } else {
             row = newrow;
@@ -66,7 +67,8 @@ public final class SimpleFragment extends Fragment {
 
     @Override
     protected State refetchDeleted() {
-        row.size = 0;
+        row.clear();
+        clearDirty();
         return State.ABSENT;
     }
 
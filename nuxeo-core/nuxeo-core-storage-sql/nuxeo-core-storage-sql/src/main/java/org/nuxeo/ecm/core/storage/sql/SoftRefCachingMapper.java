@@ -99,6 +99,11 @@ public class SoftRefCachingMapper extends SoftRefCachingRowMapper implements Cac
         return mapper.queryAndFetch(query, queryType, queryFilter, distinctDocuments, params);
     }
 
+    @Override
+    public void setReadReplicaAllowed(boolean allowed) {
+        mapper.setReadReplicaAllowed(allowed);
+    }
+
     @Override
     public Set<Serializable> getAncestorsIds(Collection<Serializable> ids) {
         return mapper.getAncestorsIds(ids);
@@ -109,6 +114,11 @@ public class SoftRefCachingMapper extends SoftRefCachingRowMapper implements Cac
         mapper.updateReadAcls();
     }
 
+    @Override
+    public boolean updateReadAcls(int max) {
+        return mapper.updateReadAcls(max);
+    }
+
     @Override
     public void rebuildReadAcls() {
         mapper.rebuildReadAcls();
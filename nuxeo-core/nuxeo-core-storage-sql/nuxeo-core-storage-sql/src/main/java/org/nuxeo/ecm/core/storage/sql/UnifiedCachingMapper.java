@@ -100,6 +100,11 @@ public class UnifiedCachingMapper extends UnifiedCachingRowMapper implements Cac
         return mapper.queryAndFetch(query, queryType, queryFilter, distinctDocuments, params);
     }
 
+    @Override
+    public void setReadReplicaAllowed(boolean allowed) {
+        mapper.setReadReplicaAllowed(allowed);
+    }
+
     @Override
     public Set<Serializable> getAncestorsIds(Collection<Serializable> ids) {
         return mapper.getAncestorsIds(ids);
@@ -110,6 +115,11 @@ public class UnifiedCachingMapper extends UnifiedCachingRowMapper implements Cac
         mapper.updateReadAcls();
     }
 
+    @Override
+    public boolean updateReadAcls(int max) {
+        return mapper.updateReadAcls(max);
+    }
+
     @Override
     public void rebuildReadAcls() {
         mapper.rebuildReadAcls();
@@ -24,11 +24,14 @@ import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.function.Consumer;
 
+import org.apache.commons.lang.StringUtils;
 import org.nuxeo.ecm.core.NXCore;
 import org.nuxeo.ecm.core.api.DocumentNotFoundException;
 import org.nuxeo.ecm.core.api.LifeCycleException;
@@ -51,11 +54,13 @@ import org.nuxeo.ecm.core.schema.types.ListType;
 import org.nuxeo.ecm.core.schema.types.Schema;
 import org.nuxeo.ecm.core.schema.types.Type;
 import org.nuxeo.ecm.core.storage.BaseDocument;
+import org.nuxeo.ecm.core.storage.State;
+import org.nuxeo.ecm.core.storage.StateAccessor;
 import org.nuxeo.ecm.core.storage.sql.Model;
 import org.nuxeo.ecm.core.storage.sql.Node;
 import org.nuxeo.runtime.api.Framework;
 
-public class SQLDocumentLive extends BaseDocument<Node>implements SQLDocument {
+public class SQLDocumentLive extends BaseDocument<StateAccessor>implements SQLDocument {
 
     protected final Node node;
 
@@ -71,6 +76,21 @@ public class SQLDocumentLive extends BaseDocument<Node>implements SQLDocument {
      */
     protected boolean readonly;
 
+    /**
+     * Values of the complex properties stored as JSON read during the current operation, as {@link State} or
+     * {@link List} of {@link State}.
+     *
+     * @since 8.3
+     */
+    protected final Map<String, Serializable> jsonValues = new LinkedHashMap<>();
+
+    /**
+     * The nodes holding the complex properties stored as JSON read during the current operation.
+     *
+     * @since 8.3
+     */
+    protected final Map<String, Node> jsonNodes = new HashMap<>();
+
     protected SQLDocumentLive(Node node, ComplexType type, SQLSession session, boolean readonly) {
         this.node = node;
         this.type = type;
@@ -169,46 +189,167 @@ public class SQLDocumentLive extends BaseDocument<Node>implements SQLDocument {
      */
     @Override
     public void readDocumentPart(DocumentPart dp) throws PropertyException {
-        readComplexProperty(getNode(), (ComplexProperty) dp);
+        clearJsonValues();
+        try {
+            readComplexProperty(getNode(), (ComplexProperty) dp);
+        } finally {
+            clearJsonValues();
+        }
     }
 
     @Override
     public Map<String, Serializable> readPrefetch(ComplexType complexType, Set<String> xpaths)
             throws PropertyException {
-        return readPrefetch(getNode(), complexType, xpaths);
+        clearJsonValues();
+        try {
+            return readPrefetch(getNode(), complexType, xpaths);
+        } finally {
+            clearJsonValues();
+        }
     }
 
     @Override
     public boolean writeDocumentPart(DocumentPart dp, WriteContext writeContext) throws PropertyException {
-        boolean changed = writeComplexProperty(getNode(), (ComplexProperty) dp, writeContext);
+        clearJsonValues();
+        boolean changed;
+        try {
+            changed = writeComplexProperty(getNode(), (ComplexProperty) dp, writeContext);
+            flushJsonValues();
+        } finally {
+            clearJsonValues();
+        }
         clearDirtyFlags(dp);
         return changed;
     }
 
+    /**
+     * Checks if a property of a node is a complex property stored as JSON.
+     */
+    protected boolean isJson(String name) {
+        return session.getModel().getJsonPropertyType(name) != null;
+    }
+
+    /**
+     * Gets the value of a complex property stored as JSON, reading it from its node if needed.
+     */
+    protected Serializable getJsonValue(Node node, String name) {
+        if (jsonValues.containsKey(name)) {
+            return jsonValues.get(name);
+        }
+        String json = (String) node.getSimpleProperty(name).getValue();
+        Serializable value = SQLJsonHelper.fromJson(json, session.getModel().getJsonPropertyType(name));
+        jsonValues.put(name, value);
+        jsonNodes.put(name, node);
+        return value;
+    }
+
+    protected void setJsonValue(Node node, String name, Serializable value) {
+        jsonValues.put(name, value);
+        jsonNodes.put(name, node);
+    }
+
+    /**
+     * Writes back to their nodes the complex properties stored as JSON that changed during the current operation.
+     */
+    protected void flushJsonValues() {
+        for (Entry<String, Serializable> en : jsonValues.entrySet()) {
+            String name = en.getKey();
+            Node node = jsonNodes.get(name);
+            String json = SQLJsonHelper.toJson(en.getValue());
+            String oldJson = (String) node.getSimpleProperty(name).getValue();
+            if (StringUtils.equals(json, oldJson)) {
+                continue;
+            }
+            if (json != null && oldJson != null) {
+                // the database may have normalized the stored text differently
+                Type type = session.getModel().getJsonPropertyType(name);
+                if (json.equals(SQLJsonHelper.toJson(SQLJsonHelper.fromJson(oldJson, type)))) {
+                    continue;
+                }
+            }
+            node.setSimpleProperty(name, json);
+        }
+    }
+
+    protected void clearJsonValues() {
+        jsonValues.clear();
+        jsonNodes.clear();
+    }
+
     @Override
-    protected Node getChild(Node node, String name, Type type) throws PropertyException {
+    protected StateAccessor getChild(StateAccessor state, String name, Type type) throws PropertyException {
+        if (state instanceof State) {
+            return (State) ((State) state).get(name);
+        }
+        Node node = (Node) state;
+        if (isJson(name)) {
+            return (State) getJsonValue(node, name);
+        }
         return session.getChildProperty(node, name, type.getName());
     }
 
     @Override
-    protected Node getChildForWrite(Node node, String name, Type type) throws PropertyException {
+    protected StateAccessor getChildForWrite(StateAccessor state, String name, Type type) throws PropertyException {
+        if (state instanceof State) {
+            State child = (State) ((State) state).get(name);
+            if (child == null) {
+                ((State) state).put(name, child = new State());
+            }
+            return child;
+        }
+        Node node = (Node) state;
+        if (isJson(name)) {
+            State child = (State) getJsonValue(node, name);
+            if (child == null) {
+                setJsonValue(node, name, child = new State());
+            }
+            return child;
+        }
         return session.getChildPropertyForWrite(node, name, type.getName());
     }
 
     @Override
-    protected List<Node> getChildAsList(Node node, String name) throws PropertyException {
-        return session.getComplexList(node, name);
+    @SuppressWarnings("unchecked")
+    protected List<StateAccessor> getChildAsList(StateAccessor state, String name) throws PropertyException {
+        List<? extends StateAccessor> list;
+        if (state instanceof State) {
+            list = (List<State>) ((State) state).get(name);
+        } else if (isJson(name)) {
+            list = (List<State>) getJsonValue((Node) state, name);
+        } else {
+            list = session.getComplexList((Node) state, name);
+        }
+        if (list == null) {
+            list = new ArrayList<>();
+        }
+        return (List<StateAccessor>) list;
     }
 
     @Override
-    protected void updateList(Node node, String name, List<Object> values, Field field) throws PropertyException {
-        List<Node> childNodes = getChildAsList(node, name);
+    protected void updateList(StateAccessor state, String name, List<Object> values, Field field)
+            throws PropertyException {
+        if (state instanceof State || isJson(name)) {
+            ArrayList<State> childStates = new ArrayList<>(values.size());
+            for (Object v : values) {
+                State childState = new State();
+                setValueComplex(childState, field, v);
+                childStates.add(childState);
+            }
+            if (state instanceof State) {
+                ((State) state).put(name, childStates);
+            } else {
+                setJsonValue((Node) state, name, childStates);
+            }
+            return;
+        }
+        Node node = (Node) state;
+        List<StateAccessor> childNodes = getChildAsList(node, name);
         int oldSize = childNodes.size();
         int newSize = values.size();
         // remove extra list elements
         if (oldSize > newSize) {
             for (int i = oldSize - 1; i >= newSize; i--) {
-                session.removeProperty(childNodes.remove(i));
+                session.removeProperty((Node) childNodes.remove(i));
             }
         }
         // add new list elements
@@ -222,21 +363,45 @@ public class SQLDocumentLive extends BaseDocument<Node>implements SQLDocument {
         // write values
         int i = 0;
         for (Object v : values) {
-            Node childNode = childNodes.get(i++);
+            StateAccessor childNode = childNodes.get(i++);
             setValueComplex(childNode, field, v);
         }
     }
 
     @Override
-    protected List<Node> updateList(Node node, String name, Property property) throws PropertyException {
+    protected List<StateAccessor> updateList(StateAccessor state, String name, Property property)
+            throws PropertyException {
         Collection<Property> properties = property.getChildren();
-        List<Node> childNodes = getChildAsList(node, name);
-        int oldSize = childNodes.size();
         int newSize = properties.size();
+        if (state instanceof State || isJson(name)) {
+            List<StateAccessor> childStates = getChildAsList(state, name);
+            int oldSize = childStates.size();
+            if (oldSize == 0) {
+                // new list, record it in its parent
+                childStates = new ArrayList<>(newSize);
+                if (state instanceof State) {
+                    ((State) state).put(name, (Serializable) childStates);
+                } else {
+                    setJsonValue((Node) state, name, (Serializable) childStates);
+                }
+            }
+            // remove extra list elements
+            for (int i = oldSize - 1; i >= newSize; i--) {
+                childStates.remove(i);
+            }
+            // add new list elements
+            for (int i = childStates.size(); i < newSize; i++) {
+                childStates.add(new State());
+            }
+            return childStates;
+        }
+        Node node = (Node) state;
+        List<StateAccessor> childNodes = getChildAsList(node, name);
+        int oldSize = childNodes.size();
         // remove extra list elements
         if (oldSize > newSize) {
             for (int i = oldSize - 1; i >= newSize; i--) {
-                session.removeProperty(childNodes.remove(i));
+                session.removeProperty((Node) childNodes.remove(i));
             }
         }
         // add new list elements
@@ -257,17 +422,34 @@ public class SQLDocumentLive extends BaseDocument<Node>implements SQLDocument {
 
     @Override
     public Object getValue(String xpath) throws PropertyException {
-        return getValueObject(getNode(), xpath);
+        clearJsonValues();
+        try {
+            return getValueObject(getNode(), xpath);
+        } finally {
+            clearJsonValues();
+        }
     }
 
     @Override
     public void setValue(String xpath, Object value) throws PropertyException {
-        setValueObject(getNode(), xpath, value);
+        clearJsonValues();
+        try {
+            setValueObject(getNode(), xpath, value);
+            flushJsonValues();
+        } finally {
+            clearJsonValues();
+        }
     }
 
     @Override
     public void visitBlobs(Consumer<BlobAccessor> blobVisitor) throws PropertyException {
-        visitBlobs(getNode(), blobVisitor, NO_DIRTY);
+        clearJsonValues();
+        try {
+            visitBlobs(getNode(), blobVisitor, NO_DIRTY);
+            flushJsonValues();
+        } finally {
+            clearJsonValues();
+        }
     }
 
     @Override
@@ -0,0 +1,218 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.sql.coremodel;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map.Entry;
+
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.model.DeltaLong;
+import org.nuxeo.ecm.core.schema.types.ComplexType;
+import org.nuxeo.ecm.core.schema.types.Field;
+import org.nuxeo.ecm.core.schema.types.ListType;
+import org.nuxeo.ecm.core.schema.types.Type;
+import org.nuxeo.ecm.core.storage.State;
+import org.nuxeo.ecm.core.storage.sql.PropertyType;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Converts the value of a complex property stored in a JSON column to and from its JSON representation.
+ * <p>
+ * The value of a complex property is a {@link State}, and the value of a complex list is a {@link List} of
+ * {@link State}, as for DBS. Dates are written in ISO 8601 format with the offset of the default time zone, so that
+ * their text can be cast to a timestamp by the database for queries.
+ *
+ * @since 8.3
+ */
+public class SQLJsonHelper {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private SQLJsonHelper() {
+        // utility class
+    }
+
+    /**
+     * Converts a complex property value to JSON.
+     *
+     * @param value the value, a {@link State} or a {@link List} of {@link State}
+     * @return the JSON, or {@code null} for an empty value
+     */
+    public static String toJson(Serializable value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof State && ((State) value).isEmpty()) {
+            return null;
+        }
+        if (value instanceof List && ((List<?>) value).isEmpty()) {
+            return null;
+        }
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            writeValue(generator, value);
+        } catch (IOException e) {
+            throw new NuxeoException(e);
+        }
+        return writer.toString();
+    }
+
+    protected static void writeValue(JsonGenerator generator, Object value) throws IOException {
+        if (value == null) {
+            generator.writeNull();
+        } else if (value instanceof State) {
+            generator.writeStartObject();
+            for (Entry<String, Serializable> en : ((State) value).entrySet()) {
+                if (en.getValue() == null) {
+                    continue;
+                }
+                generator.writeFieldName(en.getKey());
+                writeValue(generator, en.getValue());
+            }
+            generator.writeEndObject();
+        } else if (value instanceof List) {
+            generator.writeStartArray();
+            for (Object v : (List<?>) value) {
+                writeValue(generator, v);
+            }
+            generator.writeEndArray();
+        } else if (value instanceof Object[]) {
+            generator.writeStartArray();
+            for (Object v : (Object[]) value) {
+                writeValue(generator, v);
+            }
+            generator.writeEndArray();
+        } else if (value instanceof String) {
+            generator.writeString((String) value);
+        } else if (value instanceof Boolean) {
+            generator.writeBoolean(((Boolean) value).booleanValue());
+        } else if (value instanceof DeltaLong) {
+            generator.writeNumber(((DeltaLong) value).getFullValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            generator.writeNumber(((Number) value).doubleValue());
+        } else if (value instanceof Number) {
+            generator.writeNumber(((Number) value).longValue());
+        } else if (value instanceof Calendar) {
+            generator.writeString(formatDate((Calendar) value));
+        } else {
+            throw new NuxeoException("Unsupported value for JSON storage: " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Converts JSON to a complex property value.
+     *
+     * @param json the JSON
+     * @param type the complex type or complex list type of the property
+     * @return the value, a {@link State} or a {@link List} of {@link State}
+     */
+    public static Serializable fromJson(String json, Type type) {
+        if (json == null) {
+            return null;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            parser.nextToken();
+            return readValue(parser, type);
+        } catch (IOException e) {
+            throw new NuxeoException("Invalid JSON value: " + json, e);
+        }
+    }
+
+    protected static Serializable readValue(JsonParser parser, Type type) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (type.isComplexType()) {
+            checkToken(parser, JsonToken.START_OBJECT);
+            ComplexType complexType = (ComplexType) type;
+            State state = new State();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.getCurrentName();
+                parser.nextToken();
+                Field field = complexType.getField(name);
+                if (field == null) {
+                    // field removed from the schema
+                    parser.skipChildren();
+                    continue;
+                }
+                state.put(name, readValue(parser, field.getType()));
+            }
+            return state;
+        } else if (type.isListType()) {
+            checkToken(parser, JsonToken.START_ARRAY);
+            Type fieldType = ((ListType) type).getFieldType();
+            ArrayList<Serializable> list = new ArrayList<>();
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                list.add(readValue(parser, fieldType));
+            }
+            if (fieldType.isComplexType()) {
+                return list;
+            }
+            return PropertyType.fromFieldType(fieldType, false).collectionToArray(list);
+        } else {
+            return readScalar(parser, PropertyType.fromFieldType(type, false));
+        }
+    }
+
+    protected static Serializable readScalar(JsonParser parser, PropertyType propertyType) throws IOException {
+        switch (propertyType) {
+        case BOOLEAN:
+            return Boolean.valueOf(parser.getValueAsBoolean());
+        case LONG:
+            return Long.valueOf(parser.getValueAsLong());
+        case DOUBLE:
+            return Double.valueOf(parser.getValueAsDouble());
+        case DATETIME:
+            return parseDate(parser.getValueAsString());
+        default:
+            return parser.getValueAsString();
+        }
+    }
+
+    protected static void checkToken(JsonParser parser, JsonToken expected) throws IOException {
+        if (parser.getCurrentToken() != expected) {
+            throw new IOException("Expected " + expected + " but got " + parser.getCurrentToken() + " at "
+                    + parser.getCurrentLocation());
+        }
+    }
+
+    protected static String formatDate(Calendar cal) {
+        OffsetDateTime date = OffsetDateTime.ofInstant(cal.toInstant(), ZoneId.systemDefault());
+        return date.format(DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+    }
+
+    protected static Calendar parseDate(String string) {
+        return GregorianCalendar.from(OffsetDateTime.parse(string).toZonedDateTime());
+    }
+
+}
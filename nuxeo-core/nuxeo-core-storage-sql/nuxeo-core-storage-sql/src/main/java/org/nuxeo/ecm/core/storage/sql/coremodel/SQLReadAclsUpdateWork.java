@@ -0,0 +1,82 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.sql.coremodel;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.storage.sql.RepositoryManagement;
+import org.nuxeo.ecm.core.work.AbstractWork;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Work task that computes the read acls marked for update after ACL changes, when they are updated asynchronously.
+ * <p>
+ * The read acls are computed in batches of bounded size, each one committed separately. This is done single-threaded
+ * through the use of a {@link org.nuxeo.ecm.core.work.api.WorkManager WorkManager} queue with only one thread, and as
+ * the work has a fixed id per repository it's scheduled only once for many ACL changes.
+ *
+ * @since 8.3
+ */
+public class SQLReadAclsUpdateWork extends AbstractWork {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Log log = LogFactory.getLog(SQLReadAclsUpdateWork.class);
+
+    protected static final String CATEGORY = "readAclsUpdater";
+
+    protected static final String TITLE = "Read ACLs Updater";
+
+    public SQLReadAclsUpdateWork(String repositoryName) {
+        super(repositoryName + ":readAclsUpdater");
+        this.repositoryName = repositoryName;
+    }
+
+    @Override
+    public String getCategory() {
+        return CATEGORY;
+    }
+
+    @Override
+    public String getTitle() {
+        return TITLE;
+    }
+
+    @Override
+    public void work() {
+        SQLRepositoryService sqlRepositoryService = Framework.getService(SQLRepositoryService.class);
+        RepositoryManagement repository = sqlRepositoryService.getRepository(repositoryName);
+        int batchSize = sqlRepositoryService.getRepositoryDescriptor(repositoryName).getReadAclUpdateBatchSize();
+        setStatus("Updating");
+        int batches = 0;
+        boolean more;
+        do {
+            more = repository.updateReadAcls(batchSize);
+            batches++;
+            // each batch is committed separately
+            commitOrRollbackTransaction();
+            startTransaction();
+        } while (more);
+        if (log.isDebugEnabled()) {
+            log.debug("Read acls updated for repository: " + repositoryName + " in " + batches + " batches");
+        }
+        setStatus("Done");
+    }
+
+}
@@ -45,6 +45,7 @@ import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentNotFoundException;
 import org.nuxeo.ecm.core.api.IterableQueryResult;
 import org.nuxeo.ecm.core.api.PartialList;
+import org.nuxeo.ecm.core.api.ScrollResult;
 import org.nuxeo.ecm.core.api.VersionModel;
 import org.nuxeo.ecm.core.api.security.ACE;
 import org.nuxeo.ecm.core.api.security.ACL;
@@ -443,6 +444,21 @@ public class SQLSession implements Session {
         return session.queryAndFetch(query, queryType, queryFilter, distinctDocuments, params);
     }
 
+    @Override
+    public ScrollResult scroll(String query, int batchSize, int keepAliveSeconds) {
+        return session.scroll(query, batchSize, keepAliveSeconds);
+    }
+
+    @Override
+    public ScrollResult scroll(String scrollId) {
+        return session.scroll(scrollId);
+    }
+
+    @Override
+    public void closeScroll(String scrollId) {
+        session.closeScroll(scrollId);
+    }
+
     /*
      * ----- called by SQLDocument -----
      */
@@ -605,6 +621,13 @@ public class SQLSession implements Session {
         return nodes;
     }
 
+    /**
+     * @since 8.3
+     */
+    protected Model getModel() {
+        return session.getModel();
+    }
+
     protected void remove(Node node) {
         session.removeNode(node);
     }
@@ -76,6 +76,8 @@ public class JDBCBackend implements RepositoryBackend {
 
     private boolean isPooledDataSource;
 
+    private JDBCReadReplica readReplica;
+
     @Override
     public void initialize(RepositoryImpl repository) {
         this.repository = repository;
@@ -171,6 +173,7 @@ public class JDBCBackend implements RepositoryBackend {
         }
         modelSetup.materializeFulltextSyntheticColumn = dialect.getMaterializeFulltextSyntheticColumn();
         modelSetup.supportsArrayColumns = dialect.supportsArrayColumns();
+        modelSetup.supportsJsonColumns = dialect.supportsJsonColumns();
         switch (dialect.getIdType()) {
         case VARCHAR:
         case UUID:
@@ -187,11 +190,17 @@ public class JDBCBackend implements RepositoryBackend {
     /**
      * {@inheritDoc}
      * <p>
-     * Creates the {@link SQLInfo} from the model and the dialect.
+     * Creates the {@link SQLInfo} from the model and the dialect, and the read replica if one is configured.
      */
     @Override
     public void initializeModel(Model model) {
         sqlInfo = new SQLInfo(model, dialect);
+        RepositoryDescriptor repositoryDescriptor = repository.getRepositoryDescriptor();
+        String readReplicaDataSource = repositoryDescriptor.getReadReplicaDataSource();
+        if (readReplicaDataSource != null) {
+            readReplica = new JDBCReadReplica(readReplicaDataSource, repositoryDescriptor.getReadReplicaMaxLag(),
+                    dialect);
+        }
     }
 
     @Override
@@ -205,7 +214,8 @@ public class JDBCBackend implements RepositoryBackend {
         RepositoryDescriptor repositoryDescriptor = repository.getRepositoryDescriptor();
 
         ClusterInvalidator cnh = useInvalidations ? clusterInvalidator : null;
-        Mapper mapper = new JDBCMapper(model, pathResolver, sqlInfo, xadatasource, cnh, noSharing, repository);
+        Mapper mapper = new JDBCMapper(model, pathResolver, sqlInfo, xadatasource, cnh, noSharing, repository,
+                readReplica);
         if (isPooledDataSource) {
             mapper = JDBCMapperConnector.newConnector(mapper);
             if (noSharing) {
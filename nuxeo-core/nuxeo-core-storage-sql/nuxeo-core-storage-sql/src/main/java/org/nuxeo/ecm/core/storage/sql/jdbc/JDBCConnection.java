@@ -84,6 +84,9 @@ public class JDBCConnection {
     // for tests
     public int executeCount;
 
+    // for tests
+    public int readReplicaExecuteCount;
+
     // for debug
     private static final AtomicLong instanceCounter = new AtomicLong(0);
 
@@ -138,6 +141,17 @@ public class JDBCConnection {
         }
     }
 
+    /**
+     * Counts a statement executed on the read replica, in addition to {@link #countExecute}.
+     *
+     * @since 8.3
+     */
+    protected void countReadReplicaExecute() {
+        if (countExecutes) {
+            readReplicaExecuteCount++;
+        }
+    }
+
     protected void openConnections() {
         try {
             openBaseConnection();
@@ -119,6 +119,9 @@ public class JDBCMapper extends JDBCRowMapper implements Mapper {
 
     protected boolean clusteringEnabled;
 
+    /** The read-only replica to which queries are sent, or {@code null}. */
+    protected final JDBCReadReplica readReplica;
+
     /**
      * Creates a new Mapper.
      *
@@ -131,9 +134,22 @@ public class JDBCMapper extends JDBCRowMapper implements Mapper {
      */
     public JDBCMapper(Model model, PathResolver pathResolver, SQLInfo sqlInfo, XADataSource xadatasource,
             ClusterInvalidator clusterInvalidator, boolean noSharing, RepositoryImpl repository) {
+        this(model, pathResolver, sqlInfo, xadatasource, clusterInvalidator, noSharing, repository, null);
+    }
+
+    /**
+     * Creates a new Mapper sending its queries to a read-only replica when possible.
+     *
+     * @param readReplica the read-only replica, or {@code null}
+     * @since 8.3
+     */
+    public JDBCMapper(Model model, PathResolver pathResolver, SQLInfo sqlInfo, XADataSource xadatasource,
+            ClusterInvalidator clusterInvalidator, boolean noSharing, RepositoryImpl repository,
+            JDBCReadReplica readReplica) {
         super(model, sqlInfo, xadatasource, clusterInvalidator, repository.getInvalidationsPropagator(), noSharing);
         this.pathResolver = pathResolver;
         this.repository = repository;
+        this.readReplica = readReplica;
         clusteringEnabled = clusterInvalidator != null;
         queryMakerService = Framework.getService(QueryMakerService.class);
 
@@ -702,6 +718,32 @@ public class JDBCMapper extends JDBCRowMapper implements Mapper {
         return null;
     }
 
+    /**
+     * Finds the query maker and prepares the security checks for a query.
+     */
+    protected QueryMaker findQueryMaker(String queryType, QueryFilter queryFilter) {
+        return findQueryMaker(queryType, queryFilter, false);
+    }
+
+    /**
+     * Finds the query maker and prepares the security checks for a query executed on the primary or on the read
+     * replica.
+     *
+     * @since 8.3
+     */
+    protected QueryMaker findQueryMaker(String queryType, QueryFilter queryFilter, boolean onReadReplica) {
+        QueryMaker queryMaker = findQueryMaker(queryType);
+        if (queryMaker instanceof NXQLQueryMaker && queryFilter.getPrincipals() != null
+                && (onReadReplica || isReadAclsPending())) {
+            // conservative fallback while the read acls are being updated,
+            // or on the replica where the user read acls prepared on the primary may not be replicated yet
+            ((NXQLQueryMaker) queryMaker).setReadAclsUsable(false);
+        } else if (dialect.needsPrepareUserReadAcls()) {
+            prepareUserReadAcls(queryFilter);
+        }
+        return queryMaker;
+    }
+
     protected void prepareUserReadAcls(QueryFilter queryFilter) {
         String sql = dialect.getPrepareUserReadAclsSql();
         Serializable principals = queryFilter.getPrincipals();
@@ -739,10 +781,17 @@ public class JDBCMapper extends JDBCRowMapper implements Mapper {
 
     @Override
     public PartialList<Serializable> query(String query, String queryType, QueryFilter queryFilter, long countUpTo) {
-        if (dialect.needsPrepareUserReadAcls()) {
-            prepareUserReadAcls(queryFilter);
+        Connection replicaConnection = getReadReplicaConnection();
+        try {
+            return query(query, queryType, queryFilter, countUpTo, replicaConnection);
+        } finally {
+            closeReadReplicaConnection(replicaConnection);
         }
-        QueryMaker queryMaker = findQueryMaker(queryType);
+    }
+
+    protected PartialList<Serializable> query(String query, String queryType, QueryFilter queryFilter, long countUpTo,
+            Connection replicaConnection) {
+        QueryMaker queryMaker = findQueryMaker(queryType, queryFilter, replicaConnection != null);
         if (queryMaker == null) {
             throw new NuxeoException("No QueryMaker accepts query: " + queryType + ": " + query);
         }
@@ -757,6 +806,9 @@ public class JDBCMapper extends JDBCRowMapper implements Mapper {
 
         if (logger.isLogEnabled()) {
             String sql = q.selectInfo.sql;
+            if (replicaConnection != null) {
+                sql += " -- READ REPLICA";
+            }
             if (limit != 0) {
                 sql += " -- LIMIT " + limit + " OFFSET " + offset;
             }
@@ -781,13 +833,18 @@ public class JDBCMapper extends JDBCRowMapper implements Mapper {
         PreparedStatement ps = null;
         ResultSet rs = null;
         try {
-            ps = connection.prepareStatement(sql, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+            Connection queryConnection = replicaConnection == null ? connection : replicaConnection;
+            ps = queryConnection.prepareStatement(sql, ResultSet.TYPE_SCROLL_INSENSITIVE,
+                    ResultSet.CONCUR_READ_ONLY);
             int i = 1;
             for (Serializable object : q.selectParams) {
                 setToPreparedStatement(ps, i++, object);
             }
             rs = ps.executeQuery();
             countExecute();
+            if (replicaConnection != null) {
+                countReadReplicaExecute();
+            }
 
             // limit/offset
             long totalSize = -1;
@@ -880,7 +937,8 @@ public class JDBCMapper extends JDBCRowMapper implements Mapper {
             } else {
                 jdbcType = dialect.getJDBCTypeAndString(ColumnType.CLOB).jdbcType;
             }
-            Array array = dialect.createArrayOf(jdbcType, (Object[]) object, connection);
+            // the statement may be on the read replica
+            Array array = dialect.createArrayOf(jdbcType, (Object[]) object, ps.getConnection());
             ps.setArray(i, array);
         } else {
             ps.setObject(i, object);
@@ -892,23 +950,62 @@ public class JDBCMapper extends JDBCRowMapper implements Mapper {
     @Override
     public IterableQueryResult queryAndFetch(String query, String queryType, QueryFilter queryFilter,
             boolean distinctDocuments, Object... params) {
-        if (dialect.needsPrepareUserReadAcls()) {
-            prepareUserReadAcls(queryFilter);
+        Connection replicaConnection = getReadReplicaConnection();
+        boolean closeReplicaConnection = true;
+        try {
+            QueryMaker queryMaker = findQueryMaker(queryType, queryFilter, replicaConnection != null);
+            if (queryMaker == null) {
+                throw new NuxeoException("No QueryMaker accepts query: " + queryType + ": " + query);
+            }
+            if (distinctDocuments) {
+                String q = query.toLowerCase();
+                if (q.startsWith("select ") && !q.startsWith("select distinct ")) {
+                    query = "SELECT DISTINCT " + query.substring("SELECT ".length());
+                }
+            }
+            try {
+                ResultSetQueryResult result = new ResultSetQueryResult(queryMaker, query, queryFilter, pathResolver,
+                        this, replicaConnection, params);
+                // now closed with the result
+                closeReplicaConnection = false;
+                return result;
+            } catch (SQLException e) {
+                throw new NuxeoException("Invalid query: " + queryType + ": " + query, e);
+            }
+        } finally {
+            if (closeReplicaConnection) {
+                closeReadReplicaConnection(replicaConnection);
+            }
         }
-        QueryMaker queryMaker = findQueryMaker(queryType);
-        if (queryMaker == null) {
-            throw new NuxeoException("No QueryMaker accepts query: " + queryType + ": " + query);
+    }
+
+    @Override
+    public void setReadReplicaAllowed(boolean allowed) {
+        readReplicaAllowed = allowed;
+    }
+
+    /**
+     * Gets a connection to the read replica for a query, if one is configured and usable and if nothing was written in
+     * the current transaction.
+     *
+     * @return the replica connection, or {@code null} if the query must be sent to the primary
+     * @since 8.3
+     */
+    protected Connection getReadReplicaConnection() {
+        if (readReplica == null || !readReplicaAllowed) {
+            return null;
         }
-        if (distinctDocuments) {
-            String q = query.toLowerCase();
-            if (q.startsWith("select ") && !q.startsWith("select distinct ")) {
-                query = "SELECT DISTINCT " + query.substring("SELECT ".length());
-            }
+        return readReplica.getConnection();
+    }
+
+    protected void closeReadReplicaConnection(Connection replicaConnection) {
+        if (replicaConnection == null) {
+            return;
         }
         try {
-            return new ResultSetQueryResult(queryMaker, query, queryFilter, pathResolver, this, params);
+            replicaConnection.close();
         } catch (SQLException e) {
-            throw new NuxeoException("Invalid query: " + queryType + ": " + query, e);
+            log.error("Cannot close read replica connection", e);
         }
     }
 
@@ -1062,6 +1159,83 @@ public class JDBCMapper extends JDBCRowMapper implements Mapper {
         }
     }
 
+    @Override
+    public boolean updateReadAcls(int max) {
+        if (!dialect.supportsAsyncReadAcl()) {
+            return false;
+        }
+        String sql = dialect.getUpdateReadAclsBatchSql();
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            ps = connection.prepareStatement(sql);
+            if (logger.isLogEnabled()) {
+                logger.logSQL(sql, Collections.singleton(Integer.valueOf(max)));
+            }
+            ps.setInt(1, max);
+            rs = ps.executeQuery();
+            countExecute();
+            rs.next();
+            boolean more = rs.getBoolean(1);
+            if (logger.isLogEnabled()) {
+                logger.log("  -> " + (more ? "more" : "done"));
+            }
+            return more;
+        } catch (SQLException e) {
+            throw new NuxeoException("Failed to update read acls", e);
+        } finally {
+            try {
+                closeStatement(ps, rs);
+            } catch (SQLException e) {
+                log.error(e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Checks if some read acls are marked for update by an asynchronous update and cannot be used for security checks.
+     * <p>
+     * The state known by the repository is used if available, otherwise it's checked in the database.
+     *
+     * @since 8.3
+     */
+    protected boolean isReadAclsPending() {
+        if (!dialect.supportsAsyncReadAcl()) {
+            return false;
+        }
+        Boolean known = repository.getReadAclsPending();
+        if (known != null) {
+            return known.booleanValue();
+        }
+        long marks = repository.getReadAclsMarks();
+        String sql = dialect.getReadAclsPendingSql();
+        Statement st = null;
+        ResultSet rs = null;
+        try {
+            st = connection.createStatement();
+            if (logger.isLogEnabled()) {
+                logger.log(sql);
+            }
+            rs = st.executeQuery(sql);
+            countExecute();
+            rs.next();
+            boolean pending = rs.getBoolean(1);
+            if (logger.isLogEnabled()) {
+                logger.log("  -> " + pending);
+            }
+            repository.setReadAclsPendingChecked(pending, marks);
+            return pending;
+        } catch (SQLException e) {
+            throw new NuxeoException("Failed to check read acls", e);
+        } finally {
+            try {
+                closeStatement(st, rs);
+            } catch (SQLException e) {
+                log.error(e.getMessage(), e);
+            }
+        }
+    }
+
     @Override
     public void rebuildReadAcls() {
         if (!dialect.supportsReadAcl()) {
@@ -1192,7 +1366,7 @@ public class JDBCMapper extends JDBCRowMapper implements Mapper {
         public Lock call() {
             Lock oldLock = getLock(id);
             if (oldLock == null) {
-                Row row = new Row(Model.LOCK_TABLE_NAME, id);
+                Row row = new Row(Model.LOCK_TABLE_NAME, id, model.getRowLayout(Model.LOCK_TABLE_NAME));
                 row.put(Model.LOCK_OWNER_KEY, lock.getOwner());
                 row.put(Model.LOCK_CREATED_KEY, lock.getCreated());
                 insertSimpleRows(Model.LOCK_TABLE_NAME, Collections.singletonList(row));
@@ -77,6 +77,9 @@ public class JDBCMapperConnector implements InvocationHandler {
         if ("receiveInvalidations".equals(name)) {
             return doInvoke(method, args);
         }
+        if ("setReadReplicaAllowed".equals(name)) {
+            return doInvoke(method, args);
+        }
         if ("sendInvalidations".equals(name)) {
             return doInvoke(method, args);
         }
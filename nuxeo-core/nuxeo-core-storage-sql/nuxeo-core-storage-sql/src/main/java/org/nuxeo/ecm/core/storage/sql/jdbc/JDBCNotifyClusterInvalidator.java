@@ -0,0 +1,344 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.storage.sql.ClusterInvalidator;
+import org.nuxeo.ecm.core.storage.sql.Invalidations;
+import org.nuxeo.ecm.core.storage.sql.RepositoryDescriptor;
+import org.nuxeo.ecm.core.storage.sql.RepositoryImpl;
+import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.Dialect;
+import org.nuxeo.runtime.datasource.ConnectionHelper;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Histogram;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
+/**
+ * Implementation of {@link ClusterInvalidator} that pushes invalidations to the other cluster nodes using database
+ * notifications (PostgreSQL {@code LISTEN/NOTIFY}), instead of polling the {@code cluster_invals} table.
+ * <p>
+ * Two dedicated connections are used, one listening to the repository channel from a background thread, and one to
+ * send notifications. Invalidations sent while a node is not listening are lost, so everything is invalidated when the
+ * listening connection has to be reopened. If sending fails, the sending connection is reopened and the send retried
+ * once.
+ * <p>
+ * The invalidation lag (time between sending and receiving) and the number of invalidations sent per batch are
+ * published as histograms {@code nuxeo.repositories.<name>.invalidations.lag} and
+ * {@code nuxeo.repositories.<name>.invalidations.size}.
+ *
+ * @since 8.3
+ */
+public class JDBCNotifyClusterInvalidator implements ClusterInvalidator {
+
+    private static final Log log = LogFactory.getLog(JDBCNotifyClusterInvalidator.class);
+
+    protected static final String CHANNEL_PREFIX = "nxinval_";
+
+    /** Maximum time to wait for notifications before checking if the listener must stop. */
+    protected static final int LISTEN_TIMEOUT_MILLIS = 100;
+
+    /** Delay before reopening the listening connection after an error. */
+    protected static final long RECONNECT_DELAY_MILLIS = 1000;
+
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    protected String nodeId;
+
+    protected String repositoryName;
+
+    protected RepositoryDescriptor repositoryDescriptor;
+
+    protected String dataSourceName;
+
+    protected String channel;
+
+    protected Dialect dialect;
+
+    protected int maxPayloadSize;
+
+    protected volatile Connection listenConnection;
+
+    /** Used synchronized on {@link #notifyLock}, {@code null} if it must be reopened. */
+    protected Connection notifyConnection;
+
+    protected final Object notifyLock = new Object();
+
+    protected Invalidations receivedInvals;
+
+    protected Thread listenerThread;
+
+    protected volatile boolean closed;
+
+    protected Histogram lagHistogram;
+
+    protected Histogram sizeHistogram;
+
+    @Override
+    public void initialize(String nodeId, RepositoryImpl repository) {
+        this.nodeId = nodeId;
+        repositoryName = repository.getName();
+        repositoryDescriptor = repository.getRepositoryDescriptor();
+        dataSourceName = ConnectionHelper.getPseudoDataSourceNameForRepository(repositoryName);
+        channel = CHANNEL_PREFIX + repositoryName;
+        receivedInvals = new Invalidations();
+        lagHistogram = registry.histogram(
+                MetricRegistry.name("nuxeo", "repositories", repositoryName, "invalidations", "lag"));
+        sizeHistogram = registry.histogram(
+                MetricRegistry.name("nuxeo", "repositories", repositoryName, "invalidations", "size"));
+        boolean ok = false;
+        try {
+            notifyConnection = openNotifyConnection();
+            dialect = Dialect.createDialect(notifyConnection, repositoryDescriptor);
+            if (!dialect.isClusteringNotifySupported()) {
+                throw new NuxeoException("Database notifications are not supported for repository: "
+                        + repositoryName + ", cannot use " + getClass().getSimpleName());
+            }
+            maxPayloadSize = dialect.getClusterNotifyMaxPayloadSize();
+            listenConnection = openListenConnection();
+            ok = true;
+        } catch (SQLException e) {
+            throw new NuxeoException("Cannot initialize cluster invalidations for repository: " + repositoryName, e);
+        } finally {
+            if (!ok) {
+                closeConnection(notifyConnection);
+                notifyConnection = null;
+            }
+        }
+        createListenerThread();
+        log.info("Clustering enabled for repository: " + repositoryName + " using database notifications"
+                + " and cluster node id: " + nodeId);
+    }
+
+    protected Connection openConnection() throws SQLException {
+        Connection connection = ConnectionHelper.getConnection(dataSourceName, true);
+        if (connection == null) {
+            throw new NuxeoException("No datasource for repository: " + repositoryName);
+        }
+        return connection;
+    }
+
+    protected Connection openNotifyConnection() throws SQLException {
+        Connection connection = openConnection();
+        try {
+            // notifications are sent in a transaction
+            connection.setAutoCommit(false);
+        } catch (SQLException e) {
+            closeConnection(connection);
+            throw e;
+        }
+        return connection;
+    }
+
+    protected Connection openListenConnection() throws SQLException {
+        Connection connection = openConnection();
+        try {
+            connection.setAutoCommit(true);
+            try (Statement st = connection.createStatement()) {
+                st.execute(dialect.getClusterListenSql(channel));
+            }
+        } catch (SQLException | RuntimeException e) {
+            closeConnection(connection);
+            throw e;
+        }
+        return connection;
+    }
+
+    protected void createListenerThread() {
+        String name = "JDBCNotifyClusterInvalidatorListener:" + repositoryName + ":" + nodeId;
+        listenerThread = new Thread(this::listen, name);
+        listenerThread.setDaemon(true);
+        listenerThread.setUncaughtExceptionHandler((t, e) -> log.error("Uncaught error on thread " + t.getName(), e));
+        listenerThread.start();
+    }
+
+    protected void listen() {
+        Connection connection = null;
+        while (!closed) {
+            try {
+                if (listenConnection == null) {
+                    listenConnection = openListenConnection();
+                }
+                if (connection == null) {
+                    // the notifications API is only available on the physical connection
+                    connection = ConnectionHelper.unwrap(listenConnection);
+                }
+                List<String> payloads = dialect.getClusterNotifications(connection, LISTEN_TIMEOUT_MILLIS);
+                for (String payload : payloads) {
+                    receive(payload);
+                }
+            } catch (SQLException e) {
+                if (closed) {
+                    break;
+                }
+                log.error("Cannot receive cluster invalidations for repository: " + repositoryName
+                        + ", reconnecting", e);
+                closeConnection(listenConnection);
+                listenConnection = null;
+                connection = null;
+                // notifications may have been missed
+                addReceived(new Invalidations(true));
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+    }
+
+    protected void receive(String payload) {
+        JDBCNotifyInvalidations notified;
+        try {
+            notified = new JDBCNotifyInvalidations(payload);
+        } catch (IllegalArgumentException e) {
+            log.error("Cannot read cluster invalidations, invalidating all: " + payload, e);
+            addReceived(new Invalidations(true));
+            return;
+        }
+        if (nodeId.equals(notified.nodeId)) {
+            // sent by us
+            return;
+        }
+        if (log.isTraceEnabled()) {
+            log.trace("Received invalidations: " + notified);
+        }
+        lagHistogram.update(Math.max(0, System.currentTimeMillis() - notified.timestamp));
+        addReceived(notified.invalidations);
+    }
+
+    protected synchronized void addReceived(Invalidations invalidations) {
+        receivedInvals.add(invalidations);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+            try {
+                listenerThread.join(LISTEN_TIMEOUT_MILLIS * 10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            listenerThread = null;
+        }
+        closeConnection(listenConnection);
+        listenConnection = null;
+        synchronized (notifyLock) {
+            closeConnection(notifyConnection);
+            notifyConnection = null;
+        }
+        receivedInvals.clear();
+    }
+
+    protected void closeConnection(Connection connection) {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            log.error(e, e);
+        }
+    }
+
+    @Override
+    public Invalidations receiveInvalidations() {
+        Invalidations newInvals = new Invalidations();
+        Invalidations ret;
+        synchronized (this) {
+            ret = receivedInvals;
+            receivedInvals = newInvals;
+        }
+        return ret;
+    }
+
+    @Override
+    public void sendInvalidations(Invalidations invalidations) {
+        if (invalidations == null || invalidations.isEmpty()) {
+            return;
+        }
+        List<String> payloads = JDBCNotifyInvalidations.serialize(nodeId, invalidations, maxPayloadSize);
+        sizeHistogram.update(invalidations.all ? 0
+                : (invalidations.modified == null ? 0 : invalidations.modified.size())
+                        + (invalidations.deleted == null ? 0 : invalidations.deleted.size()));
+        if (log.isTraceEnabled()) {
+            log.trace("Sending invalidations in " + payloads.size() + " notifications: " + invalidations);
+        }
+        synchronized (notifyLock) {
+            if (closed) {
+                return;
+            }
+            try {
+                sendNotifications(payloads);
+            } catch (SQLException e) {
+                log.warn("Cannot send cluster invalidations for repository: " + repositoryName + ", reconnecting", e);
+                try {
+                    sendNotifications(payloads);
+                } catch (SQLException e2) {
+                    e2.addSuppressed(e);
+                    throw new NuxeoException("Cannot send cluster invalidations for repository: " + repositoryName,
+                            e2);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sends the notifications in one transaction, reopening the connection if a previous send failed. On failure, the
+     * connection is closed to be reopened on next send.
+     */
+    protected void sendNotifications(List<String> payloads) throws SQLException {
+        if (notifyConnection == null) {
+            notifyConnection = openNotifyConnection();
+        }
+        try {
+            try (PreparedStatement ps = notifyConnection.prepareStatement(dialect.getClusterNotifySql())) {
+                for (String payload : payloads) {
+                    ps.setString(1, channel);
+                    ps.setString(2, payload);
+                    ps.execute();
+                }
+            }
+            // notifications of a transaction are delivered together on commit
+            notifyConnection.commit();
+        } catch (SQLException e) {
+            try {
+                notifyConnection.rollback();
+            } catch (SQLException e2) {
+                e.addSuppressed(e2);
+            }
+            closeConnection(notifyConnection);
+            notifyConnection = null;
+            throw e;
+        }
+    }
+
+}
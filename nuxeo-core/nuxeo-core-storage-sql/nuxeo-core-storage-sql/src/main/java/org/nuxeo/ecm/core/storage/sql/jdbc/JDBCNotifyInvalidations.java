@@ -0,0 +1,224 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.nuxeo.ecm.core.storage.sql.Invalidations;
+import org.nuxeo.ecm.core.storage.sql.RowId;
+
+/**
+ * Invalidations sent by a cluster node as database notifications.
+ * <p>
+ * The invalidations are encoded in a compact binary form (table names are written once per payload), then in Base64
+ * as notification payloads are text. When they don't fit in the maximum payload size they are split into several
+ * payloads, each of them being self-contained.
+ *
+ * @since 8.3
+ */
+public class JDBCNotifyInvalidations {
+
+    protected static final byte VERSION = 1;
+
+    protected static final byte ID_STRING = 'S';
+
+    protected static final byte ID_LONG = 'L';
+
+    /** The node that sent the invalidations. */
+    public final String nodeId;
+
+    /** The time at which the invalidations were sent. */
+    public final long timestamp;
+
+    public final Invalidations invalidations;
+
+    /**
+     * Decodes a payload.
+     *
+     * @throws IllegalArgumentException if the payload cannot be decoded
+     */
+    public JDBCNotifyInvalidations(String payload) {
+        invalidations = new Invalidations();
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(payload)))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unknown invalidations version: " + version);
+            }
+            nodeId = in.readUTF();
+            timestamp = in.readLong();
+            if (in.readBoolean()) {
+                invalidations.all = true;
+                return;
+            }
+            List<String> tableNames = new ArrayList<>();
+            for (;;) {
+                int kind;
+                try {
+                    kind = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                int tableIndex = in.readShort();
+                String tableName;
+                if (tableIndex < 0) {
+                    tableName = in.readUTF();
+                    tableNames.add(tableName);
+                } else {
+                    tableName = tableNames.get(tableIndex);
+                }
+                Serializable id;
+                byte idType = in.readByte();
+                if (idType == ID_STRING) {
+                    id = in.readUTF();
+                } else if (idType == ID_LONG) {
+                    id = Long.valueOf(in.readLong());
+                } else {
+                    throw new IllegalArgumentException("Unknown id type: " + idType);
+                }
+                RowId rowId = new RowId(tableName, id);
+                if (kind == Invalidations.MODIFIED) {
+                    invalidations.addModified(rowId);
+                } else if (kind == Invalidations.DELETED) {
+                    invalidations.addDeleted(rowId);
+                } else {
+                    throw new IllegalArgumentException("Unknown invalidation kind: " + kind);
+                }
+            }
+        } catch (IOException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid invalidations payload", e);
+        }
+    }
+
+    /**
+     * Encodes invalidations as one or more payloads.
+     *
+     * @param nodeId the sending node id
+     * @param invalidations the invalidations
+     * @param maxPayloadSize the maximum size of a payload
+     * @return the payloads
+     */
+    public static List<String> serialize(String nodeId, Invalidations invalidations, int maxPayloadSize) {
+        long timestamp = System.currentTimeMillis();
+        // Base64 encodes 3 bytes as 4 characters
+        int maxSize = maxPayloadSize / 4 * 3;
+        List<String> payloads = new ArrayList<>(1);
+        Chunk chunk = new Chunk(nodeId, timestamp, invalidations.all);
+        if (!invalidations.all) {
+            for (int kind : new int[] { Invalidations.MODIFIED, Invalidations.DELETED }) {
+                Set<RowId> rowIds = kind == Invalidations.MODIFIED ? invalidations.modified : invalidations.deleted;
+                if (rowIds == null) {
+                    continue;
+                }
+                for (RowId rowId : rowIds) {
+                    if (!chunk.isEmpty() && chunk.size() + maxEntrySize(rowId) > maxSize) {
+                        payloads.add(chunk.toPayload());
+                        chunk = new Chunk(nodeId, timestamp, false);
+                    }
+                    chunk.write(kind, rowId);
+                }
+            }
+        }
+        payloads.add(chunk.toPayload());
+        return payloads;
+    }
+
+    /** Upper bound of the size of an entry, counting a new table name and 3 bytes per UTF-8 char. */
+    protected static int maxEntrySize(RowId rowId) {
+        int idSize = rowId.id instanceof Long ? 8 : 2 + 3 * rowId.id.toString().length();
+        return 1 + 2 + 2 + 3 * rowId.tableName.length() + 1 + idSize;
+    }
+
+    /** A self-contained payload being written. */
+    protected static class Chunk {
+
+        protected final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        protected final DataOutputStream out = new DataOutputStream(bytes);
+
+        protected final Map<String, Short> tableIndexes = new HashMap<>();
+
+        protected final int headerSize;
+
+        protected Chunk(String nodeId, long timestamp, boolean all) {
+            try {
+                out.writeByte(VERSION);
+                out.writeUTF(nodeId);
+                out.writeLong(timestamp);
+                out.writeBoolean(all);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // cannot happen in memory
+            }
+            headerSize = out.size();
+        }
+
+        protected boolean isEmpty() {
+            return out.size() == headerSize;
+        }
+
+        protected int size() {
+            return out.size();
+        }
+
+        protected void write(int kind, RowId rowId) {
+            try {
+                out.writeByte(kind);
+                Short tableIndex = tableIndexes.get(rowId.tableName);
+                if (tableIndex == null) {
+                    tableIndexes.put(rowId.tableName, Short.valueOf((short) tableIndexes.size()));
+                    out.writeShort(-1);
+                    out.writeUTF(rowId.tableName);
+                } else {
+                    out.writeShort(tableIndex.shortValue());
+                }
+                if (rowId.id instanceof Long) {
+                    out.writeByte(ID_LONG);
+                    out.writeLong(((Long) rowId.id).longValue());
+                } else {
+                    out.writeByte(ID_STRING);
+                    out.writeUTF(rowId.id.toString());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // cannot happen in memory
+            }
+        }
+
+        protected String toPayload() {
+            return Base64.getEncoder().encodeToString(bytes.toByteArray());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" + nodeId + ", " + timestamp + ", " + invalidations + ")";
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.naming.NamingException;
+import javax.sql.DataSource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.common.utils.JDBCUtils;
+import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.Dialect;
+import org.nuxeo.runtime.datasource.DataSourceHelper;
+
+/**
+ * Provides connections to a read-only replica of the repository database, to which queries can be sent instead of the
+ * primary datasource.
+ * <p>
+ * The replication lag of the replica is checked at most once per second, and while it is above the configured maximum
+ * (or the replica cannot be reached) no connection is returned, so that callers fall back to the primary.
+ *
+ * @since 8.3
+ */
+public class JDBCReadReplica {
+
+    private static final Log log = LogFactory.getLog(JDBCReadReplica.class);
+
+    /** Minimum delay between two checks of the replication lag, in milliseconds. */
+    protected static final long LAG_CHECK_DELAY = 1000;
+
+    protected final String dataSourceName;
+
+    /** Maximum acceptable replication lag, in seconds. */
+    protected final int maxLag;
+
+    protected final Dialect dialect;
+
+    protected final AtomicLong lastLagCheck = new AtomicLong();
+
+    /** Whether the replica is usable, or {@code null} if not yet checked. */
+    protected volatile Boolean available;
+
+    public JDBCReadReplica(String dataSourceName, int maxLag, Dialect dialect) {
+        this.dataSourceName = dataSourceName;
+        this.maxLag = maxLag;
+        this.dialect = dialect;
+    }
+
+    /**
+     * Gets a new connection to the replica. The connection <strong>MUST</strong> be closed by the caller when done.
+     *
+     * @return the connection, or {@code null} if the primary must be used instead
+     */
+    public Connection getConnection() {
+        if (!isAvailable()) {
+            return null;
+        }
+        try {
+            return openConnection();
+        } catch (SQLException | NamingException e) {
+            setAvailable(false, "cannot connect: " + e.getMessage());
+            return null;
+        }
+    }
+
+    protected Connection openConnection() throws SQLException, NamingException {
+        DataSource dataSource = DataSourceHelper.getDataSource(dataSourceName);
+        return JDBCUtils.getConnection(dataSource);
+    }
+
+    /**
+     * Checks if the replica can be used, re-checking its replication lag if the last check is too old. Only one thread
+     * does the check, the others use the result of the previous one meanwhile.
+     */
+    protected boolean isAvailable() {
+        long now = System.currentTimeMillis();
+        long last = lastLagCheck.get();
+        if (now - last < LAG_CHECK_DELAY || !lastLagCheck.compareAndSet(last, now)) {
+            return Boolean.TRUE.equals(available);
+        }
+        String sql = dialect.getReplicaLagSql();
+        if (sql == null) {
+            setAvailable(true, null);
+            return true;
+        }
+        try (Connection connection = openConnection(); //
+                Statement st = connection.createStatement(); //
+                ResultSet rs = st.executeQuery(sql)) {
+            double lag = rs.next() ? rs.getDouble(1) : 0;
+            if (lag <= maxLag) {
+                setAvailable(true, null);
+            } else {
+                setAvailable(false, String.format("replication lag %.1fs is above maximum %ds", lag, maxLag));
+            }
+        } catch (SQLException | NamingException e) {
+            setAvailable(false, "cannot check replication lag: " + e.getMessage());
+        }
+        return Boolean.TRUE.equals(available);
+    }
+
+    protected void setAvailable(boolean available, String reason) {
+        if (!Boolean.valueOf(available).equals(this.available)) {
+            if (available) {
+                log.info("Using read replica datasource: " + dataSourceName);
+            } else {
+                log.warn("Not using read replica datasource: " + dataSourceName + ", " + reason
+                        + ", falling back to primary");
+            }
+        }
+        if (!available) {
+            // wait before retrying
+            lastLagCheck.set(System.currentTimeMillis());
+        }
+        this.available = Boolean.valueOf(available);
+    }
+
+}
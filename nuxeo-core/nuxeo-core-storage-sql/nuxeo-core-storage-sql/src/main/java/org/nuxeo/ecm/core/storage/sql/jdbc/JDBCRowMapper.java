@@ -58,8 +58,10 @@ import org.nuxeo.ecm.core.storage.sql.InvalidationsQueue;
 import org.nuxeo.ecm.core.storage.sql.Mapper;
 import org.nuxeo.ecm.core.storage.sql.Model;
 import org.nuxeo.ecm.core.storage.sql.PropertyType;
+import org.nuxeo.ecm.core.storage.sql.RepositoryDescriptor;
 import org.nuxeo.ecm.core.storage.sql.Row;
 import org.nuxeo.ecm.core.storage.sql.RowId;
+import org.nuxeo.ecm.core.storage.sql.RowLayout;
 import org.nuxeo.ecm.core.storage.sql.RowMapper;
 import org.nuxeo.ecm.core.storage.sql.SelectionType;
 import org.nuxeo.ecm.core.storage.sql.SimpleFragment;
@@ -76,7 +78,7 @@ import org.nuxeo.runtime.services.config.ConfigurationService;
  */
 public class JDBCRowMapper extends JDBCConnection implements RowMapper {
 
-    public static final int UPDATE_BATCH_SIZE = 100; // also insert/delete
+    public static final int UPDATE_BATCH_SIZE = 100; // collections insert/delete
 
     public static final int DEBUG_MAX_TREE = 50;
 
@@ -97,6 +99,19 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
 
     private final CollectionIO scalarCollectionIO;
 
+    /** Maximum number of rows written in one batch or multi-row statement. */
+    protected final int writeBatchSize;
+
+    protected final boolean multiRowInsert;
+
+    protected final boolean multiRowUpdate;
+
+    /**
+     * Whether queries may be sent to the read replica. Reset when this mapper writes, so that queries see the writes
+     * of the current transaction.
+     */
+    protected boolean readReplicaAllowed = true;
+
     public JDBCRowMapper(Model model, SQLInfo sqlInfo, XADataSource xadatasource, ClusterInvalidator clusterInvalidator,
             InvalidationsPropagator invalidationsPropagator, boolean noSharing) {
         super(model, sqlInfo, xadatasource, noSharing);
@@ -106,6 +121,11 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
         collectionDeleteBeforeAppend = configurationService.isBooleanPropertyTrue(COLLECTION_DELETE_BEFORE_APPEND_PROP);
         aclCollectionIO = new ACLCollectionIO(collectionDeleteBeforeAppend);
         scalarCollectionIO = new ScalarCollectionIO(collectionDeleteBeforeAppend);
+        RepositoryDescriptor repositoryDescriptor = model.getRepositoryDescriptor();
+        writeBatchSize = Math.max(1, repositoryDescriptor.getWriteBatchSize());
+        boolean multiRowEnabled = repositoryDescriptor.getWriteBatchMultiRowEnabled();
+        multiRowInsert = multiRowEnabled && dialect.supportsMultiRowInsert();
+        multiRowUpdate = multiRowEnabled && dialect.supportsMultiRowUpdate();
     }
 
     @Override
@@ -342,7 +362,7 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
             // check it's a by-id query
             if (select.whereColumns.size() == 1 && select.whereColumns.get(0).getKey() == model.MAIN_KEY
                     && joinMap == null) {
-                Row row = new Row(tableName, criteriaMap);
+                Row row = new Row(tableName, criteriaMap, model.getRowLayout(tableName));
                 if (select.opaqueColumns != null) {
                     for (Column column : select.opaqueColumns) {
                         row.putNew(column.getKey(), Row.OPAQUE);
@@ -411,11 +431,15 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
             /*
              * Construct the maps from the result set.
              */
+            RowLayout layout = model.getRowLayout(tableName);
+            int[] slots = getSlots(layout, select.whatColumns);
             while (rs.next()) {
-                Row row = new Row(tableName, criteriaMap);
+                Row row = new Row(tableName, criteriaMap, layout);
                 i = 1;
                 for (Column column : select.whatColumns) {
-                    row.put(column.getKey(), column.getFromResultSet(rs, i++));
+                    // fill the slots positionally
+                    row.put(slots[i - 1], column.getKey(), column.getFromResultSet(rs, i));
+                    i++;
                 }
                 if (select.opaqueColumns != null) {
                     for (Column column : select.opaqueColumns) {
@@ -448,6 +472,7 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
 
     @Override
     public void write(RowBatch batch) {
+        readReplicaAllowed = false;
         if (!batch.creates.isEmpty()) {
             writeCreates(batch.creates);
         }
@@ -525,6 +550,23 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
         }
     }
 
+    /**
+     * Gets the slots of columns in a row layout.
+     *
+     * @param layout the layout, or {@code null}
+     * @param columns the columns
+     * @return the slots, {@code -1} for columns not in the layout
+     * @since 8.3
+     */
+    protected static int[] getSlots(RowLayout layout, List<Column> columns) {
+        int[] slots = new int[columns.size()];
+        int i = 0;
+        for (Column column : columns) {
+            slots[i++] = layout == null ? -1 : layout.getSlot(column.getKey());
+        }
+        return slots;
+    }
+
     /**
      * Inserts multiple rows, all for the same table.
      */
@@ -536,9 +578,16 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
         if (sql == null) {
             throw new NuxeoException("Unknown table: " + tableName);
         }
-        String loggedSql = supportsBatchUpdates && rows.size() > 1 ? sql + " -- BATCHED" : sql;
         List<Column> columns = sqlInfo.getInsertColumns(tableName);
+        RowLayout layout = model.getRowLayout(tableName);
+        int[] slots = getSlots(layout, columns);
+        int rowsPerStatement = getRowsPerStatement(columns.size());
         try {
+            if (multiRowInsert && rows.size() > 1 && rowsPerStatement > 1) {
+                insertSimpleRowsMultiRow(tableName, rows, columns, layout, slots, rowsPerStatement);
+                return;
+            }
+            String loggedSql = supportsBatchUpdates && rows.size() > 1 ? sql + " -- BATCHED" : sql;
             PreparedStatement ps = connection.prepareStatement(sql);
             try {
                 int batch = 0;
@@ -547,13 +596,10 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
                     if (logger.isLogEnabled()) {
                         logger.logSQL(loggedSql, columns, row);
                     }
-                    int i = 1;
-                    for (Column column : columns) {
-                        column.setToPreparedStatement(ps, i++, row.get(column.getKey()));
-                    }
+                    setInsertValues(ps, 1, columns, layout, slots, row);
                     if (supportsBatchUpdates) {
                         ps.addBatch();
-                        if (batch % UPDATE_BATCH_SIZE == 0) {
+                        if (batch % writeBatchSize == 0) {
                             ps.executeBatch();
                             countExecute();
                         }
@@ -582,6 +628,68 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
         }
     }
 
+    /**
+     * Inserts multiple rows, all for the same table, using multi-row {@code INSERT} statements.
+     *
+     * @since 8.3
+     */
+    protected void insertSimpleRowsMultiRow(String tableName, List<Row> rows, List<Column> columns, RowLayout layout,
+            int[] slots, int rowsPerStatement) throws SQLException {
+        String loggedSql = sqlInfo.getInsertSql(tableName) + " -- MULTI-ROW";
+        List<Row> list = new ArrayList<Row>(rows);
+        int size = list.size();
+        PreparedStatement ps = null;
+        int psRows = 0;
+        try {
+            for (int start = 0; start < size; start += rowsPerStatement) {
+                int n = Math.min(rowsPerStatement, size - start);
+                if (n != psRows) {
+                    // first statement, or last smaller chunk
+                    closeStatement(ps);
+                    ps = connection.prepareStatement(sqlInfo.getMultiRowInsertSql(tableName, n));
+                    psRows = n;
+                }
+                int i = 1;
+                for (Row row : list.subList(start, start + n)) {
+                    if (logger.isLogEnabled()) {
+                        logger.logSQL(loggedSql, columns, row);
+                    }
+                    i = setInsertValues(ps, i, columns, layout, slots, row);
+                }
+                ps.execute();
+                countExecute();
+            }
+        } finally {
+            closeStatement(ps);
+        }
+    }
+
+    /**
+     * Sets the values of a row to insert in a prepared statement.
+     *
+     * @return the index of the next parameter
+     */
+    protected int setInsertValues(PreparedStatement ps, int i, List<Column> columns, RowLayout layout, int[] slots,
+            Row row) throws SQLException {
+        boolean useSlots = layout != null && row.getLayout() == layout;
+        int c = 0;
+        for (Column column : columns) {
+            String key = column.getKey();
+            Serializable value = useSlots ? row.get(slots[c], key) : row.get(key);
+            column.setToPreparedStatement(ps, i++, value);
+            c++;
+        }
+        return i;
+    }
+
+    /**
+     * Gets the number of rows to write in one multi-row statement.
+     */
+    protected int getRowsPerStatement(int ncolumns) {
+        int max = dialect.getMaximumParametersForMultiRow() / Math.max(1, ncolumns);
+        return Math.max(1, Math.min(writeBatchSize, max));
+    }
+
     /**
      * Updates multiple collection rows, all for the same table.
      */
@@ -645,6 +753,10 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
             List<RowUpdate> keysUpdates = updatesByCanonKeys.get(ck);
             Collection<String> keys = keysByCanonKeys.get(ck);
             Set<String> deltas = deltasByCanonKeys.get(ck);
+            if (multiRowUpdate && keysUpdates.size() > 1) {
+                updateSimpleRowsMultiRow(tableName, keys, deltas, keysUpdates);
+                continue;
+            }
             SQLInfoSelect update = sqlInfo.getUpdateById(tableName, keys, deltas);
             String loggedSql = supportsBatchUpdates && rows.size() > 1 ? update.sql + " -- BATCHED" : update.sql;
             try {
@@ -656,17 +768,10 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
                         if (logger.isLogEnabled()) {
                             logger.logSQL(loggedSql, update.whatColumns, rowu.row, deltas);
                         }
-                        int i = 1;
-                        for (Column column : update.whatColumns) {
-                            Serializable value = rowu.row.get(column.getKey());
-                            if (value instanceof Delta) {
-                                value = ((Delta) value).getDeltaValue();
-                            }
-                            column.setToPreparedStatement(ps, i++, value);
-                        }
+                        setUpdateValues(ps, 1, update.whatColumns, rowu.row);
                         if (supportsBatchUpdates) {
                             ps.addBatch();
-                            if (batch % UPDATE_BATCH_SIZE == 0) {
+                            if (batch % writeBatchSize == 0) {
                                 int[] counts = ps.executeBatch();
                                 countExecute();
                                 logger.logCounts(counts);
@@ -691,6 +796,65 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
         }
     }
 
+    /**
+     * Updates multiple simple rows having the same updated keys, all for the same table, using multi-row
+     * {@code UPDATE} statements.
+     *
+     * @since 8.3
+     */
+    protected void updateSimpleRowsMultiRow(String tableName, Collection<String> keys, Set<String> deltas,
+            List<RowUpdate> rows) {
+        String loggedSql = sqlInfo.getUpdateById(tableName, keys, deltas).sql + " -- MULTI-ROW";
+        int rowsPerStatement = getRowsPerStatement(keys.size() + 1);
+        List<RowUpdate> list = new ArrayList<RowUpdate>(rows);
+        int size = list.size();
+        SQLInfoSelect update = null;
+        try {
+            PreparedStatement ps = null;
+            try {
+                for (int start = 0; start < size; start += rowsPerStatement) {
+                    int n = Math.min(rowsPerStatement, size - start);
+                    if (update == null || n != rowsPerStatement) {
+                        // first statement, or last smaller chunk
+                        closeStatement(ps);
+                        update = sqlInfo.getMultiRowUpdateById(tableName, keys, deltas, n);
+                        ps = connection.prepareStatement(update.sql);
+                    }
+                    int i = 1;
+                    for (RowUpdate rowu : list.subList(start, start + n)) {
+                        if (logger.isLogEnabled()) {
+                            logger.logSQL(loggedSql, update.whatColumns, rowu.row, deltas);
+                        }
+                        i = setUpdateValues(ps, i, update.whatColumns, rowu.row);
+                    }
+                    int count = ps.executeUpdate();
+                    countExecute();
+                    logger.logCount(count);
+                }
+            } finally {
+                closeStatement(ps);
+            }
+        } catch (SQLException e) {
+            throw new NuxeoException("Could not update: " + (update == null ? loggedSql : update.sql), e);
+        }
+    }
+
+    /**
+     * Sets the values of a row to update in a prepared statement.
+     *
+     * @return the index of the next parameter
+     */
+    protected int setUpdateValues(PreparedStatement ps, int i, List<Column> columns, Row row) throws SQLException {
+        for (Column column : columns) {
+            Serializable value = row.get(column.getKey());
+            if (value instanceof Delta) {
+                value = ((Delta) value).getDeltaValue();
+            }
+            column.setToPreparedStatement(ps, i++, value);
+        }
+        return i;
+    }
+
     protected void updateCollectionRows(String tableName, List<RowUpdate> rowus) {
         Set<Serializable> deleteIds = new HashSet<>();
         for (RowUpdate rowu : rowus) {
@@ -796,7 +960,7 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
         if (idArray instanceof String) {
             ps.setString(index, (String) idArray);
         } else {
-            Array array = dialect.createArrayOf(Types.OTHER, (Object[]) idArray, connection);
+            Array array = dialect.createArrayOf(Types.OTHER, (Object[]) idArray, ps.getConnection());
             ps.setArray(index, array);
         }
     }
@@ -995,6 +1159,7 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
 
     @Override
     public CopyResult copy(IdWithTypes source, Serializable destParentId, String destName, Row overwriteRow) {
+        readReplicaAllowed = false;
         // assert !model.separateMainTable; // other case not implemented
         Invalidations invalidations = new Invalidations();
         try {
@@ -1313,6 +1478,7 @@ public class JDBCRowMapper extends JDBCConnection implements RowMapper {
 
     @Override
     public List<NodeInfo> remove(NodeInfo rootInfo) {
+        readReplicaAllowed = false;
         Serializable rootId = rootInfo.id;
         List<NodeInfo> info = getDescendantsInfo(rootId);
         info.add(rootInfo);
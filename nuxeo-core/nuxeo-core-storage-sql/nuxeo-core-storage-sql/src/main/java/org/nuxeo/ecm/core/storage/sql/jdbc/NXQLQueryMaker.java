@@ -31,6 +31,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang.StringUtils;
@@ -70,6 +71,8 @@ import org.nuxeo.ecm.core.storage.sql.ColumnType.WrappedId;
 import org.nuxeo.ecm.core.storage.sql.Model;
 import org.nuxeo.ecm.core.storage.sql.ModelProperty;
 import org.nuxeo.ecm.core.storage.sql.Session.PathResolver;
+import org.nuxeo.ecm.core.storage.sql.jdbc.QueryPlanCache.ParsedQuery;
+import org.nuxeo.ecm.core.storage.sql.jdbc.QueryPlanCache.PlanBuilder;
 import org.nuxeo.ecm.core.storage.sql.jdbc.SQLInfo.ColumnMapMaker;
 import org.nuxeo.ecm.core.storage.sql.jdbc.SQLInfo.SQLInfoSelect;
 import org.nuxeo.ecm.core.storage.sql.jdbc.db.Column;
@@ -254,6 +257,31 @@ public class NXQLQueryMaker implements QueryMaker {
 
     protected int fragJoinCount = 0;
 
+    /** Whether the read acls are up to date and can be used for the security check. */
+    protected boolean readAclsUsable = true;
+
+    /** The principals parameter of the security check. */
+    protected Serializable securityPrincipals;
+
+    /** The permissions parameter of the security check. */
+    protected Serializable securityPermissions;
+
+    /** Whether the query built can be stored in the query plan cache. */
+    protected boolean planCacheable;
+
+    /** The string literals of the query built that cannot be bound as parameters in a cached plan. */
+    protected Set<String> structuralLiterals = new HashSet<String>();
+
+    /**
+     * Sets whether the read acls can be used for the security check, if the dialect supports them. When they are being
+     * updated asynchronously, the slower check on the ACLs themselves must be used instead.
+     *
+     * @since 8.3
+     */
+    public void setReadAclsUsable(boolean readAclsUsable) {
+        this.readAclsUsable = readAclsUsable;
+    }
+
     @Override
     public String getName() {
         return NXQL.NXQL;
@@ -282,6 +310,88 @@ public class NXQLQueryMaker implements QueryMaker {
         if (npim != null) {
             neverPerInstanceMixins.addAll(npim);
         }
+        securityPrincipals = queryFilter.getPrincipals();
+        securityPermissions = queryFilter.getPermissions();
+        if (securityPrincipals != null && !dialect.supportsArrays()) {
+            securityPrincipals = StringUtils.join((String[]) securityPrincipals, Dialect.ARRAY_SEP);
+            securityPermissions = StringUtils.join((String[]) securityPermissions, Dialect.ARRAY_SEP);
+        }
+
+        QueryPlanCache queryPlanCache = sqlInfo.getQueryPlanCache();
+        // subclasses and transformers may keep state influencing the query built
+        if (queryPlanCache == null || getClass() != NXQLQueryMaker.class || params.length != 0
+                || !queryFilter.getQueryTransformers().isEmpty()) {
+            return buildQuery(query, queryFilter);
+        }
+        ParsedQuery parsed = QueryPlanCache.parse(query);
+        String key = getQueryPlanKey(parsed.normalized, queryFilter);
+        return queryPlanCache.getQuery(key, parsed, new PlanBuilder() {
+
+            @Override
+            public Query build() {
+                return buildQuery(query, queryFilter);
+            }
+
+            @Override
+            public boolean isCacheable() {
+                return planCacheable;
+            }
+
+            @Override
+            public Set<String> getStructuralLiterals() {
+                return structuralLiterals;
+            }
+
+            @Override
+            public Serializable getPrincipalsParam() {
+                return securityPrincipals;
+            }
+
+            @Override
+            public Serializable getPermissionsParam() {
+                return securityPermissions;
+            }
+        });
+    }
+
+    /**
+     * Gets the key under which the plan for a query is cached, taking into account everything in the query filter that
+     * influences the generated SQL.
+     *
+     * @param normalized the query, with its string literals replaced by a marker
+     * @param queryFilter the query filter
+     * @since 8.3
+     */
+    protected String getQueryPlanKey(String normalized, QueryFilter queryFilter) {
+        StringBuilder buf = new StringBuilder(normalized);
+        buf.append('\u0000');
+        if (queryFilter.getPrincipals() != null) {
+            buf.append("security ");
+            buf.append(readAclsUsable ? "readacls " : "acls ");
+            buf.append(Arrays.toString(queryFilter.getPermissions()));
+        }
+        FacetFilter facetFilter = queryFilter.getFacetFilter();
+        if (facetFilter != null) {
+            buf.append(" facets ");
+            buf.append(facetFilter.shortcut);
+            if (facetFilter.required != null) {
+                buf.append(new TreeSet<String>(facetFilter.required));
+            }
+            if (facetFilter.excluded != null) {
+                buf.append(new TreeSet<String>(facetFilter.excluded));
+            }
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Builds the query, without using the query plan cache.
+     *
+     * @since 8.3
+     */
+    protected Query buildQuery(String query, QueryFilter queryFilter) {
+        planCacheable = true;
+        structuralLiterals.clear();
 
         // transform the query according to the transformers defined by the
         // security policies
@@ -333,6 +443,11 @@ public class NXQLQueryMaker implements QueryMaker {
             queryAnalyzer.visitQuery(sqlQuery);
         }
 
+        if (queryAnalyzer.ftCount != 0) {
+            // the SQL depends on the fulltext expressions
+            planCacheable = false;
+        }
+
         if (queryAnalyzer.ftCount > 1 && (queryAnalyzer.orderByScore || queryAnalyzer.selectScore)) {
             throw new QueryParseException(
                     "Cannot use " + NXQL.ECM_FULLTEXT_SCORE + " with more than one fulltext match expression");
@@ -545,17 +660,13 @@ public class NXQLQueryMaker implements QueryMaker {
             String securityClause = null;
             List<Serializable> securityParams = new LinkedList<Serializable>();
             List<Join> securityJoins = new ArrayList<Join>(2);
-            if (queryFilter.getPrincipals() != null) {
-                Serializable principals = queryFilter.getPrincipals();
-                Serializable permissions = queryFilter.getPermissions();
-                if (!dialect.supportsArrays()) {
-                    principals = StringUtils.join((String[]) principals, Dialect.ARRAY_SEP);
-                    permissions = StringUtils.join((String[]) permissions, Dialect.ARRAY_SEP);
-                }
+            if (securityPrincipals != null) {
+                Serializable principals = securityPrincipals;
+                Serializable permissions = securityPermissions;
                 // when using WITH for the query, the main column is referenced
                 // through an alias because of the subselect
                 String id = dialect.supportsWith() ? mainAlias : hierId;
-                if (dialect.supportsReadAcl()) {
+                if (dialect.supportsReadAcl() && readAclsUsable) {
                     /* optimized read acl */
                     // JOIN hierarchy_read_acl _RACL ON hierarchy.id = _RACL.id
                     // JOIN aclr_user_map _ACLRUSERMAP ON _RACL.acl_id =
@@ -1493,6 +1604,26 @@ public class NXQLQueryMaker implements QueryMaker {
             return arraySubQuery;
         }
 
+        /**
+         * Gets the subquery for the elements of a list stored as JSON in the given contextKey, and adds a JOIN if one
+         * is not already done.
+         *
+         * @since 8.3
+         */
+        protected ArraySubQuery getJsonArraySubQuery(Table contextHier, String contextKey, Column jsonColumn) {
+            ArraySubQuery arraySubQuery = propertyArraySubQueries.get(contextKey);
+            if (arraySubQuery == null) {
+                String alias = SUBQUERY_ARRAY_ALIAS + ++arraySubQueryJoinCount;
+                arraySubQuery = dialect.getJsonArraySubQuery(jsonColumn, alias);
+                propertyArraySubQueries.put(contextKey, arraySubQuery);
+                Join join = new Join(Join.LEFT, arraySubQuery.toSql(), alias, null,
+                        arraySubQuery.getSubQueryIdColumn().getFullQuotedName(),
+                        contextHier.getColumn(Model.MAIN_KEY).getFullQuotedName());
+                joins.add(join);
+            }
+            return arraySubQuery;
+        }
+
         protected ColumnInfo getSpecialColumnInfo(String name) {
             String propertyName = null;
             Table table = null;
@@ -1637,6 +1768,10 @@ public class NXQLQueryMaker implements QueryMaker {
                 contextHier = dataHierTable;
             }
             xpath = canonicalXPath(xpath);
+            ModelProperty jsonProp = model.getPathPropertyInfo(simpleXPath(xpath));
+            if (jsonProp != null && jsonProp.isJson()) {
+                return getJsonColumnInfo(contextHier, xpath, jsonProp);
+            }
             String[] segments = xpath.split("/");
             String simple = null; // simplified prefix to match model
             String contextKey = null; // prefix used as key for table to join
@@ -1729,6 +1864,62 @@ public class NXQLQueryMaker implements QueryMaker {
             throw new AssertionError("not reached");
         }
 
+        /**
+         * Gets column information for a value stored inside the JSON column of a complex property.
+         * <p>
+         * List indexes are part of the path inside the JSON column. A wildcard index is only allowed on the list
+         * stored as JSON itself, not on lists nested inside it.
+         *
+         * @since 8.3
+         */
+        protected ColumnInfo getJsonColumnInfo(Table contextHier, String xpath, ModelProperty prop) {
+            if (prop.propertyType.isArray()) {
+                throw new QueryParseException("Cannot query array stored as JSON: " + xpath);
+            }
+            String[] segments = xpath.split("/");
+            Column column;
+            int start = 1;
+            if (segments.length > 1 && segments[1].startsWith("*")) {
+                // join on the list elements
+                String index = segments[1].substring(1);
+                String contextKey = prop.fragmentName + '/' + segments[0] + "/*"
+                        + (index.isEmpty() ? "-" + getUniqueJoinIndex() : index);
+                Column jsonColumn = database.getTable(prop.fragmentName).getColumn(prop.fragmentKey);
+                column = getJsonArraySubQuery(contextHier, contextKey, jsonColumn).getSubQueryValueColumn();
+                start = 2;
+            } else {
+                Table table = getFragmentTable(contextHier, prop.fragmentName, prop.fragmentName, -1, false);
+                column = table.getColumn(prop.fragmentKey);
+            }
+            List<String> path = new ArrayList<String>(segments.length);
+            for (int i = start; i < segments.length; i++) {
+                String segment = segments[i];
+                if (segment.startsWith("*")) {
+                    throw new QueryParseException("Wildcard index only allowed on the list stored as JSON: " + xpath);
+                }
+                // property name or list index
+                path.add(segment);
+            }
+            ColumnType type;
+            switch (prop.propertyType) {
+            case BOOLEAN:
+                type = ColumnType.BOOLEAN;
+                break;
+            case LONG:
+                type = ColumnType.LONG;
+                break;
+            case DOUBLE:
+                type = ColumnType.DOUBLE;
+                break;
+            case DATETIME:
+                type = ColumnType.TIMESTAMP;
+                break;
+            default:
+                type = ColumnType.STRING;
+            }
+            return new ColumnInfo(dialect.getJsonPathColumn(column, path, type), -1, false, false);
+        }
+
         @Override
         public void visitQuery(SQLQuery node) {
             super.visitQuery(node);
@@ -1765,6 +1956,11 @@ public class NXQLQueryMaker implements QueryMaker {
                 checkDateLiteralForCast(rvalue, node);
             }
             Operator op = node.operator;
+            if (NXQL.ECM_PRIMARYTYPE.equals(name) || NXQL.ECM_MIXINTYPE.equals(name)
+                    || NXQL.ECM_ANCESTORID.equals(name)) {
+                // the SQL generated depends on the types or ids
+                addStructuralLiterals(rvalue);
+            }
             if (op == Operator.STARTSWITH) {
                 visitExpressionStartsWith(node);
             } else if (NXQL.ECM_PATH.equals(name)) {
@@ -1914,6 +2110,7 @@ public class NXQLQueryMaker implements QueryMaker {
         protected void visitExpressionStartsWithPath(String path) {
             // find the id from the path
             Serializable id = pathResolver.getIdForPath(path);
+            planCacheable = false;
             if (id == null) {
                 // no such path, always return a false
                 // TODO remove the expression more intelligently from the parse
@@ -1956,6 +2153,7 @@ public class NXQLQueryMaker implements QueryMaker {
                 path = path.substring(0, path.length() - PATH_SEP.length());
             }
             Serializable id = pathResolver.getIdForPath(path);
+            planCacheable = false;
             if (id == null) {
                 // no such path, always return a false
                 // TODO remove the expression more intelligently from the parse
@@ -1968,6 +2166,18 @@ public class NXQLQueryMaker implements QueryMaker {
             }
         }
 
+        protected void addStructuralLiterals(Operand rvalue) {
+            if (rvalue instanceof StringLiteral) {
+                structuralLiterals.add(((StringLiteral) rvalue).value);
+            } else if (rvalue instanceof LiteralList) {
+                for (Literal literal : (LiteralList) rvalue) {
+                    if (literal instanceof StringLiteral) {
+                        structuralLiterals.add(((StringLiteral) literal).value);
+                    }
+                }
+            }
+        }
+
         protected void visitExpressionAncestorId(Expression node) {
             if (node.operator != Operator.EQ && node.operator != Operator.NOTEQ) {
                 throw new QueryParseException(NXQL.ECM_ANCESTORID + " requires = or <> operator");
@@ -0,0 +1,513 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.nuxeo.ecm.core.storage.sql.ColumnType.WrappedId;
+import org.nuxeo.ecm.core.storage.sql.jdbc.QueryMaker.Query;
+import org.nuxeo.ecm.core.storage.sql.jdbc.SQLInfo.SQLInfoSelect;
+import org.nuxeo.runtime.metrics.MetricsService;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
+/**
+ * Bounded cache of the SQL generated for NXQL queries, so that a query already seen doesn't have to be parsed,
+ * analyzed and turned into SQL again.
+ * <p>
+ * Queries are looked up by their text where string literals are replaced by a marker (see {@link #parse}), and by a
+ * key describing the shape of the query filter. A literal whose value is passed unchanged as an SQL parameter is
+ * "bindable": a cached plan is reused for any value of such literals, the new values being bound in place of the old
+ * ones. Other literals (paths, document types, dates...) influence the generated SQL and are kept in the lookup key.
+ * <p>
+ * As the plan is deduced from the parameters of a built query, it is only trusted after a second build of the same
+ * query with different bindable values produced the same SQL. Queries for which this fails, or which can't be cached
+ * at all (for instance fulltext queries), are then always built.
+ *
+ * @since 8.3
+ */
+public class QueryPlanCache {
+
+    /** Binding of an SQL parameter to the principals of the query filter. */
+    protected static final int SLOT_PRINCIPALS = -1;
+
+    /** Binding of an SQL parameter to the permissions of the query filter. */
+    protected static final int SLOT_PERMISSIONS = -2;
+
+    /** Binding of an SQL parameter to a constant. */
+    protected static final int SLOT_CONSTANT = -3;
+
+    /** Marker for a literal in a normalized query. */
+    protected static final String LITERAL_MARKER = "?";
+
+    /**
+     * Builds the SQL for a query on cache misses.
+     */
+    public interface PlanBuilder {
+
+        /**
+         * Builds the query.
+         *
+         * @return the query, or {@code null} if it cannot match
+         */
+        Query build();
+
+        /**
+         * Checks if the query last built can be cached.
+         */
+        boolean isCacheable();
+
+        /**
+         * Gets the literals of the query last built that influence the generated SQL even when they are passed as
+         * parameters, for instance document types that are checked against the model.
+         */
+        Set<String> getStructuralLiterals();
+
+        /**
+         * Gets the principals parameter used by the security check.
+         */
+        Serializable getPrincipalsParam();
+
+        /**
+         * Gets the permissions parameter used by the security check.
+         */
+        Serializable getPermissionsParam();
+    }
+
+    /**
+     * A query whose string literals have been extracted.
+     */
+    public static class ParsedQuery {
+
+        /** The query with its string literals replaced by a marker. */
+        public final String normalized;
+
+        /** The values of the string literals. */
+        public final List<String> literals;
+
+        public ParsedQuery(String normalized, List<String> literals) {
+            this.normalized = normalized;
+            this.literals = literals;
+        }
+    }
+
+    /**
+     * Which literals of a normalized query are bindable.
+     */
+    protected static class Shape {
+
+        protected final boolean[] bindable;
+
+        protected volatile boolean disabled;
+
+        protected Shape(boolean[] bindable) {
+            this.bindable = bindable;
+        }
+
+        protected String getPlanKey(String key, List<String> literals) {
+            StringBuilder buf = new StringBuilder(key);
+            for (int i = 0; i < bindable.length; i++) {
+                buf.append('\u0000');
+                if (!bindable[i]) {
+                    buf.append('=');
+                    buf.append(literals.get(i));
+                }
+            }
+            return buf.toString();
+        }
+    }
+
+    /**
+     * The generated SQL and how to bind its parameters.
+     */
+    protected static class Plan {
+
+        protected final SQLInfoSelect selectInfo;
+
+        /** For each parameter, the index of the bindable literal, or one of the {@code SLOT_*} constants. */
+        protected final int[] slots;
+
+        /** For each parameter bound to a literal, whether it's wrapped as an id. */
+        protected final boolean[] wrapped;
+
+        protected final Serializable[] constants;
+
+        /** The literals used to build the plan. */
+        protected final List<String> literals;
+
+        protected volatile boolean validated;
+
+        protected Plan(SQLInfoSelect selectInfo, int[] slots, boolean[] wrapped, Serializable[] constants,
+                List<String> literals) {
+            this.selectInfo = selectInfo;
+            this.slots = slots;
+            this.wrapped = wrapped;
+            this.constants = constants;
+            this.literals = literals;
+        }
+
+        protected Query bind(List<String> literals, PlanBuilder builder) {
+            Query q = new Query();
+            q.selectInfo = selectInfo;
+            q.selectParams = new ArrayList<Serializable>(slots.length);
+            for (int i = 0; i < slots.length; i++) {
+                Serializable param;
+                switch (slots[i]) {
+                case SLOT_PRINCIPALS:
+                    param = builder.getPrincipalsParam();
+                    break;
+                case SLOT_PERMISSIONS:
+                    param = builder.getPermissionsParam();
+                    break;
+                case SLOT_CONSTANT:
+                    param = constants[i];
+                    break;
+                default:
+                    String literal = literals.get(slots[i]);
+                    param = wrapped[i] ? new WrappedId(literal) : literal;
+                }
+                q.selectParams.add(param);
+            }
+            return q;
+        }
+
+        /**
+         * Checks if the plan gives the same result as a query built with other literals.
+         */
+        protected boolean matches(Query q, List<String> literals, PlanBuilder builder) {
+            if (!selectInfo.sql.equals(q.selectInfo.sql)) {
+                return false;
+            }
+            List<Serializable> params = bind(literals, builder).selectParams;
+            if (params.size() != q.selectParams.size()) {
+                return false;
+            }
+            Iterator<Serializable> it = q.selectParams.iterator();
+            for (Serializable param : params) {
+                Serializable other = it.next();
+                if (param instanceof WrappedId && other instanceof WrappedId) {
+                    // no equals() on WrappedId
+                    param = param.toString();
+                    other = other.toString();
+                }
+                if (!Arrays.deepEquals(new Object[] { param }, new Object[] { other })) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    protected static class LRUCache<K, V> extends LinkedHashMap<K, V> {
+        private static final long serialVersionUID = 1L;
+
+        private final int max;
+
+        public LRUCache(int max) {
+            super(max, 1.0f, true);
+            this.max = max;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Entry<K, V> eldest) {
+            return size() > max;
+        }
+    }
+
+    // used under synchronization on this
+    protected final LRUCache<String, Shape> shapes;
+
+    // used under synchronization on this
+    protected final LRUCache<String, Plan> plans;
+
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    protected final Counter hitCount;
+
+    protected final Counter missCount;
+
+    protected final Timer buildTimer;
+
+    protected final String hitRatioGaugeName;
+
+    public QueryPlanCache(String repositoryName, int size) {
+        shapes = new LRUCache<String, Shape>(size);
+        plans = new LRUCache<String, Plan>(size);
+        hitCount = registry.counter(MetricRegistry.name("nuxeo", "repositories", repositoryName, "caches",
+                "query-plans", "hits"));
+        missCount = registry.counter(MetricRegistry.name("nuxeo", "repositories", repositoryName, "caches",
+                "query-plans", "misses"));
+        buildTimer = registry.timer(MetricRegistry.name("nuxeo", "repositories", repositoryName, "query-plans",
+                "builds"));
+        hitRatioGaugeName = MetricRegistry.name("nuxeo", "repositories", repositoryName, "caches", "query-plans",
+                "hit-ratio");
+        registry.remove(hitRatioGaugeName);
+        registry.register(hitRatioGaugeName, new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                long hits = hitCount.getCount();
+                long total = hits + missCount.getCount();
+                return Double.valueOf(total == 0 ? 0 : (double) hits / total);
+            }
+        });
+    }
+
+    /**
+     * Extracts the string literals of an NXQL query, unescaping them like the NXQL parser does.
+     *
+     * @param query the NXQL query
+     * @return the parsed query
+     */
+    public static ParsedQuery parse(String query) {
+        StringBuilder normalized = new StringBuilder(query.length());
+        List<String> literals = new ArrayList<String>();
+        int len = query.length();
+        for (int i = 0; i < len; i++) {
+            char c = query.charAt(i);
+            if (c != '\'' && c != '"') {
+                normalized.append(c);
+                continue;
+            }
+            char quote = c;
+            StringBuilder literal = new StringBuilder();
+            for (i++; i < len; i++) {
+                c = query.charAt(i);
+                if (c == quote) {
+                    break;
+                }
+                if (c == '\\' && i + 1 < len) {
+                    char next = query.charAt(i + 1);
+                    switch (next) {
+                    case 't':
+                        literal.append('\t');
+                        i++;
+                        continue;
+                    case 'n':
+                        literal.append('\n');
+                        i++;
+                        continue;
+                    case 'r':
+                        literal.append('\r');
+                        i++;
+                        continue;
+                    case '\\':
+                        literal.append('\\');
+                        i++;
+                        continue;
+                    default:
+                        if (next == quote) {
+                            literal.append(quote);
+                            i++;
+                            continue;
+                        }
+                    }
+                }
+                literal.append(c);
+            }
+            normalized.append(LITERAL_MARKER);
+            literals.add(literal.toString());
+        }
+        return new ParsedQuery(normalized.toString(), literals);
+    }
+
+    /**
+     * Gets the query from the cache, or builds it.
+     *
+     * @param key the key for the normalized query and the shape of the query filter
+     * @param parsed the parsed query
+     * @param builder the builder to use on cache misses
+     * @return the query, or {@code null} if it cannot match
+     */
+    public Query getQuery(String key, ParsedQuery parsed, PlanBuilder builder) {
+        List<String> literals = parsed.literals;
+        Shape shape;
+        synchronized (this) {
+            shape = shapes.get(key);
+        }
+        if (shape != null && shape.disabled) {
+            missCount.inc();
+            return build(builder);
+        }
+        Plan plan = null;
+        if (shape != null) {
+            synchronized (this) {
+                plan = plans.get(shape.getPlanKey(key, literals));
+            }
+            if (plan != null && (plan.validated || plan.literals.equals(literals))) {
+                hitCount.inc();
+                return plan.bind(literals, builder);
+            }
+        }
+        missCount.inc();
+        Query q = build(builder);
+        if (q == null) {
+            return null;
+        }
+        if (!builder.isCacheable()) {
+            disable(key, shape);
+            return q;
+        }
+        if (plan != null) {
+            // second build with other values, check that the plan gives the same result
+            if (plan.matches(q, literals, builder)) {
+                plan.validated = true;
+            } else {
+                disable(key, shape);
+            }
+            return q;
+        }
+        if (shape == null) {
+            shape = new Shape(getBindable(literals, q.selectParams, builder.getStructuralLiterals()));
+            synchronized (this) {
+                Shape existing = shapes.get(key);
+                if (existing == null) {
+                    shapes.put(key, shape);
+                } else {
+                    shape = existing;
+                }
+            }
+        }
+        plan = newPlan(shape, literals, q, builder);
+        if (plan == null) {
+            disable(key, shape);
+            return q;
+        }
+        synchronized (this) {
+            plans.put(shape.getPlanKey(key, literals), plan);
+        }
+        return q;
+    }
+
+    protected Query build(PlanBuilder builder) {
+        Timer.Context timerContext = buildTimer.time();
+        try {
+            return builder.build();
+        } finally {
+            timerContext.stop();
+        }
+    }
+
+    protected void disable(String key, Shape shape) {
+        if (shape == null) {
+            shape = new Shape(new boolean[0]);
+            synchronized (this) {
+                shapes.put(key, shape);
+            }
+        }
+        shape.disabled = true;
+    }
+
+    /**
+     * Finds the bindable literals: those whose value is unique, not structural, and found as exactly one parameter.
+     */
+    protected static boolean[] getBindable(List<String> literals, List<Serializable> params,
+            Set<String> structuralLiterals) {
+        boolean[] bindable = new boolean[literals.size()];
+        for (int i = 0; i < bindable.length; i++) {
+            String literal = literals.get(i);
+            bindable[i] = literals.indexOf(literal) == i && literals.lastIndexOf(literal) == i
+                    && !structuralLiterals.contains(literal) && countEquals(params, literal) == 1;
+        }
+        return bindable;
+    }
+
+    protected static int countEquals(List<Serializable> params, String value) {
+        int n = 0;
+        for (Serializable param : params) {
+            if (isLiteral(param, value)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Checks if a parameter is the given literal, possibly wrapped as an id.
+     */
+    protected static boolean isLiteral(Serializable param, String value) {
+        if (param instanceof WrappedId) {
+            return value.equals(((WrappedId) param).string);
+        }
+        return value.equals(param);
+    }
+
+    /**
+     * Creates the plan for a built query.
+     *
+     * @return the plan, or {@code null} if the bindable literals cannot be found in the parameters
+     */
+    protected static Plan newPlan(Shape shape, List<String> literals, Query q, PlanBuilder builder) {
+        Serializable principals = builder.getPrincipalsParam();
+        Serializable permissions = builder.getPermissionsParam();
+        List<Serializable> params = q.selectParams;
+        int[] slots = new int[params.size()];
+        boolean[] wrapped = new boolean[slots.length];
+        Serializable[] constants = new Serializable[slots.length];
+        int[] uses = new int[literals.size()];
+        int i = 0;
+        for (Serializable param : params) {
+            int slot = SLOT_CONSTANT;
+            if (param != null && param == principals) {
+                slot = SLOT_PRINCIPALS;
+            } else if (param != null && param == permissions) {
+                slot = SLOT_PERMISSIONS;
+            } else {
+                for (int j = 0; j < uses.length; j++) {
+                    if (shape.bindable[j] && isLiteral(param, literals.get(j))) {
+                        slot = j;
+                        wrapped[i] = param instanceof WrappedId;
+                        uses[j]++;
+                        break;
+                    }
+                }
+            }
+            slots[i] = slot;
+            if (slot == SLOT_CONSTANT) {
+                constants[i] = param;
+            }
+            i++;
+        }
+        for (int j = 0; j < uses.length; j++) {
+            if (shape.bindable[j] && uses[j] != 1) {
+                return null;
+            }
+        }
+        return new Plan(q.selectInfo, slots, wrapped, constants, new ArrayList<String>(literals));
+    }
+
+    /**
+     * Clears the cache.
+     */
+    public synchronized void clear() {
+        shapes.clear();
+        plans.clear();
+    }
+
+}
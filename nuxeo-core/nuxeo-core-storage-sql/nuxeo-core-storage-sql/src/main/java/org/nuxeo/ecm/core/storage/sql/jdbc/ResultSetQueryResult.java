@@ -19,6 +19,7 @@
 package org.nuxeo.ecm.core.storage.sql.jdbc;
 
 import java.io.Serializable;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -51,8 +52,22 @@ public class ResultSetQueryResult implements IterableQueryResult, Iterator<Map<S
 
     private final JDBCLogger logger;
 
+    /** The read replica connection, owned by this result and closed with it. */
+    private Connection replicaConnection;
+
     public ResultSetQueryResult(QueryMaker queryMaker, String query, QueryFilter queryFilter, PathResolver pathResolver,
             JDBCMapper mapper, Object... params) throws SQLException {
+        this(queryMaker, query, queryFilter, pathResolver, mapper, null, params);
+    }
+
+    /**
+     * Executes the query on the given read replica connection, which is closed when this result is closed.
+     *
+     * @param replicaConnection the read replica connection, or {@code null} to use the mapper's connection
+     * @since 8.3
+     */
+    public ResultSetQueryResult(QueryMaker queryMaker, String query, QueryFilter queryFilter, PathResolver pathResolver,
+            JDBCMapper mapper, Connection replicaConnection, Object... params) throws SQLException {
         logger = mapper.logger;
         q = queryMaker.buildQuery(mapper.sqlInfo, mapper.model, pathResolver, query, queryFilter, params);
         if (q == null) {
@@ -60,21 +75,33 @@ public class ResultSetQueryResult implements IterableQueryResult, Iterator<Map<S
             ps = null;
             rs = null;
             eof = true;
+            if (replicaConnection != null) {
+                replicaConnection.close();
+            }
             return;
         } else {
             eof = false;
         }
         if (logger.isLogEnabled()) {
-            logger.logSQL(q.selectInfo.sql, q.selectParams);
+            String sql = q.selectInfo.sql;
+            if (replicaConnection != null) {
+                sql += " -- READ REPLICA";
+            }
+            logger.logSQL(sql, q.selectParams);
         }
-        ps = mapper.connection.prepareStatement(q.selectInfo.sql, ResultSet.TYPE_SCROLL_INSENSITIVE,
+        Connection connection = replicaConnection == null ? mapper.connection : replicaConnection;
+        ps = connection.prepareStatement(q.selectInfo.sql, ResultSet.TYPE_SCROLL_INSENSITIVE,
                 ResultSet.CONCUR_READ_ONLY);
         int i = 1;
         for (Serializable object : q.selectParams) {
             mapper.setToPreparedStatement(ps, i++, object);
         }
         rs = ps.executeQuery();
+        this.replicaConnection = replicaConnection;
         mapper.countExecute();
+        if (replicaConnection != null) {
+            mapper.countReadReplicaExecute();
+        }
         // rs.setFetchDirection(ResultSet.FETCH_UNKNOWN); fails in H2
     }
 
@@ -101,6 +128,20 @@ public class ResultSetQueryResult implements IterableQueryResult, Iterator<Map<S
             pos = -1;
             rs = null;
             ps = null;
+            closeReplicaConnection();
+        }
+    }
+
+    protected void closeReplicaConnection() {
+        if (replicaConnection == null) {
+            return;
+        }
+        try {
+            replicaConnection.close();
+        } catch (SQLException e) {
+            logger.error("Error closing read replica connection: " + e.getMessage(), e);
+        } finally {
+            replicaConnection = null;
         }
     }
 
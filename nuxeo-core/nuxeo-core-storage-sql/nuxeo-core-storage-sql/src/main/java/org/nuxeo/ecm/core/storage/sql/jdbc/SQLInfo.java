@@ -41,6 +41,7 @@ import org.nuxeo.ecm.core.storage.FulltextConfiguration;
 import org.nuxeo.ecm.core.storage.sql.ColumnType;
 import org.nuxeo.ecm.core.storage.sql.Mapper;
 import org.nuxeo.ecm.core.storage.sql.Model;
+import org.nuxeo.ecm.core.storage.sql.ModelProperty;
 import org.nuxeo.ecm.core.storage.sql.RepositoryDescriptor;
 import org.nuxeo.ecm.core.storage.sql.Selection;
 import org.nuxeo.ecm.core.storage.sql.SelectionType;
@@ -87,6 +88,8 @@ public class SQLInfo {
 
     private final Map<String, List<Column>> insertColumnsMap;
 
+    private final Map<String, Insert> insertMap;
+
     private final Map<String, String> deleteSqlMap; // statement
 
     private Map<SelectionType, SQLInfoSelection> selections;
@@ -129,6 +132,9 @@ public class SQLInfo {
 
     protected List<Column> getBinariesColumns;
 
+    /** @since 8.3 */
+    protected final QueryPlanCache queryPlanCache;
+
     /**
      * Generates and holds the needed SQL statements given a {@link Model} and a {@link Dialect}.
      *
@@ -157,6 +163,7 @@ public class SQLInfo {
 
         insertSqlMap = new HashMap<String, String>();
         insertColumnsMap = new HashMap<String, List<Column>>();
+        insertMap = new HashMap<String, Insert>();
 
         deleteSqlMap = new HashMap<String, String>();
 
@@ -166,6 +173,13 @@ public class SQLInfo {
         getBinariesSql = new ArrayList<String>(1);
         getBinariesColumns = new ArrayList<Column>(1);
 
+        if (repositoryDescriptor.getQueryPlanCacheEnabled()) {
+            queryPlanCache = new QueryPlanCache(repositoryDescriptor.name,
+                    repositoryDescriptor.getQueryPlanCacheSize());
+        } else {
+            queryPlanCache = null;
+        }
+
         initSQL();
         initSelections();
 
@@ -176,6 +190,16 @@ public class SQLInfo {
         }
     }
 
+    /**
+     * Gets the cache of the SQL generated for NXQL queries.
+     *
+     * @return the cache, or {@code null} if disabled
+     * @since 8.3
+     */
+    public QueryPlanCache getQueryPlanCache() {
+        return queryPlanCache;
+    }
+
     public Database getDatabase() {
         return database;
     }
@@ -276,6 +300,20 @@ public class SQLInfo {
         return insertColumnsMap.get(tableName);
     }
 
+    /**
+     * Returns the SQL {@code INSERT} to add several rows in one statement, for dialects supporting it. The parameters
+     * are those of {@link #getInsertColumns}, repeated for each row.
+     *
+     * @param tableName the table name
+     * @param nrows the number of rows
+     * @return the SQL {@code INSERT} statement
+     * @since 8.3
+     */
+    public String getMultiRowInsertSql(String tableName, int nrows) {
+        Insert insert = insertMap.get(tableName);
+        return insert == null ? null : insert.getStatement(nrows);
+    }
+
     // -----
 
     /**
@@ -336,6 +374,70 @@ public class SQLInfo {
         return new SQLInfoSelect(update.getStatement(), columns, null, null);
     }
 
+    /**
+     * Returns the SQL {@code UPDATE} to update several rows having the same updated keys in one statement, for dialects
+     * supporting it. The new values are passed as a {@code VALUES} list joined on the id.
+     * <p>
+     * Example: {@code UPDATE foo SET a = v.a, b = foo.b + v.b FROM (VALUES (?, ?, ?), (?, ?, ?)) AS v (a, b, id) WHERE
+     * foo.id = v.id}
+     * <p>
+     * The columns of the returned select are the parameters for one row, to be repeated for each row.
+     *
+     * @param tableName the table name
+     * @param keys the updated keys
+     * @param deltas which of the keys are delta updates
+     * @param nrows the number of rows
+     * @since 8.3
+     */
+    public SQLInfoSelect getMultiRowUpdateById(String tableName, Collection<String> keys, Set<String> deltas,
+            int nrows) {
+        Table table = database.getTable(tableName);
+        Column mainColumn = table.getColumn(model.MAIN_KEY);
+        List<Column> columns = new LinkedList<Column>();
+        for (String key : keys) {
+            columns.add(table.getColumn(key));
+        }
+        columns.add(mainColumn);
+        String alias = "nxvalues";
+        List<String> updatedColumns = new LinkedList<String>();
+        List<String> names = new LinkedList<String>();
+        List<String> values = new LinkedList<String>();
+        for (Column column : columns) {
+            String col = column.getQuotedName();
+            names.add(col);
+            // the types of a VALUES list are not inferred from the updated table
+            values.add("CAST(" + column.getFreeVariableSetter() + " AS " + column.getSqlTypeString() + ")");
+            if (column == mainColumn || column.isIdentity()) {
+                continue;
+            }
+            String value = alias + '.' + col;
+            if (deltas.contains(column.getKey())) {
+                updatedColumns.add(col + " = " + column.getFullQuotedName() + " + " + value);
+            } else {
+                updatedColumns.add(col + " = " + value);
+            }
+        }
+        String rowValues = '(' + StringUtils.join(values, ", ") + ')';
+        StringBuilder from = new StringBuilder("(VALUES ");
+        for (int i = 0; i < nrows; i++) {
+            if (i > 0) {
+                from.append(", ");
+            }
+            from.append(rowValues);
+        }
+        from.append(") AS ");
+        from.append(alias);
+        from.append(" (");
+        from.append(StringUtils.join(names, ", "));
+        from.append(')');
+        Update update = new Update(table);
+        update.setNewValues(StringUtils.join(updatedColumns, ", "));
+        update.setFrom(from.toString());
+        update.setWhere(mainColumn.getFullQuotedName() + " = " + alias + '.' + mainColumn.getQuotedName()
+                + getSoftDeleteClause(tableName));
+        return new SQLInfoSelect(update.getStatement(), columns, null, null);
+    }
+
     public Update getUpdateByIdForKeys(String tableName, List<String> keys) {
         Table table = database.getTable(tableName);
         List<Column> columns = new LinkedList<Column>();
@@ -694,6 +796,14 @@ public class SQLInfo {
                 getBinariesColumns.add(resCol);
             }
         }
+        // binaries inside JSON columns
+        for (ModelProperty propertyInfo : model.getJsonBinaryPropertyInfos()) {
+            Table table = database.getTable(propertyInfo.fragmentName);
+            Column col = table.getColumn(propertyInfo.fragmentKey);
+            getBinariesSql.add(dialect.getJsonValuesSql(col, propertyInfo.jsonPath));
+            Column resCol = new Column(table, null, ColumnType.STRING, null);
+            getBinariesColumns.add(resCol);
+        }
     }
 
     protected void initClusterSQL() {
@@ -999,6 +1109,7 @@ public class SQLInfo {
             }
             insertSqlMap.put(tableName, insert.getStatement());
             insertColumnsMap.put(tableName, insertColumns);
+            insertMap.put(tableName, insert);
         }
 
         protected void postProcessDelete() {
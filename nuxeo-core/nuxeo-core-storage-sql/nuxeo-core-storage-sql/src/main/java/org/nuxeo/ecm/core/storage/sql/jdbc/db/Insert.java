@@ -72,6 +72,22 @@ public class Insert implements Serializable {
      * @return the SQL insert or copy statement
      */
     public String getStatement() {
+        return getStatement(1);
+    }
+
+    /**
+     * Gets the statement to insert several rows at once.
+     * <p>
+     * Example: {@code INSERT INTO foo (a, b, c) VALUES (?, ?, ?), (?, ?, ?)}
+     *
+     * @param nrows the number of rows
+     * @return the SQL insert statement
+     * @since 8.3
+     */
+    public String getStatement(int nrows) {
+        if (nrows != 1 && (columns.isEmpty() || insertValues != null)) {
+            throw new IllegalArgumentException("Cannot insert several rows with: " + getStatement());
+        }
         StringBuilder buf = new StringBuilder(128);
         buf.append("INSERT INTO ");
         buf.append(table.getQuotedName());
@@ -91,9 +107,14 @@ public class Insert implements Serializable {
             buf.append(StringUtils.join(columnNames, ", "));
             buf.append(") ");
             if (insertValues == null) {
-                buf.append("VALUES (");
-                buf.append(StringUtils.join(values, ", "));
-                buf.append(')');
+                buf.append("VALUES ");
+                String rowValues = '(' + StringUtils.join(values, ", ") + ')';
+                for (int i = 0; i < nrows; i++) {
+                    if (i > 0) {
+                        buf.append(", ");
+                    }
+                    buf.append(rowValues);
+                }
             } else {
                 buf.append(insertValues);
             }
@@ -166,6 +166,11 @@ public abstract class Dialect {
 
     protected final boolean aclOptimizationsEnabled;
 
+    /**
+     * @since 8.3
+     */
+    protected final boolean aclOptimizationsAsync;
+
     /**
      * @since 5.7
      */
@@ -251,6 +256,7 @@ public abstract class Dialect {
             fulltextDisabled = true;
             fulltextSearchDisabled = true;
             aclOptimizationsEnabled = false;
+            aclOptimizationsAsync = false;
             readAclMaxSize = 0;
             clusteringEnabled = false;
             softDeleteEnabled = false;
@@ -260,6 +266,7 @@ public abstract class Dialect {
             fulltextDisabled = fulltextDescriptor.getFulltextDisabled();
             fulltextSearchDisabled = fulltextDescriptor.getFulltextSearchDisabled();
             aclOptimizationsEnabled = repositoryDescriptor.getAclOptimizationsEnabled();
+            aclOptimizationsAsync = repositoryDescriptor.getAclOptimizationsAsync();
             readAclMaxSize = repositoryDescriptor.getReadAclMaxSize();
             clusteringEnabled = repositoryDescriptor.getClusteringEnabled();
             softDeleteEnabled = repositoryDescriptor.getSoftDeleteEnabled();
@@ -948,6 +955,49 @@ public abstract class Dialect {
         throw new QueryParseException("Array element not supported");
     }
 
+    /**
+     * Does the dialect support storing JSON documents in table columns, and querying inside them.
+     *
+     * @return true if JSON columns are supported
+     * @since 8.3
+     */
+    public boolean supportsJsonColumns() {
+        return false;
+    }
+
+    /**
+     * Gets a pseudo-column for the value at a given path inside a JSON column, converted to the given type.
+     *
+     * @param jsonColumn the JSON column
+     * @param path the path inside the JSON document, made of property names and list indexes
+     * @param type the type of the value
+     * @since 8.3
+     */
+    public Column getJsonPathColumn(Column jsonColumn, List<String> path, ColumnType type) {
+        throw new QueryParseException("JSON path not supported");
+    }
+
+    /**
+     * Gets the dialect-specific subquery for the elements of a JSON list. Its value column is a JSON column.
+     *
+     * @since 8.3
+     */
+    public ArraySubQuery getJsonArraySubQuery(Column jsonColumn, String subQueryAlias) {
+        throw new QueryParseException("JSON array sub-query not supported");
+    }
+
+    /**
+     * Gets the SQL returning the distinct text values found at a given path inside a JSON column, for all the rows of
+     * its table.
+     *
+     * @param jsonColumn the JSON column
+     * @param path the path inside the JSON document, with {@code *} for all the elements of a list
+     * @since 8.3
+     */
+    public String getJsonValuesSql(Column jsonColumn, List<String> path) {
+        throw new UnsupportedOperationException("JSON columns not supported");
+    }
+
     /**
      * Gets the SQL string for an array column IN expression.
      */
@@ -1027,6 +1077,56 @@ public abstract class Dialect {
         return null;
     }
 
+    /**
+     * Checks whether cluster invalidations can be pushed to other nodes using database notifications.
+     *
+     * @since 8.3
+     */
+    public boolean isClusteringNotifySupported() {
+        return false;
+    }
+
+    /**
+     * Gets the SQL to subscribe the current connection to the notifications of a channel.
+     *
+     * @since 8.3
+     */
+    public String getClusterListenSql(String channel) {
+        return null;
+    }
+
+    /**
+     * Gets the SQL to send a notification.
+     *
+     * @return an SQL statement with parameters for: channel, payload
+     * @since 8.3
+     */
+    public String getClusterNotifySql() {
+        return null;
+    }
+
+    /**
+     * Gets the maximum size in bytes of a notification payload.
+     *
+     * @since 8.3
+     */
+    public int getClusterNotifyMaxPayloadSize() {
+        return 0;
+    }
+
+    /**
+     * Gets the payloads of the notifications received by a connection subscribed to a channel, waiting at most the
+     * given time if none is pending.
+     *
+     * @param connection the physical (unwrapped) connection
+     * @param timeoutMillis the maximum time to wait
+     * @return the payloads, or an empty list
+     * @since 8.3
+     */
+    public List<String> getClusterNotifications(Connection connection, int timeoutMillis) throws SQLException {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * Does the dialect support ILIKE operator
      */
@@ -1068,6 +1168,36 @@ public abstract class Dialect {
         return 400;
     }
 
+    /**
+     * Does the dialect support inserting several rows in one {@code INSERT ... VALUES (...), (...)} statement.
+     *
+     * @since 8.3
+     */
+    public boolean supportsMultiRowInsert() {
+        return false;
+    }
+
+    /**
+     * Does the dialect support updating several rows with different values in one
+     * {@code UPDATE ... FROM (VALUES (...), (...))} statement.
+     *
+     * @since 8.3
+     */
+    public boolean supportsMultiRowUpdate() {
+        return false;
+    }
+
+    /**
+     * Maximum number of parameters in a multi-row statement.
+     * <p>
+     * Beyond this size the rows are written using several statements.
+     *
+     * @since 8.3
+     */
+    public int getMaximumParametersForMultiRow() {
+        return 2000;
+    }
+
     /**
      * Gets the statement to update the read acls
      */
@@ -1082,6 +1212,51 @@ public abstract class Dialect {
         return null;
     }
 
+    /**
+     * Does the dialect update the read acls asynchronously. The dialect must suppportsReadAcl.
+     * <p>
+     * In this case {@link #getUpdateReadAclsSql} only marks the read acls to update, which are then computed in
+     * batches using {@link #getUpdateReadAclsBatchSql}.
+     *
+     * @since 8.3
+     */
+    public boolean supportsAsyncReadAcl() {
+        return false;
+    }
+
+    /**
+     * Gets the statement to compute a batch of the read acls marked for update.
+     *
+     * @return an SQL statement with one parameter (maximum number of read acls to compute) returning a boolean that is
+     *         true if some read acls remain to compute
+     * @since 8.3
+     */
+    public String getUpdateReadAclsBatchSql() {
+        return null;
+    }
+
+    /**
+     * Gets the statement to check if some read acls are marked for update, in which case they cannot be used for
+     * security checks.
+     *
+     * @return an SQL statement returning a boolean
+     * @since 8.3
+     */
+    public String getReadAclsPendingSql() {
+        return null;
+    }
+
+    /**
+     * Gets the statement returning the replication lag of a read-only replica, in seconds, when executed on the
+     * replica. If {@code null}, the replication lag cannot be measured and the replica is always used.
+     *
+     * @return an SQL statement returning a number of seconds
+     * @since 8.3
+     */
+    public String getReplicaLagSql() {
+        return null;
+    }
+
     /**
      * Gets the expression to check if access is allowed using read acls. The dialect must suppportsReadAcl.
      *
@@ -266,6 +266,11 @@ public class DialectH2 extends Dialect {
         return true;
     }
 
+    @Override
+    public boolean supportsMultiRowInsert() {
+        return true;
+    }
+
     @Override
     public String getClobCast(boolean inOrderBy) {
         if (!inOrderBy) {
@@ -339,6 +339,17 @@ public class DialectMySQL extends Dialect {
         return true;
     }
 
+    @Override
+    public boolean supportsMultiRowInsert() {
+        return true;
+    }
+
+    @Override
+    public int getMaximumParametersForMultiRow() {
+        // keep statements well below the default max_allowed_packet
+        return 10000;
+    }
+
     @Override
     public boolean needsOrderByKeysAfterDistinct() {
         return false;
@@ -21,6 +21,8 @@
 package org.nuxeo.ecm.core.storage.sql.jdbc.dialect;
 
 import java.io.Serializable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.sql.Array;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -57,6 +59,7 @@ import org.nuxeo.ecm.core.storage.FulltextConfiguration;
 import org.nuxeo.ecm.core.storage.FulltextQueryAnalyzer;
 import org.nuxeo.ecm.core.storage.FulltextQueryAnalyzer.FulltextQuery;
 import org.nuxeo.ecm.core.storage.FulltextQueryAnalyzer.Op;
+import org.nuxeo.ecm.core.storage.sql.ColumnSpec;
 import org.nuxeo.ecm.core.storage.sql.ColumnType;
 import org.nuxeo.ecm.core.storage.sql.Model;
 import org.nuxeo.ecm.core.storage.sql.RepositoryDescriptor;
@@ -95,6 +98,8 @@ public class DialectPostgreSQL extends Dialect {
 
     protected final boolean supportsWith;
 
+    protected final boolean supportsJsonb;
+
     protected boolean hierarchyCreated;
 
     protected boolean pathOptimizationsEnabled;
@@ -130,6 +135,7 @@ public class DialectPostgreSQL extends Dialect {
             throw new NuxeoException(e);
         }
         supportsWith = major > 8 || (major == 8 && minor >= 4);
+        supportsJsonb = major > 9 || (major == 9 && minor >= 4);
         if ((major == 9 && minor >= 1) || (major > 9)) {
             unloggedKeyword = UNLOGGED_KEYWORD;
         } else {
@@ -263,6 +269,8 @@ public class DialectPostgreSQL extends Dialect {
             return jdbcInfo("int4", Types.INTEGER);
         case ARRAY_INTEGER:
             return jdbcInfo("int4[]", Types.ARRAY, "int4", Types.INTEGER);
+        case JSON:
+            return jdbcInfo("jsonb", Types.OTHER);
         case AUTOINC:
             return jdbcInfo("serial", Types.INTEGER);
         case FTINDEXED:
@@ -396,6 +404,9 @@ public class DialectPostgreSQL extends Dialect {
             } else if (type == ColumnType.FTSTORED) {
                 ps.setString(index, (String) value);
                 return;
+            } else if (type.spec == ColumnSpec.JSON) {
+                ps.setObject(index, value, Types.OTHER);
+                return;
             }
             throw new SQLException("Unhandled type: " + column.getType());
         default:
@@ -440,6 +451,8 @@ public class DialectPostgreSQL extends Dialect {
             ColumnType type = column.getType();
             if (type.isId()) {
                 return getId(rs, index);
+            } else if (type.spec == ColumnSpec.JSON) {
+                return rs.getString(index);
             }
             throw new SQLException("Unhandled type: " + column.getType());
         }
@@ -757,6 +770,22 @@ public class DialectPostgreSQL extends Dialect {
         return true;
     }
 
+    @Override
+    public boolean supportsMultiRowInsert() {
+        return true;
+    }
+
+    @Override
+    public boolean supportsMultiRowUpdate() {
+        return true;
+    }
+
+    @Override
+    public int getMaximumParametersForMultiRow() {
+        // the protocol uses a 16-bit count, and the driver a signed short
+        return 32767;
+    }
+
     @Override
     public boolean supportsReadAcl() {
         return aclOptimizationsEnabled;
@@ -774,9 +803,34 @@ public class DialectPostgreSQL extends Dialect {
 
     @Override
     public String getUpdateReadAclsSql() {
+        if (aclOptimizationsAsync) {
+            return "SELECT nx_prepare_read_acls_update();";
+        }
         return "SELECT nx_update_read_acls();";
     }
 
+    @Override
+    public boolean supportsAsyncReadAcl() {
+        return aclOptimizationsEnabled && aclOptimizationsAsync;
+    }
+
+    @Override
+    public String getUpdateReadAclsBatchSql() {
+        return "SELECT nx_update_read_acls_batch(?);";
+    }
+
+    @Override
+    public String getReadAclsPendingSql() {
+        return "SELECT nx_read_acls_pending();";
+    }
+
+    @Override
+    public String getReplicaLagSql() {
+        // no lag if all the WAL received has been replayed, which is also the case on a primary
+        return "SELECT CASE WHEN pg_last_xlog_receive_location() = pg_last_xlog_replay_location() THEN 0"
+                + " ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+    }
+
     @Override
     public String getRebuildReadAclsSql() {
         return "SELECT nx_rebuild_read_acls();";
@@ -918,6 +972,132 @@ public class DialectPostgreSQL extends Dialect {
         return new ArraySubQueryPostgreSQL(arrayColumn, subQueryAlias);
     }
 
+    @Override
+    public boolean supportsJsonColumns() {
+        return supportsJsonb;
+    }
+
+    /**
+     * Pseudo-column for a value extracted from a JSON column, as text then cast to its type.
+     *
+     * @since 8.3
+     */
+    public static class JsonPathColumnPostgreSQL extends Column {
+        private static final long serialVersionUID = 1L;
+
+        protected final String sql;
+
+        public JsonPathColumnPostgreSQL(Column jsonColumn, List<String> path, ColumnType type) {
+            super(jsonColumn.getTable(), jsonColumn.getPhysicalName(), type, jsonColumn.getKey());
+            StringBuilder buf = new StringBuilder();
+            buf.append(getJsonPathExpression(jsonColumn.getFullQuotedName(), path, true));
+            switch (type.spec) {
+            case BOOLEAN:
+                buf.append("::bool");
+                break;
+            case LONG:
+                buf.append("::int8");
+                break;
+            case DOUBLE:
+                buf.append("::float8");
+                break;
+            case TIMESTAMP:
+                // dates are stored with their offset, which a cast to timestamp would ignore
+                buf.append("::timestamptz");
+                break;
+            default:
+                // text
+            }
+            sql = buf.toString();
+        }
+
+        @Override
+        public String getFullQuotedName() {
+            return sql;
+        }
+    }
+
+    /**
+     * Gets the expression extracting a path from a JSON expression, as JSON or as text.
+     *
+     * @since 8.3
+     */
+    protected static String getJsonPathExpression(String json, List<String> path, boolean asText) {
+        StringBuilder buf = new StringBuilder();
+        buf.append("(");
+        buf.append(json);
+        buf.append(asText ? " #>> '{" : " #> '{");
+        for (int i = 0; i < path.size(); i++) {
+            if (i != 0) {
+                buf.append(',');
+            }
+            buf.append('"');
+            buf.append(path.get(i).replace("\\", "\\\\").replace("\"", "\\\"").replace("'", "''"));
+            buf.append('"');
+        }
+        buf.append("}')");
+        return buf.toString();
+    }
+
+    @Override
+    public Column getJsonPathColumn(Column jsonColumn, List<String> path, ColumnType type) {
+        return new JsonPathColumnPostgreSQL(jsonColumn, path, type);
+    }
+
+    /**
+     * Subquery returning the elements of a JSON list, one per row.
+     *
+     * @since 8.3
+     */
+    public static class JsonArraySubQueryPostgreSQL extends ArraySubQueryPostgreSQL {
+
+        public JsonArraySubQueryPostgreSQL(Column jsonColumn, String alias) {
+            super(jsonColumn, alias);
+        }
+
+        @Override
+        public Column getSubQueryValueColumn() {
+            return new ArraySubQueryPostgreSQLColumn(Model.COLL_TABLE_VALUE_KEY, ColumnType.JSON);
+        }
+
+        @Override
+        public String toSql() {
+            Table table = arrayColumn.getTable();
+            return String.format("(SELECT %s, jsonb_array_elements(%s) AS %s FROM %s) ",
+                    table.getColumn(Model.MAIN_KEY).getQuotedName(), arrayColumn.getQuotedName(),
+                    Model.COLL_TABLE_VALUE_KEY, table.getRealTable().getQuotedName());
+        }
+    }
+
+    @Override
+    public ArraySubQuery getJsonArraySubQuery(Column jsonColumn, String subQueryAlias) {
+        return new JsonArraySubQueryPostgreSQL(jsonColumn, subQueryAlias);
+    }
+
+    @Override
+    public String getJsonValuesSql(Column jsonColumn, List<String> path) {
+        // SELECT DISTINCT (_J1.value #>> '{"data"}') FROM "t", jsonb_array_elements(("t"."c" #> '{}')) AS _J1(value)
+        StringBuilder from = new StringBuilder(jsonColumn.getTable().getQuotedName());
+        String json = jsonColumn.getFullQuotedName();
+        List<String> segments = new ArrayList<>();
+        int n = 0;
+        for (String segment : path) {
+            if (!"*".equals(segment)) {
+                segments.add(segment);
+                continue;
+            }
+            String alias = "_J" + ++n;
+            from.append(", jsonb_array_elements(");
+            from.append(getJsonPathExpression(json, segments, false));
+            from.append(") AS ");
+            from.append(alias);
+            from.append("(value)");
+            json = alias + ".value";
+            segments.clear();
+        }
+        return "SELECT DISTINCT " + getJsonPathExpression(json, segments, true) + " FROM " + from;
+    }
+
     @Override
     public String getArrayElementString(String arrayColumnName, int arrayElementIndex) {
         // PostgreSQL arrays index start at 1
@@ -1140,6 +1320,76 @@ public class DialectPostgreSQL extends Dialect {
         return "DELETE FROM cluster_invals WHERE nodeid = ? RETURNING id, fragments, kind";
     }
 
+    @Override
+    public boolean isClusteringNotifySupported() {
+        return true;
+    }
+
+    @Override
+    public String getClusterListenSql(String channel) {
+        // quoted so that case is kept, as for pg_notify
+        return "LISTEN " + openQuote() + channel + closeQuote();
+    }
+
+    @Override
+    public String getClusterNotifySql() {
+        return "SELECT pg_notify(?, ?)";
+    }
+
+    @Override
+    public int getClusterNotifyMaxPayloadSize() {
+        // payload must be shorter than 8000 bytes
+        return 7999;
+    }
+
+    @Override
+    public List<String> getClusterNotifications(Connection connection, int timeoutMillis) throws SQLException {
+        // the driver is not a compile-time dependency, use reflection
+        Object[] notifications;
+        try {
+            ClassLoader cl = connection.getClass().getClassLoader();
+            Class<?> pgConnectionClass = Class.forName("org.postgresql.PGConnection", true, cl);
+            Object pgConnection = connection.isWrapperFor(pgConnectionClass) ? connection.unwrap(pgConnectionClass)
+                    : connection;
+            Method getNotifications;
+            try {
+                // since pgjdbc 42.2, waits for notifications
+                getNotifications = pgConnectionClass.getMethod("getNotifications", int.class);
+                notifications = (Object[]) getNotifications.invoke(pgConnection, Integer.valueOf(timeoutMillis));
+            } catch (NoSuchMethodException e) {
+                getNotifications = pgConnectionClass.getMethod("getNotifications");
+                notifications = (Object[]) getNotifications.invoke(pgConnection);
+                if (notifications == null || notifications.length == 0) {
+                    Thread.sleep(timeoutMillis);
+                    // older drivers only read notifications when processing a query
+                    try (Statement st = connection.createStatement()) {
+                        st.execute("SELECT 1");
+                    }
+                    notifications = (Object[]) getNotifications.invoke(pgConnection);
+                }
+            }
+            if (notifications == null || notifications.length == 0) {
+                return Collections.emptyList();
+            }
+            Method getParameter = Class.forName("org.postgresql.PGNotification", true, cl).getMethod("getParameter");
+            List<String> payloads = new ArrayList<>(notifications.length);
+            for (Object notification : notifications) {
+                payloads.add((String) getParameter.invoke(notification));
+            }
+            return payloads;
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw new NuxeoException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyList();
+        } catch (ReflectiveOperationException e) {
+            throw new NuxeoException(e);
+        }
+    }
+
     @Override
     public boolean isConcurrentUpdateException(Throwable t) {
         while (t.getCause() != null) {
@@ -224,4 +224,9 @@ public class ConnectionFactoryImpl implements Repository, org.nuxeo.ecm.core.mod
         return managedConnectionFactory.cleanupDeletedDocuments(max, beforeTime);
     }
 
+    @Override
+    public boolean updateReadAcls(int max) {
+        return managedConnectionFactory.updateReadAcls(max);
+    }
+
 }
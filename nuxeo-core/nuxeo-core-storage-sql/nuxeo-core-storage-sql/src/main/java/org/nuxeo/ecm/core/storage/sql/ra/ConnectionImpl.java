@@ -36,6 +36,7 @@ import org.apache.commons.logging.LogFactory;
 import org.nuxeo.ecm.core.api.IterableQueryResult;
 import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.api.PartialList;
+import org.nuxeo.ecm.core.api.ScrollResult;
 import org.nuxeo.ecm.core.model.LockManager;
 import org.nuxeo.ecm.core.query.QueryFilter;
 import org.nuxeo.ecm.core.storage.sql.Mapper;
@@ -348,6 +349,21 @@ public class ConnectionImpl implements Session {
         return result;
     }
 
+    @Override
+    public ScrollResult scroll(String query, int batchSize, int keepAliveSeconds) {
+        return getSession().scroll(query, batchSize, keepAliveSeconds);
+    }
+
+    @Override
+    public ScrollResult scroll(String scrollId) {
+        return getSession().scroll(scrollId);
+    }
+
+    @Override
+    public void closeScroll(String scrollId) {
+        getSession().closeScroll(scrollId);
+    }
+
     public static class QueryResultContextException extends Exception {
         private static final long serialVersionUID = 1L;
 
@@ -264,6 +264,14 @@ public class ManagedConnectionFactoryImpl implements ManagedConnectionFactory, R
         return repository.cleanupDeletedDocuments(max, beforeTime);
     }
 
+    @Override
+    public boolean updateReadAcls(int max) {
+        if (repository == null) {
+            return false;
+        }
+        return repository.updateReadAcls(max);
+    }
+
     /*
      * ----- -----
      */
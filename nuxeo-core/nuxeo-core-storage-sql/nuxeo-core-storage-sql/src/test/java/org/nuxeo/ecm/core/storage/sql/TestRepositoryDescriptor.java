@@ -60,6 +60,14 @@ public class TestRepositoryDescriptor {
         assertEquals("foo", desc.name);
         assertTrue(desc.getClusteringEnabled());
         assertEquals(1234, desc.getClusteringDelay());
+        assertEquals(500, desc.getWriteBatchSize());
+        assertTrue(desc.getWriteBatchMultiRowEnabled());
+        assertTrue(desc.getAclOptimizationsAsync());
+        assertEquals(RepositoryDescriptor.DEFAULT_READ_ACL_UPDATE_BATCH_SIZE, desc.getReadAclUpdateBatchSize());
+        assertFalse(desc.getQueryPlanCacheEnabled());
+        assertEquals(RepositoryDescriptor.DEFAULT_QUERY_PLAN_CACHE_SIZE, desc.getQueryPlanCacheSize());
+        assertEquals("jdbc/replica", desc.getReadReplicaDataSource());
+        assertEquals(RepositoryDescriptor.DEFAULT_READ_REPLICA_MAX_LAG, desc.getReadReplicaMaxLag());
     }
 
     @Test
@@ -135,6 +143,7 @@ public class TestRepositoryDescriptor {
         assertEquals("bartype", fd.type);
         assertEquals("bartable", fd.table);
         assertEquals("barcol", fd.column);
+        assertEquals(Collections.singleton("files"), desc.jsonSchemas);
     }
 
     @Test
@@ -151,6 +160,14 @@ public class TestRepositoryDescriptor {
         assertEquals(Arrays.asList("file1", "file2", "file3"), desc.sqlInitFiles);
         assertTrue(desc.getPathOptimizationsEnabled());
         assertEquals(2, desc.getPathOptimizationsVersion());
+        assertEquals(500, desc.getWriteBatchSize());
+        assertFalse(desc.getWriteBatchMultiRowEnabled());
+        assertTrue(desc.getAclOptimizationsAsync());
+        assertEquals(200, desc.getReadAclUpdateBatchSize());
+        assertTrue(desc.getQueryPlanCacheEnabled());
+        assertEquals(50, desc.getQueryPlanCacheSize());
+        assertEquals("jdbc/replica", desc.getReadReplicaDataSource());
+        assertEquals(5, desc.getReadReplicaMaxLag());
 
         // schema fields
 
@@ -171,6 +188,7 @@ public class TestRepositoryDescriptor {
         fd = desc.schemaFields.get(3);
         assertEquals("def", fd.field);
         assertEquals("abc", fd.type);
+        assertEquals(new HashSet<String>(Arrays.asList("files", "complex")), desc.jsonSchemas);
 
         // fulltext indexes
 
@@ -0,0 +1,96 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.sql;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class TestRow {
+
+    protected static final RowLayout LAYOUT = new RowLayout("dublincore", Arrays.asList("title", "description"));
+
+    @Test
+    public void testLayout() {
+        assertEquals(0, LAYOUT.getSlot("title"));
+        assertEquals(1, LAYOUT.getSlot("description"));
+        assertEquals(-1, LAYOUT.getSlot("foo"));
+        assertEquals(2, LAYOUT.size());
+    }
+
+    @Test
+    public void testPutGet() {
+        Row row = new Row("dublincore", "id1", LAYOUT);
+        assertSame(LAYOUT, row.getLayout());
+        assertNull(row.get("title"));
+        row.put("description", "desc");
+        row.put(LAYOUT.getSlot("title"), "title", "title");
+        assertEquals("title", row.get("title"));
+        assertEquals("desc", row.get(LAYOUT.getSlot("description"), "description"));
+        assertEquals("id1", row.get(Model.MAIN_KEY));
+        // keys outside of the layout are still accepted
+        row.put("foo", "bar");
+        assertEquals("bar", row.get("foo"));
+        assertEquals(Arrays.asList("title", "description", "foo"), row.getKeys());
+    }
+
+    @Test
+    public void testCloneAndClear() {
+        Row row = new Row("dublincore", "id1", LAYOUT);
+        row.put("title", "title");
+        row.put("foo", "bar");
+        Row clone = row.clone();
+        clone.put("title", "other");
+        assertEquals("title", row.get("title"));
+        assertEquals("other", clone.get("title"));
+        assertEquals("bar", clone.get("foo"));
+        row.clear();
+        assertNull(row.get("title"));
+        assertNull(row.get("foo"));
+        assertEquals(Arrays.asList("title", "description"), row.getKeys());
+        assertEquals("other", clone.get("title"));
+    }
+
+    @Test
+    public void testClearThenPutExtraKey() {
+        Row row = new Row("dublincore", "id1", LAYOUT);
+        row.put("foo", "bar");
+        row.clear();
+        // must not write into the shared layout keys
+        row.put("gee", "moo");
+        assertEquals("moo", row.get("gee"));
+        assertNull(row.get("foo"));
+        assertEquals(Arrays.asList("title", "description", "gee"), row.getKeys());
+        assertEquals(Arrays.asList("title", "description"), Arrays.asList(LAYOUT.keys));
+    }
+
+    @Test
+    public void testNoLayout() {
+        Row row = new Row("dublincore", "id1");
+        assertNull(row.getLayout());
+        row.put("title", "title");
+        assertEquals("title", row.get("title"));
+        assertEquals(Arrays.asList("title"), row.getKeys());
+    }
+
+}
@@ -0,0 +1,110 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.sql.coremodel;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.List;
+
+import org.junit.Test;
+import org.nuxeo.ecm.core.schema.types.ComplexTypeImpl;
+import org.nuxeo.ecm.core.schema.types.ListTypeImpl;
+import org.nuxeo.ecm.core.schema.types.constraints.Constraint;
+import org.nuxeo.ecm.core.schema.types.primitives.BooleanType;
+import org.nuxeo.ecm.core.schema.types.primitives.DateType;
+import org.nuxeo.ecm.core.schema.types.primitives.DoubleType;
+import org.nuxeo.ecm.core.schema.types.primitives.LongType;
+import org.nuxeo.ecm.core.schema.types.primitives.StringType;
+import org.nuxeo.ecm.core.storage.State;
+
+public class TestSQLJsonHelper {
+
+    protected static ListTypeImpl getListType() {
+        ComplexTypeImpl item = new ComplexTypeImpl(null, "test", "item");
+        item.addField("name", StringType.INSTANCE, null, 0, new HashSet<Constraint>());
+        item.addField("count", LongType.INSTANCE, null, 0, new HashSet<Constraint>());
+        item.addField("ratio", DoubleType.INSTANCE, null, 0, new HashSet<Constraint>());
+        item.addField("flag", BooleanType.INSTANCE, null, 0, new HashSet<Constraint>());
+        item.addField("date", DateType.INSTANCE, null, 0, new HashSet<Constraint>());
+        item.addField("tags", new ListTypeImpl("test", "tags", StringType.INSTANCE), null, 0,
+                new HashSet<Constraint>());
+        return new ListTypeImpl("test", "items", item);
+    }
+
+    @Test
+    public void testEmpty() {
+        assertNull(SQLJsonHelper.toJson(null));
+        assertNull(SQLJsonHelper.toJson(new State()));
+        assertNull(SQLJsonHelper.toJson(new ArrayList<State>()));
+        assertNull(SQLJsonHelper.fromJson(null, getListType()));
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Calendar date = new GregorianCalendar(2016, Calendar.JULY, 14, 12, 30, 0);
+        State state1 = new State();
+        state1.put("name", "it's \"quoted\"");
+        state1.put("count", Long.valueOf(3));
+        state1.put("ratio", Double.valueOf(0.5));
+        state1.put("flag", Boolean.TRUE);
+        state1.put("date", date);
+        state1.put("tags", new String[] { "a", "b" });
+        State state2 = new State();
+        state2.put("name", "bar");
+        ArrayList<State> list = new ArrayList<>();
+        list.add(state1);
+        list.add(state2);
+
+        String json = SQLJsonHelper.toJson(list);
+        @SuppressWarnings("unchecked")
+        List<State> read = (List<State>) SQLJsonHelper.fromJson(json, getListType());
+        assertEquals(2, read.size());
+        State s1 = read.get(0);
+        assertEquals("it's \"quoted\"", s1.get("name"));
+        assertEquals(Long.valueOf(3), s1.get("count"));
+        assertEquals(Double.valueOf(0.5), s1.get("ratio"));
+        assertEquals(Boolean.TRUE, s1.get("flag"));
+        assertEquals(date.getTimeInMillis(), ((Calendar) s1.get("date")).getTimeInMillis());
+        assertArrayEquals(new String[] { "a", "b" }, (Object[]) s1.get("tags"));
+        assertEquals(String[].class, s1.get("tags").getClass());
+        State s2 = read.get(1);
+        assertEquals("bar", s2.get("name"));
+        assertNull(s2.get("count"));
+        // stable serialization
+        assertEquals(json, SQLJsonHelper.toJson((Serializable) read));
+    }
+
+    @Test
+    public void testUnknownField() {
+        String json = "[{\"name\":\"foo\",\"removed\":{\"a\":[1,2]}}]";
+        @SuppressWarnings("unchecked")
+        List<State> read = (List<State>) SQLJsonHelper.fromJson(json, getListType());
+        assertEquals(1, read.size());
+        assertEquals("foo", read.get(0).get("name"));
+        assertNull(read.get(0).get("removed"));
+    }
+
+}
@@ -0,0 +1,90 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.Test;
+import org.nuxeo.ecm.core.storage.sql.Invalidations;
+import org.nuxeo.ecm.core.storage.sql.RowId;
+
+public class TestJDBCNotifyInvalidations {
+
+    protected static final int MAX_PAYLOAD_SIZE = 7999;
+
+    @Test
+    public void testRoundTrip() {
+        Invalidations invals = new Invalidations();
+        invals.addModified(new RowId("hierarchy", "id1"));
+        invals.addModified(new RowId("dublincore", "id1"));
+        invals.addModified(new RowId(Invalidations.PARENT, "id2"));
+        invals.addDeleted(new RowId("hierarchy", Long.valueOf(123)));
+
+        List<String> payloads = JDBCNotifyInvalidations.serialize("node1", invals, MAX_PAYLOAD_SIZE);
+        assertEquals(1, payloads.size());
+        JDBCNotifyInvalidations notified = new JDBCNotifyInvalidations(payloads.get(0));
+        assertEquals("node1", notified.nodeId);
+        assertTrue(notified.timestamp > 0);
+        assertFalse(notified.invalidations.all);
+        assertEquals(invals.modified, notified.invalidations.modified);
+        assertEquals(invals.deleted, notified.invalidations.deleted);
+    }
+
+    @Test
+    public void testAll() {
+        List<String> payloads = JDBCNotifyInvalidations.serialize("node1", new Invalidations(true), MAX_PAYLOAD_SIZE);
+        assertEquals(1, payloads.size());
+        Invalidations invals = new JDBCNotifyInvalidations(payloads.get(0)).invalidations;
+        assertTrue(invals.all);
+        assertNull(invals.modified);
+        assertNull(invals.deleted);
+    }
+
+    @Test
+    public void testChunking() {
+        Invalidations invals = new Invalidations();
+        for (int i = 0; i < 1000; i++) {
+            String id = UUID.randomUUID().toString();
+            invals.addModified(new RowId("hierarchy", id));
+            invals.addModified(new RowId("dublincore", id));
+        }
+
+        List<String> payloads = JDBCNotifyInvalidations.serialize("node1", invals, MAX_PAYLOAD_SIZE);
+        assertTrue(payloads.size() > 1);
+        Invalidations received = new Invalidations();
+        for (String payload : payloads) {
+            assertTrue(payload.length() <= MAX_PAYLOAD_SIZE);
+            received.add(new JDBCNotifyInvalidations(payload).invalidations);
+        }
+        assertEquals(invals.modified, received.modified);
+        assertNull(received.deleted);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidPayload() {
+        new JDBCNotifyInvalidations("Zm9v");
+    }
+
+}
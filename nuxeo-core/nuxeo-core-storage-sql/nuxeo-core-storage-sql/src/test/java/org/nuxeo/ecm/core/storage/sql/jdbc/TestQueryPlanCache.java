@@ -0,0 +1,136 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage.sql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+import org.nuxeo.ecm.core.storage.sql.jdbc.QueryMaker.Query;
+import org.nuxeo.ecm.core.storage.sql.jdbc.QueryPlanCache.ParsedQuery;
+import org.nuxeo.ecm.core.storage.sql.jdbc.QueryPlanCache.PlanBuilder;
+import org.nuxeo.ecm.core.storage.sql.jdbc.SQLInfo.SQLInfoSelect;
+
+public class TestQueryPlanCache {
+
+    /**
+     * Builds "SELECT * FROM t WHERE type = 'x' AND title = ?" from the first literal as a type and the second as a
+     * title.
+     */
+    protected static class DummyBuilder implements PlanBuilder {
+
+        protected final List<String> literals;
+
+        protected final String principals = "bob";
+
+        protected int builds;
+
+        protected DummyBuilder(ParsedQuery parsed) {
+            literals = parsed.literals;
+        }
+
+        @Override
+        public Query build() {
+            builds++;
+            Query q = new Query();
+            q.selectInfo = new SQLInfoSelect("SELECT * FROM t WHERE type = '" + literals.get(0)
+                    + "' AND title = ? AND acl(?)", null);
+            q.selectParams.add(literals.get(1));
+            q.selectParams.add(principals);
+            return q;
+        }
+
+        @Override
+        public boolean isCacheable() {
+            return true;
+        }
+
+        @Override
+        public Set<String> getStructuralLiterals() {
+            return Collections.singleton(literals.get(0));
+        }
+
+        @Override
+        public Serializable getPrincipalsParam() {
+            return principals;
+        }
+
+        @Override
+        public Serializable getPermissionsParam() {
+            return null;
+        }
+    }
+
+    protected static Query getQuery(QueryPlanCache cache, String query, int expectedBuilds) {
+        ParsedQuery parsed = QueryPlanCache.parse(query);
+        DummyBuilder builder = new DummyBuilder(parsed);
+        Query q = cache.getQuery(parsed.normalized, parsed, builder);
+        assertEquals(expectedBuilds, builder.builds);
+        return q;
+    }
+
+    @Test
+    public void testParse() {
+        ParsedQuery parsed = QueryPlanCache.parse("SELECT * FROM File WHERE dc:title = 'it\\'s' OR dc:title = "
+                + "\"a \\\"b\\\"\\n\" AND ecm:isProxy = 0");
+        assertEquals("SELECT * FROM File WHERE dc:title = ? OR dc:title = ? AND ecm:isProxy = 0", parsed.normalized);
+        assertEquals(Arrays.asList("it's", "a \"b\"\n"), parsed.literals);
+    }
+
+    @Test
+    public void testBindable() {
+        List<String> literals = Arrays.asList("Note", "foo", "foo", "bar");
+        List<Serializable> params = Arrays.<Serializable> asList("foo", "Note", "bar");
+        Set<String> structural = new HashSet<String>(Collections.singleton("Note"));
+        boolean[] bindable = QueryPlanCache.getBindable(literals, params, structural);
+        assertEquals("[false, false, false, true]", Arrays.toString(bindable));
+    }
+
+    @Test
+    public void testCache() {
+        QueryPlanCache cache = new QueryPlanCache("test", 10);
+        String query = "SELECT * FROM Document WHERE ecm:primaryType = 'Note' AND dc:title = ";
+
+        // first build, plan reused for identical literals
+        getQuery(cache, query + "'foo'", 1);
+        Query q = getQuery(cache, query + "'foo'", 0);
+        assertEquals(Arrays.asList("foo", "bob"), q.selectParams);
+
+        // second build with another value validates the plan
+        getQuery(cache, query + "'bar'", 1);
+        q = getQuery(cache, query + "'baz'", 0);
+        assertEquals("SELECT * FROM t WHERE type = 'Note' AND title = ? AND acl(?)", q.selectInfo.sql);
+        assertEquals(Arrays.asList("baz", "bob"), q.selectParams);
+
+        // structural literals have their own plan
+        getQuery(cache, "SELECT * FROM Document WHERE ecm:primaryType = 'File' AND dc:title = 'foo'", 1);
+        q = getQuery(cache, "SELECT * FROM Document WHERE ecm:primaryType = 'File' AND dc:title = 'foo'", 0);
+        assertEquals("SELECT * FROM t WHERE type = 'File' AND title = ? AND acl(?)", q.selectInfo.sql);
+
+        cache.clear();
+        getQuery(cache, query + "'baz'", 1);
+    }
+
+}
@@ -26,6 +26,7 @@ import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
 
 import org.hamcrest.core.StringContains;
 import org.jmock.Expectations;
@@ -38,7 +39,12 @@ import org.junit.runner.RunWith;
 import org.nuxeo.ecm.core.storage.FulltextQueryAnalyzer;
 import org.nuxeo.ecm.core.storage.FulltextQueryAnalyzer.FulltextQuery;
 import org.nuxeo.ecm.core.storage.FulltextQueryAnalyzer.Op;
+import org.nuxeo.ecm.core.storage.sql.ColumnType;
+import org.nuxeo.ecm.core.storage.sql.Model;
 import org.nuxeo.ecm.core.storage.sql.RepositoryDescriptor;
+import org.nuxeo.ecm.core.storage.sql.jdbc.db.Column;
+import org.nuxeo.ecm.core.storage.sql.jdbc.db.TableImpl;
+import org.nuxeo.ecm.core.storage.sql.jdbc.dialect.Dialect.ArraySubQuery;
 
 @RunWith(JMock.class)
 public class TestDialectQuerySyntax {
@@ -298,6 +304,39 @@ public class TestDialectQuerySyntax {
         assertDialectFT("(foo & bar:*) @#AND#@ ?? LIKE '% foo bar%'", "\"foo bar*\"");
     }
 
+    @Test
+    public void testPostgreSQLJsonPaths() throws Exception {
+        dialect = new DialectPostgreSQL(metadata, repositoryDescriptor);
+        TableImpl table = new TableImpl(dialect, "cpx", "cpx");
+        table.addColumn(Model.MAIN_KEY, ColumnType.NODEID, Model.MAIN_KEY, null);
+        Column json = table.addColumn("files", ColumnType.JSON, "files", null);
+
+        // cpx:files/0/file/name = 'foo'
+        Column column = dialect.getJsonPathColumn(json, Arrays.asList("0", "file", "name"), ColumnType.STRING);
+        assertEquals("(\"cpx\".\"files\" #>> '{\"0\",\"file\",\"name\"}')", column.getFullQuotedName());
+        // cpx:files/0/size > 10
+        column = dialect.getJsonPathColumn(json, Arrays.asList("0", "size"), ColumnType.LONG);
+        assertEquals("(\"cpx\".\"files\" #>> '{\"0\",\"size\"}')::int8", column.getFullQuotedName());
+        // cpx:files/0/date > TIMESTAMP '...', keeping the offset the date was stored with
+        column = dialect.getJsonPathColumn(json, Arrays.asList("0", "date"), ColumnType.TIMESTAMP);
+        assertEquals("(\"cpx\".\"files\" #>> '{\"0\",\"date\"}')::timestamptz", column.getFullQuotedName());
+        // quotes in a path segment
+        column = dialect.getJsonPathColumn(json, Arrays.asList("it's \"x\""), ColumnType.STRING);
+        assertEquals("(\"cpx\".\"files\" #>> '{\"it''s \\\"x\\\"\"}')", column.getFullQuotedName());
+
+        // cpx:files/*1/size > 10, joining on the list elements
+        ArraySubQuery subQuery = dialect.getJsonArraySubQuery(json, "_A1");
+        assertEquals("(SELECT \"id\", jsonb_array_elements(\"files\") AS item FROM \"cpx\") ", subQuery.toSql());
+        assertEquals("\"_A1\".\"id\"", subQuery.getSubQueryIdColumn().getFullQuotedName());
+        column = dialect.getJsonPathColumn(subQuery.getSubQueryValueColumn(), Arrays.asList("size"), ColumnType.LONG);
+        assertEquals("(\"_A1\".\"item\" #>> '{\"size\"}')::int8", column.getFullQuotedName());
+
+        // distinct values of cpx:files/*/file/name
+        assertEquals("SELECT DISTINCT (_J1.value #>> '{\"file\",\"name\"}') FROM \"cpx\", "
+                + "jsonb_array_elements((\"cpx\".\"files\" #> '{}')) AS _J1(value)",
+                dialect.getJsonValuesSql(json, Arrays.asList("*", "file", "name")));
+    }
+
     @Test
     public void testMySQL() throws Exception {
         dialect = new DialectMySQL(metadata, repositoryDescriptor);
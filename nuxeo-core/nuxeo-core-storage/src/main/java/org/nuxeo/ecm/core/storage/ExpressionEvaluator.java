@@ -222,10 +222,8 @@ public abstract class ExpressionEvaluator {
             // placeless
             return eq ? FALSE : TRUE;
         }
-        for (Object id : ancestorIds) {
-            if (ancestorId.equals(id)) {
-                return eq ? TRUE : FALSE;
-            }
+        if (hasAncestor(ancestorIds, ancestorId)) {
+            return eq ? TRUE : FALSE;
         }
         return eq ? FALSE : TRUE;
     }
@@ -480,12 +478,23 @@ public abstract class ExpressionEvaluator {
             // placeless
             return FALSE;
         }
+        return hasAncestor(ancestorIds, ancestorId) ? TRUE : FALSE;
+    }
+
+    /**
+     * Checks if a document having the given ancestors is under the given ancestor.
+     *
+     * @param ancestorIds the ancestors of the document
+     * @param ancestorId the ancestor to check
+     * @since 8.3
+     */
+    protected boolean hasAncestor(Object[] ancestorIds, String ancestorId) {
         for (Object id : ancestorIds) {
             if (ancestorId.equals(id)) {
-                return TRUE;
+                return true;
             }
         }
-        return FALSE;
+        return false;
     }
 
     protected Boolean walkStartsWithNonPath(Operand lvalue, String path) {
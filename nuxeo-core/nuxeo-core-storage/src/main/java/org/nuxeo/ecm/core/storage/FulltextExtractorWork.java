@@ -20,8 +20,18 @@
 package org.nuxeo.ecm.core.storage;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
@@ -29,6 +39,7 @@ import org.apache.commons.logging.LogFactory;
 import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.DocumentModel;
 import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.api.blobholder.BlobHolder;
 import org.nuxeo.ecm.core.api.blobholder.SimpleBlobHolder;
 import org.nuxeo.ecm.core.convert.api.ConversionException;
@@ -45,6 +56,10 @@ import org.nuxeo.runtime.api.Framework;
  * <p>
  * The extracted fulltext is then passed to the single-threaded {@link FulltextUpdaterWork}.
  * <p>
+ * The text of each distinct blob is extracted only once even if it's used by several indexes, and is looked up first in
+ * the {@link FulltextTextCache}. When several blobs have to be converted, the conversions are done in parallel by a
+ * shared pool of threads.
+ * <p>
  * This base abstract class must be subclassed in order to implement the proper
  * {@link #initFulltextConfigurationAndParser} depending on the storage.
  *
@@ -62,6 +77,18 @@ public abstract class FulltextExtractorWork extends AbstractWork {
 
     protected static final String TITLE = "fulltextExtractor";
 
+    /**
+     * Number of threads used to convert in parallel the blobs of a document, {@code 1} to convert them serially.
+     *
+     * @since 8.3
+     */
+    public static final String EXTRACTOR_THREADS_PROP = "org.nuxeo.fulltext.extractor.threads";
+
+    private static volatile ExecutorService extractorExecutor;
+
+    /** Whether {@link #extractorExecutor} was initialized, it stays {@code null} when blobs are converted serially. */
+    private static volatile boolean extractorExecutorInitialized;
+
     protected final boolean excludeProxies;
 
     protected transient FulltextConfiguration fulltextConfiguration;
@@ -134,9 +161,9 @@ public abstract class FulltextExtractorWork extends AbstractWork {
             return;
         }
 
-        // Iterate on each index to set the binaryText column
+        // Find the blobs for each index
         BlobsExtractor extractor = new BlobsExtractor();
-        List<IndexAndText> indexesAndText = new LinkedList<IndexAndText>();
+        Map<String, List<Blob>> indexesBlobs = new LinkedHashMap<>();
         for (String indexName : fulltextConfiguration.indexNames) {
             if (!fulltextConfiguration.indexesAllBinary.contains(indexName)
                     && fulltextConfiguration.propPathsByIndexBinary.get(indexName) == null) {
@@ -146,10 +173,27 @@ public abstract class FulltextExtractorWork extends AbstractWork {
             extractor.setExtractorProperties(fulltextConfiguration.propPathsByIndexBinary.get(indexName),
                     fulltextConfiguration.propPathsExcludedByIndexBinary.get(indexName),
                     fulltextConfiguration.indexesAllBinary.contains(indexName));
-            List<Blob> blobs = extractor.getBlobs(doc);
-            String text = blobsToText(blobs, docId);
+            indexesBlobs.put(indexName, extractor.getBlobs(doc));
+        }
+
+        // Extract the text of all the blobs at once, then set the binaryText column of each index
+        List<Blob> allBlobs = new ArrayList<>();
+        for (List<Blob> blobs : indexesBlobs.values()) {
+            allBlobs.addAll(blobs);
+        }
+        Map<Object, String> blobsTexts = blobsToTexts(allBlobs, docId);
+        List<IndexAndText> indexesAndText = new LinkedList<IndexAndText>();
+        for (Entry<String, List<Blob>> en : indexesBlobs.entrySet()) {
+            List<String> strings = new ArrayList<>(en.getValue().size());
+            for (Blob blob : en.getValue()) {
+                String string = blobsTexts.get(getBlobKey(blob));
+                if (string != null) {
+                    strings.add(string);
+                }
+            }
+            String text = StringUtils.join(strings, " ");
             text = fulltextParser.parse(text, null);
-            indexesAndText.add(new IndexAndText(indexName, text));
+            indexesAndText.add(new IndexAndText(en.getKey(), text));
         }
         if (!indexesAndText.isEmpty()) {
             Work work = new FulltextUpdaterWork(repositoryName, docId, false, true, indexesAndText);
@@ -173,31 +217,214 @@ public abstract class FulltextExtractorWork extends AbstractWork {
     protected String blobsToText(List<Blob> blobs, String docId) {
         List<String> strings = new LinkedList<String>();
         for (Blob blob : blobs) {
-            try {
-                SimpleBlobHolder bh = new SimpleBlobHolder(blob);
-                BlobHolder result = convert(bh);
-                if (result == null) {
-                    continue;
+            String string = blobToText(blob, docId);
+            if (string != null) {
+                strings.add(string);
+            }
+        }
+        return StringUtils.join(strings, " ");
+    }
+
+    /**
+     * Gets the key identifying a distinct blob: its cache key if it has a digest, otherwise the blob instance itself.
+     *
+     * @since 8.3
+     */
+    protected static Object getBlobKey(Blob blob) {
+        String key = FulltextTextCache.getKey(blob);
+        return key == null ? new BlobInstanceKey(blob) : key;
+    }
+
+    /**
+     * Key for a blob without digest, compared by instance as {@link Blob#equals} may compare the streams.
+     *
+     * @since 8.3
+     */
+    protected static class BlobInstanceKey {
+
+        protected final Blob blob;
+
+        protected BlobInstanceKey(Blob blob) {
+            this.blob = blob;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(blob);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof BlobInstanceKey && ((BlobInstanceKey) other).blob == blob;
+        }
+    }
+
+    /**
+     * Extracts the text of the given blobs, each distinct blob being converted only once. The cache is checked first,
+     * then if several blobs have to be converted they are converted in parallel.
+     *
+     * @return a map of blob key (from {@link #getBlobKey}) to text, without entry if the text could not be extracted
+     * @since 8.3
+     */
+    protected Map<Object, String> blobsToTexts(List<Blob> blobs, String docId) {
+        Map<Object, String> texts = new LinkedHashMap<>();
+        Map<Object, Blob> distinctBlobs = new LinkedHashMap<>();
+        FulltextTextCache cache = FulltextTextCache.getInstance();
+        for (Blob blob : blobs) {
+            Object key = getBlobKey(blob);
+            if (texts.containsKey(key) || distinctBlobs.containsKey(key)) {
+                continue;
+            }
+            String cacheKey = getCacheKey(cache, key);
+            String text = cacheKey == null ? null : cache.getText(cacheKey);
+            if (text != null) {
+                texts.put(key, text);
+            } else {
+                distinctBlobs.put(key, blob);
+            }
+        }
+        ExecutorService executor = distinctBlobs.size() > 1 ? getExtractorExecutor() : null;
+        // the cache was already checked for these blobs
+        if (executor == null) {
+            for (Entry<Object, Blob> en : distinctBlobs.entrySet()) {
+                String text = convertToText(en.getValue(), getCacheKey(cache, en.getKey()), docId);
+                if (text != null) {
+                    texts.put(en.getKey(), text);
+                }
+            }
+            return texts;
+        }
+        Map<Object, Future<String>> futures = new LinkedHashMap<>();
+        for (Entry<Object, Blob> en : distinctBlobs.entrySet()) {
+            Blob blob = en.getValue();
+            String cacheKey = getCacheKey(cache, en.getKey());
+            futures.put(en.getKey(), executor.submit(() -> convertToText(blob, cacheKey, docId)));
+        }
+        try {
+            for (Entry<Object, Future<String>> en : futures.entrySet()) {
+                String text = en.getValue().get();
+                if (text != null) {
+                    texts.put(en.getKey(), text);
                 }
-                blob = result.getBlob();
-                if (blob == null) {
-                    continue;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NuxeoException(e);
+        } catch (ExecutionException e) {
+            throw new NuxeoException(e.getCause());
+        } finally {
+            for (Future<String> future : futures.values()) {
+                future.cancel(true);
+            }
+        }
+        return texts;
+    }
+
+    /**
+     * Gets the {@link FulltextTextCache} key of a blob key (from {@link #getBlobKey}).
+     *
+     * @return the cache key, or {@code null} if there is no cache or the blob has no digest
+     */
+    protected static String getCacheKey(FulltextTextCache cache, Object key) {
+        return cache != null && key instanceof String ? (String) key : null;
+    }
+
+    /**
+     * Extracts the text of a blob, using the {@link FulltextTextCache} if possible.
+     *
+     * @return the text, or {@code null} if it could not be extracted
+     * @since 8.3
+     */
+    protected String blobToText(Blob blob, String docId) {
+        FulltextTextCache cache = FulltextTextCache.getInstance();
+        String key = cache == null ? null : FulltextTextCache.getKey(blob);
+        if (key != null) {
+            String string = cache.getText(key);
+            if (string != null) {
+                return string;
+            }
+        }
+        return convertToText(blob, key, docId);
+    }
+
+    /**
+     * Converts a blob to text, without looking it up in the {@link FulltextTextCache}.
+     *
+     * @param key the cache key under which to store the text, or {@code null} not to store it
+     * @return the text, or {@code null} if it could not be extracted
+     * @since 8.3
+     */
+    protected String convertToText(Blob blob, String key, String docId) {
+        try {
+            SimpleBlobHolder bh = new SimpleBlobHolder(blob);
+            BlobHolder result = convert(bh);
+            if (result == null) {
+                return null;
+            }
+            Blob textBlob = result.getBlob();
+            if (textBlob == null) {
+                return null;
+            }
+            String string = new String(textBlob.getByteArray(), "UTF-8");
+            // strip '\0 chars from text
+            if (string.indexOf('\0') >= 0) {
+                string = string.replace("\0", " ");
+            }
+            if (key != null) {
+                FulltextTextCache cache = FulltextTextCache.getInstance();
+                if (cache != null) {
+                    cache.putText(key, string);
                 }
-                String string = new String(blob.getByteArray(), "UTF-8");
-                // strip '\0 chars from text
-                if (string.indexOf('\0') >= 0) {
-                    string = string.replace("\0", " ");
+            }
+            return string;
+        } catch (ConversionException | IOException e) {
+            String msg = "Could not extract fulltext of file '" + blob.getFilename() + "' for document: " + docId
+                    + ": " + e;
+            log.warn(msg);
+            log.debug(msg, e);
+            return null;
+        }
+    }
+
+    /**
+     * Gets the pool of threads shared by all the extractors to convert blobs in parallel.
+     *
+     * @return the executor, or {@code null} if blobs must be converted serially
+     */
+    protected static ExecutorService getExtractorExecutor() {
+        if (!extractorExecutorInitialized) {
+            synchronized (FulltextExtractorWork.class) {
+                if (!extractorExecutorInitialized) {
+                    int defaultThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+                    String prop = Framework.getProperty(EXTRACTOR_THREADS_PROP, String.valueOf(defaultThreads));
+                    int threads;
+                    try {
+                        threads = Integer.parseInt(prop.trim());
+                    } catch (NumberFormatException e) {
+                        log.error("Invalid value for " + EXTRACTOR_THREADS_PROP + ": " + prop);
+                        threads = defaultThreads;
+                    }
+                    if (threads > 1) {
+                        extractorExecutor = Executors.newFixedThreadPool(threads, new ExtractorThreadFactory());
+                    }
+                    extractorExecutorInitialized = true;
                 }
-                strings.add(string);
-            } catch (ConversionException | IOException e) {
-                String msg = "Could not extract fulltext of file '" + blob.getFilename() + "' for document: " + docId
-                        + ": " + e;
-                log.warn(msg);
-                log.debug(msg, e);
-                continue;
             }
         }
-        return StringUtils.join(strings, " ");
+        return extractorExecutor;
+    }
+
+    protected static class ExtractorThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Nuxeo-Fulltext-Extractor-" + threadNumber.incrementAndGet());
+            // don't prevent shutdown
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 
     protected BlobHolder convert(BlobHolder blobHolder) throws ConversionException {
@@ -0,0 +1,185 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.common.file.FileCache;
+import org.nuxeo.common.file.LRUFileCache;
+import org.nuxeo.common.utils.SizeUtils;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.trackers.files.FileEventTracker;
+
+/**
+ * Cache of the text extracted from blobs for fulltext indexing, keyed by blob digest.
+ * <p>
+ * The same binary is often attached to many documents (versions, proxies, copies), and its text conversion is costly,
+ * so the extracted text is kept in a bounded LRU cache on disk and reused.
+ * <p>
+ * The cache key includes the MIME type (or the filename if there is no MIME type) as they drive the choice of the
+ * converter. Blobs without digest are not cached.
+ *
+ * @since 8.3
+ */
+public class FulltextTextCache {
+
+    private static final Log log = LogFactory.getLog(FulltextTextCache.class);
+
+    public static final String ENABLED_PROP = "org.nuxeo.fulltext.textCache.enabled";
+
+    public static final String MAX_SIZE_PROP = "org.nuxeo.fulltext.textCache.maxSize";
+
+    public static final String MAX_COUNT_PROP = "org.nuxeo.fulltext.textCache.maxCount";
+
+    public static final String MIN_AGE_PROP = "org.nuxeo.fulltext.textCache.minAge";
+
+    public static final String DEFAULT_MAX_SIZE = "100 MB";
+
+    public static final String DEFAULT_MAX_COUNT = "10000";
+
+    public static final String DEFAULT_MIN_AGE = "60"; // 1 min
+
+    private static volatile FulltextTextCache instance;
+
+    protected final FileCache fileCache;
+
+    protected FulltextTextCache(FileCache fileCache) {
+        this.fileCache = fileCache;
+    }
+
+    /**
+     * Gets the shared cache.
+     *
+     * @return the cache, or {@code null} if it's disabled or could not be created
+     */
+    public static FulltextTextCache getInstance() {
+        if (instance == null) {
+            synchronized (FulltextTextCache.class) {
+                if (instance == null) {
+                    instance = createInstance();
+                }
+            }
+        }
+        return instance.fileCache == null ? null : instance;
+    }
+
+    protected static FulltextTextCache createInstance() {
+        if (Boolean.FALSE.toString().equals(Framework.getProperty(ENABLED_PROP))) {
+            return new FulltextTextCache(null);
+        }
+        String maxSizeStr = Framework.getProperty(MAX_SIZE_PROP, DEFAULT_MAX_SIZE);
+        String maxCountStr = Framework.getProperty(MAX_COUNT_PROP, DEFAULT_MAX_COUNT);
+        String minAgeStr = Framework.getProperty(MIN_AGE_PROP, DEFAULT_MIN_AGE);
+        try {
+            File dir = Framework.createTempFile("nxtextcache.", "");
+            dir.delete();
+            dir.mkdir();
+            long maxSize = SizeUtils.parseSizeInBytes(maxSizeStr);
+            long maxCount = Long.parseLong(maxCountStr);
+            long minAge = Long.parseLong(minAgeStr);
+            FileCache fileCache = new LRUFileCache(dir, maxSize, maxCount, minAge);
+            log.info("Using fulltext text cache directory: " + dir.getPath() + " size: " + maxSizeStr + " maxCount: "
+                    + maxCount + " minAge: " + minAge);
+            // be sure FileTracker won't steal our files !
+            FileEventTracker.registerProtectedPath(dir.getAbsolutePath());
+            return new FulltextTextCache(fileCache);
+        } catch (IOException | NumberFormatException e) {
+            log.error("Cannot create fulltext text cache, extracted text will not be cached", e);
+            return new FulltextTextCache(null);
+        }
+    }
+
+    /**
+     * Gets the cache key for a blob.
+     *
+     * @return the key, or {@code null} if the blob cannot be cached
+     */
+    public static String getKey(Blob blob) {
+        String digest = blob.getDigest();
+        if (StringUtils.isEmpty(digest)) {
+            return null;
+        }
+        String mimeType = blob.getMimeType();
+        String discriminant = StringUtils.isEmpty(mimeType) ? "filename:" + blob.getFilename() : mimeType;
+        try {
+            MessageDigest md = MessageDigest.getInstance("MD5");
+            md.update(digest.getBytes(StandardCharsets.UTF_8));
+            md.update((byte) 0);
+            md.update(discriminant.getBytes(StandardCharsets.UTF_8));
+            return toHexString(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e); // cannot happen
+        }
+    }
+
+    protected static String toHexString(byte[] bytes) {
+        StringBuilder buf = new StringBuilder(2 * bytes.length);
+        for (byte b : bytes) {
+            buf.append(Character.forDigit((b >> 4) & 0xF, 16));
+            buf.append(Character.forDigit(b & 0xF, 16));
+        }
+        return buf.toString();
+    }
+
+    /**
+     * Gets the cached text for a key.
+     *
+     * @param key the key, from {@link #getKey}
+     * @return the text, or {@code null} if not cached
+     */
+    public String getText(String key) {
+        File file = fileCache.getFile(key);
+        if (file == null) {
+            return null;
+        }
+        try {
+            return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            // purged concurrently
+            log.debug("Cannot read cached text for key: " + key, e);
+            return null;
+        }
+    }
+
+    /**
+     * Puts the text for a key in the cache.
+     *
+     * @param key the key, from {@link #getKey}
+     * @param text the text
+     */
+    public void putText(String key, String text) {
+        try {
+            fileCache.putFile(key, new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (IOException e) {
+            log.warn("Cannot cache text for key: " + key + ": " + e);
+            log.debug(e, e);
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.storage;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.nio.file.Files;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.nuxeo.common.file.LRUFileCache;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.impl.blob.StringBlob;
+
+public class TestFulltextTextCache {
+
+    protected File dir;
+
+    protected FulltextTextCache cache;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("nxtextcache").toFile();
+        cache = new FulltextTextCache(new LRUFileCache(dir, 1024 * 1024, 100, 0));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    protected static Blob getBlob(String digest, String mimeType) {
+        Blob blob = new StringBlob("content", mimeType);
+        blob.setFilename("foo.bin");
+        blob.setDigest(digest);
+        return blob;
+    }
+
+    @Test
+    public void testKey() {
+        String key = FulltextTextCache.getKey(getBlob("abc", "application/pdf"));
+        assertNotNull(key);
+        assertEquals(key, FulltextTextCache.getKey(getBlob("abc", "application/pdf")));
+        assertNotEquals(key, FulltextTextCache.getKey(getBlob("abd", "application/pdf")));
+        assertNotEquals(key, FulltextTextCache.getKey(getBlob("abc", "text/html")));
+        assertNull(FulltextTextCache.getKey(getBlob(null, "application/pdf")));
+    }
+
+    @Test
+    public void testPutGet() {
+        String key = FulltextTextCache.getKey(getBlob("abc", "application/pdf"));
+        assertNull(cache.getText(key));
+        cache.putText(key, "caf\u00e9 text");
+        assertEquals("caf\u00e9 text", cache.getText(key));
+        // empty text is cached as well
+        String key2 = FulltextTextCache.getKey(getBlob("def", "application/pdf"));
+        cache.putText(key2, "");
+        assertEquals("", cache.getText(key2));
+    }
+
+}
@@ -0,0 +1,379 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import javax.inject.Inject;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.api.PathRef;
+import org.nuxeo.ecm.core.event.EventService;
+import org.nuxeo.ecm.core.repository.RepositoryService;
+import org.nuxeo.ecm.core.storage.dbs.DBSRepositoryBase;
+import org.nuxeo.ecm.core.storage.dbs.DBSRepositoryService;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.ecm.core.work.api.WorkManager;
+import org.nuxeo.ecm.core.work.api.WorkQueueDescriptor;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.reload.ReloadService;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.test.runner.RuntimeHarness;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * Test moves with asynchronous update of the ancestors of the descendants (DBS only).
+ */
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+@Deploy("org.nuxeo.runtime.reload")
+public class TestSQLRepositoryAncestorIdsAsync {
+
+    private static final Log log = LogFactory.getLog(TestSQLRepositoryAncestorIdsAsync.class);
+
+    /** Number of documents for {@link #testMoveBenchmark}, which is skipped if not set. */
+    public static final String BENCHMARK_COUNT_PROP = "nuxeo.test.ancestors.benchmark.count";
+
+    /** Work queue of the asynchronous ancestors updates. */
+    protected static final String QUEUE_ID = "ancestorIdsUpdater";
+
+    @Inject
+    protected RuntimeHarness runtimeHarness;
+
+    @Inject
+    protected CoreFeature coreFeature;
+
+    @Inject
+    protected EventService eventService;
+
+    @Inject
+    protected CoreSession session;
+
+    @Inject
+    protected ReloadService reloadService;
+
+    protected String contrib;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue(coreFeature.getStorageConfiguration().isDBS());
+        // cannot be done through @LocalDeploy, because the framework variables
+        // about repository configuration aren't ready yet
+        contrib = coreFeature.getStorageConfiguration().isDBSMem()
+                ? "OSGI-INF/test-repo-ancestors-async-mem-contrib.xml"
+                : "OSGI-INF/test-repo-ancestors-async-mongodb-contrib.xml";
+        runtimeHarness.deployContrib("org.nuxeo.ecm.core.test.tests", contrib);
+        newRepository(); // fully reread repo
+        DBSRepositoryService dbsRepositoryService = Framework.getService(DBSRepositoryService.class);
+        assertTrue("Async ancestors update should be enabled",
+                dbsRepositoryService.getRepositoryDescriptor(session.getRepositoryName()).isAncestorIdsUpdateAsync());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (contrib != null) {
+            runtimeHarness.undeployContrib("org.nuxeo.ecm.core.test.tests", contrib);
+        }
+    }
+
+    protected void newRepository() {
+        waitForAsyncCompletion();
+        coreFeature.releaseCoreSession();
+        // reload repo with new config
+        reloadService.reloadRepository();
+        session = coreFeature.createCoreSession();
+    }
+
+    protected void waitForAsyncCompletion() {
+        nextTransaction();
+        eventService.waitForAsyncCompletion();
+    }
+
+    protected void nextTransaction() {
+        if (TransactionHelper.isTransactionActiveOrMarkedRollback()) {
+            TransactionHelper.commitOrRollbackTransaction();
+            TransactionHelper.startTransaction();
+        }
+    }
+
+    protected DocumentModel createDocument(String parentPath, String name, String type) {
+        DocumentModel doc = session.createDocumentModel(parentPath, name, type);
+        return session.createDocument(doc);
+    }
+
+    protected int count(String query) {
+        return session.query(query).size();
+    }
+
+    protected int countUnder(String id) {
+        return count("SELECT * FROM Document WHERE ecm:ancestorId = '" + id + "'");
+    }
+
+    protected int countStartsWith(String path) {
+        return count("SELECT * FROM Document WHERE ecm:path STARTSWITH '" + path + "'");
+    }
+
+    /**
+     * Creates:
+     *
+     * <pre>
+     * /folder
+     * /folder/sub
+     * /folder/sub/doc1
+     * /folder/sub/doc2
+     * /folder/sub/doc3
+     * /folder/doc4
+     * /dest
+     * </pre>
+     */
+    protected void createDocs() {
+        createDocument("/", "folder", "Folder");
+        createDocument("/folder", "sub", "Folder");
+        createDocument("/folder/sub", "doc1", "File");
+        createDocument("/folder/sub", "doc2", "File");
+        createDocument("/folder/sub", "doc3", "File");
+        createDocument("/folder", "doc4", "File");
+        createDocument("/", "dest", "Folder");
+        session.save();
+        nextTransaction();
+    }
+
+    @Test
+    public void testMove() throws Exception {
+        createDocs();
+        DocumentModel folder = session.getDocument(new PathRef("/folder"));
+        DocumentModel dest = session.getDocument(new PathRef("/dest"));
+
+        session.move(folder.getRef(), dest.getRef(), null);
+        session.save();
+
+        // descendants not updated yet, but queries see them at their new place
+        assertEquals(0, countStartsWith("/folder"));
+        assertEquals(5, countStartsWith("/dest/folder"));
+        assertEquals(6, countStartsWith("/dest"));
+        assertEquals(5, countUnder(folder.getId()));
+        assertEquals(6, countUnder(dest.getId()));
+        assertEquals(3, countStartsWith("/dest/folder/sub"));
+        assertEquals("/dest/folder/sub/doc1", session.getDocument(new PathRef("/dest/folder/sub/doc1")).getPathAsString());
+
+        waitForAsyncCompletion();
+
+        assertEquals(0, countStartsWith("/folder"));
+        assertEquals(5, countStartsWith("/dest/folder"));
+        assertEquals(6, countStartsWith("/dest"));
+        assertEquals(6, countUnder(dest.getId()));
+        assertEquals(3, countStartsWith("/dest/folder/sub"));
+    }
+
+    @Test
+    public void testLostUpdateRescheduled() throws Exception {
+        createDocs();
+        DocumentModel dest = session.getDocument(new PathRef("/dest"));
+
+        // lose the work, as if the queue had been cleared by a restart
+        WorkQueueDescriptor queueDescriptor = Framework.getService(WorkManager.class).getWorkQueueDescriptor(QUEUE_ID);
+        queueDescriptor.queuing = Boolean.FALSE;
+        try {
+            session.move(new PathRef("/folder"), dest.getRef(), null);
+            session.save();
+            nextTransaction();
+        } finally {
+            queueDescriptor.queuing = null;
+        }
+        waitForAsyncCompletion();
+
+        // still pending, rescheduled as done at repository startup
+        DBSRepositoryBase repository = (DBSRepositoryBase) Framework.getService(RepositoryService.class).getRepository(
+                session.getRepositoryName());
+        assertEquals(1, repository.scheduleAncestorIdsUpdates());
+        waitForAsyncCompletion();
+        assertEquals(0, repository.scheduleAncestorIdsUpdates());
+
+        assertEquals(0, countStartsWith("/folder"));
+        assertEquals(5, countStartsWith("/dest/folder"));
+        assertEquals(6, countUnder(dest.getId()));
+        assertEquals(3, countStartsWith("/dest/folder/sub"));
+    }
+
+    @Test
+    public void testMoveThenMoveDescendant() throws Exception {
+        createDocs();
+        DocumentModel folder = session.getDocument(new PathRef("/folder"));
+        DocumentModel sub = session.getDocument(new PathRef("/folder/sub"));
+        DocumentModel dest = session.getDocument(new PathRef("/dest"));
+        DocumentModel other = createDocument("/", "other", "Folder");
+        session.save();
+        nextTransaction();
+
+        session.move(folder.getRef(), dest.getRef(), null);
+        session.save();
+        // move a descendant whose ancestors aren't updated yet
+        session.move(sub.getRef(), other.getRef(), null);
+        session.save();
+
+        assertEquals(1, countStartsWith("/dest/folder"));
+        assertEquals(2, countUnder(dest.getId()));
+        assertEquals(3, countStartsWith("/other/sub"));
+        assertEquals(4, countUnder(other.getId()));
+
+        waitForAsyncCompletion();
+
+        assertEquals(1, countStartsWith("/dest/folder"));
+        assertEquals(2, countUnder(dest.getId()));
+        assertEquals(3, countStartsWith("/other/sub"));
+        assertEquals(4, countUnder(other.getId()));
+    }
+
+    @Test
+    public void testMoveThenCreateAndRemove() throws Exception {
+        createDocs();
+        DocumentModel folder = session.getDocument(new PathRef("/folder"));
+        DocumentModel dest = session.getDocument(new PathRef("/dest"));
+
+        session.move(folder.getRef(), dest.getRef(), null);
+        session.save();
+        // create under a descendant whose ancestors aren't updated yet
+        createDocument("/dest/folder/sub", "doc5", "File");
+        session.save();
+        assertEquals(4, countStartsWith("/dest/folder/sub"));
+        assertEquals(7, countUnder(dest.getId()));
+
+        waitForAsyncCompletion();
+
+        assertEquals(4, countStartsWith("/dest/folder/sub"));
+        assertEquals(7, countUnder(dest.getId()));
+
+        // move again and remove before the update
+        DocumentModel other = createDocument("/", "other", "Folder");
+        session.save();
+        nextTransaction();
+        session.move(folder.getRef(), other.getRef(), null);
+        session.save();
+        session.removeDocument(folder.getRef());
+        session.save();
+        assertEquals(0, countUnder(other.getId()));
+        assertEquals(0, countUnder(dest.getId()));
+        assertEquals(0, count("SELECT * FROM File"));
+
+        waitForAsyncCompletion();
+
+        assertEquals(0, count("SELECT * FROM File"));
+    }
+
+    /**
+     * Creates n documents under /{name}, in subfolders of 1000 documents, and the folder /{name}dest.
+     */
+    protected void createBenchmarkDocs(String name, int n) {
+        int perFolder = 1000;
+        createDocument("/", name, "Folder");
+        createDocument("/", name + "dest", "Folder");
+        for (int i = 0; i < n; i++) {
+            if (i % perFolder == 0) {
+                createDocument("/" + name, "f" + i / perFolder, "Folder");
+            }
+            createDocument("/" + name + "/f" + i / perFolder, "doc" + i, "File");
+            if (i % perFolder == perFolder - 1) {
+                session.save();
+                nextTransaction();
+            }
+        }
+        session.save();
+        nextTransaction();
+    }
+
+    /**
+     * Runs a STARTSWITH query finding the first document under the given path several times.
+     *
+     * @return the average duration of the query, in ms
+     */
+    protected double timeStartsWith(String path) {
+        int times = 10;
+        String query = "SELECT * FROM Document WHERE ecm:path STARTSWITH '" + path + "' AND ecm:name = 'doc0'";
+        long t0 = System.nanoTime();
+        for (int i = 0; i < times; i++) {
+            assertEquals(1, count(query));
+        }
+        return (System.nanoTime() - t0) / 1000000.0 / times;
+    }
+
+    @Test
+    public void testMoveBenchmark() throws Exception {
+        int n = Integer.parseInt(Framework.getProperty(BENCHMARK_COUNT_PROP, "0"));
+        assumeTrue("Benchmark skipped, set " + BENCHMARK_COUNT_PROP + " to run it", n > 0);
+        WorkManager workManager = Framework.getService(WorkManager.class);
+
+        // asynchronous update, kept pending while the queries are timed
+        createBenchmarkDocs("async", n);
+        workManager.enableProcessing(QUEUE_ID, false);
+        long t0 = System.currentTimeMillis();
+        session.move(new PathRef("/async"), new PathRef("/asyncdest"), null);
+        session.save();
+        nextTransaction();
+        long asyncMove = System.currentTimeMillis() - t0;
+        double pendingShallow = timeStartsWith("/asyncdest/async");
+        double pendingDeep = timeStartsWith("/asyncdest/async/f0");
+        workManager.enableProcessing(QUEUE_ID, true);
+        t0 = System.currentTimeMillis();
+        waitForAsyncCompletion();
+        long asyncUpdate = System.currentTimeMillis() - t0;
+        double updatedShallow = timeStartsWith("/asyncdest/async");
+        double updatedDeep = timeStartsWith("/asyncdest/async/f0");
+        DocumentModel doc = session.getDocument(new PathRef("/asyncdest/async/f0/doc0"));
+        assertEquals(doc.getId(), session.getDocument(new IdRef(doc.getId())).getId());
+
+        // synchronous update
+        runtimeHarness.undeployContrib("org.nuxeo.ecm.core.test.tests", contrib);
+        contrib = null;
+        newRepository();
+        DBSRepositoryService dbsRepositoryService = Framework.getService(DBSRepositoryService.class);
+        assertFalse("Async ancestors update should be disabled",
+                dbsRepositoryService.getRepositoryDescriptor(session.getRepositoryName()).isAncestorIdsUpdateAsync());
+        createBenchmarkDocs("sync", n);
+        t0 = System.currentTimeMillis();
+        session.move(new PathRef("/sync"), new PathRef("/syncdest"), null);
+        session.save();
+        nextTransaction();
+        long syncMove = System.currentTimeMillis() - t0;
+        double syncShallow = timeStartsWith("/syncdest/sync");
+        double syncDeep = timeStartsWith("/syncdest/sync/f0");
+
+        log.warn(String.format("Moved folder with %d descendants: async move %d ms then ancestors updated in %d ms, "
+                + "sync move %d ms", n, asyncMove, asyncUpdate, syncMove));
+        log.warn(String.format("STARTSWITH on moved folder / subfolder: %.2f / %.2f ms while update pending, "
+                + "%.2f / %.2f ms once updated, %.2f / %.2f ms with sync update", pendingShallow, pendingDeep,
+                updatedShallow, updatedDeep, syncShallow, syncDeep));
+    }
+
+}
@@ -0,0 +1,193 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_ID;
+import static org.nuxeo.ecm.core.storage.dbs.DBSDocument.KEY_NAME;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.ConcurrentUpdateException;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentModelList;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.repository.RepositoryService;
+import org.nuxeo.ecm.core.storage.State;
+import org.nuxeo.ecm.core.storage.State.StateDiff;
+import org.nuxeo.ecm.core.storage.dbs.DBSRepository;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * Tests the saves that create or update many documents at once, which go through
+ * {@link DBSRepository#createStates} and {@link DBSRepository#updateStates} (DBS only).
+ */
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+public class TestSQLRepositoryBatchedSave {
+
+    protected static final int N = 50;
+
+    @Inject
+    protected CoreFeature coreFeature;
+
+    @Inject
+    protected CoreSession session;
+
+    @Before
+    public void setUp() {
+        assumeTrue(coreFeature.getStorageConfiguration().isDBS());
+    }
+
+    protected void nextTransaction() {
+        if (TransactionHelper.isTransactionActiveOrMarkedRollback()) {
+            TransactionHelper.commitOrRollbackTransaction();
+            TransactionHelper.startTransaction();
+        }
+    }
+
+    protected DBSRepository getRepository() {
+        RepositoryService repositoryService = Framework.getService(RepositoryService.class);
+        return (DBSRepository) repositoryService.getRepository(session.getRepositoryName());
+    }
+
+    @Test
+    public void testCreateAndUpdateManyInOneSave() {
+        DocumentModel folder = session.createDocument(session.createDocumentModel("/", "folder", "Folder"));
+        for (int i = 0; i < N; i++) {
+            DocumentModel doc = session.createDocumentModel("/folder", "doc" + i, "File");
+            doc.setPropertyValue("dc:title", "title" + i);
+            session.createDocument(doc);
+        }
+        session.save();
+        nextTransaction();
+
+        DocumentModelList docs = session.getChildren(folder.getRef());
+        assertEquals(N, docs.size());
+        for (int i = 0; i < N; i++) {
+            DocumentModel doc = session.getChild(folder.getRef(), "doc" + i);
+            assertEquals("title" + i, doc.getPropertyValue("dc:title"));
+            doc.setPropertyValue("dc:title", "new" + i);
+            doc.setPropertyValue("dc:description", "desc" + i);
+            session.saveDocument(doc);
+        }
+        session.save();
+        nextTransaction();
+
+        for (int i = 0; i < N; i++) {
+            DocumentModel doc = session.getChild(folder.getRef(), "doc" + i);
+            assertEquals("new" + i, doc.getPropertyValue("dc:title"));
+            assertEquals("desc" + i, doc.getPropertyValue("dc:description"));
+        }
+        assertEquals(N, session.query("SELECT * FROM File WHERE dc:title LIKE 'new%'").size());
+    }
+
+    @Test
+    public void testCreateStatesAllOrNothing() {
+        assumeTrue("only the memory repository checks the whole batch first",
+                coreFeature.getStorageConfiguration().isDBSMem());
+        DBSRepository repository = getRepository();
+        String existingId = session.getRootDocument().getId();
+        State state1 = new State();
+        state1.put(KEY_ID, "batchedsave1");
+        state1.put(KEY_NAME, "one");
+        State state2 = new State();
+        state2.put(KEY_ID, existingId);
+        try {
+            repository.createStates(Arrays.asList(state1, state2));
+            fail("should fail on existing id");
+        } catch (NuxeoException e) {
+            assertEquals("Already exists: " + existingId, e.getMessage());
+        }
+        // the first state wasn't created either
+        assertNull(repository.readState("batchedsave1"));
+
+        repository.createStates(Arrays.asList(state1));
+        assertNotNull(repository.readState("batchedsave1"));
+    }
+
+    @Test
+    public void testCreateStatesDuplicateInBatch() {
+        assumeTrue("only the memory repository checks the whole batch first",
+                coreFeature.getStorageConfiguration().isDBSMem());
+        DBSRepository repository = getRepository();
+        State state1 = new State();
+        state1.put(KEY_ID, "batchedsave3");
+        state1.put(KEY_NAME, "three");
+        State state2 = new State();
+        state2.put(KEY_ID, "batchedsave3");
+        state2.put(KEY_NAME, "other");
+        try {
+            repository.createStates(Arrays.asList(state1, state2));
+            fail("should fail on duplicate id");
+        } catch (NuxeoException e) {
+            assertEquals("Already exists: batchedsave3", e.getMessage());
+        }
+        // nothing was created
+        assertNull(repository.readState("batchedsave3"));
+    }
+
+    @Test
+    public void testUpdateStatesAllOrNothing() {
+        assumeTrue("only the memory repository checks the whole batch first",
+                coreFeature.getStorageConfiguration().isDBSMem());
+        DBSRepository repository = getRepository();
+        State state = new State();
+        state.put(KEY_ID, "batchedsave2");
+        state.put(KEY_NAME, "two");
+        repository.createState(state);
+        Map<String, StateDiff> diffs = new LinkedHashMap<>();
+        StateDiff diff = new StateDiff();
+        diff.put(KEY_NAME, "changed");
+        diffs.put("batchedsave2", diff);
+        diffs.put("nosuchid", new StateDiff());
+        try {
+            repository.updateStates(diffs);
+            fail("should fail on missing id");
+        } catch (ConcurrentUpdateException e) {
+            // ok
+        }
+        // the first diff wasn't applied either
+        assertEquals("two", repository.readState("batchedsave2").get(KEY_NAME));
+
+        diffs.remove("nosuchid");
+        repository.updateStates(diffs);
+        assertEquals("changed", repository.readState("batchedsave2").get(KEY_NAME));
+    }
+
+}
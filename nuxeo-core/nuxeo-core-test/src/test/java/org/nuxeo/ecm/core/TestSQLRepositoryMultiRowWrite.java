@@ -0,0 +1,186 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.inject.Inject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.IterableQueryResult;
+import org.nuxeo.ecm.core.event.EventService;
+import org.nuxeo.ecm.core.storage.sql.RepositoryDescriptor;
+import org.nuxeo.ecm.core.storage.sql.coremodel.SQLRepositoryService;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.runtime.reload.ReloadService;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.test.runner.RuntimeHarness;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * Tests saves writing more rows than fit in one multi-row {@code INSERT} or {@code UPDATE} statement (VCS only).
+ */
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+@Deploy("org.nuxeo.runtime.reload")
+public class TestSQLRepositoryMultiRowWrite {
+
+    protected static final int BATCH_SIZE = 7; // as configured in the contrib
+
+    // several full chunks and a last smaller one
+    protected static final int N = 3 * BATCH_SIZE + 4;
+
+    @Inject
+    protected RuntimeHarness runtimeHarness;
+
+    @Inject
+    protected CoreFeature coreFeature;
+
+    @Inject
+    protected EventService eventService;
+
+    @Inject
+    protected CoreSession session;
+
+    @Inject
+    protected SQLRepositoryService sqlRepositoryService;
+
+    @Inject
+    protected ReloadService reloadService;
+
+    @Before
+    public void setUp() throws Exception {
+        // cannot be done through @LocalDeploy, because the framework variables
+        // about repository configuration aren't ready yet
+        runtimeHarness.deployContrib("org.nuxeo.ecm.core.test.tests", "OSGI-INF/test-repo-write-batch-contrib.xml");
+        // assume after deploy so that tearDown can undeploy
+        assumeTrue(coreFeature.getStorageConfiguration().isVCS());
+        newRepository(); // fully reread repo
+        RepositoryDescriptor desc = sqlRepositoryService.getRepositoryDescriptor(session.getRepositoryName());
+        assertEquals(BATCH_SIZE, desc.getWriteBatchSize());
+        assertTrue(desc.getWriteBatchMultiRowEnabled());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        runtimeHarness.undeployContrib("org.nuxeo.ecm.core.test.tests", "OSGI-INF/test-repo-write-batch-contrib.xml");
+    }
+
+    protected void newRepository() {
+        waitForAsyncCompletion();
+        coreFeature.releaseCoreSession();
+        // reload repo with new config
+        reloadService.reloadRepository();
+        session = coreFeature.createCoreSession();
+    }
+
+    protected void waitForAsyncCompletion() {
+        nextTransaction();
+        eventService.waitForAsyncCompletion();
+    }
+
+    protected void nextTransaction() {
+        if (TransactionHelper.isTransactionActiveOrMarkedRollback()) {
+            TransactionHelper.commitOrRollbackTransaction();
+            TransactionHelper.startTransaction();
+        }
+    }
+
+    /**
+     * Reads the titles and descriptions of the children of the folder directly from the database.
+     */
+    protected Map<String, String[]> fetchChildren(DocumentModel folder) {
+        Map<String, String[]> values = new HashMap<>();
+        String query = "SELECT ecm:name, dc:title, dc:description FROM File WHERE ecm:parentId = '" + folder.getId()
+                + "'";
+        IterableQueryResult res = session.queryAndFetch(query, "NXQL");
+        try {
+            for (Map<String, Serializable> map : res) {
+                values.put((String) map.get("ecm:name"),
+                        new String[] { (String) map.get("dc:title"), (String) map.get("dc:description") });
+            }
+        } finally {
+            res.close();
+        }
+        return values;
+    }
+
+    @Test
+    public void testInsertAndUpdateSeveralChunks() {
+        DocumentModel folder = session.createDocument(session.createDocumentModel("/", "folder", "Folder"));
+        for (int i = 0; i < N; i++) {
+            DocumentModel doc = session.createDocumentModel("/folder", "doc" + i, "File");
+            doc.setPropertyValue("dc:title", "title" + i);
+            doc.setPropertyValue("dc:description", "desc" + i);
+            session.createDocument(doc);
+        }
+        session.save();
+        nextTransaction();
+
+        Map<String, String[]> values = fetchChildren(folder);
+        assertEquals(N, values.size());
+        for (int i = 0; i < N; i++) {
+            String[] v = values.get("doc" + i);
+            assertEquals("title" + i, v[0]);
+            assertEquals("desc" + i, v[1]);
+        }
+
+        // same updated columns on all rows, so they're grouped in multi-row updates
+        for (int i = 0; i < N; i++) {
+            DocumentModel doc = session.getChild(folder.getRef(), "doc" + i);
+            doc.setPropertyValue("dc:title", "new" + i);
+            doc.setPropertyValue("dc:description", "newdesc" + i);
+            session.saveDocument(doc);
+        }
+        session.save();
+        nextTransaction();
+
+        values = fetchChildren(folder);
+        assertEquals(N, values.size());
+        for (int i = 0; i < N; i++) {
+            String[] v = values.get("doc" + i);
+            assertEquals("new" + i, v[0]);
+            assertEquals("newdesc" + i, v[1]);
+        }
+
+        // reading the documents gives the same values
+        for (int i = 0; i < N; i++) {
+            DocumentModel doc = session.getChild(folder.getRef(), "doc" + i);
+            assertEquals("new" + i, doc.getPropertyValue("dc:title"));
+            assertEquals("newdesc" + i, doc.getPropertyValue("dc:description"));
+        }
+    }
+
+}
@@ -66,6 +66,7 @@ import org.nuxeo.ecm.core.api.IdRef;
 import org.nuxeo.ecm.core.api.IterableQueryResult;
 import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.api.PathRef;
+import org.nuxeo.ecm.core.api.ScrollResult;
 import org.nuxeo.ecm.core.api.VersioningOption;
 import org.nuxeo.ecm.core.api.impl.DocumentModelImpl;
 import org.nuxeo.ecm.core.api.impl.FacetFilter;
@@ -2194,6 +2195,51 @@ public class TestSQLRepositoryQuery {
         res.close();
     }
 
+    @Test
+    public void testScroll() throws Exception {
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 25; i++) {
+            DocumentModel doc = session.createDocumentModel("/", "doc" + i, "File");
+            doc = session.createDocument(doc);
+            expected.add(doc.getId());
+        }
+        session.createDocument(session.createDocumentModel("/", "folder", "Folder"));
+        session.save();
+
+        Set<String> ids = new HashSet<>();
+        ScrollResult res = session.scroll("SELECT * FROM File", 10, 60);
+        assertEquals(10, res.getResultIds().size());
+        ids.addAll(res.getResultIds());
+        String scrollId = res.getScrollId();
+        res = session.scroll(scrollId);
+        assertEquals(10, res.getResultIds().size());
+        ids.addAll(res.getResultIds());
+        res = session.scroll(scrollId);
+        assertEquals(5, res.getResultIds().size());
+        ids.addAll(res.getResultIds());
+        res = session.scroll(scrollId);
+        assertFalse(res.hasResults());
+        assertEquals(expected, ids);
+        // exhausted scroll is closed
+        try {
+            session.scroll(scrollId);
+            fail("Scroll should be closed");
+        } catch (NuxeoException e) {
+            // ok
+        }
+
+        // explicit close
+        res = session.scroll("SELECT * FROM File WHERE ecm:isProxy = 0", 10, 60);
+        assertTrue(res.hasResults());
+        session.closeScroll(res.getScrollId());
+        try {
+            session.scroll(res.getScrollId());
+            fail("Scroll should be closed");
+        } catch (NuxeoException e) {
+            // ok
+        }
+    }
+
     @Test
     public void testSelectColumnsDistinct() throws Exception {
         assumeTrue("DBS does not support DISTINCT in queries", supportsDistinct());
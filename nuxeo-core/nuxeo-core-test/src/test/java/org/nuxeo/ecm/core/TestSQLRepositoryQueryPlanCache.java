@@ -0,0 +1,169 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.inject.Inject;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentModelList;
+import org.nuxeo.ecm.core.api.ScrollResult;
+import org.nuxeo.ecm.core.event.EventService;
+import org.nuxeo.ecm.core.storage.sql.RepositoryDescriptor;
+import org.nuxeo.ecm.core.storage.sql.coremodel.SQLRepositoryService;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.runtime.reload.ReloadService;
+import org.nuxeo.runtime.test.runner.Deploy;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.test.runner.RuntimeHarness;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * Tests queries with the query plan cache enabled (VCS only).
+ */
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+@Deploy("org.nuxeo.runtime.reload")
+public class TestSQLRepositoryQueryPlanCache {
+
+    @Inject
+    protected RuntimeHarness runtimeHarness;
+
+    @Inject
+    protected CoreFeature coreFeature;
+
+    @Inject
+    protected EventService eventService;
+
+    @Inject
+    protected CoreSession session;
+
+    @Inject
+    protected SQLRepositoryService sqlRepositoryService;
+
+    @Inject
+    protected ReloadService reloadService;
+
+    @Before
+    public void setUp() throws Exception {
+        // cannot be done through @LocalDeploy, because the framework variables
+        // about repository configuration aren't ready yet
+        runtimeHarness.deployContrib("org.nuxeo.ecm.core.test.tests",
+                "OSGI-INF/test-repo-query-plan-cache-contrib.xml");
+        // assume after deploy so that tearDown can undeploy
+        assumeTrue(coreFeature.getStorageConfiguration().isVCS());
+        newRepository(); // fully reread repo
+        RepositoryDescriptor desc = sqlRepositoryService.getRepositoryDescriptor(session.getRepositoryName());
+        assertTrue(desc.getQueryPlanCacheEnabled());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        runtimeHarness.undeployContrib("org.nuxeo.ecm.core.test.tests",
+                "OSGI-INF/test-repo-query-plan-cache-contrib.xml");
+    }
+
+    protected void newRepository() {
+        waitForAsyncCompletion();
+        coreFeature.releaseCoreSession();
+        // reload repo with new config
+        reloadService.reloadRepository();
+        session = coreFeature.createCoreSession();
+    }
+
+    protected void waitForAsyncCompletion() {
+        nextTransaction();
+        eventService.waitForAsyncCompletion();
+    }
+
+    protected void nextTransaction() {
+        if (TransactionHelper.isTransactionActiveOrMarkedRollback()) {
+            TransactionHelper.commitOrRollbackTransaction();
+            TransactionHelper.startTransaction();
+        }
+    }
+
+    @Test
+    public void testQueryWithDifferentLiterals() {
+        for (int i = 0; i < 3; i++) {
+            DocumentModel doc = session.createDocumentModel("/", "doc" + i, "File");
+            doc.setPropertyValue("dc:title", "title" + i);
+            session.createDocument(doc);
+        }
+        session.save();
+
+        // the same query with other values gets the plan from the cache
+        for (int n = 0; n < 3; n++) {
+            for (int i = 0; i < 3; i++) {
+                DocumentModelList docs = session.query("SELECT * FROM File WHERE dc:title = 'title" + i + "'");
+                assertEquals(1, docs.size());
+                assertEquals("doc" + i, docs.get(0).getName());
+            }
+        }
+    }
+
+    @Test
+    public void testScroll() {
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 25; i++) {
+            DocumentModel doc = session.createDocumentModel("/", "doc" + i, "File");
+            doc = session.createDocument(doc);
+            expected.add(doc.getId());
+        }
+        session.save();
+
+        // each batch must continue after the previous one, not get the first batch from the cache
+        for (int n = 0; n < 2; n++) {
+            List<String> ids = new ArrayList<>();
+            ScrollResult res = session.scroll("SELECT * FROM File", 10, 60);
+            assertEquals(10, res.getResultIds().size());
+            ids.addAll(res.getResultIds());
+            String scrollId = res.getScrollId();
+            res = session.scroll(scrollId);
+            assertEquals(10, res.getResultIds().size());
+            ids.addAll(res.getResultIds());
+            res = session.scroll(scrollId);
+            assertEquals(5, res.getResultIds().size());
+            ids.addAll(res.getResultIds());
+            res = session.scroll(scrollId);
+            assertFalse(res.hasResults());
+            assertEquals(25, ids.size());
+            assertEquals(expected, new HashSet<>(ids));
+        }
+    }
+
+}
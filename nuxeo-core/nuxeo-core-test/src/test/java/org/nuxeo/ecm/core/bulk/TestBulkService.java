@@ -0,0 +1,154 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.bulk;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.bulk.BulkStatus.State;
+import org.nuxeo.ecm.core.test.CoreFeature;
+import org.nuxeo.ecm.core.test.annotations.Granularity;
+import org.nuxeo.ecm.core.test.annotations.RepositoryConfig;
+import org.nuxeo.runtime.test.runner.Features;
+import org.nuxeo.runtime.test.runner.FeaturesRunner;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+@RunWith(FeaturesRunner.class)
+@Features(CoreFeature.class)
+@RepositoryConfig(cleanup = Granularity.METHOD)
+public class TestBulkService {
+
+    @Inject
+    protected CoreSession session;
+
+    @Inject
+    protected BulkService bulkService;
+
+    protected void createDocs(int n) {
+        for (int i = 0; i < n; i++) {
+            DocumentModel doc = session.createDocumentModel("/", "doc" + i, "File");
+            doc.setPropertyValue("dc:title", "doc" + i);
+            session.createDocument(doc);
+        }
+        session.save();
+    }
+
+    @Test
+    public void testSetProperties() throws Exception {
+        createDocs(35);
+        BulkCommand command = new BulkCommand().withRepository(session.getRepositoryName())
+                                               .withUsername(session.getPrincipal().getName())
+                                               .withQuery("SELECT * FROM File")
+                                               .withAction("setProperties")
+                                               .withParam("dc:description", "bulk")
+                                               .withBucketSize(10)
+                                               .withBatchSize(3);
+        TransactionHelper.commitOrRollbackTransaction();
+        String commandId = bulkService.submit(command);
+        assertTrue(bulkService.await(commandId, 20, TimeUnit.SECONDS));
+        TransactionHelper.startTransaction();
+
+        BulkStatus status = bulkService.getStatus(commandId);
+        assertEquals(State.COMPLETED, status.getState());
+        assertEquals(35, status.getCount());
+        assertEquals(35, status.getProcessed());
+        assertEquals(0, status.getSkipped());
+        assertEquals(0, status.getErrors());
+        assertEquals(35, session.query("SELECT * FROM File WHERE dc:description = 'bulk'").size());
+    }
+
+    @Test
+    public void testEmptyQuery() throws Exception {
+        TransactionHelper.commitOrRollbackTransaction();
+        String commandId = bulkService.submit(new BulkCommand().withRepository(session.getRepositoryName())
+                                                               .withUsername(session.getPrincipal().getName())
+                                                               .withQuery("SELECT * FROM File")
+                                                               .withAction("trash"));
+        assertTrue(bulkService.await(commandId, 20, TimeUnit.SECONDS));
+        TransactionHelper.startTransaction();
+        assertEquals(0, bulkService.getStatus(commandId).getCount());
+    }
+
+    @Test(expected = NuxeoException.class)
+    public void testUnknownAction() {
+        bulkService.submit(new BulkCommand().withRepository(session.getRepositoryName())
+                                            .withUsername(session.getPrincipal().getName())
+                                            .withQuery("SELECT * FROM File")
+                                            .withAction("nosuchaction"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingUsername() {
+        bulkService.submit(new BulkCommand().withRepository(session.getRepositoryName())
+                                            .withQuery("SELECT * FROM File")
+                                            .withAction("trash"));
+    }
+
+    @Test
+    public void testRunAsUser() throws Exception {
+        createDocs(5);
+        // bob has no permission on the documents
+        BulkCommand command = new BulkCommand().withRepository(session.getRepositoryName())
+                                               .withUsername("bob")
+                                               .withQuery("SELECT * FROM File")
+                                               .withAction("setProperties")
+                                               .withParam("dc:description", "bulk");
+        TransactionHelper.commitOrRollbackTransaction();
+        String commandId = bulkService.submit(command);
+        assertTrue(bulkService.await(commandId, 20, TimeUnit.SECONDS));
+        TransactionHelper.startTransaction();
+
+        BulkStatus status = bulkService.getStatus(commandId);
+        assertEquals(State.COMPLETED, status.getState());
+        assertEquals(5, status.getCount());
+        // documents not readable by bob are not counted as processed
+        assertEquals(0, status.getProcessed());
+        assertEquals(5, status.getSkipped());
+        assertEquals(0, status.getErrors());
+        assertEquals(0, session.query("SELECT * FROM File WHERE dc:description = 'bulk'").size());
+    }
+
+    @Test
+    public void testAbortedOnFailure() throws Exception {
+        TransactionHelper.commitOrRollbackTransaction();
+        String commandId = bulkService.submit(new BulkCommand().withRepository(session.getRepositoryName())
+                                                               .withUsername(session.getPrincipal().getName())
+                                                               .withQuery("SELECT * FROM File WHERE")
+                                                               .withAction("trash"));
+        assertTrue(bulkService.await(commandId, 20, TimeUnit.SECONDS));
+        TransactionHelper.startTransaction();
+        assertEquals(State.ABORTED, bulkService.getStatus(commandId).getState());
+    }
+
+    @Test
+    public void testUnknownCommand() {
+        assertNull(bulkService.getStatus("nosuchcommand"));
+    }
+
+}
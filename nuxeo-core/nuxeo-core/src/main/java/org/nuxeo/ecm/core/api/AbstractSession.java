@@ -1229,6 +1229,44 @@ public abstract class AbstractSession implements CoreSession, Serializable {
         }
     }
 
+    @Override
+    public ScrollResult scroll(String query, int batchSize, int keepAliveSeconds) {
+        checkScrollAllowed();
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid scroll batch size: " + batchSize);
+        }
+        if (keepAliveSeconds <= 0) {
+            throw new IllegalArgumentException("Invalid scroll keep alive: " + keepAliveSeconds);
+        }
+        try {
+            return getSession().scroll(query, batchSize, keepAliveSeconds);
+        } catch (QueryParseException e) {
+            e.addInfo("Failed to execute query: " + query);
+            throw e;
+        }
+    }
+
+    @Override
+    public ScrollResult scroll(String scrollId) {
+        checkScrollAllowed();
+        return getSession().scroll(scrollId);
+    }
+
+    @Override
+    public void closeScroll(String scrollId) {
+        checkScrollAllowed();
+        getSession().closeScroll(scrollId);
+    }
+
+    /**
+     * Scroll results are not filtered by security, so only administrators can use them.
+     */
+    protected void checkScrollAllowed() {
+        if (!isAdministrator()) {
+            throw new DocumentSecurityException("Only Administrators can scroll");
+        }
+    }
+
     @Override
     public void removeChildren(DocumentRef docRef) {
         // TODO: check req permissions with td
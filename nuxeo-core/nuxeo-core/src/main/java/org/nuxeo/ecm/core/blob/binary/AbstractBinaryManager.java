@@ -21,9 +21,11 @@ package org.nuxeo.ecm.core.blob.binary;
 
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
@@ -160,6 +162,30 @@ public abstract class AbstractBinaryManager implements BinaryManager {
         return toHexString(digest.digest());
     }
 
+    /**
+     * Copies a file through file channels, which lets the OS copy the data without reading it into the JVM.
+     *
+     * @param source the source file
+     * @param dest the destination file, overwritten
+     * @since 8.3
+     */
+    protected static void transferFile(File source, File dest) throws IOException {
+        try (FileInputStream in = new FileInputStream(source); //
+                FileChannel inChannel = in.getChannel(); //
+                FileOutputStream out = new FileOutputStream(dest); //
+                FileChannel outChannel = out.getChannel()) {
+            long size = inChannel.size();
+            long position = 0;
+            while (position < size) {
+                long n = outChannel.transferFrom(inChannel, position, size - position);
+                if (n <= 0) {
+                    throw new IOException("Could not copy " + source + " to " + dest + ", source truncated");
+                }
+                position += n;
+            }
+        }
+    }
+
     private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
 
     public static String toHexString(byte[] data) {
@@ -24,18 +24,29 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.NullOutputStream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.nuxeo.common.file.FileCache;
 import org.nuxeo.common.file.LRUFileCache;
 import org.nuxeo.common.utils.SizeUtils;
+import org.nuxeo.ecm.core.api.Blob;
 import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.impl.blob.FileBlob;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.trackers.files.FileEventTracker;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
 /**
  * Abstract class for a {@link BinaryManager} that uses a cache for its files because fetching them is expensive.
  * <p>
@@ -53,6 +64,11 @@ public abstract class CachingBinaryManager extends AbstractBinaryManager {
 
     protected FileStorage fileStorage;
 
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    /** @since 8.3 */
+    protected final List<String> gaugeNames = new ArrayList<>();
+
     @Override
     public void initialize(String blobProviderId, Map<String, String> properties) throws IOException {
         super.initialize(blobProviderId, properties);
@@ -74,6 +90,64 @@ public abstract class CachingBinaryManager extends AbstractBinaryManager {
     protected void initializeCache(File dir, long maxSize, long maxCount, long minAge, FileStorage fileStorage) {
         fileCache = new LRUFileCache(dir, maxSize, maxCount, minAge);
         this.fileStorage = fileStorage;
+        registerCacheGauges();
+    }
+
+    /**
+     * Registers gauges for the size and the hits, misses and evictions of the file cache.
+     *
+     * @since 8.3
+     */
+    protected void registerCacheGauges() {
+        removeCacheGauges();
+        registerCacheGauge("size", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return Long.valueOf(fileCache.getSize());
+            }
+        });
+        registerCacheGauge("count", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return Long.valueOf(fileCache.getNumberOfItems());
+            }
+        });
+        if (!(fileCache instanceof LRUFileCache)) {
+            return;
+        }
+        final LRUFileCache lruFileCache = (LRUFileCache) fileCache;
+        registerCacheGauge("hits", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return Long.valueOf(lruFileCache.getHitCount());
+            }
+        });
+        registerCacheGauge("misses", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return Long.valueOf(lruFileCache.getMissCount());
+            }
+        });
+        registerCacheGauge("evictions", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return Long.valueOf(lruFileCache.getEvictionCount());
+            }
+        });
+    }
+
+    protected void registerCacheGauge(String name, Gauge<Long> gauge) {
+        String gaugeName = MetricRegistry.name("nuxeo", "binaries", String.valueOf(blobProviderId), "cache", name);
+        registry.remove(gaugeName);
+        registry.register(gaugeName, gauge);
+        gaugeNames.add(gaugeName);
+    }
+
+    protected void removeCacheGauges() {
+        for (String gaugeName : gaugeNames) {
+            registry.remove(gaugeName);
+        }
+        gaugeNames.clear();
     }
 
     /**
@@ -118,6 +192,7 @@ public abstract class CachingBinaryManager extends AbstractBinaryManager {
 
     @Override
     public void close() {
+        removeCacheGauges();
         fileCache.clear();
         if (cachedir != null) {
             try {
@@ -128,6 +203,55 @@ public abstract class CachingBinaryManager extends AbstractBinaryManager {
         }
     }
 
+    @Override
+    public Binary getBinary(Blob blob) throws IOException {
+        if (!(blob instanceof FileBlob) || !((FileBlob) blob).isTemporary()) {
+            return super.getBinary(blob); // just open the stream
+        }
+        // temporary file: digest it in place, then link it into the cache instead of copying it
+        FileBlob fileBlob = (FileBlob) blob;
+        String digest;
+        try (InputStream in = fileBlob.getStream()) {
+            digest = storeAndDigest(in, NullOutputStream.NULL_OUTPUT_STREAM);
+        }
+        if (fileCache.getFile(digest) != null) {
+            // file already in cache
+            if (Framework.isTestModeSet()) {
+                Framework.getProperties().setProperty("cachedBinary", digest);
+            }
+        } else {
+            // the blob keeps its own file, which the cache may evict
+            File tmp = fileCache.getTempFile();
+            try {
+                linkOrCopy(fileBlob.getFile(), tmp);
+                // send the file to storage
+                fileStorage.storeFile(digest, tmp);
+                // register the file in the file cache
+                fileCache.putFile(digest, tmp);
+            } finally {
+                // nothing to delete if moved into the cache
+                tmp.delete();
+            }
+        }
+        return getBinary(digest);
+    }
+
+    /**
+     * Creates a hard link to a file, or copies it if it cannot be linked (for instance if it's on another filesystem).
+     *
+     * @param source the file
+     * @param dest the link or copy, replaced if it exists
+     * @since 8.3
+     */
+    protected static void linkOrCopy(File source, File dest) throws IOException {
+        Files.deleteIfExists(dest.toPath());
+        try {
+            Files.createLink(dest.toPath(), source.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            transferFile(source, dest);
+        }
+    }
+
     @Override
     protected Binary getBinary(InputStream in) throws IOException {
         // write the input stream to a temporary file, while computing a digest
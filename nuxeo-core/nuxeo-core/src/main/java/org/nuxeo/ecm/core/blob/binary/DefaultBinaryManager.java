@@ -46,10 +46,15 @@ public class DefaultBinaryManager extends LocalBinaryManager {
 
     @Override
     public Binary getBinary(Blob blob) throws IOException {
-        if (!(blob instanceof FileBlob) || !((FileBlob) blob).isTemporary()) {
+        String digest;
+        if (blob instanceof FileBlob && ((FileBlob) blob).isTemporary()) {
+            digest = storeAndDigest((FileBlob) blob);
+        } else if (blob instanceof BinaryBlob || blob.getFile() == null) {
             return super.getBinary(blob); // just open the stream
+        } else {
+            // other file-backed blob, copied while digested
+            digest = storeAndDigest(blob.getFile());
         }
-        String digest = storeAndDigest((FileBlob) blob);
         File file = getFileForDigest(digest, false);
         /*
          * Now we can build the Binary.
@@ -0,0 +1,396 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.blob.binary;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.blob.binary.LocalBinaryManager.DefaultBinaryGarbageCollector;
+
+/**
+ * Incremental garbage collector for a {@link LocalBinaryManager}, suited to very large stores.
+ * <p>
+ * Instead of touching each marked file, the marked digests are deduplicated in memory and spilled to sorted files in
+ * a directory private to the GC run, under the GC work directory, when a batch is full, so the memory used doesn't
+ * depend on the number of references. Runs started concurrently by several nodes sharing the store don't see each
+ * other's marks, and the directories left by runs that died are removed after {@link #STALE_RUN_MILLIS}.
+ * <p>
+ * The sweep then processes the top-level directories (shards) of the <em>data</em> directory one at a time, in digest
+ * order, merging the sorted marks to get the marked digests of each shard. A checkpoint is written after each shard,
+ * and an optional pause between shards throttles the I/O. If a sweep is interrupted, the next GC resumes it from the
+ * checkpoint: shards swept before the interruption are skipped once, and swept again by the following GC.
+ * <p>
+ * As with the default GC, binaries created or stored again after the GC start are never deleted.
+ *
+ * @since 8.3
+ */
+public class IncrementalBinaryGarbageCollector extends DefaultBinaryGarbageCollector {
+
+    private static final Log log = LogFactory.getLog(IncrementalBinaryGarbageCollector.class);
+
+    protected static final String RUN_PREFIX = "run-";
+
+    protected static final String MARKS_PREFIX = "marks-";
+
+    /** Delay after which the directory of a run that wasn't updated is considered left by a dead run. */
+    public static final long STALE_RUN_MILLIS = 24 * 3600 * 1000L;
+
+    protected static final String CHECKPOINT_FILE = "checkpoint";
+
+    protected static final String CHECKPOINT_SHARD = "shard";
+
+    public static final int DEFAULT_MARK_BATCH_SIZE = 100000;
+
+    protected final File workDir;
+
+    protected final int markBatchSize;
+
+    protected final long sweepPauseMillis;
+
+    protected final TreeSet<String> marks = new TreeSet<>();
+
+    protected final List<File> markFiles = new ArrayList<>();
+
+    /** The directory of the current run, holding its marks. */
+    protected File runDir;
+
+    /** The last shard swept by an interrupted GC, whose sweep will resume after it. */
+    protected String resumeAfterShard;
+
+    /**
+     * @param binaryManager the binary manager
+     * @param workDir the directory where marks and checkpoints are stored
+     * @param markBatchSize the number of distinct marked digests kept in memory before spilling them to disk
+     * @param sweepPauseMillis the pause between two shards during the sweep (in milliseconds)
+     */
+    public IncrementalBinaryGarbageCollector(LocalBinaryManager binaryManager, File workDir, int markBatchSize,
+            long sweepPauseMillis) {
+        super(binaryManager);
+        this.workDir = workDir;
+        this.markBatchSize = markBatchSize;
+        this.sweepPauseMillis = sweepPauseMillis;
+    }
+
+    @Override
+    public void start() {
+        super.start();
+        workDir.mkdirs();
+        resumeAfterShard = readCheckpoint();
+        if (resumeAfterShard != null) {
+            log.info("Resuming interrupted binaries GC sweep after shard: " + resumeAfterShard);
+        }
+        deleteStaleRunDirs();
+        try {
+            runDir = Files.createTempDirectory(workDir.toPath(), RUN_PREFIX).toFile();
+        } catch (IOException e) {
+            startTime = 0;
+            throw new NuxeoException("Cannot create GC run directory in: " + workDir, e);
+        }
+        markFiles.clear();
+    }
+
+    /**
+     * Deletes the directories of the runs that haven't been updated for {@link #STALE_RUN_MILLIS}.
+     */
+    protected void deleteStaleRunDirs() {
+        File[] files = workDir.listFiles();
+        if (files == null) {
+            return;
+        }
+        long minTime = System.currentTimeMillis() - STALE_RUN_MILLIS;
+        for (File file : files) {
+            if (file.isDirectory() && file.getName().startsWith(RUN_PREFIX) && file.lastModified() < minTime) {
+                log.info("Deleting GC run directory left by a dead run: " + file);
+                deleteRunDir(file);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void mark(String digest) {
+        marks.add(digest);
+        if (marks.size() >= markBatchSize) {
+            flushMarks();
+        }
+    }
+
+    /**
+     * Writes the marks kept in memory to a new sorted file.
+     */
+    protected void flushMarks() {
+        if (marks.isEmpty()) {
+            return;
+        }
+        File file = new File(runDir, MARKS_PREFIX + markFiles.size());
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.US_ASCII))) {
+            for (String digest : marks) {
+                writer.write(digest);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new NuxeoException("Cannot write GC marks to: " + file, e);
+        }
+        markFiles.add(file);
+        marks.clear();
+    }
+
+    protected static void deleteRunDir(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        dir.delete();
+    }
+
+    @Override
+    public void stop(boolean delete) {
+        if (startTime == 0) {
+            throw new RuntimeException("Not started");
+        }
+        try {
+            synchronized (this) {
+                flushMarks();
+            }
+            boolean completed = sweep(startTime - TIME_RESOLUTION, delete);
+            if (completed) {
+                new File(workDir, CHECKPOINT_FILE).delete();
+            }
+        } finally {
+            deleteRunDir(runDir);
+            runDir = null;
+            markFiles.clear();
+            status.gcDuration = System.currentTimeMillis() - startTime;
+            startTime = 0;
+        }
+    }
+
+    /**
+     * Sweeps the shards one at a time, merging the sorted marks along the way.
+     *
+     * @return {@code true} if all shards were swept, {@code false} if the sweep was interrupted
+     */
+    protected boolean sweep(long minTime, boolean delete) {
+        File storageDir = binaryManager.getStorageDir();
+        String[] shards = storageDir.list();
+        if (shards == null) {
+            return true;
+        }
+        Arrays.sort(shards);
+        try (MarksIterator it = new MarksIterator(markFiles)) {
+            for (String shard : shards) {
+                if (resumeAfterShard != null && shard.compareTo(resumeAfterShard) <= 0) {
+                    continue;
+                }
+                Set<String> shardMarks = it.next(shard);
+                File file = new File(storageDir, shard);
+                if (file.isDirectory()) {
+                    sweepShard(file, shardMarks, minTime, delete);
+                } else {
+                    sweepFile(file, shardMarks, minTime, delete);
+                }
+                writeCheckpoint(shard);
+                // show that the run is alive
+                runDir.setLastModified(System.currentTimeMillis());
+                if (sweepPauseMillis > 0) {
+                    Thread.sleep(sweepPauseMillis);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Binaries GC sweep interrupted, will resume at next GC");
+            return false;
+        } catch (IOException e) {
+            throw new NuxeoException(e);
+        }
+        return true;
+    }
+
+    protected void sweepShard(File dir, Set<String> shardMarks, long minTime, boolean delete) {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            if (file.isDirectory()) {
+                sweepShard(file, shardMarks, minTime, delete);
+            } else {
+                sweepFile(file, shardMarks, minTime, delete);
+            }
+        }
+        if (dir.list().length == 0) {
+            // empty directory
+            dir.delete();
+        }
+    }
+
+    protected void sweepFile(File file, Set<String> shardMarks, long minTime, boolean delete) {
+        if (!file.isFile() || !file.canWrite()) {
+            return;
+        }
+        long length = file.length();
+        if (shardMarks.contains(file.getName())) {
+            status.sizeBinaries += length;
+            status.numBinaries++;
+            return;
+        }
+        long lastModified = file.lastModified();
+        if (lastModified == 0) {
+            log.error("Cannot read last modified for file: " + file);
+        } else if (lastModified < minTime) {
+            status.sizeBinariesGC += length;
+            status.numBinariesGC++;
+            if (delete && !file.delete()) {
+                log.warn("Cannot gc file: " + file);
+            }
+        } else {
+            status.sizeBinaries += length;
+            status.numBinaries++;
+        }
+    }
+
+    protected String readCheckpoint() {
+        File file = new File(workDir, CHECKPOINT_FILE);
+        if (!file.exists()) {
+            return null;
+        }
+        Properties props = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            props.load(in);
+        } catch (IOException e) {
+            log.error("Cannot read GC checkpoint: " + file, e);
+            return null;
+        }
+        return props.getProperty(CHECKPOINT_SHARD);
+    }
+
+    protected void writeCheckpoint(String shard) throws IOException {
+        Properties props = new Properties();
+        props.setProperty(CHECKPOINT_SHARD, shard);
+        File tmp = new File(workDir, CHECKPOINT_FILE + ".tmp");
+        try (OutputStream out = new FileOutputStream(tmp)) {
+            props.store(out, null);
+        }
+        Files.move(tmp.toPath(), new File(workDir, CHECKPOINT_FILE).toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Merges sorted mark files, returning the distinct marks shard by shard.
+     */
+    protected static class MarksIterator implements Closeable {
+
+        protected static class Run implements Comparable<Run> {
+
+            protected final BufferedReader reader;
+
+            protected String current;
+
+            protected Run(BufferedReader reader) throws IOException {
+                this.reader = reader;
+                current = reader.readLine();
+            }
+
+            protected void advance() throws IOException {
+                current = reader.readLine();
+            }
+
+            @Override
+            public int compareTo(Run other) {
+                return current.compareTo(other.current);
+            }
+        }
+
+        protected final List<BufferedReader> readers = new ArrayList<>();
+
+        protected final PriorityQueue<Run> queue = new PriorityQueue<>();
+
+        public MarksIterator(List<File> files) throws IOException {
+            try {
+                for (File file : files) {
+                    BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.US_ASCII);
+                    readers.add(reader);
+                    Run run = new Run(reader);
+                    if (run.current != null) {
+                        queue.add(run);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        /**
+         * Returns the marks starting with the given shard name, skipping those sorted before it.
+         */
+        public Set<String> next(String shard) throws IOException {
+            Set<String> shardMarks = new HashSet<>();
+            while (!queue.isEmpty()) {
+                Run run = queue.peek();
+                String digest = run.current;
+                if (digest.compareTo(shard) >= 0 && !digest.startsWith(shard)) {
+                    break;
+                }
+                queue.poll();
+                if (digest.startsWith(shard)) {
+                    shardMarks.add(digest);
+                }
+                run.advance();
+                if (run.current != null) {
+                    queue.add(run);
+                }
+            }
+            return shardMarks;
+        }
+
+        @Override
+        public void close() {
+            for (BufferedReader reader : readers) {
+                IOUtils.closeQuietly(reader);
+            }
+        }
+    }
+
+}
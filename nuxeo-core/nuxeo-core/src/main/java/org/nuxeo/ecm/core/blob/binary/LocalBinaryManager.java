@@ -30,7 +30,6 @@ import java.util.Map;
 import java.util.regex.Pattern;
 
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -69,13 +68,45 @@ public class LocalBinaryManager extends AbstractBinaryManager {
 
     public static final String CONFIG_FILE = "config.xml";
 
+    /** @since 8.3 */
+    public static final String GC = "gc";
+
+    /**
+     * In the initialization properties, the property to use the {@link IncrementalBinaryGarbageCollector}.
+     *
+     * @since 8.3
+     */
+    public static final String PROP_GC_INCREMENTAL = "gcIncremental";
+
+    /**
+     * In the initialization properties, the number of distinct digests marked in memory by the incremental GC before
+     * spilling them to disk.
+     *
+     * @since 8.3
+     */
+    public static final String PROP_GC_MARK_BATCH_SIZE = "gcMarkBatchSize";
+
+    /**
+     * In the initialization properties, the pause between two shards swept by the incremental GC (in milliseconds).
+     *
+     * @since 8.3
+     */
+    public static final String PROP_GC_SWEEP_PAUSE = "gcSweepPause";
+
     protected File storageDir;
 
     protected File tmpDir;
 
+    /** @since 8.3 */
+    protected File gcDir;
+
+    /** @since 8.3 */
+    protected Map<String, String> properties;
+
     @Override
     public void initialize(String blobProviderId, Map<String, String> properties) throws IOException {
         super.initialize(blobProviderId, properties);
+        this.properties = properties;
         String path = properties.get(BinaryManager.PROP_PATH);
         if (StringUtils.isBlank(path)) {
             path = DEFAULT_PATH;
@@ -108,6 +139,7 @@ public class LocalBinaryManager extends AbstractBinaryManager {
                 + "binary store: " + base);
         storageDir = new File(base, DATA);
         tmpDir = new File(base, TMP);
+        gcDir = new File(base, GC);
         storageDir.mkdirs();
         tmpDir.mkdirs();
         descriptor = getDescriptor(new File(base, CONFIG_FILE));
@@ -205,6 +237,36 @@ public class LocalBinaryManager extends AbstractBinaryManager {
 
     }
 
+    /**
+     * Stores and digests the content of a file, which is left untouched.
+     * <p>
+     * The file is read only once, being copied to a temporary file while its digest is computed, and the copy fails if
+     * the file is modified meanwhile.
+     *
+     * @param source the file
+     * @return the digest
+     * @since 8.3
+     */
+    protected String storeAndDigest(File source) throws IOException {
+        long length = source.length();
+        long lastModified = source.lastModified();
+        File tmp = File.createTempFile("create_", ".tmp", tmpDir);
+        try {
+            String digest;
+            try (InputStream in = new FileInputStream(source); OutputStream out = new FileOutputStream(tmp)) {
+                digest = storeAndDigest(in, out);
+            }
+            if (source.length() != length || source.lastModified() != lastModified) {
+                throw new IOException("File modified while being stored: " + source);
+            }
+            File file = getFileForDigest(digest, true);
+            atomicMove(tmp, file);
+            return digest;
+        } finally {
+            tmp.delete();
+        }
+    }
+
     /**
      * Does an atomic move of the tmp (or source) file to the final file.
      * <p>
@@ -229,10 +291,7 @@ public class LocalBinaryManager extends AbstractBinaryManager {
             // atomic rename.
             File tmp = File.createTempFile(dest.getName(), ".tmp", dest.getParentFile());
             try {
-                try (InputStream in = new FileInputStream(source); //
-                        OutputStream out = new FileOutputStream(tmp)) {
-                    IOUtils.copy(in, out);
-                }
+                transferFile(source, tmp);
                 // then do the atomic rename
                 tmp.renameTo(dest);
             } finally {
@@ -247,7 +306,16 @@ public class LocalBinaryManager extends AbstractBinaryManager {
     }
 
     protected void createGarbageCollector() {
-        garbageCollector = new DefaultBinaryGarbageCollector(this);
+        if (properties != null && Boolean.parseBoolean(properties.get(PROP_GC_INCREMENTAL))) {
+            String batchSize = properties.get(PROP_GC_MARK_BATCH_SIZE);
+            String pause = properties.get(PROP_GC_SWEEP_PAUSE);
+            garbageCollector = new IncrementalBinaryGarbageCollector(this, gcDir,
+                    StringUtils.isBlank(batchSize) ? IncrementalBinaryGarbageCollector.DEFAULT_MARK_BATCH_SIZE
+                            : Integer.parseInt(batchSize.trim()),
+                    StringUtils.isBlank(pause) ? 0 : Long.parseLong(pause.trim()));
+        } else {
+            garbageCollector = new DefaultBinaryGarbageCollector(this);
+        }
     }
 
     public static class DefaultBinaryGarbageCollector implements BinaryGarbageCollector {
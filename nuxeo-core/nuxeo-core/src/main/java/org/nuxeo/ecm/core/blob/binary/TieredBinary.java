@@ -0,0 +1,70 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.blob.binary;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.nuxeo.ecm.core.blob.BlobManager;
+import org.nuxeo.ecm.core.blob.BlobProvider;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Binary of a {@link TieredBinaryManager} that looks up its tier on each access, so that it stays readable after being
+ * moved to the cold tier.
+ *
+ * @since 8.3
+ */
+public class TieredBinary extends Binary {
+
+    private static final long serialVersionUID = 1L;
+
+    // transient to be Serializable
+    protected transient TieredBinaryManager tbm;
+
+    public TieredBinary(String digest, String blobProviderId, TieredBinaryManager tbm) {
+        super(digest, blobProviderId);
+        this.tbm = tbm;
+    }
+
+    // because the class is Serializable, re-acquire the TieredBinaryManager
+    protected TieredBinaryManager getTieredBinaryManager() {
+        if (tbm == null) {
+            if (blobProviderId == null) {
+                throw new UnsupportedOperationException("Cannot find binary manager, no blob provider id");
+            }
+            BlobManager bm = Framework.getService(BlobManager.class);
+            BlobProvider bp = bm.getBlobProvider(blobProviderId);
+            tbm = (TieredBinaryManager) bp.getBinaryManager();
+        }
+        return tbm;
+    }
+
+    @Override
+    public InputStream getStream() throws IOException {
+        return getTieredBinaryManager().getStream(digest);
+    }
+
+    @Override
+    public File getFile() {
+        return getTieredBinaryManager().getFile(digest);
+    }
+
+}
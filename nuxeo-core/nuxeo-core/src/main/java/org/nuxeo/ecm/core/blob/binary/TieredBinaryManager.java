@@ -0,0 +1,469 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.blob.binary;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.Blob;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.api.impl.blob.FileBlob;
+import org.nuxeo.ecm.core.work.api.WorkManager;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * A binary manager storing binaries in two tiers: a fast local hot tier, and a cheaper cold tier.
+ * <p>
+ * New binaries are written to the hot tier. Reads look up the hot tier first, then the cold tier, when the binary's
+ * content is accessed rather than when the {@link Binary} is created, so that a binary moved meanwhile is still found.
+ * The time of each read of a hot binary is recorded as the modification time of an empty file of the
+ * {@value #ACCESS_DIR} directory next to the hot tier storage, so that it's shared by all the nodes sharing the hot tier.
+ * The modification time of the binary itself can't be used, as the garbage collector updates it when marking.
+ * <p>
+ * Binaries are moved between tiers in the background by {@link TieredBinaryMigrationWork}s:
+ * <ul>
+ * <li>binaries of the hot tier not read for {@value #PROP_COLD_AFTER} seconds are copied to the cold tier, then
+ * removed from the hot tier,</li>
+ * <li>binaries read from the cold tier are copied back to the hot tier, unless {@value #PROP_PROMOTE_ON_READ} is
+ * {@code false}. The cold copy is kept, so that a later demotion doesn't need to copy it again.</li>
+ * </ul>
+ * The binaries are addressed by digest in both tiers, so moving them doesn't change the blob keys stored in documents.
+ * <p>
+ * The tiers are configured through the properties of this binary manager prefixed by {@value #HOT_PREFIX} or
+ * {@value #COLD_PREFIX}, the prefix being removed before passing them to the tier. The hot tier is a
+ * {@link DefaultBinaryManager}, the cold tier is a {@link DefaultBinaryManager} unless another {@link BinaryManager}
+ * class is given by the {@value #PROP_COLD_CLASS} property.
+ *
+ * @since 8.3
+ */
+public class TieredBinaryManager extends AbstractBinaryManager {
+
+    private static final Log log = LogFactory.getLog(TieredBinaryManager.class);
+
+    public static final String HOT_PREFIX = "hot.";
+
+    public static final String COLD_PREFIX = "cold.";
+
+    /** The class of the cold tier {@link BinaryManager}. */
+    public static final String PROP_COLD_CLASS = "coldClass";
+
+    /** The number of seconds without read after which a binary is moved to the cold tier. */
+    public static final String PROP_COLD_AFTER = "coldAfter";
+
+    /** Whether binaries read from the cold tier are copied back to the hot tier. */
+    public static final String PROP_PROMOTE_ON_READ = "promoteOnRead";
+
+    public static final long DEFAULT_COLD_AFTER = 30 * 24 * 3600; // 30 days
+
+    /** The directory, next to the hot tier storage, holding the files recording the last read of hot binaries. */
+    public static final String ACCESS_DIR = "access";
+
+    protected LocalBinaryManager hot;
+
+    protected BinaryManager cold;
+
+    protected long coldAfterMillis;
+
+    protected boolean promoteOnRead;
+
+    protected File accessDir;
+
+    @Override
+    public void initialize(String blobProviderId, Map<String, String> properties) throws IOException {
+        super.initialize(blobProviderId, properties);
+        String coldAfter = properties.get(PROP_COLD_AFTER);
+        coldAfterMillis = 1000
+                * (StringUtils.isBlank(coldAfter) ? DEFAULT_COLD_AFTER : Long.parseLong(coldAfter.trim()));
+        String promote = properties.get(PROP_PROMOTE_ON_READ);
+        promoteOnRead = StringUtils.isBlank(promote) || Boolean.parseBoolean(promote.trim());
+
+        // the tiers use the same blob provider id, so that their binaries are seen as ours
+        hot = new DefaultBinaryManager();
+        hot.initialize(blobProviderId, getTierProperties(properties, HOT_PREFIX));
+        String coldClass = properties.get(PROP_COLD_CLASS);
+        if (StringUtils.isBlank(coldClass)) {
+            cold = new DefaultBinaryManager();
+        } else {
+            try {
+                cold = (BinaryManager) Class.forName(coldClass.trim()).newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new NuxeoException("Cannot instantiate cold tier binary manager: " + coldClass, e);
+            }
+        }
+        cold.initialize(blobProviderId, getTierProperties(properties, COLD_PREFIX));
+        if (!hot.getDigestAlgorithm().equals(cold.getDigestAlgorithm())) {
+            throw new NuxeoException("Hot and cold tiers must use the same digest algorithm, got: "
+                    + hot.getDigestAlgorithm() + " and " + cold.getDigestAlgorithm());
+        }
+        if (hot.getStorageDir().equals(getColdStorageDir())) {
+            throw new NuxeoException("Hot and cold tiers must use different paths: " + hot.getStorageDir());
+        }
+        accessDir = new File(hot.getStorageDir().getParentFile(), ACCESS_DIR);
+        accessDir.mkdirs();
+        garbageCollector = new TieredBinaryGarbageCollector();
+        log.info("Registering tiered binary manager '" + blobProviderId + "' with cold tier "
+                + cold.getClass().getSimpleName() + ", binaries not read for " + coldAfterMillis / 1000
+                + " s are moved to the cold tier");
+    }
+
+    protected static Map<String, String> getTierProperties(Map<String, String> properties, String prefix) {
+        Map<String, String> tierProperties = new HashMap<>();
+        for (Map.Entry<String, String> es : properties.entrySet()) {
+            if (es.getKey().startsWith(prefix)) {
+                tierProperties.put(es.getKey().substring(prefix.length()), es.getValue());
+            }
+        }
+        return tierProperties;
+    }
+
+    @Override
+    public void close() {
+        hot.close();
+        cold.close();
+    }
+
+    public LocalBinaryManager getHotTier() {
+        return hot;
+    }
+
+    public BinaryManager getColdTier() {
+        return cold;
+    }
+
+    @Override
+    public String getDigestAlgorithm() {
+        return hot.getDigestAlgorithm();
+    }
+
+    @Override
+    public Binary getBinary(Blob blob) throws IOException {
+        if (blob instanceof BinaryBlob) {
+            Binary binary = ((BinaryBlob) blob).getBinary();
+            if (binary.getBlobProviderId().equals(blobProviderId)) {
+                return binary;
+            }
+        }
+        String digest = hot.getBinary(blob).getDigest();
+        recordAccess(digest);
+        return new TieredBinary(digest, blobProviderId, this);
+    }
+
+    @Override
+    protected Binary getBinary(InputStream in) throws IOException {
+        String digest = hot.getBinary(in).getDigest();
+        recordAccess(digest);
+        return new TieredBinary(digest, blobProviderId, this);
+    }
+
+    /*
+     * Called each time a blob is loaded, reads are only recorded when the content of the binary is accessed.
+     */
+    @Override
+    public Binary getBinary(String digest) {
+        if (!isInHotTier(digest) && cold.getBinary(digest) == null) {
+            return null;
+        }
+        return new TieredBinary(digest, blobProviderId, this);
+    }
+
+    /* =============== Methods used by TieredBinary =============== */
+
+    /**
+     * Gets the file of a binary from the tier holding it when called.
+     * <p>
+     * Used by {@link TieredBinary}.
+     */
+    public File getFile(String digest) {
+        File file = hot.getFileForDigest(digest, false);
+        if (file != null && file.exists()) {
+            recordAccess(digest);
+            return file;
+        }
+        Binary binary = readColdBinary(digest);
+        return binary == null ? null : binary.getFile();
+    }
+
+    /**
+     * Opens the stream of a binary from the tier holding it when called.
+     * <p>
+     * Used by {@link TieredBinary}.
+     */
+    public InputStream getStream(String digest) throws IOException {
+        File file = hot.getFileForDigest(digest, false);
+        if (file != null) {
+            try {
+                InputStream in = new FileInputStream(file);
+                recordAccess(digest);
+                return in;
+            } catch (FileNotFoundException e) {
+                // not or no longer in the hot tier
+            }
+        }
+        Binary binary = readColdBinary(digest);
+        return binary == null ? null : binary.getStream();
+    }
+
+    /**
+     * Gets a binary of the cold tier about to be read, scheduling its copy to the hot tier if configured.
+     */
+    protected Binary readColdBinary(String digest) {
+        Binary binary = cold.getBinary(digest);
+        if (binary != null && promoteOnRead) {
+            scheduleMigration(digest);
+        }
+        return binary;
+    }
+
+    protected boolean isInHotTier(String digest) {
+        File file = hot.getFileForDigest(digest, false);
+        return file != null && file.exists();
+    }
+
+    protected File getColdStorageDir() {
+        return cold instanceof LocalBinaryManager ? ((LocalBinaryManager) cold).getStorageDir() : null;
+    }
+
+    protected boolean isInColdTier(String digest) {
+        if (cold instanceof LocalBinaryManager) {
+            File file = ((LocalBinaryManager) cold).getFileForDigest(digest, false);
+            return file != null && file.exists();
+        }
+        return false; // unknown, copy it again
+    }
+
+    /**
+     * Gets the file whose modification time is the last read time of a binary of the hot tier.
+     */
+    protected File getAccessFile(String digest) {
+        File file = hot.getFileForDigest(digest, false);
+        if (file == null) {
+            return null;
+        }
+        return accessDir.toPath().resolve(hot.getStorageDir().toPath().relativize(file.toPath())).toFile();
+    }
+
+    /**
+     * Records a read of a binary of the hot tier.
+     */
+    protected void recordAccess(String digest) {
+        File file = getAccessFile(digest);
+        if (file == null || file.setLastModified(System.currentTimeMillis())) {
+            return;
+        }
+        // first access
+        try {
+            file.getParentFile().mkdirs();
+            file.createNewFile();
+        } catch (IOException e) {
+            log.error("Cannot record binary access: " + file, e);
+        }
+    }
+
+    /**
+     * Schedules the copy of a binary to the hot tier, or the demotion of the unused binaries if the digest is
+     * {@code null}.
+     */
+    protected void scheduleMigration(String digest) {
+        WorkManager workManager = Framework.getService(WorkManager.class);
+        if (workManager == null) {
+            return;
+        }
+        TieredBinaryMigrationWork work = new TieredBinaryMigrationWork(blobProviderId, digest);
+        workManager.schedule(work, WorkManager.Scheduling.IF_NOT_RUNNING_OR_SCHEDULED);
+    }
+
+    /**
+     * Copies a binary from the cold tier to the hot tier.
+     *
+     * @return {@code true} if the binary was copied
+     */
+    public boolean promote(String digest) throws IOException {
+        if (isInHotTier(digest)) {
+            return false;
+        }
+        Binary binary = cold.getBinary(digest);
+        if (binary == null) {
+            return false;
+        }
+        String storedDigest;
+        try (InputStream in = binary.getStream()) {
+            storedDigest = hot.storeAndDigest(in);
+        }
+        if (!digest.equals(storedDigest)) {
+            throw new IOException("Digest mismatch promoting binary: " + digest + ", got: " + storedDigest);
+        }
+        recordAccess(digest);
+        return true;
+    }
+
+    /**
+     * Moves the binaries of the hot tier that weren't read recently to the cold tier.
+     * <p>
+     * A binary is removed from the hot tier only after having been stored in the cold tier, and if it wasn't read
+     * meanwhile. Binaries never seen before are considered read now. The access files of the binaries no longer in
+     * the hot tier, for instance because of a garbage collection, are removed.
+     *
+     * @return the number of binaries moved
+     */
+    public long demoteUnusedBinaries() throws IOException {
+        long n = 0;
+        long now = System.currentTimeMillis();
+        List<File> files = new ArrayList<>();
+        listFiles(hot.getStorageDir(), files);
+        for (File file : files) {
+            String digest = file.getName();
+            File accessFile = getAccessFile(digest);
+            if (accessFile == null) {
+                continue;
+            }
+            long time = accessFile.lastModified();
+            if (time == 0) {
+                recordAccess(digest);
+                continue;
+            }
+            if (now - time < coldAfterMillis) {
+                continue;
+            }
+            if (!isInColdTier(digest)) {
+                Binary binary = cold.getBinary(new FileBlob(file));
+                String storedDigest = binary.getDigest();
+                if (!digest.equals(storedDigest)) {
+                    throw new IOException("Digest mismatch demoting binary: " + digest + ", got: " + storedDigest);
+                }
+            }
+            // remove from the hot tier unless read meanwhile
+            if (accessFile.lastModified() == time) {
+                if (file.delete()) {
+                    accessFile.delete();
+                    n++;
+                } else {
+                    log.warn("Cannot remove binary from hot tier: " + file);
+                }
+            }
+        }
+        pruneAccessFiles(accessDir, 0);
+        return n;
+    }
+
+    /**
+     * Removes the access files of the binaries that are no longer in the hot tier, and the empty directories.
+     */
+    protected void pruneAccessFiles(File dir, int depth) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File file : children) {
+            if (file.isDirectory()) {
+                pruneAccessFiles(file, depth + 1);
+            } else if (!isInHotTier(file.getName())) {
+                file.delete();
+            }
+        }
+        if (depth > 0 && dir.list().length == 0) {
+            dir.delete();
+        }
+    }
+
+    protected static void listFiles(File dir, List<File> files) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File file : children) {
+            if (file.isDirectory()) {
+                listFiles(file, files);
+            } else if (file.isFile()) {
+                files.add(file);
+            }
+        }
+    }
+
+    /**
+     * Garbage collector running the garbage collectors of both tiers.
+     */
+    protected class TieredBinaryGarbageCollector implements BinaryGarbageCollector {
+
+        protected BinaryManagerStatus status;
+
+        protected volatile boolean inProgress;
+
+        @Override
+        public String getId() {
+            return hot.getGarbageCollector().getId() + "," + cold.getGarbageCollector().getId();
+        }
+
+        @Override
+        public void start() {
+            hot.getGarbageCollector().start();
+            cold.getGarbageCollector().start();
+            inProgress = true;
+        }
+
+        @Override
+        public void mark(String digest) {
+            // a binary may be in one tier or both, don't report it missing from one of them
+            if (isInHotTier(digest)) {
+                hot.getGarbageCollector().mark(digest);
+            }
+            if (!(cold instanceof LocalBinaryManager) || isInColdTier(digest)) {
+                cold.getGarbageCollector().mark(digest);
+            }
+        }
+
+        @Override
+        public void stop(boolean delete) {
+            try {
+                hot.getGarbageCollector().stop(delete);
+                cold.getGarbageCollector().stop(delete);
+            } finally {
+                inProgress = false;
+            }
+            BinaryManagerStatus hotStatus = hot.getGarbageCollector().getStatus();
+            BinaryManagerStatus coldStatus = cold.getGarbageCollector().getStatus();
+            status = new BinaryManagerStatus();
+            status.gcDuration = Math.max(hotStatus.gcDuration, coldStatus.gcDuration);
+            status.numBinaries = hotStatus.numBinaries + coldStatus.numBinaries;
+            status.sizeBinaries = hotStatus.sizeBinaries + coldStatus.sizeBinaries;
+            status.numBinariesGC = hotStatus.numBinariesGC + coldStatus.numBinariesGC;
+            status.sizeBinariesGC = hotStatus.sizeBinariesGC + coldStatus.sizeBinariesGC;
+        }
+
+        @Override
+        public BinaryManagerStatus getStatus() {
+            return status;
+        }
+
+        @Override
+        public boolean isInProgress() {
+            return inProgress;
+        }
+    }
+
+}
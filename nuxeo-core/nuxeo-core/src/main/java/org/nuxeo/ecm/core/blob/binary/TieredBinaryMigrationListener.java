@@ -0,0 +1,55 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.blob.binary;
+
+import java.util.Map.Entry;
+
+import org.nuxeo.ecm.core.blob.BlobManager;
+import org.nuxeo.ecm.core.blob.BlobProvider;
+import org.nuxeo.ecm.core.event.Event;
+import org.nuxeo.ecm.core.event.EventListener;
+import org.nuxeo.ecm.core.work.api.WorkManager;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Listener scheduling the move of unused binaries to the cold tier, for all the blob providers using a
+ * {@link TieredBinaryManager}.
+ *
+ * @since 8.3
+ */
+public class TieredBinaryMigrationListener implements EventListener {
+
+    public static final String TIERED_BINARY_MIGRATION_EVENT = "tieredBinaryMigration";
+
+    @Override
+    public void handleEvent(Event event) {
+        if (!TIERED_BINARY_MIGRATION_EVENT.equals(event.getName())) {
+            return;
+        }
+        WorkManager workManager = Framework.getLocalService(WorkManager.class);
+        BlobManager blobManager = Framework.getService(BlobManager.class);
+        for (Entry<String, BlobProvider> es : blobManager.getBlobProviders().entrySet()) {
+            if (es.getValue().getBinaryManager() instanceof TieredBinaryManager) {
+                TieredBinaryMigrationWork work = new TieredBinaryMigrationWork(es.getKey(), null);
+                workManager.schedule(work, WorkManager.Scheduling.IF_NOT_RUNNING_OR_SCHEDULED);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,103 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.blob.binary;
+
+import java.io.IOException;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.blob.BlobManager;
+import org.nuxeo.ecm.core.blob.BlobProvider;
+import org.nuxeo.ecm.core.work.AbstractWork;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Work moving binaries between the tiers of a {@link TieredBinaryManager}.
+ * <p>
+ * With a digest, copies this binary to the hot tier. Without one, moves the binaries of the hot tier that weren't read
+ * recently to the cold tier.
+ *
+ * @since 8.3
+ */
+public class TieredBinaryMigrationWork extends AbstractWork {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Log log = LogFactory.getLog(TieredBinaryMigrationWork.class);
+
+    public static final String CATEGORY = "tieredBinaryMigration";
+
+    protected static final String TITLE = "Tiered Binary Migration";
+
+    protected final String blobProviderId;
+
+    protected final String digest;
+
+    /**
+     * @param blobProviderId the id of the blob provider using a {@link TieredBinaryManager}
+     * @param digest the digest of the binary to copy to the hot tier, or {@code null} to move unused binaries to the
+     *            cold tier
+     */
+    public TieredBinaryMigrationWork(String blobProviderId, String digest) {
+        super(blobProviderId + ':' + (digest == null ? "demote" : digest) + ':' + CATEGORY);
+        this.blobProviderId = blobProviderId;
+        this.digest = digest;
+    }
+
+    @Override
+    public String getCategory() {
+        return CATEGORY;
+    }
+
+    @Override
+    public String getTitle() {
+        return TITLE;
+    }
+
+    @Override
+    public void work() {
+        BlobProvider blobProvider = Framework.getService(BlobManager.class).getBlobProvider(blobProviderId);
+        if (blobProvider == null || !(blobProvider.getBinaryManager() instanceof TieredBinaryManager)) {
+            log.debug("No tiered binary manager for blob provider: " + blobProviderId);
+            return;
+        }
+        TieredBinaryManager binaryManager = (TieredBinaryManager) blobProvider.getBinaryManager();
+        // only filesystem operations
+        commitOrRollbackTransaction();
+        try {
+            if (digest == null) {
+                setStatus("Moving unused binaries to cold tier");
+                long n = binaryManager.demoteUnusedBinaries();
+                if (log.isDebugEnabled()) {
+                    log.debug("Moved " + n + " binaries to cold tier for blob provider: " + blobProviderId);
+                }
+            } else {
+                setStatus("Copying binary to hot tier");
+                binaryManager.promote(digest);
+            }
+        } catch (IOException e) {
+            throw new NuxeoException(e);
+        } finally {
+            startTransaction();
+        }
+        setStatus("Done");
+    }
+
+}
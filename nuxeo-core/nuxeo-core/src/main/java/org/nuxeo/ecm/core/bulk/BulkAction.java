@@ -0,0 +1,47 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.bulk;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+
+import org.nuxeo.ecm.core.api.CoreSession;
+
+/**
+ * An action that can be run by the {@link BulkService} on the documents matching a query.
+ * <p>
+ * A new instance is created for each bucket, the action is then called several times for the bucket, each call being
+ * done in its own transaction.
+ *
+ * @since 8.3
+ */
+public interface BulkAction {
+
+    /**
+     * Runs the action on a batch of documents. The session is saved by the caller.
+     *
+     * @param session the session, opened as the user who submitted the command
+     * @param ids the ids of the documents to process
+     * @param params the parameters of the command
+     * @return the number of documents processed, not counting those that no longer exist or that the user cannot read
+     */
+    int compute(CoreSession session, List<String> ids, Map<String, Serializable> params);
+
+}
@@ -0,0 +1,71 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.bulk;
+
+import org.nuxeo.common.xmap.annotation.XNode;
+import org.nuxeo.common.xmap.annotation.XObject;
+import org.nuxeo.ecm.core.api.NuxeoException;
+
+/**
+ * Descriptor for a bulk action.
+ *
+ * @since 8.3
+ */
+@XObject("action")
+public class BulkActionDescriptor {
+
+    public static final int DEFAULT_BUCKET_SIZE = 100;
+
+    public static final int DEFAULT_BATCH_SIZE = 25;
+
+    @XNode("@name")
+    protected String name;
+
+    @XNode("@class")
+    protected Class<? extends BulkAction> klass;
+
+    /** Number of documents processed by a single work. */
+    @XNode("@bucketSize")
+    protected int bucketSize = DEFAULT_BUCKET_SIZE;
+
+    /** Number of documents processed in a single transaction. */
+    @XNode("@batchSize")
+    protected int batchSize = DEFAULT_BATCH_SIZE;
+
+    public String getName() {
+        return name;
+    }
+
+    public int getBucketSize() {
+        return bucketSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public BulkAction newInstance() {
+        try {
+            return klass.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new NuxeoException("Cannot instantiate bulk action: " + name, e);
+        }
+    }
+
+}
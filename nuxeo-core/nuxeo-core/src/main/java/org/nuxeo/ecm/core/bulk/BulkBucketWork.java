@@ -0,0 +1,135 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.bulk;
+
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.CoreInstance;
+import org.nuxeo.ecm.core.work.AbstractWork;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.api.login.LoginAs;
+import org.nuxeo.runtime.transaction.TransactionHelper;
+
+/**
+ * Work running the action of a bulk command on a bucket of document ids, committing every batch.
+ *
+ * @since 8.3
+ */
+public class BulkBucketWork extends AbstractWork {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Log log = LogFactory.getLog(BulkBucketWork.class);
+
+    public static final String CATEGORY = "bulk";
+
+    protected final String commandId;
+
+    protected final BulkCommand command;
+
+    protected final int batchSize;
+
+    public BulkBucketWork(String id, String commandId, BulkCommand command, int batchSize) {
+        super(id);
+        this.commandId = commandId;
+        this.command = command;
+        this.batchSize = batchSize;
+        originatingUsername = command.getUsername();
+    }
+
+    @Override
+    public void work() {
+        BulkComponent bulk = (BulkComponent) Framework.getService(BulkService.class);
+        BulkAction action = bulk.getActionDescriptor(command.getAction()).newInstance();
+        openCommandSession();
+        int size = docIds.size();
+        for (int start = 0; start < size; start += batchSize) {
+            if (bulk.isAborted(commandId)) {
+                return;
+            }
+            List<String> batch = docIds.subList(start, Math.min(start + batchSize, size));
+            setProgress(new Progress(start, size));
+            int processed = -1;
+            try {
+                processed = action.compute(session, batch, command.getParams());
+                session.save();
+            } catch (RuntimeException e) {
+                processed = -1; // also if the save failed
+                log.error("Bulk command " + commandId + " failed on batch: " + batch, e);
+                TransactionHelper.setTransactionRollbackOnly();
+            }
+            commitOrRollbackTransaction();
+            startTransaction();
+            if (processed >= 0) {
+                bulk.bucketProgressed(commandId, processed, batch.size() - processed, 0);
+            } else {
+                bulk.bucketProgressed(commandId, 0, 0, batch.size());
+            }
+        }
+        setProgress(new Progress(size, size));
+    }
+
+    /**
+     * Opens a session as the user who submitted the command, so that the action is run with the permissions of this
+     * user.
+     */
+    protected void openCommandSession() {
+        if (Framework.getLocalService(LoginAs.class) != null) {
+            // session for the logged in principal, with its groups
+            openUserSession();
+        } else {
+            if (!Framework.isTestModeSet()) {
+                log.error("LoginAs service not available, running bulk command " + commandId + " as user "
+                        + originatingUsername + " without groups");
+            }
+            session = CoreInstance.openCoreSession(repositoryName, originatingUsername);
+        }
+    }
+
+    @Override
+    public void cleanUp(boolean ok, Exception e) {
+        try {
+            if (!ok && !(e instanceof InterruptedException)) {
+                // errors in a batch are counted, anything else leaves the command unfinished
+                ((BulkComponent) Framework.getService(BulkService.class)).commandFailed(commandId);
+            }
+        } finally {
+            super.cleanUp(ok, e);
+        }
+    }
+
+    @Override
+    public String getCategory() {
+        return CATEGORY;
+    }
+
+    @Override
+    public String getTitle() {
+        return "Bulk: " + command.getAction() + " " + getId();
+    }
+
+    @Override
+    public int getRetryCount() {
+        // errors are counted per batch, retrying would process successful batches again
+        return 0;
+    }
+
+}
@@ -0,0 +1,122 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.bulk;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A command submitted to the {@link BulkService}: an action to run on the documents matching a NXQL query.
+ *
+ * @since 8.3
+ */
+public class BulkCommand implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    protected String repository;
+
+    protected String username;
+
+    protected String query;
+
+    protected String action;
+
+    protected Map<String, Serializable> params = new HashMap<>();
+
+    protected int bucketSize;
+
+    protected int batchSize;
+
+    public String getRepository() {
+        return repository;
+    }
+
+    public BulkCommand withRepository(String repository) {
+        this.repository = repository;
+        return this;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public BulkCommand withUsername(String username) {
+        this.username = username;
+        return this;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public BulkCommand withQuery(String query) {
+        this.query = query;
+        return this;
+    }
+
+    public String getAction() {
+        return action;
+    }
+
+    public BulkCommand withAction(String action) {
+        this.action = action;
+        return this;
+    }
+
+    public Map<String, Serializable> getParams() {
+        return params;
+    }
+
+    public BulkCommand withParam(String key, Serializable value) {
+        params.put(key, value);
+        return this;
+    }
+
+    /**
+     * Gets the number of documents processed by a single work, or {@code 0} for the action's default.
+     */
+    public int getBucketSize() {
+        return bucketSize;
+    }
+
+    public BulkCommand withBucketSize(int bucketSize) {
+        this.bucketSize = bucketSize;
+        return this;
+    }
+
+    /**
+     * Gets the number of documents processed in a single transaction, or {@code 0} for the action's default.
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public BulkCommand withBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" + action + ", " + repository + ", " + query + ")";
+    }
+
+}
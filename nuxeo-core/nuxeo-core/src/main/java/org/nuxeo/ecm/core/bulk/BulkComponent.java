@@ -0,0 +1,246 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.bulk;
+
+import static org.nuxeo.ecm.core.bulk.BulkStatus.State.ABORTED;
+import static org.nuxeo.ecm.core.bulk.BulkStatus.State.COMPLETED;
+import static org.nuxeo.ecm.core.bulk.BulkStatus.State.RUNNING;
+import static org.nuxeo.ecm.core.bulk.BulkStatus.State.SCHEDULED;
+import static org.nuxeo.ecm.core.bulk.BulkStatus.State.SCROLLING_RUNNING;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.ecm.core.api.NuxeoException;
+import org.nuxeo.ecm.core.bulk.BulkStatus.State;
+import org.nuxeo.ecm.core.work.api.WorkManager;
+import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.kv.KeyValueService;
+import org.nuxeo.runtime.kv.KeyValueStore;
+import org.nuxeo.runtime.model.ComponentInstance;
+import org.nuxeo.runtime.model.DefaultComponent;
+
+/**
+ * Implementation of the {@link BulkService}, holding the registry of {@link BulkAction}s and the status of the
+ * commands.
+ *
+ * @since 8.3
+ */
+public class BulkComponent extends DefaultComponent implements BulkService {
+
+    private static final Log log = LogFactory.getLog(BulkComponent.class);
+
+    public static final String XP_ACTIONS = "actions";
+
+    protected static final long AWAIT_POLL_MILLIS = 100;
+
+    protected final Map<String, BulkActionDescriptor> actions = new ConcurrentHashMap<>();
+
+    /** Name of the key/value store holding the status of the commands. */
+    public static final String KV_STORE_NAME = "bulk";
+
+    /** The status of a command expires one day after its last update. */
+    public static final long STATUS_TTL = TimeUnit.DAYS.toSeconds(1);
+
+    protected static final String STATE = ":state";
+
+    protected static final String SUBMIT_TIME = ":submit";
+
+    protected static final String COUNT = ":count";
+
+    protected static final String PROCESSED = ":processed";
+
+    protected static final String SKIPPED = ":skipped";
+
+    protected static final String ERRORS = ":errors";
+
+    @Override
+    public void registerContribution(Object contribution, String extensionPoint, ComponentInstance contributor) {
+        if (XP_ACTIONS.equals(extensionPoint)) {
+            BulkActionDescriptor descriptor = (BulkActionDescriptor) contribution;
+            actions.put(descriptor.getName(), descriptor);
+        } else {
+            throw new NuxeoException("Unknown extension point: " + extensionPoint);
+        }
+    }
+
+    @Override
+    public void unregisterContribution(Object contribution, String extensionPoint, ComponentInstance contributor) {
+        if (XP_ACTIONS.equals(extensionPoint)) {
+            BulkActionDescriptor descriptor = (BulkActionDescriptor) contribution;
+            actions.remove(descriptor.getName());
+        }
+    }
+
+    /**
+     * Gets the key/value store holding the status of the commands, shared between cluster nodes when the store is.
+     */
+    public KeyValueStore getKeyValueStore() {
+        return Framework.getService(KeyValueService.class).getKeyValueStore(KV_STORE_NAME);
+    }
+
+    public BulkActionDescriptor getActionDescriptor(String action) {
+        BulkActionDescriptor descriptor = actions.get(action);
+        if (descriptor == null) {
+            throw new NuxeoException("Unknown bulk action: " + action);
+        }
+        return descriptor;
+    }
+
+    @Override
+    public String submit(BulkCommand command) {
+        if (command.getRepository() == null || command.getQuery() == null || command.getUsername() == null) {
+            throw new IllegalArgumentException("Missing repository, query or username in: " + command);
+        }
+        // fail early on unknown action
+        getActionDescriptor(command.getAction());
+        String commandId = UUID.randomUUID().toString();
+        KeyValueStore kv = getKeyValueStore();
+        kv.put(commandId + SUBMIT_TIME, Long.valueOf(System.currentTimeMillis()), STATUS_TTL);
+        kv.put(commandId + STATE, SCHEDULED.name(), STATUS_TTL);
+        BulkScrollWork work = new BulkScrollWork(commandId, command);
+        Framework.getService(WorkManager.class).schedule(work, true);
+        if (log.isDebugEnabled()) {
+            log.debug("Submitted bulk command " + commandId + ": " + command);
+        }
+        return commandId;
+    }
+
+    @Override
+    public BulkStatus getStatus(String commandId) {
+        KeyValueStore kv = getKeyValueStore();
+        String state = kv.getString(commandId + STATE);
+        if (state == null) {
+            return null;
+        }
+        return new BulkStatus(commandId, State.valueOf(state), getLong(kv, commandId + SUBMIT_TIME),
+                getLong(kv, commandId + COUNT), getLong(kv, commandId + PROCESSED), getLong(kv, commandId + SKIPPED),
+                getLong(kv, commandId + ERRORS));
+    }
+
+    protected static long getLong(KeyValueStore kv, String key) {
+        Long value = kv.getLong(key);
+        return value == null ? 0 : value.longValue();
+    }
+
+    @Override
+    public boolean await(String commandId, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + unit.toMillis(timeout);
+        for (;;) {
+            BulkStatus status = getStatus(commandId);
+            if (status == null) {
+                throw new NuxeoException("Unknown bulk command: " + commandId);
+            }
+            if (status.getState() == COMPLETED || status.getState() == ABORTED) {
+                return true;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            Thread.sleep(AWAIT_POLL_MILLIS);
+        }
+    }
+
+    /*
+     * ----- called by the works -----
+     */
+
+    protected void scrollStarted(String commandId) {
+        setState(commandId, SCHEDULED, SCROLLING_RUNNING);
+    }
+
+    protected void scrollProgressed(String commandId, long delta) {
+        KeyValueStore kv = getKeyValueStore();
+        kv.addAndGet(commandId + COUNT, delta);
+        kv.setTTL(commandId + COUNT, STATUS_TTL);
+    }
+
+    protected void scrollCompleted(String commandId) {
+        KeyValueStore kv = getKeyValueStore();
+        // make sure the counters exist so that they share the status TTL
+        kv.addAndGet(commandId + COUNT, 0);
+        kv.setTTL(commandId + COUNT, STATUS_TTL);
+        setState(commandId, SCROLLING_RUNNING, RUNNING);
+        checkCompleted(commandId);
+    }
+
+    protected void bucketProgressed(String commandId, long processed, long skipped, long errors) {
+        KeyValueStore kv = getKeyValueStore();
+        kv.addAndGet(commandId + PROCESSED, processed);
+        kv.setTTL(commandId + PROCESSED, STATUS_TTL);
+        kv.addAndGet(commandId + SKIPPED, skipped);
+        kv.setTTL(commandId + SKIPPED, STATUS_TTL);
+        kv.addAndGet(commandId + ERRORS, errors);
+        kv.setTTL(commandId + ERRORS, STATUS_TTL);
+        checkCompleted(commandId);
+    }
+
+    /**
+     * Moves the command to {@link State#ABORTED} after a work failed, unless it's already over.
+     */
+    protected void commandFailed(String commandId) {
+        KeyValueStore kv = getKeyValueStore();
+        for (;;) {
+            String state = kv.getString(commandId + STATE);
+            if (state == null || COMPLETED.name().equals(state) || ABORTED.name().equals(state)) {
+                return;
+            }
+            if (kv.compareAndSet(commandId + STATE, state, ABORTED.name(), STATUS_TTL)) {
+                log.warn("Aborted bulk command " + getStatus(commandId));
+                return;
+            }
+        }
+    }
+
+    protected boolean isAborted(String commandId) {
+        return ABORTED.name().equals(getKeyValueStore().getString(commandId + STATE));
+    }
+
+    protected void setState(String commandId, State expected, State state) {
+        if (!getKeyValueStore().compareAndSet(commandId + STATE, expected.name(), state.name(), STATUS_TTL)) {
+            throw new NuxeoException("Bulk command " + commandId + " is not in state " + expected);
+        }
+    }
+
+    /**
+     * Moves the command to {@link State#COMPLETED} if all its documents have been processed. The state transition is
+     * atomic so that only one of the concurrent buckets completes the command.
+     */
+    protected void checkCompleted(String commandId) {
+        KeyValueStore kv = getKeyValueStore();
+        if (!RUNNING.name().equals(kv.getString(commandId + STATE))) {
+            return;
+        }
+        long done = getLong(kv, commandId + PROCESSED) + getLong(kv, commandId + SKIPPED)
+                + getLong(kv, commandId + ERRORS);
+        if (done < getLong(kv, commandId + COUNT)) {
+            return;
+        }
+        if (kv.compareAndSet(commandId + STATE, RUNNING.name(), COMPLETED.name(), STATUS_TTL)) {
+            if (log.isDebugEnabled()) {
+                log.debug("Completed bulk command " + getStatus(commandId));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.bulk;
+
+import org.nuxeo.ecm.core.api.ScrollResult;
+import org.nuxeo.ecm.core.work.AbstractWork;
+import org.nuxeo.ecm.core.work.api.WorkManager;
+import org.nuxeo.runtime.api.Framework;
+
+/**
+ * Work scrolling the ids of the documents matching the query of a bulk command, and scheduling a
+ * {@link BulkBucketWork} for each bucket of ids.
+ *
+ * @since 8.3
+ */
+public class BulkScrollWork extends AbstractWork {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final String CATEGORY = "bulkScroller";
+
+    protected static final int SCROLL_KEEP_ALIVE_SECONDS = 600;
+
+    protected final String commandId;
+
+    protected final BulkCommand command;
+
+    public BulkScrollWork(String commandId, BulkCommand command) {
+        super(commandId);
+        this.commandId = commandId;
+        this.command = command;
+        repositoryName = command.getRepository();
+        originatingUsername = command.getUsername();
+    }
+
+    @Override
+    public void work() {
+        BulkComponent bulk = (BulkComponent) Framework.getService(BulkService.class);
+        BulkActionDescriptor descriptor = bulk.getActionDescriptor(command.getAction());
+        int bucketSize = command.getBucketSize() > 0 ? command.getBucketSize() : descriptor.getBucketSize();
+        int batchSize = command.getBatchSize() > 0 ? command.getBatchSize() : descriptor.getBatchSize();
+        WorkManager workManager = Framework.getService(WorkManager.class);
+
+        setStatus("Scrolling");
+        bulk.scrollStarted(commandId);
+        // scrolling is restricted to administrators, the buckets apply the action as the user
+        openSystemSession();
+        int bucket = 0;
+        ScrollResult res = session.scroll(command.getQuery(), bucketSize, SCROLL_KEEP_ALIVE_SECONDS);
+        while (res.hasResults()) {
+            if (bulk.isAborted(commandId)) {
+                session.closeScroll(res.getScrollId());
+                setStatus("Aborted");
+                return;
+            }
+            BulkBucketWork work = new BulkBucketWork(commandId + "-" + bucket++, commandId, command, batchSize);
+            work.setDocuments(repositoryName, res.getResultIds());
+            // count before scheduling so that the bucket cannot complete the command early
+            bulk.scrollProgressed(commandId, res.getResultIds().size());
+            workManager.schedule(work, WorkManager.Scheduling.ENQUEUE, false);
+            // don't keep a transaction open for the whole scroll
+            commitOrRollbackTransaction();
+            startTransaction();
+            res = session.scroll(res.getScrollId());
+        }
+        bulk.scrollCompleted(commandId);
+        setStatus("Done");
+    }
+
+    @Override
+    public void cleanUp(boolean ok, Exception e) {
+        try {
+            if (!ok && !(e instanceof InterruptedException)) {
+                ((BulkComponent) Framework.getService(BulkService.class)).commandFailed(commandId);
+            }
+        } finally {
+            super.cleanUp(ok, e);
+        }
+    }
+
+    @Override
+    public String getCategory() {
+        return CATEGORY;
+    }
+
+    @Override
+    public String getTitle() {
+        return "Bulk scroll: " + command.getAction() + " " + commandId;
+    }
+
+}
@@ -0,0 +1,62 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.bulk;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service running an action on all the documents matching a NXQL query.
+ * <p>
+ * The ids of the documents are retrieved using a scroll, and split into buckets that are processed in parallel by
+ * works, each bucket being itself processed in several transactions of bounded size.
+ *
+ * @since 8.3
+ */
+public interface BulkService {
+
+    /**
+     * Submits a command to be executed asynchronously.
+     * <p>
+     * The action is run in sessions opened as the user of the command, so that it only applies to the documents this
+     * user is allowed to read and modify.
+     *
+     * @param command the command, which must have a username
+     * @return the command id, to be used to get its status
+     */
+    String submit(BulkCommand command);
+
+    /**
+     * Gets the status of a command.
+     *
+     * @param commandId the command id
+     * @return the status, or {@code null} if the command is unknown
+     */
+    BulkStatus getStatus(String commandId);
+
+    /**
+     * Waits for the completion of a command, or its abortion if it failed.
+     *
+     * @param commandId the command id
+     * @param timeout the maximum time to wait
+     * @param unit the timeout unit
+     * @return {@code true} if the command completed or was aborted, {@code false} if the timeout elapsed
+     */
+    boolean await(String commandId, long timeout, TimeUnit unit) throws InterruptedException;
+
+}
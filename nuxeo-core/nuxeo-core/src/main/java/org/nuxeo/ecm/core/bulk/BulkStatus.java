@@ -0,0 +1,116 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.bulk;
+
+import java.io.Serializable;
+
+/**
+ * The status of a command submitted to the {@link BulkService}.
+ *
+ * @since 8.3
+ */
+public class BulkStatus implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public enum State {
+        /** The command is waiting for the scroll to start. */
+        SCHEDULED,
+        /** The ids are being retrieved, some buckets may already be processed. */
+        SCROLLING_RUNNING,
+        /** All the ids have been retrieved, buckets are being processed. */
+        RUNNING,
+        /** All the documents have been processed. */
+        COMPLETED,
+        /** The command failed and was stopped, some documents may not have been processed. */
+        ABORTED,
+    }
+
+    protected final String id;
+
+    protected final State state;
+
+    protected final long submitTime;
+
+    protected final long count;
+
+    protected final long processed;
+
+    protected final long skipped;
+
+    protected final long errors;
+
+    public BulkStatus(String id, State state, long submitTime, long count, long processed, long skipped,
+            long errors) {
+        this.id = id;
+        this.state = state;
+        this.submitTime = submitTime;
+        this.count = count;
+        this.processed = processed;
+        this.skipped = skipped;
+        this.errors = errors;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public long getSubmitTime() {
+        return submitTime;
+    }
+
+    /**
+     * Gets the number of documents to process. Only final once the state is {@link State#RUNNING} or later.
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Gets the number of documents successfully processed.
+     */
+    public long getProcessed() {
+        return processed;
+    }
+
+    /**
+     * Gets the number of documents skipped because they no longer exist or the user cannot read them.
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Gets the number of documents whose processing failed.
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "(" + id + ", " + state + ", " + processed + "+" + skipped + "+" + errors
+                + "/" + count + ")";
+    }
+
+}
@@ -0,0 +1,56 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.bulk.actions;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.nuxeo.ecm.core.api.CoreSession;
+import org.nuxeo.ecm.core.api.DocumentModel;
+import org.nuxeo.ecm.core.api.DocumentRef;
+import org.nuxeo.ecm.core.api.IdRef;
+import org.nuxeo.ecm.core.bulk.BulkAction;
+
+/**
+ * Bulk action setting properties on documents. The parameters of the command are the xpaths and values of the
+ * properties to set.
+ *
+ * @since 8.3
+ */
+public class SetPropertiesAction implements BulkAction {
+
+    @Override
+    public int compute(CoreSession session, List<String> ids, Map<String, Serializable> params) {
+        DocumentRef[] refs = new DocumentRef[ids.size()];
+        for (int i = 0; i < refs.length; i++) {
+            refs[i] = new IdRef(ids.get(i));
+        }
+        List<DocumentModel> docs = session.getDocuments(refs);
+        for (DocumentModel doc : docs) {
+            for (Entry<String, Serializable> en : params.entrySet()) {
+                doc.setPropertyValue(en.getKey(), en.getValue());
+            }
+            session.saveDocument(doc);
+        }
+        return docs.size();
+    }
+
+}
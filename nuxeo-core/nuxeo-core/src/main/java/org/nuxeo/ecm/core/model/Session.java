@@ -27,6 +27,7 @@ import org.nuxeo.ecm.core.api.CoreSession;
 import org.nuxeo.ecm.core.api.DocumentNotFoundException;
 import org.nuxeo.ecm.core.api.IterableQueryResult;
 import org.nuxeo.ecm.core.api.PartialList;
+import org.nuxeo.ecm.core.api.ScrollResult;
 import org.nuxeo.ecm.core.api.VersionModel;
 import org.nuxeo.ecm.core.api.security.ACP;
 import org.nuxeo.ecm.core.query.QueryFilter;
@@ -59,6 +60,27 @@ public interface Session {
     IterableQueryResult queryAndFetch(String query, String queryType, QueryFilter queryFilter,
             boolean distinctDocuments, Object[] params);
 
+    /**
+     * Opens a scroll on an NXQL query and returns the first batch of ids.
+     *
+     * @since 8.3
+     */
+    ScrollResult scroll(String query, int batchSize, int keepAliveSeconds);
+
+    /**
+     * Gets the next batch of ids of a scroll.
+     *
+     * @since 8.3
+     */
+    ScrollResult scroll(String scrollId);
+
+    /**
+     * Closes a scroll.
+     *
+     * @since 8.3
+     */
+    void closeScroll(String scrollId);
+
     /**
      * Gets the lock manager for this session.
      *
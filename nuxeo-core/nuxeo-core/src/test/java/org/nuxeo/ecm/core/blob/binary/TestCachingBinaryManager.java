@@ -0,0 +1,131 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.blob.binary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.nuxeo.ecm.core.api.impl.blob.FileBlob;
+import org.nuxeo.runtime.test.NXRuntimeTestCase;
+
+public class TestCachingBinaryManager extends NXRuntimeTestCase {
+
+    private static final String CONTENT = "this is a file au caf\u00e9";
+
+    private static final String CONTENT_MD5 = "d25ea4f4642073b7f218024d397dbaef";
+
+    /**
+     * Caching binary manager whose storage is kept in memory.
+     */
+    protected static class MemoryCachingBinaryManager extends CachingBinaryManager implements FileStorage {
+
+        protected final Map<String, byte[]> storage = new HashMap<>();
+
+        protected boolean failStore;
+
+        @Override
+        public void initialize(String blobProviderId, Map<String, String> properties) throws IOException {
+            super.initialize(blobProviderId, properties);
+            initializeCache("1 MB", this);
+        }
+
+        @Override
+        public void storeFile(String key, File file) throws IOException {
+            if (failStore) {
+                throw new IOException("store failed");
+            }
+            storage.put(key, FileUtils.readFileToByteArray(file));
+        }
+
+        @Override
+        public boolean fetchFile(String key, File file) throws IOException {
+            byte[] bytes = storage.get(key);
+            if (bytes == null) {
+                return false;
+            }
+            FileUtils.writeByteArrayToFile(file, bytes);
+            return true;
+        }
+    }
+
+    protected static FileBlob createTemporaryBlob() throws IOException {
+        FileBlob blob = new FileBlob(IOUtils.toInputStream(CONTENT, "UTF-8"));
+        assertTrue(blob.isTemporary());
+        return blob;
+    }
+
+    @Test
+    public void testTemporaryBlobKeepsItsFile() throws Exception {
+        MemoryCachingBinaryManager binaryManager = new MemoryCachingBinaryManager();
+        binaryManager.initialize("repo", Collections.emptyMap());
+        try {
+            FileBlob blob = createTemporaryBlob();
+            File file = blob.getFile();
+            Binary binary = binaryManager.getBinary(blob);
+            assertEquals(CONTENT_MD5, binary.getDigest());
+            assertEquals(CONTENT, IOUtils.toString(binary.getStream(), "UTF-8"));
+            assertEquals(CONTENT, new String(binaryManager.storage.get(CONTENT_MD5), "UTF-8"));
+
+            // the blob still owns its original file, even once the cache is emptied
+            assertEquals(file, blob.getFile());
+            binaryManager.fileCache.clear();
+            assertTrue(file.exists());
+            assertEquals(CONTENT, FileUtils.readFileToString(file, "UTF-8"));
+            blob.getFile().delete();
+        } finally {
+            binaryManager.close();
+        }
+    }
+
+    @Test
+    public void testTemporaryBlobStoreFailure() throws Exception {
+        MemoryCachingBinaryManager binaryManager = new MemoryCachingBinaryManager();
+        binaryManager.initialize("repo", Collections.emptyMap());
+        try {
+            binaryManager.failStore = true;
+            FileBlob blob = createTemporaryBlob();
+            File file = blob.getFile();
+            try {
+                binaryManager.getBinary(blob);
+                fail("store should fail");
+            } catch (IOException e) {
+                assertEquals("store failed", e.getMessage());
+            }
+            // the blob is untouched and nothing is left in the cache
+            assertEquals(file, blob.getFile());
+            assertEquals(CONTENT, FileUtils.readFileToString(file, "UTF-8"));
+            assertEquals(0, binaryManager.fileCache.getSize());
+            assertEquals(0, TestDefaultBinaryManager.countFiles(binaryManager.cachedir));
+            blob.getFile().delete();
+        } finally {
+            binaryManager.close();
+        }
+    }
+
+}
@@ -23,13 +23,24 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.junit.Test;
 import org.nuxeo.ecm.core.api.Blobs;
 import org.nuxeo.ecm.core.api.impl.blob.FileBlob;
@@ -37,6 +48,10 @@ import org.nuxeo.runtime.test.NXRuntimeTestCase;
 
 public class TestDefaultBinaryManager extends NXRuntimeTestCase {
 
+    private static final Log log = LogFactory.getLog(TestDefaultBinaryManager.class);
+
+    public static final String BENCHMARK_SIZE_PROP = "nuxeo.test.binary.benchmark.size";
+
     private static final String CONTENT = "this is a file au caf\u00e9";
 
     private static final String CONTENT_MD5 = "d25ea4f4642073b7f218024d397dbaef";
@@ -124,6 +139,103 @@ public class TestDefaultBinaryManager extends NXRuntimeTestCase {
         binaryManager.close();
     }
 
+    @Test
+    public void testIncrementalGarbageCollector() throws Exception {
+        deployBundle("org.nuxeo.ecm.core");
+        deployContrib("org.nuxeo.ecm.core.tests", "OSGI-INF/test-default-blob-provider.xml");
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put(LocalBinaryManager.PROP_GC_INCREMENTAL, "true");
+        properties.put(LocalBinaryManager.PROP_GC_MARK_BATCH_SIZE, "1"); // spill each mark to disk
+        DefaultBinaryManager binaryManager = new DefaultBinaryManager();
+        binaryManager.initialize("repo", properties);
+        BinaryGarbageCollector gc = binaryManager.getGarbageCollector();
+        assertTrue(gc instanceof IncrementalBinaryGarbageCollector);
+
+        binaryManager.getBinary(Blobs.createBlob(CONTENT)); // shard d2
+        binaryManager.getBinary(Blobs.createBlob("abc")); // shard 90, the one we'll GC
+        // sleep before GC to pass its time threshold
+        Thread.sleep(3 * 1000);
+        // create another binary after time threshold, it won't be GCed
+        binaryManager.getBinary(Blobs.createBlob("defg")); // shard 02
+        assertEquals(3, countFiles(binaryManager.getStorageDir()));
+
+        // checkpoint left by an interrupted sweep, shards up to 90 are skipped
+        File gcDir = new File(binaryManager.getStorageDir().getParentFile(), LocalBinaryManager.GC);
+        gcDir.mkdirs();
+        File checkpoint = new File(gcDir, IncrementalBinaryGarbageCollector.CHECKPOINT_FILE);
+        FileUtils.writeStringToFile(checkpoint, IncrementalBinaryGarbageCollector.CHECKPOINT_SHARD + "=90\n");
+        gc.start();
+        assertTrue(gc.isInProgress());
+        gc.mark(CONTENT_MD5);
+        gc.stop(true);
+        assertFalse(gc.isInProgress());
+        BinaryManagerStatus status = gc.getStatus();
+        assertEquals(1, status.numBinaries);
+        assertEquals(0, status.numBinariesGC);
+        assertFalse(checkpoint.exists());
+        assertEquals(3, countFiles(binaryManager.getStorageDir()));
+
+        // full GC
+        gc.start();
+        gc.mark(CONTENT_MD5);
+        gc.mark(CONTENT_MD5);
+        gc.stop(true);
+        status = gc.getStatus();
+        assertEquals(2, status.numBinaries);
+        assertEquals(CONTENT.getBytes("UTF-8").length + 4, status.sizeBinaries);
+        assertEquals(1, status.numBinariesGC);
+        assertEquals(3, status.sizeBinariesGC);
+        // one file gone
+        assertEquals(2, countFiles(binaryManager.getStorageDir()));
+        assertNull(binaryManager.getBinary("900150983cd24fb0d6963f7d28e17f72"));
+        // no marks left behind
+        assertEquals(0, gcDir.list().length);
+
+        binaryManager.close();
+    }
+
+    @Test
+    public void testIncrementalGarbageCollectorConcurrentRuns() throws Exception {
+        deployBundle("org.nuxeo.ecm.core");
+        deployContrib("org.nuxeo.ecm.core.tests", "OSGI-INF/test-default-blob-provider.xml");
+
+        Map<String, String> properties = new HashMap<>();
+        properties.put(LocalBinaryManager.PROP_GC_INCREMENTAL, "true");
+        properties.put(LocalBinaryManager.PROP_GC_MARK_BATCH_SIZE, "1"); // spill each mark to disk
+        // two nodes sharing the same store
+        DefaultBinaryManager binaryManager1 = new DefaultBinaryManager();
+        binaryManager1.initialize("repo", properties);
+        DefaultBinaryManager binaryManager2 = new DefaultBinaryManager();
+        binaryManager2.initialize("repo", properties);
+        assertEquals(binaryManager1.getStorageDir(), binaryManager2.getStorageDir());
+
+        binaryManager1.getBinary(Blobs.createBlob(CONTENT));
+        binaryManager1.getBinary(Blobs.createBlob("abc"));
+        // sleep before GC to pass its time threshold
+        Thread.sleep(3 * 1000);
+
+        // a run started while another one is marking doesn't remove its marks
+        BinaryGarbageCollector gc1 = binaryManager1.getGarbageCollector();
+        BinaryGarbageCollector gc2 = binaryManager2.getGarbageCollector();
+        gc1.start();
+        gc1.mark(CONTENT_MD5);
+        gc2.start();
+        gc2.mark(CONTENT_MD5);
+        gc2.stop(false);
+        gc1.stop(true);
+        assertEquals(1, gc1.getStatus().numBinaries);
+        assertEquals(1, gc1.getStatus().numBinariesGC);
+        assertNotNull(binaryManager1.getBinary(CONTENT_MD5));
+        assertNull(binaryManager1.getBinary("900150983cd24fb0d6963f7d28e17f72"));
+        // no marks left behind
+        File gcDir = new File(binaryManager1.getStorageDir().getParentFile(), LocalBinaryManager.GC);
+        assertEquals(0, gcDir.list().length);
+
+        binaryManager1.close();
+        binaryManager2.close();
+    }
+
     @Test
     public void testTemporaryCopies() throws IOException {
         DefaultBinaryManager binaryManager = new DefaultBinaryManager();
@@ -138,6 +250,72 @@ public class TestDefaultBinaryManager extends NXRuntimeTestCase {
         binaryManager.close();
     }
 
+    @Test
+    public void testFileCopies() throws IOException {
+        DefaultBinaryManager binaryManager = new DefaultBinaryManager();
+        binaryManager.initialize("repo", Collections.emptyMap());
+        File file = File.createTempFile("nxtest-", ".txt");
+        try {
+            FileUtils.writeStringToFile(file, CONTENT, "UTF-8");
+            // not temporary, its file is copied
+            Binary binary = binaryManager.getBinary(new FileBlob(file));
+            assertEquals(CONTENT_MD5, binary.getDigest());
+            assertEquals(CONTENT, IOUtils.toString(binary.getStream(), "UTF-8"));
+            assertTrue(file.exists());
+            assertEquals(1, countFiles(binaryManager.getStorageDir()));
+
+            // already stored
+            binary = binaryManager.getBinary(new FileBlob(file));
+            assertEquals(CONTENT_MD5, binary.getDigest());
+            assertEquals(1, countFiles(binaryManager.getStorageDir()));
+        } finally {
+            file.delete();
+            binaryManager.close();
+        }
+    }
+
+    /**
+     * Compares storing a large file from its stream or from its file. Skipped unless a size in MB is set in the
+     * {@value #BENCHMARK_SIZE_PROP} system property.
+     */
+    @Test
+    public void testStoreBenchmark() throws IOException {
+        long sizeMB = Long.parseLong(System.getProperty(BENCHMARK_SIZE_PROP, "0"));
+        assumeTrue("Benchmark skipped, set " + BENCHMARK_SIZE_PROP + " to run it", sizeMB > 0);
+        DefaultBinaryManager binaryManager = new DefaultBinaryManager();
+        binaryManager.initialize("repo", Collections.emptyMap());
+        File file = File.createTempFile("nxbench-", ".bin");
+        try {
+            byte[] buf = new byte[1024 * 1024];
+            Random random = new Random(0);
+            try (OutputStream out = new FileOutputStream(file)) {
+                for (long i = 0; i < sizeMB; i++) {
+                    random.nextBytes(buf);
+                    out.write(buf);
+                }
+            }
+            long t0 = System.currentTimeMillis();
+            String digest1;
+            try (InputStream in = new FileInputStream(file)) {
+                digest1 = binaryManager.storeAndDigest(in);
+            }
+            long t1 = System.currentTimeMillis();
+            binaryManager.getFileForDigest(digest1, false).delete();
+            long t2 = System.currentTimeMillis();
+            String digest2 = binaryManager.storeAndDigest(file);
+            long t3 = System.currentTimeMillis();
+            String digest3 = binaryManager.storeAndDigest(file);
+            long t4 = System.currentTimeMillis();
+            assertEquals(digest1, digest2);
+            assertEquals(digest1, digest3);
+            log.warn(String.format("Stored %d MB: from stream %d ms, from file %d ms, already stored %d ms", sizeMB,
+                    t1 - t0, t3 - t2, t4 - t3));
+        } finally {
+            file.delete();
+            binaryManager.close();
+        }
+    }
+
     protected static int countFiles(File dir) {
         int n = 0;
         for (File f : dir.listFiles()) {
@@ -0,0 +1,166 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.ecm.core.blob.binary;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.nuxeo.ecm.core.blob.binary.TestDefaultBinaryManager.countFiles;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.nuxeo.ecm.core.api.Blobs;
+import org.nuxeo.runtime.test.NXRuntimeTestCase;
+
+public class TestTieredBinaryManager extends NXRuntimeTestCase {
+
+    private static final String CONTENT = "this is a file au caf\u00e9";
+
+    private static final String CONTENT_MD5 = "d25ea4f4642073b7f218024d397dbaef";
+
+    @Test
+    public void testTieredBinaryManager() throws Exception {
+        deployBundle("org.nuxeo.ecm.core");
+
+        File hotDir = Files.createTempDirectory("nxhot").toFile();
+        File coldDir = Files.createTempDirectory("nxcold").toFile();
+        Map<String, String> properties = new HashMap<>();
+        properties.put(TieredBinaryManager.HOT_PREFIX + BinaryManager.PROP_PATH, hotDir.getAbsolutePath());
+        properties.put(TieredBinaryManager.COLD_PREFIX + BinaryManager.PROP_PATH, coldDir.getAbsolutePath());
+        properties.put(TieredBinaryManager.PROP_COLD_AFTER, "0");
+        properties.put(TieredBinaryManager.PROP_PROMOTE_ON_READ, "false");
+        TieredBinaryManager binaryManager = new TieredBinaryManager();
+        try {
+            binaryManager.initialize("repo", properties);
+            File hotStorage = binaryManager.getHotTier().getStorageDir();
+            File coldStorage = ((LocalBinaryManager) binaryManager.getColdTier()).getStorageDir();
+
+            // new binaries go to the hot tier
+            Binary binary = binaryManager.getBinary(Blobs.createBlob(CONTENT));
+            assertEquals(CONTENT_MD5, binary.getDigest());
+            assertEquals("repo", binary.getBlobProviderId());
+            assertEquals(1, countFiles(hotStorage));
+            assertEquals(0, countFiles(coldStorage));
+
+            // move to cold tier
+            assertEquals(1, binaryManager.demoteUnusedBinaries());
+            assertEquals(0, countFiles(hotStorage));
+            assertEquals(1, countFiles(coldStorage));
+            assertEquals(0, countFiles(binaryManager.accessDir));
+
+            // a binary obtained before the move finds its new tier
+            assertEquals(CONTENT, IOUtils.toString(binary.getStream(), "UTF-8"));
+
+            // still readable with the same digest
+            binary = binaryManager.getBinary(CONTENT_MD5);
+            assertNotNull(binary);
+            assertEquals("repo", binary.getBlobProviderId());
+            assertEquals(CONTENT, IOUtils.toString(binary.getStream(), "UTF-8"));
+
+            // copy back to hot tier
+            assertTrue(binaryManager.promote(CONTENT_MD5));
+            assertFalse(binaryManager.promote(CONTENT_MD5));
+            assertEquals(1, countFiles(hotStorage));
+            assertEquals(1, countFiles(coldStorage));
+            binary = binaryManager.getBinary(CONTENT_MD5);
+            assertEquals(CONTENT, IOUtils.toString(binary.getStream(), "UTF-8"));
+
+            // GC sees both tiers
+            BinaryGarbageCollector gc = binaryManager.getGarbageCollector();
+            gc.start();
+            assertTrue(gc.isInProgress());
+            gc.mark(CONTENT_MD5);
+            gc.stop(false);
+            assertFalse(gc.isInProgress());
+            assertEquals(2, gc.getStatus().numBinaries);
+            assertEquals(0, gc.getStatus().numBinariesGC);
+        } finally {
+            binaryManager.close();
+            FileUtils.deleteQuietly(hotDir);
+            FileUtils.deleteQuietly(coldDir);
+        }
+    }
+
+    protected static TieredBinaryManager createBinaryManager(File hotDir, File coldDir, String coldAfter)
+            throws Exception {
+        Map<String, String> properties = new HashMap<>();
+        properties.put(TieredBinaryManager.HOT_PREFIX + BinaryManager.PROP_PATH, hotDir.getAbsolutePath());
+        properties.put(TieredBinaryManager.COLD_PREFIX + BinaryManager.PROP_PATH, coldDir.getAbsolutePath());
+        properties.put(TieredBinaryManager.PROP_COLD_AFTER, coldAfter);
+        properties.put(TieredBinaryManager.PROP_PROMOTE_ON_READ, "false");
+        TieredBinaryManager binaryManager = new TieredBinaryManager();
+        binaryManager.initialize("repo", properties);
+        return binaryManager;
+    }
+
+    @Test
+    public void testAccessTimesSharedByNodes() throws Exception {
+        deployBundle("org.nuxeo.ecm.core");
+
+        File hotDir = Files.createTempDirectory("nxhot").toFile();
+        File coldDir = Files.createTempDirectory("nxcold").toFile();
+        // two nodes sharing the same tiers
+        TieredBinaryManager binaryManager1 = createBinaryManager(hotDir, coldDir, "3600");
+        TieredBinaryManager binaryManager2 = createBinaryManager(hotDir, coldDir, "3600");
+        try {
+            File hotStorage = binaryManager1.getHotTier().getStorageDir();
+            long old = System.currentTimeMillis() - 2 * 3600 * 1000;
+
+            // read recently on node 1, not demoted by node 2
+            binaryManager1.getBinary(Blobs.createBlob(CONTENT));
+            File accessFile = binaryManager1.getAccessFile(CONTENT_MD5);
+            assertTrue(accessFile.setLastModified(old));
+            // loading the binary isn't a read
+            Binary binary = binaryManager1.getBinary(CONTENT_MD5);
+            assertNotNull(binary);
+            assertEquals(old / 1000, accessFile.lastModified() / 1000);
+            assertEquals(CONTENT, IOUtils.toString(binary.getStream(), "UTF-8"));
+            assertTrue(accessFile.lastModified() > old);
+            assertEquals(0, binaryManager2.demoteUnusedBinaries());
+            assertEquals(1, countFiles(hotStorage));
+
+            // not read recently, demoted by node 2
+            assertTrue(accessFile.setLastModified(old));
+            assertEquals(1, binaryManager2.demoteUnusedBinaries());
+            assertEquals(0, countFiles(hotStorage));
+            assertFalse(accessFile.exists());
+
+            // access files of binaries removed from the hot tier by other means are pruned
+            binaryManager1.getBinary(Blobs.createBlob(CONTENT));
+            assertTrue(accessFile.exists());
+            assertTrue(binaryManager1.getHotTier().getFileForDigest(CONTENT_MD5, false).delete());
+            assertEquals(0, binaryManager2.demoteUnusedBinaries());
+            assertFalse(accessFile.exists());
+            assertEquals(0, countFiles(binaryManager2.accessDir));
+        } finally {
+            binaryManager1.close();
+            binaryManager2.close();
+            FileUtils.deleteQuietly(hotDir);
+            FileUtils.deleteQuietly(coldDir);
+        }
+    }
+
+}
@@ -19,11 +19,12 @@
 package org.nuxeo.ecm.automation.server.jaxrs.batch;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.io.Serializable;
+import java.nio.channels.FileChannel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -219,12 +220,14 @@ public class BatchFileEntry {
                 TransientStore ts = bm.getTransientStore();
                 // Sort chunk indexes and concatenate them to build the entire blob
                 List<Integer> sortedChunkIndexes = getOrderedChunkIndexes();
+                List<Blob> chunkBlobs = new ArrayList<>(sortedChunkIndexes.size());
                 for (int index : sortedChunkIndexes) {
                     Blob chunk = getChunk(ts, chunks.get(index));
                     if (chunk != null) {
-                        transferTo(chunk, tmpChunkedFile);
+                        chunkBlobs.add(chunk);
                     }
                 }
+                transferTo(chunkBlobs, tmpChunkedFile);
                 // Store tmpChunkedFile as a parameter for later deletion
                 ts.putParameter(key, "tmpChunkedFilePath", tmpChunkedFile.getAbsolutePath());
                 chunkedBlob.setMimeType(getMimeType());
@@ -251,12 +254,30 @@ public class BatchFileEntry {
     }
 
     /**
-     * Appends the given blob to the given file.
+     * Appends the given blobs to the given file, opened only once.
+     * <p>
+     * File-backed blobs are transferred between file channels, which lets the OS copy the data without reading it into
+     * the JVM.
+     *
+     * @since 8.3
      */
-    protected void transferTo(Blob blob, File file) throws IOException {
-        try (OutputStream out = new FileOutputStream(file, true)) {
-            try (InputStream in = blob.getStream()) {
-                IOUtils.copy(in, out);
+    protected void transferTo(List<Blob> blobs, File file) throws IOException {
+        try (FileOutputStream out = new FileOutputStream(file, true); FileChannel outChannel = out.getChannel()) {
+            for (Blob blob : blobs) {
+                File blobFile = blob.getFile();
+                if (blobFile == null) {
+                    try (InputStream in = blob.getStream()) {
+                        IOUtils.copy(in, out);
+                    }
+                    continue;
+                }
+                try (FileInputStream in = new FileInputStream(blobFile); FileChannel inChannel = in.getChannel()) {
+                    long size = inChannel.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += inChannel.transferTo(position, size - position, outChannel);
+                    }
+                }
             }
         }
     }
@@ -274,8 +295,8 @@ public class BatchFileEntry {
                     "Cannot add chunk with index %d to file entry %s as chunk count is %d.", index, key, chunkCount));
         }
         if (getChunks().containsKey(index)) {
-            throw new NuxeoException(String.format(
-                    "Cannot add chunk with index %d to file entry %s as it already exists.", index, key));
+            // Resumed upload, the chunk replaces the previously uploaded one
+            log.debug(String.format("Replacing chunk with index %d of file entry %s", index, key));
         }
 
         String chunkEntryKey = key + "_" + index;
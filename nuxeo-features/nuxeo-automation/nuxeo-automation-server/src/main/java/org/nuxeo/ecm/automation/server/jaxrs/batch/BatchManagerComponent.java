@@ -30,6 +30,7 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.commons.io.input.CountingInputStream;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -44,9 +45,15 @@ import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.transientstore.api.TransientStore;
 import org.nuxeo.ecm.core.transientstore.api.TransientStoreService;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.model.DefaultComponent;
 import org.nuxeo.runtime.services.config.ConfigurationService;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+import com.codahale.metrics.Timer;
+
 /**
  * Runtime Component implementing the {@link BatchManager} service with the {@link TransientStore}.
  *
@@ -62,6 +69,17 @@ public class BatchManagerComponent extends DefaultComponent implements BatchMana
 
     protected final AtomicInteger uploadInProgress = new AtomicInteger(0);
 
+    protected final MetricRegistry registry = SharedMetricRegistries.getOrCreate(MetricsService.class.getName());
+
+    /** @since 8.3 */
+    protected final Meter uploadedBytes = registry.meter(MetricRegistry.name("nuxeo", "batchupload", "bytes"));
+
+    /** @since 8.3 */
+    protected final Timer fileUploadTimer = registry.timer(MetricRegistry.name("nuxeo", "batchupload", "files"));
+
+    /** @since 8.3 */
+    protected final Timer chunkUploadTimer = registry.timer(MetricRegistry.name("nuxeo", "batchupload", "chunks"));
+
     static {
         ComplexTypeJSONDecoder.registerBlobDecoder(new JSONBatchBlobDecoder());
     }
@@ -115,14 +133,18 @@ public class BatchManagerComponent extends DefaultComponent implements BatchMana
     @Override
     public void addStream(String batchId, String index, InputStream is, String name, String mime) throws IOException {
         uploadInProgress.incrementAndGet();
+        Timer.Context timerContext = fileUploadTimer.time();
+        CountingInputStream cis = new CountingInputStream(is);
         try {
             Batch batch = getBatch(batchId);
             if (batch == null) {
                 batch = initBatchInternal(batchId);
             }
-            batch.addFile(index, is, name, mime);
+            batch.addFile(index, cis, name, mime);
             log.debug(String.format("Added file %s [%s] to batch %s", index, name, batch.getKey()));
         } finally {
+            uploadedBytes.mark(cis.getByteCount());
+            timerContext.stop();
             uploadInProgress.decrementAndGet();
         }
     }
@@ -131,15 +153,19 @@ public class BatchManagerComponent extends DefaultComponent implements BatchMana
     public void addStream(String batchId, String index, InputStream is, int chunkCount, int chunkIndex, String name,
             String mime, long fileSize) throws IOException {
         uploadInProgress.incrementAndGet();
+        Timer.Context timerContext = chunkUploadTimer.time();
+        CountingInputStream cis = new CountingInputStream(is);
         try {
             Batch batch = getBatch(batchId);
             if (batch == null) {
                 batch = initBatchInternal(batchId);
             }
-            batch.addChunk(index, is, chunkCount, chunkIndex, name, mime, fileSize);
+            batch.addChunk(index, cis, chunkCount, chunkIndex, name, mime, fileSize);
             log.debug(String.format("Added chunk %s to file %s [%s] in batch %s", chunkIndex, index, name,
                     batch.getKey()));
         } finally {
+            uploadedBytes.mark(cis.getByteCount());
+            timerContext.stop();
             uploadInProgress.decrementAndGet();
         }
     }
@@ -53,12 +53,17 @@ import org.nuxeo.ecm.core.test.CoreFeature;
 import org.nuxeo.ecm.core.transientstore.AbstractTransientStore;
 import org.nuxeo.ecm.core.transientstore.api.TransientStore;
 import org.nuxeo.runtime.api.Framework;
+import org.nuxeo.runtime.metrics.MetricsService;
 import org.nuxeo.runtime.test.runner.Deploy;
 import org.nuxeo.runtime.test.runner.Features;
 import org.nuxeo.runtime.test.runner.FeaturesRunner;
 import org.nuxeo.runtime.test.runner.RuntimeHarness;
 import org.nuxeo.transientstore.test.TransientStoreFeature;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.SharedMetricRegistries;
+
 /**
  * @since 7.10
  */
@@ -257,6 +262,32 @@ public class BatchManagerFixture {
         assertEquals(0, ts.getStorageSizeMB());
     }
 
+    @Test
+    public void testResumeChunkStream() throws IOException {
+        BatchManager bm = Framework.getService(BatchManager.class);
+        String batchId = bm.initBatch();
+        Meter uploadedBytes = SharedMetricRegistries.getOrCreate(MetricsService.class.getName()).meter(
+                MetricRegistry.name("nuxeo", "batchupload", "bytes"));
+        long uploadedBytesCount = uploadedBytes.getCount();
+
+        bm.addStream(batchId, "0", new ByteArrayInputStream("Chunk 1 ".getBytes()), 2, 0, "chunkedFile.txt",
+                "text/plain", 16);
+        // First upload of the second chunk interrupted
+        bm.addStream(batchId, "0", new ByteArrayInputStream("Chu".getBytes()), 2, 1, "chunkedFile.txt",
+                "text/plain", 16);
+        // Resumed upload sends the chunk again
+        bm.addStream(batchId, "0", new ByteArrayInputStream("Chunk 2 ".getBytes()), 2, 1, "chunkedFile.txt",
+                "text/plain", 16);
+
+        BatchFileEntry fileEntry = bm.getFileEntry(batchId, "0");
+        assertEquals(Arrays.asList(0, 1), fileEntry.getOrderedChunkIndexes());
+        assertTrue(fileEntry.isChunksCompleted());
+        assertEquals("Chunk 1 Chunk 2 ", bm.getBlob(batchId, "0").getString());
+        assertEquals(uploadedBytesCount + 19, uploadedBytes.getCount());
+
+        bm.clean(batchId);
+    }
+
     @Test
     public void testBatchCleanup() throws IOException {
         BatchManager bm = Framework.getService(BatchManager.class);
@@ -0,0 +1,93 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.runtime.kv;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Key/Value Store common methods, doing the conversions between strings and bytes.
+ *
+ * @since 8.3
+ */
+public abstract class AbstractKeyValueStoreProvider implements KeyValueStoreProvider {
+
+    protected static final ThreadLocal<CharsetDecoder> UTF_8_DECODERS = new ThreadLocal<CharsetDecoder>() {
+        @Override
+        protected CharsetDecoder initialValue() {
+            return StandardCharsets.UTF_8.newDecoder()
+                                         .onMalformedInput(CodingErrorAction.REPORT)
+                                         .onUnmappableCharacter(CodingErrorAction.REPORT);
+        }
+    };
+
+    protected String name;
+
+    @Override
+    public void initialize(KeyValueStoreDescriptor descriptor) {
+        name = descriptor.getName();
+    }
+
+    protected static byte[] toBytes(String string) {
+        return string == null ? null : string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    protected static String toString(byte[] bytes) {
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            return UTF_8_DECODERS.get().decode(ByteBuffer.wrap(bytes)).toString();
+        } catch (CharacterCodingException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    @Override
+    public void put(String key, String value, long ttl) {
+        put(key, toBytes(value), ttl);
+    }
+
+    @Override
+    public String getString(String key) {
+        return toString(get(key));
+    }
+
+    @Override
+    public Map<String, String> getStrings(Collection<String> keys) {
+        Map<String, byte[]> map = get(keys);
+        Map<String, String> strings = new HashMap<>(map.size());
+        for (Map.Entry<String, byte[]> en : map.entrySet()) {
+            strings.put(en.getKey(), toString(en.getValue()));
+        }
+        return strings;
+    }
+
+    @Override
+    public boolean compareAndSet(String key, String expected, String value, long ttl) {
+        return compareAndSet(key, toBytes(expected), toBytes(value), ttl);
+    }
+
+}
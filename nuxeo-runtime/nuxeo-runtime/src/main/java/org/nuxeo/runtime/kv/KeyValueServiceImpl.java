@@ -0,0 +1,110 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.runtime.kv;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.nuxeo.runtime.RuntimeServiceException;
+import org.nuxeo.runtime.model.ComponentContext;
+import org.nuxeo.runtime.model.ComponentInstance;
+import org.nuxeo.runtime.model.DefaultComponent;
+
+/**
+ * Key/Value Service implementation.
+ *
+ * @since 8.3
+ */
+public class KeyValueServiceImpl extends DefaultComponent implements KeyValueService {
+
+    private static final Log log = LogFactory.getLog(KeyValueServiceImpl.class);
+
+    public static final String XP_CONFIG = "configuration";
+
+    public static final String DEFAULT_STORE_ID = "default";
+
+    protected final Map<String, KeyValueStoreDescriptor> descriptors = new ConcurrentHashMap<>();
+
+    protected final Map<String, KeyValueStoreProvider> providers = new ConcurrentHashMap<>();
+
+    @Override
+    public void registerContribution(Object contribution, String extensionPoint, ComponentInstance contributor) {
+        if (XP_CONFIG.equals(extensionPoint)) {
+            KeyValueStoreDescriptor descriptor = (KeyValueStoreDescriptor) contribution;
+            descriptors.put(descriptor.getName(), descriptor);
+            // recreated lazily with the new configuration
+            closeProvider(descriptor.getName());
+        } else {
+            throw new RuntimeServiceException("Unknown extension point: " + extensionPoint);
+        }
+    }
+
+    @Override
+    public void unregisterContribution(Object contribution, String extensionPoint, ComponentInstance contributor) {
+        if (XP_CONFIG.equals(extensionPoint)) {
+            KeyValueStoreDescriptor descriptor = (KeyValueStoreDescriptor) contribution;
+            descriptors.remove(descriptor.getName());
+            closeProvider(descriptor.getName());
+        }
+    }
+
+    @Override
+    public void deactivate(ComponentContext context) {
+        for (String name : providers.keySet()) {
+            closeProvider(name);
+        }
+        super.deactivate(context);
+    }
+
+    protected void closeProvider(String name) {
+        KeyValueStoreProvider provider = providers.remove(name);
+        if (provider != null) {
+            provider.close();
+        }
+    }
+
+    @Override
+    public KeyValueStore getKeyValueStore(String name) {
+        if (!descriptors.containsKey(name)) {
+            name = DEFAULT_STORE_ID;
+        }
+        return providers.computeIfAbsent(name, this::newProvider);
+    }
+
+    protected KeyValueStoreProvider newProvider(String name) {
+        KeyValueStoreDescriptor descriptor = descriptors.get(name);
+        if (descriptor == null) {
+            throw new RuntimeServiceException("Missing configuration for Key/Value store: " + name);
+        }
+        KeyValueStoreProvider provider;
+        try {
+            provider = descriptor.getKlass().newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeServiceException("Cannot instantiate Key/Value store: " + name, e);
+        }
+        provider.initialize(descriptor);
+        if (log.isDebugEnabled()) {
+            log.debug("Initialized Key/Value store: " + name + " (" + provider.getClass().getName() + ")");
+        }
+        return provider;
+    }
+
+}
@@ -0,0 +1,186 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.runtime.kv;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Key/Value Store.
+ * <p>
+ * This is the interface for a Key/Value store, which stores simple values associated to keys.
+ * <p>
+ * A Key/Value store is thread-safe. Depending on the implementation, it may be shared by all the nodes of a cluster.
+ * <p>
+ * Values can be bytes, strings or longs. Longs are stored as their decimal string representation, so that
+ * {@link #addAndGet} and {@link #getLong} work on values put either as strings or as longs.
+ * <p>
+ * A TTL (time to live), in seconds, can be specified when putting a value, after which the key is removed. A TTL of
+ * {@code 0} means no expiration.
+ *
+ * @since 8.3
+ */
+public interface KeyValueStore {
+
+    /**
+     * Sets the value associated to the key.
+     *
+     * @param key the key
+     * @param value the value, which may be {@code null} to remove the key
+     */
+    default void put(String key, byte[] value) {
+        put(key, value, 0);
+    }
+
+    /**
+     * Sets the value associated to the key, with a TTL.
+     *
+     * @param key the key
+     * @param value the value, which may be {@code null} to remove the key
+     * @param ttl the TTL of the value, in seconds, or {@code 0} for no expiration
+     */
+    void put(String key, byte[] value, long ttl);
+
+    /**
+     * Sets the string value associated to the key.
+     */
+    default void put(String key, String value) {
+        put(key, value, 0);
+    }
+
+    /**
+     * Sets the string value associated to the key, with a TTL.
+     */
+    void put(String key, String value, long ttl);
+
+    /**
+     * Sets the long value associated to the key.
+     */
+    default void put(String key, Long value) {
+        put(key, value, 0);
+    }
+
+    /**
+     * Sets the long value associated to the key, with a TTL.
+     */
+    default void put(String key, Long value, long ttl) {
+        put(key, value == null ? null : value.toString(), ttl);
+    }
+
+    /**
+     * Retrieves the value associated to the key.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if there is no value
+     */
+    byte[] get(String key);
+
+    /**
+     * Retrieves the string value associated to the key.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if there is no value
+     * @throws IllegalArgumentException if the value cannot be returned as a string
+     */
+    String getString(String key);
+
+    /**
+     * Retrieves the long value associated to the key.
+     *
+     * @param key the key
+     * @return the value, or {@code null} if there is no value
+     * @throws NumberFormatException if the value cannot be returned as a long
+     */
+    default Long getLong(String key) {
+        String value = getString(key);
+        return value == null ? null : Long.valueOf(value);
+    }
+
+    /**
+     * Retrieves the values associated to the keys, in one call.
+     *
+     * @param keys the keys
+     * @return a map of the keys having a value to their value
+     */
+    Map<String, byte[]> get(Collection<String> keys);
+
+    /**
+     * Retrieves the string values associated to the keys, in one call.
+     *
+     * @param keys the keys
+     * @return a map of the keys having a value to their value
+     */
+    Map<String, String> getStrings(Collection<String> keys);
+
+    /**
+     * Sets the TTL of an existing key.
+     *
+     * @param key the key
+     * @param ttl the TTL, in seconds, or {@code 0} for no expiration
+     * @return {@code true} if the key exists
+     */
+    boolean setTTL(String key, long ttl);
+
+    /**
+     * Atomically sets the value associated to the key to the given value if the current value is the expected value.
+     *
+     * @param key the key
+     * @param expected the expected value, which may be {@code null} to expect no value
+     * @param value the new value, which may be {@code null} to remove the key
+     * @return {@code true} if the value was updated
+     */
+    default boolean compareAndSet(String key, byte[] expected, byte[] value) {
+        return compareAndSet(key, expected, value, 0);
+    }
+
+    /**
+     * Atomically sets the value associated to the key to the given value, with a TTL, if the current value is the
+     * expected value.
+     *
+     * @param key the key
+     * @param expected the expected value, which may be {@code null} to expect no value
+     * @param value the new value, which may be {@code null} to remove the key
+     * @param ttl the TTL of the new value, in seconds, or {@code 0} for no expiration
+     * @return {@code true} if the value was updated
+     */
+    boolean compareAndSet(String key, byte[] expected, byte[] value, long ttl);
+
+    /**
+     * Atomically sets the string value associated to the key if the current value is the expected value.
+     */
+    default boolean compareAndSet(String key, String expected, String value) {
+        return compareAndSet(key, expected, value, 0);
+    }
+
+    /**
+     * Atomically sets the string value associated to the key, with a TTL, if the current value is the expected value.
+     */
+    boolean compareAndSet(String key, String expected, String value, long ttl);
+
+    /**
+     * Atomically adds the delta to the long value associated to the key, interpreting a missing value as {@code 0}.
+     *
+     * @param key the key
+     * @param delta the delta
+     * @return the value after the addition
+     * @throws NumberFormatException if the existing value cannot be interpreted as a long
+     */
+    long addAndGet(String key, long delta);
+
+}
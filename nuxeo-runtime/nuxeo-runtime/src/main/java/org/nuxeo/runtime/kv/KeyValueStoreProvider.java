@@ -0,0 +1,45 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.runtime.kv;
+
+/**
+ * Key/Value Store SPI.
+ *
+ * @since 8.3
+ */
+public interface KeyValueStoreProvider extends KeyValueStore {
+
+    /**
+     * Initializes this Key/Value store provider.
+     *
+     * @param descriptor the store provider descriptor
+     */
+    void initialize(KeyValueStoreDescriptor descriptor);
+
+    /**
+     * Shuts down this Key/Value provider.
+     */
+    void close();
+
+    /**
+     * Clears the content of this Key/Value store provider.
+     */
+    void clear();
+
+}
@@ -0,0 +1,160 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.runtime.kv;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Memory-based implementation of a Key/Value store, local to the current node.
+ *
+ * @since 8.3
+ */
+public class MemKeyValueStore extends AbstractKeyValueStoreProvider {
+
+    protected static class Entry {
+
+        protected final byte[] value;
+
+        /** Expiration time in milliseconds, or {@code 0} for no expiration. */
+        protected final long expiration;
+
+        protected Entry(byte[] value, long ttl) {
+            this.value = value;
+            expiration = ttl == 0 ? 0 : System.currentTimeMillis() + ttl * 1000;
+        }
+
+        protected boolean isExpired(long now) {
+            return expiration != 0 && now >= expiration;
+        }
+    }
+
+    /** Default minimum interval between two purges of the expired entries, in milliseconds. */
+    public static final long DEFAULT_PURGE_INTERVAL = 60 * 1000;
+
+    // all accesses are synchronized
+    protected final Map<String, Entry> map = new HashMap<>();
+
+    /** Minimum interval between two purges of the expired entries, in milliseconds. */
+    protected long purgeInterval = DEFAULT_PURGE_INTERVAL;
+
+    /** Time after which the next write purges the expired entries. */
+    protected long nextPurge;
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public synchronized void clear() {
+        map.clear();
+    }
+
+    /** Gets the non-expired entry for a key. Must be called synchronized. */
+    protected Entry getEntry(String key) {
+        Entry entry = map.get(key);
+        if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+            map.remove(key);
+            entry = null;
+        }
+        return entry;
+    }
+
+    /** Sets the value for a key. Must be called synchronized. */
+    protected void putEntry(String key, byte[] value, long ttl) {
+        purgeExpiredEntries();
+        if (value == null) {
+            map.remove(key);
+        } else {
+            map.put(key, new Entry(value.clone(), ttl));
+        }
+    }
+
+    /**
+     * Removes the expired entries that were never read again, at most once per purge interval. Must be called
+     * synchronized.
+     */
+    protected void purgeExpiredEntries() {
+        long now = System.currentTimeMillis();
+        if (now < nextPurge) {
+            return;
+        }
+        nextPurge = now + purgeInterval;
+        map.values().removeIf(entry -> entry.isExpired(now));
+    }
+
+    @Override
+    public synchronized void put(String key, byte[] value, long ttl) {
+        putEntry(key, value, ttl);
+    }
+
+    @Override
+    public synchronized byte[] get(String key) {
+        Entry entry = getEntry(key);
+        return entry == null ? null : entry.value.clone();
+    }
+
+    @Override
+    public synchronized Map<String, byte[]> get(Collection<String> keys) {
+        Map<String, byte[]> values = new HashMap<>(keys.size());
+        for (String key : keys) {
+            Entry entry = getEntry(key);
+            if (entry != null) {
+                values.put(key, entry.value.clone());
+            }
+        }
+        return values;
+    }
+
+    @Override
+    public synchronized boolean setTTL(String key, long ttl) {
+        Entry entry = getEntry(key);
+        if (entry == null) {
+            return false;
+        }
+        purgeExpiredEntries();
+        map.put(key, new Entry(entry.value, ttl));
+        return true;
+    }
+
+    @Override
+    public synchronized boolean compareAndSet(String key, byte[] expected, byte[] value, long ttl) {
+        Entry entry = getEntry(key);
+        byte[] current = entry == null ? null : entry.value;
+        if (!Arrays.equals(current, expected)) {
+            return false;
+        }
+        putEntry(key, value, ttl);
+        return true;
+    }
+
+    @Override
+    public synchronized long addAndGet(String key, long delta) {
+        Entry entry = getEntry(key);
+        long value = (entry == null ? 0 : Long.parseLong(toString(entry.value))) + delta;
+        // keep the current expiration
+        long ttl = entry == null || entry.expiration == 0 ? 0
+                : Math.max(1, (entry.expiration - System.currentTimeMillis()) / 1000);
+        putEntry(key, toBytes(Long.toString(value)), ttl);
+        return value;
+    }
+
+}
@@ -0,0 +1,116 @@
+/*
+ * (C) Copyright 2016 Nuxeo SA (http://nuxeo.com/) and others.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Contributors:
+ *     agent
+ */
+package org.nuxeo.runtime.kv;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TestMemKeyValueStore {
+
+    protected KeyValueStoreProvider store;
+
+    @Before
+    public void setUp() {
+        KeyValueStoreDescriptor descriptor = new KeyValueStoreDescriptor();
+        descriptor.name = "test";
+        store = new MemKeyValueStore();
+        store.initialize(descriptor);
+    }
+
+    @Test
+    public void testPutGet() {
+        assertNull(store.get("foo"));
+        store.put("foo", new byte[] { 1, 2, 3 });
+        assertArrayEquals(new byte[] { 1, 2, 3 }, store.get("foo"));
+        store.put("foo", "bar");
+        assertEquals("bar", store.getString("foo"));
+        store.put("foo", Long.valueOf(123));
+        assertEquals(Long.valueOf(123), store.getLong("foo"));
+        assertEquals("123", store.getString("foo"));
+        store.put("foo", (String) null);
+        assertNull(store.get("foo"));
+    }
+
+    @Test
+    public void testBulkGet() {
+        store.put("a", "A");
+        store.put("b", "B");
+        Map<String, String> values = store.getStrings(Arrays.asList("a", "b", "c"));
+        assertEquals(2, values.size());
+        assertEquals("A", values.get("a"));
+        assertEquals("B", values.get("b"));
+    }
+
+    @Test
+    public void testCompareAndSet() {
+        assertFalse(store.compareAndSet("foo", "bar", "gee"));
+        assertTrue(store.compareAndSet("foo", null, "bar"));
+        assertFalse(store.compareAndSet("foo", null, "gee"));
+        assertFalse(store.compareAndSet("foo", "notbar", "gee"));
+        assertTrue(store.compareAndSet("foo", "bar", "gee"));
+        assertEquals("gee", store.getString("foo"));
+        assertTrue(store.compareAndSet("foo", "gee", null));
+        assertNull(store.get("foo"));
+    }
+
+    @Test
+    public void testAddAndGet() {
+        assertEquals(5, store.addAndGet("counter", 5));
+        assertEquals(3, store.addAndGet("counter", -2));
+        assertEquals(Long.valueOf(3), store.getLong("counter"));
+        store.put("counter", "10");
+        assertEquals(11, store.addAndGet("counter", 1));
+    }
+
+    @Test
+    public void testTTL() throws Exception {
+        store.put("foo", "bar", 1);
+        assertEquals("bar", store.getString("foo"));
+        assertFalse(store.setTTL("nosuchkey", 1));
+        assertTrue(store.setTTL("foo", 0));
+        Thread.sleep(1100);
+        assertEquals("bar", store.getString("foo"));
+        assertTrue(store.setTTL("foo", 1));
+        Thread.sleep(1100);
+        assertNull(store.get("foo"));
+    }
+
+    @Test
+    public void testPurgeExpired() throws Exception {
+        MemKeyValueStore mem = (MemKeyValueStore) store;
+        mem.purgeInterval = 0;
+        store.put("foo", "bar", 1);
+        store.put("gee", "moo");
+        Thread.sleep(1100);
+        // expired entry purged on the next write even if never read
+        store.put("abc", "def");
+        assertEquals(2, mem.map.size());
+        assertFalse(mem.map.containsKey("foo"));
+    }
+
+}
@@ -24,6 +24,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
+import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.nuxeo.ecm.core.api.CoreSession;
@@ -32,6 +33,7 @@ import org.nuxeo.ecm.core.api.DocumentModelList;
 import org.nuxeo.ecm.core.api.Filter;
 import org.nuxeo.ecm.core.api.NuxeoException;
 import org.nuxeo.ecm.core.api.SortInfo;
+import org.nuxeo.ecm.core.schema.PrefetchRequest;
 import org.nuxeo.ecm.platform.query.api.AbstractPageProvider;
 import org.nuxeo.ecm.platform.query.api.PageProviderDefinition;
 import org.nuxeo.ecm.platform.query.api.PageSelections;
@@ -50,6 +52,9 @@ import org.nuxeo.runtime.services.config.ConfigurationService;
  * Since 6.0, the page provider property named {@link #USE_UNRESTRICTED_SESSION_PROPERTY} allows specifying whether the
  * query should be run as unrestricted. When such a property is set to "true", the additional property
  * {@link #DETACH_DOCUMENTS_PROPERTY} is used to detach documents (defaults to true when session is unrestricted).
+ * <p>
+ * Since 8.3, the optional page provider property named {@link #PREFETCH_PROPERTY} lists schemas or fields that will be
+ * read on the documents of a page, so that they are fetched together with the documents.
  *
  * @author Anahide Tchertchian
  * @since 5.4
@@ -89,6 +94,14 @@ public class CoreQueryDocumentPageProvider extends AbstractPageProvider<Document
      */
     public static final String DETACH_DOCUMENTS_PROPERTY = "detachDocuments";
 
+    /**
+     * Schemas or fields to prefetch for the documents of a page, with the same syntax as the prefetch of a document
+     * type, for instance {@code "dublincore, file"}.
+     *
+     * @since 8.3
+     */
+    public static final String PREFETCH_PROPERTY = "prefetch";
+
     private static final Log log = LogFactory.getLog(CoreQueryDocumentPageProvider.class);
 
     private static final long serialVersionUID = 1L;
@@ -135,25 +148,37 @@ public class CoreQueryDocumentPageProvider extends AbstractPageProvider<Document
                 final boolean useUnrestricted = useUnrestrictedSession();
 
                 final boolean detachDocs = detachDocuments();
-                if (maxResults > 0) {
-                    if (useUnrestricted) {
-                        CoreQueryUnrestrictedSessionRunner r = new CoreQueryUnrestrictedSessionRunner(coreSession,
-                                query, filter, minMaxPageSize, offset, false, maxResults, detachDocs);
-                        r.runUnrestricted();
-                        docs = r.getDocs();
+                PrefetchRequest prefetchRequest = openPrefetchRequest();
+                try {
+                    if (maxResults > 0) {
+                        if (useUnrestricted) {
+                            CoreQueryUnrestrictedSessionRunner r = new CoreQueryUnrestrictedSessionRunner(coreSession,
+                                    query, filter, minMaxPageSize, offset, false, maxResults, detachDocs);
+                            r.runUnrestricted();
+                            docs = r.getDocs();
+                        } else {
+                            docs = coreSession.query(query, getFilter(), minMaxPageSize, offset, maxResults);
+                        }
                     } else {
-                        docs = coreSession.query(query, getFilter(), minMaxPageSize, offset, maxResults);
+                        // use a totalCount=true instead of countUpTo=-1 to
+                        // enable global limitation described in NXP-9381
+                        if (useUnrestricted) {
+                            CoreQueryUnrestrictedSessionRunner r = new CoreQueryUnrestrictedSessionRunner(coreSession,
+                                    query, filter, minMaxPageSize, offset, true, maxResults, detachDocs);
+                            r.runUnrestricted();
+                            docs = r.getDocs();
+                        } else {
+                            docs = coreSession.query(query, getFilter(), minMaxPageSize, offset, true);
+                        }
                     }
-                } else {
-                    // use a totalCount=true instead of countUpTo=-1 to
-                    // enable global limitation described in NXP-9381
-                    if (useUnrestricted) {
-                        CoreQueryUnrestrictedSessionRunner r = new CoreQueryUnrestrictedSessionRunner(coreSession,
-                                query, filter, minMaxPageSize, offset, true, maxResults, detachDocs);
-                        r.runUnrestricted();
-                        docs = r.getDocs();
-                    } else {
-                        docs = coreSession.query(query, getFilter(), minMaxPageSize, offset, true);
+                } finally {
+                    if (prefetchRequest != null) {
+                        prefetchRequest.close();
+                        if (log.isDebugEnabled()) {
+                            log.debug(String.format("Prefetched %s documents for provider '%s' from %s tables",
+                                    Integer.valueOf(prefetchRequest.getDocumentCount()), getName(),
+                                    Integer.valueOf(prefetchRequest.getTableCount())));
+                        }
                     }
                 }
 
@@ -261,6 +286,19 @@ public class CoreQueryDocumentPageProvider extends AbstractPageProvider<Document
         return getBooleanProperty(USE_UNRESTRICTED_SESSION_PROPERTY, false);
     }
 
+    /**
+     * Opens a prefetch request for the schemas or fields of the {@link #PREFETCH_PROPERTY}, if any.
+     *
+     * @since 8.3
+     */
+    protected PrefetchRequest openPrefetchRequest() {
+        Serializable prefetch = getProperties().get(PREFETCH_PROPERTY);
+        if (prefetch == null || StringUtils.isBlank(prefetch.toString())) {
+            return null;
+        }
+        return PrefetchRequest.open(prefetch.toString());
+    }
+
     protected boolean detachDocuments() {
         return getBooleanProperty(DETACH_DOCUMENTS_PROPERTY, true);
     }